@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -126,7 +126,25 @@ public class AsyncExecutionInterceptor extends AsyncExecutionAspectSupport imple
 			return null;
 		};
 
-		return doSubmit(task, executor, invocation.getMethod().getReturnType());
+		return doSubmit(task, executor, invocation.getMethod().getReturnType(), userDeclaredMethod);
+	}
+
+	/**
+	 * Delegate for actually executing the given task for the given method
+	 * with the chosen executor.
+	 * <p>The default implementation simply delegates to
+	 * {@link #doSubmit(Callable, AsyncTaskExecutor, Class)}. Can be overridden
+	 * to expose the target method to the executor, e.g. for tagging metrics.
+	 * @param task the task to execute
+	 * @param executor the chosen executor
+	 * @param returnType the declared return type (potentially a {@link Future} variant)
+	 * @param method the user-declared method that is being invoked asynchronously
+	 * @return the execution result (potentially a corresponding {@link Future} handle)
+	 * @since 5.1
+	 */
+	@Nullable
+	protected Object doSubmit(Callable<Object> task, AsyncTaskExecutor executor, Class<?> returnType, Method method) {
+		return doSubmit(task, executor, returnType);
 	}
 
 	/**
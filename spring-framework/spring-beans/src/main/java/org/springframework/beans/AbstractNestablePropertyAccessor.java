@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,13 +24,16 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.security.PrivilegedActionException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -86,6 +89,30 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	@Nullable
 	Object rootObject;
 
+	/** Maximum number of entries in the shared cache of parsed property paths */
+	private static final int COMPILED_PROPERTY_PATH_CACHE_LIMIT = 4096;
+
+	/**
+	 * Cache of parsed property paths, shared across accessors: property path -> CompiledPropertyPath.
+	 * Only holds paths that have been resolved against an existing property,
+	 * since arbitrary paths may come from untrusted input such as request parameter names.
+	 */
+	private static final Map<String, CompiledPropertyPath> compiledPropertyPaths = new ConcurrentHashMap<>(256);
+
+	/** Cached property paths in insertion order, evicting the eldest beyond the cache limit */
+	@SuppressWarnings("serial")
+	private static final Map<String, CompiledPropertyPath> compiledPropertyPathsInOrder =
+			new LinkedHashMap<String, CompiledPropertyPath>(256) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, CompiledPropertyPath> eldest) {
+					if (size() > COMPILED_PROPERTY_PATH_CACHE_LIMIT) {
+						compiledPropertyPaths.remove(eldest.getKey());
+						return true;
+					}
+					return false;
+				}
+			};
+
 	/** Map with cached nested Accessors: nested path -> Accessor instance */
 	@Nullable
 	private Map<String, AbstractNestablePropertyAccessor> nestedPropertyAccessors;
@@ -234,16 +261,16 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 
 	@Override
 	public void setPropertyValue(String propertyName, @Nullable Object value) throws BeansException {
+		CompiledPropertyPath compiledPath = getCompiledPropertyPath(propertyName);
 		AbstractNestablePropertyAccessor nestedPa;
 		try {
-			nestedPa = getPropertyAccessorForPropertyPath(propertyName);
+			nestedPa = getPropertyAccessorForPropertyPath(compiledPath);
 		}
 		catch (NotReadablePropertyException ex) {
 			throw new NotWritablePropertyException(getRootClass(), this.nestedPath + propertyName,
 					"Nested property in path '" + propertyName + "' does not exist", ex);
 		}
-		PropertyTokenHolder tokens = getPropertyNameTokens(getFinalPath(nestedPa, propertyName));
-		nestedPa.setPropertyValue(tokens, new PropertyValue(propertyName, value));
+		nestedPa.setPropertyValue(compiledPath.finalTokens, new PropertyValue(propertyName, value));
 	}
 
 	@Override
@@ -251,15 +278,16 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 		PropertyTokenHolder tokens = (PropertyTokenHolder) pv.resolvedTokens;
 		if (tokens == null) {
 			String propertyName = pv.getName();
+			CompiledPropertyPath compiledPath = getCompiledPropertyPath(propertyName);
 			AbstractNestablePropertyAccessor nestedPa;
 			try {
-				nestedPa = getPropertyAccessorForPropertyPath(propertyName);
+				nestedPa = getPropertyAccessorForPropertyPath(compiledPath);
 			}
 			catch (NotReadablePropertyException ex) {
 				throw new NotWritablePropertyException(getRootClass(), this.nestedPath + propertyName,
 						"Nested property in path '" + propertyName + "' does not exist", ex);
 			}
-			tokens = getPropertyNameTokens(getFinalPath(nestedPa, propertyName));
+			tokens = compiledPath.finalTokens;
 			if (nestedPa == this) {
 				pv.getOriginalPropertyValue().resolvedTokens = tokens;
 			}
@@ -381,10 +409,8 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	private Object getPropertyHoldingValue(PropertyTokenHolder tokens) {
 		// Apply indexes and map keys: fetch value for all keys but the last one.
 		Assert.state(tokens.keys != null, "No token keys");
-		PropertyTokenHolder getterTokens = new PropertyTokenHolder(tokens.actualName);
-		getterTokens.canonicalName = tokens.canonicalName;
-		getterTokens.keys = new String[tokens.keys.length - 1];
-		System.arraycopy(tokens.keys, 0, getterTokens.keys, 0, tokens.keys.length - 1);
+		String[] getterKeys = Arrays.copyOf(tokens.keys, tokens.keys.length - 1);
+		PropertyTokenHolder getterTokens = new PropertyTokenHolder(tokens.actualName, tokens.canonicalName, getterKeys);
 
 		Object propValue;
 		try {
@@ -400,8 +426,8 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 			// null map value case
 			if (isAutoGrowNestedPaths()) {
 				int lastKeyIndex = tokens.canonicalName.lastIndexOf('[');
-				getterTokens.canonicalName = tokens.canonicalName.substring(0, lastKeyIndex);
-				propValue = setDefaultValue(getterTokens);
+				propValue = setDefaultValue(new PropertyTokenHolder(
+						tokens.actualName, tokens.canonicalName.substring(0, lastKeyIndex), getterKeys));
 			}
 			else {
 				throw new NullValueInNestedPathException(getRootClass(), this.nestedPath + tokens.canonicalName,
@@ -514,9 +540,9 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	@Nullable
 	public TypeDescriptor getPropertyTypeDescriptor(String propertyName) throws BeansException {
 		try {
-			AbstractNestablePropertyAccessor nestedPa = getPropertyAccessorForPropertyPath(propertyName);
-			String finalPath = getFinalPath(nestedPa, propertyName);
-			PropertyTokenHolder tokens = getPropertyNameTokens(finalPath);
+			CompiledPropertyPath compiledPath = getCompiledPropertyPath(propertyName);
+			AbstractNestablePropertyAccessor nestedPa = getPropertyAccessorForPropertyPath(compiledPath);
+			PropertyTokenHolder tokens = compiledPath.finalTokens;
 			PropertyHandler ph = nestedPa.getLocalPropertyHandler(tokens.actualName);
 			if (ph != null) {
 				if (tokens.keys != null) {
@@ -607,9 +633,9 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	@Override
 	@Nullable
 	public Object getPropertyValue(String propertyName) throws BeansException {
-		AbstractNestablePropertyAccessor nestedPa = getPropertyAccessorForPropertyPath(propertyName);
-		PropertyTokenHolder tokens = getPropertyNameTokens(getFinalPath(nestedPa, propertyName));
-		return nestedPa.getPropertyValue(tokens);
+		CompiledPropertyPath compiledPath = getCompiledPropertyPath(propertyName);
+		AbstractNestablePropertyAccessor nestedPa = getPropertyAccessorForPropertyPath(compiledPath);
+		return nestedPa.getPropertyValue(compiledPath.finalTokens);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -721,8 +747,9 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	@Nullable
 	protected PropertyHandler getPropertyHandler(String propertyName) throws BeansException {
 		Assert.notNull(propertyName, "Property name must not be null");
-		AbstractNestablePropertyAccessor nestedPa = getPropertyAccessorForPropertyPath(propertyName);
-		return nestedPa.getLocalPropertyHandler(getFinalPath(nestedPa, propertyName));
+		CompiledPropertyPath compiledPath = getCompiledPropertyPath(propertyName);
+		AbstractNestablePropertyAccessor nestedPa = getPropertyAccessorForPropertyPath(compiledPath);
+		return nestedPa.getLocalPropertyHandler(compiledPath.finalPath);
 	}
 
 	/**
@@ -806,19 +833,42 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	 * @param propertyPath property path, which may be nested
 	 * @return a property accessor for the target bean
 	 */
-	@SuppressWarnings("unchecked")  // avoid nested generic
 	protected AbstractNestablePropertyAccessor getPropertyAccessorForPropertyPath(String propertyPath) {
-		int pos = PropertyAccessorUtils.getFirstNestedPropertySeparatorIndex(propertyPath);
-		// Handle nested properties recursively.
-		if (pos > -1) {
-			String nestedProperty = propertyPath.substring(0, pos);
-			String nestedPath = propertyPath.substring(pos + 1);
-			AbstractNestablePropertyAccessor nestedPa = getNestedPropertyAccessor(nestedProperty);
-			return nestedPa.getPropertyAccessorForPropertyPath(nestedPath);
-		}
-		else {
-			return this;
+		return getPropertyAccessorForPropertyPath(getCompiledPropertyPath(propertyPath));
+	}
+
+	/**
+	 * Navigate to the property accessor for the given parsed property path,
+	 * caching the parsed representation once it turns out to lead to a property.
+	 * @param compiledPath the compiled property path
+	 * @return a property accessor for the target bean
+	 */
+	private AbstractNestablePropertyAccessor getPropertyAccessorForPropertyPath(CompiledPropertyPath compiledPath) {
+		AbstractNestablePropertyAccessor nestedPa = this;
+		// Navigate through the pre-parsed nested properties.
+		for (PropertyTokenHolder nestedTokens : compiledPath.nestedTokens) {
+			nestedPa = nestedPa.getNestedPropertyAccessor(nestedTokens);
+		}
+		// Only cache paths which actually lead to a property.
+		if (!compiledPath.cached && nestedPa.getLocalPropertyHandler(compiledPath.finalTokens.actualName) != null) {
+			compiledPath.cached = true;
+			synchronized (compiledPropertyPathsInOrder) {
+				compiledPropertyPathsInOrder.put(compiledPath.propertyPath, compiledPath);
+				compiledPropertyPaths.put(compiledPath.propertyPath, compiledPath);
+			}
 		}
+		return nestedPa;
+	}
+
+	/**
+	 * Obtain the parsed representation of the given property path,
+	 * either from the shared cache or freshly parsed.
+	 * @param propertyPath property path, which may be nested
+	 * @return the compiled property path
+	 */
+	private static CompiledPropertyPath getCompiledPropertyPath(String propertyPath) {
+		CompiledPropertyPath compiledPath = compiledPropertyPaths.get(propertyPath);
+		return (compiledPath != null ? compiledPath : new CompiledPropertyPath(propertyPath));
 	}
 
 	/**
@@ -826,15 +876,14 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	 * Create a new one if not found in the cache.
 	 * <p>Note: Caching nested PropertyAccessors is necessary now,
 	 * to keep registered custom editors for nested properties.
-	 * @param nestedProperty property to create the PropertyAccessor for
+	 * @param tokens the parsed property to create the PropertyAccessor for
 	 * @return the PropertyAccessor instance, either cached or newly created
 	 */
-	private AbstractNestablePropertyAccessor getNestedPropertyAccessor(String nestedProperty) {
+	private AbstractNestablePropertyAccessor getNestedPropertyAccessor(PropertyTokenHolder tokens) {
 		if (this.nestedPropertyAccessors == null) {
 			this.nestedPropertyAccessors = new HashMap<>();
 		}
 		// Get value of bean property.
-		PropertyTokenHolder tokens = getPropertyNameTokens(nestedProperty);
 		String canonicalName = tokens.canonicalName;
 		Object value = getPropertyValue(tokens);
 		if (value == null || (value instanceof Optional && !((Optional) value).isPresent())) {
@@ -925,7 +974,7 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	 * @param propertyName the property name to parse
 	 * @return representation of the parsed property tokens
 	 */
-	private PropertyTokenHolder getPropertyNameTokens(String propertyName) {
+	private static PropertyTokenHolder getPropertyNameTokens(String propertyName) {
 		String actualName = null;
 		List<String> keys = new ArrayList<>(2);
 		int searchIndex = 0;
@@ -948,14 +997,14 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 				}
 			}
 		}
-		PropertyTokenHolder tokens = new PropertyTokenHolder(actualName != null ? actualName : propertyName);
-		if (!keys.isEmpty()) {
-			tokens.canonicalName += PROPERTY_KEY_PREFIX +
-					StringUtils.collectionToDelimitedString(keys, PROPERTY_KEY_SUFFIX + PROPERTY_KEY_PREFIX) +
-					PROPERTY_KEY_SUFFIX;
-			tokens.keys = StringUtils.toStringArray(keys);
+		String name = (actualName != null ? actualName : propertyName);
+		if (keys.isEmpty()) {
+			return new PropertyTokenHolder(name);
 		}
-		return tokens;
+		String canonicalName = name + PROPERTY_KEY_PREFIX +
+				StringUtils.collectionToDelimitedString(keys, PROPERTY_KEY_SUFFIX + PROPERTY_KEY_PREFIX) +
+				PROPERTY_KEY_SUFFIX;
+		return new PropertyTokenHolder(name, canonicalName, StringUtils.toStringArray(keys));
 	}
 
 	@Override
@@ -1026,19 +1075,68 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 	}
 
 
+	/**
+	 * Immutable holder for the tokens of a parsed property name.
+	 * Instances may be shared, so the keys array must not be modified either.
+	 */
 	protected static class PropertyTokenHolder {
 
 		public PropertyTokenHolder(String name) {
-			this.actualName = name;
-			this.canonicalName = name;
+			this(name, name, null);
+		}
+
+		/**
+		 * Create a new holder for the given, already parsed tokens.
+		 * @since 5.1
+		 */
+		public PropertyTokenHolder(String actualName, String canonicalName, @Nullable String[] keys) {
+			this.actualName = actualName;
+			this.canonicalName = canonicalName;
+			this.keys = keys;
 		}
 
-		public String actualName;
+		public final String actualName;
 
-		public String canonicalName;
+		public final String canonicalName;
 
 		@Nullable
-		public String[] keys;
+		public final String[] keys;
+	}
+
+
+	/**
+	 * Pre-parsed representation of a (potentially nested) property path:
+	 * the tokens for each nested property to navigate through, plus the
+	 * final path and its tokens on the target accessor. Shared instances,
+	 * built from immutable token holders only.
+	 */
+	private static final class CompiledPropertyPath {
+
+		final String propertyPath;
+
+		final PropertyTokenHolder[] nestedTokens;
+
+		final String finalPath;
+
+		final PropertyTokenHolder finalTokens;
+
+		/** Whether this instance has been put into the shared cache; racy checks only cause a redundant put */
+		boolean cached;
+
+		CompiledPropertyPath(String propertyPath) {
+			this.propertyPath = propertyPath;
+			List<PropertyTokenHolder> nestedTokens = new ArrayList<>(2);
+			String remainingPath = propertyPath;
+			int pos = PropertyAccessorUtils.getFirstNestedPropertySeparatorIndex(remainingPath);
+			while (pos > -1) {
+				nestedTokens.add(getPropertyNameTokens(remainingPath.substring(0, pos)));
+				remainingPath = remainingPath.substring(pos + 1);
+				pos = PropertyAccessorUtils.getFirstNestedPropertySeparatorIndex(remainingPath);
+			}
+			this.nestedTokens = nestedTokens.toArray(new PropertyTokenHolder[0]);
+			this.finalPath = remainingPath;
+			this.finalTokens = getPropertyNameTokens(remainingPath);
+		}
 	}
 
 }
@@ -17,6 +17,7 @@
 package org.springframework.beans;
 
 import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.security.AccessControlContext;
 import java.security.AccessController;
@@ -290,6 +291,12 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 		@Nullable
 		public Object getValue() throws Exception {
 			final Method readMethod = this.pd.getReadMethod();
+			if (System.getSecurityManager() == null && this.pd instanceof GenericTypeAwarePropertyDescriptor) {
+				MethodHandle getter = ((GenericTypeAwarePropertyDescriptor) this.pd).getReadMethodHandle();
+				if (getter != null) {
+					return PropertyMethodHandles.invokeGetter(getter, readMethod, getWrappedInstance());
+				}
+			}
 			if (System.getSecurityManager() != null) {
 				AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
 					ReflectionUtils.makeAccessible(readMethod);
@@ -311,6 +318,16 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 
 		@Override
 		public void setValue(final @Nullable Object value) throws Exception {
+			if (System.getSecurityManager() == null && this.pd instanceof GenericTypeAwarePropertyDescriptor) {
+				GenericTypeAwarePropertyDescriptor gpd = (GenericTypeAwarePropertyDescriptor) this.pd;
+				MethodHandle setter = gpd.getWriteMethodHandle();
+				if (setter != null &&
+						PropertyMethodHandles.isDirectlyAssignable(gpd.getWriteMethodHandleParameterType(), value)) {
+					PropertyMethodHandles.invokeSetter(
+							setter, gpd.getWriteMethodForActualAccess(), getWrappedInstance(), value);
+					return;
+				}
+			}
 			final Method writeMethod = (this.pd instanceof GenericTypeAwarePropertyDescriptor ?
 					((GenericTypeAwarePropertyDescriptor) this.pd).getWriteMethodForActualAccess() :
 					this.pd.getWriteMethod());
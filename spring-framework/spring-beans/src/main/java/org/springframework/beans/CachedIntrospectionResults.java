@@ -20,13 +20,19 @@ import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -64,6 +70,13 @@ import org.springframework.util.StringUtils;
  * recreates much-requested entries every time the garbage collector removed them. In
  * such a scenario, consider the {@link #IGNORE_BEANINFO_PROPERTY_NAME} system property.
  *
+ * <p>Concurrent requests for the same class share a single introspection run.
+ * {@code GenericTypeAwarePropertyDescriptor} variants are only built for the
+ * properties actually accessed. For applications binding to a very large number
+ * of classes, the number of strongly cached classes can be limited through the
+ * {@link #CACHE_LIMIT_PROPERTY_NAME} system property or {@link #setCacheLimit},
+ * evicting the least recently used entries; see {@link #getCacheStatistics()}.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @since 05 May 2001
@@ -92,6 +105,17 @@ public class CachedIntrospectionResults {
 	 */
 	public static final String IGNORE_BEANINFO_PROPERTY_NAME = "spring.beaninfo.ignore";
 
+	/**
+	 * System property that limits the number of strongly cached classes:
+	 * "spring.beaninfo.cache-limit". When exceeded, the least recently used
+	 * entries get evicted and will be re-introspected on their next use.
+	 * <p>The default is no limit, as appropriate for the typical number of
+	 * bean and binding target classes in an application.
+	 * @since 5.1
+	 * @see #setCacheLimit
+	 */
+	public static final String CACHE_LIMIT_PROPERTY_NAME = "spring.beaninfo.cache-limit";
+
 
 	private static final boolean shouldIntrospectorIgnoreBeaninfoClasses =
 			SpringProperties.getFlag(IGNORE_BEANINFO_PROPERTY_NAME);
@@ -123,6 +147,26 @@ public class CachedIntrospectionResults {
 	static final ConcurrentMap<Class<?>, CachedIntrospectionResults> softClassCache =
 			new ConcurrentReferenceHashMap<>(64);
 
+	/** Introspections currently in progress, keyed by Class */
+	private static final ConcurrentMap<Class<?>, Introspection> introspectionsInProgress =
+			new ConcurrentHashMap<>(16);
+
+	/** Maximum number of strongly cached classes, or 0 for no limit */
+	private static volatile int cacheLimit = initialCacheLimit();
+
+	/** Logical clock for least-recently-used tracking */
+	private static final AtomicLong accessCounter = new AtomicLong();
+
+	private static final Object evictionMonitor = new Object();
+
+	private static final LongAdder hitCount = new LongAdder();
+
+	private static final LongAdder missCount = new LongAdder();
+
+	private static final LongAdder introspectionCount = new LongAdder();
+
+	private static final LongAdder evictionCount = new LongAdder();
+
 
 	/**
 	 * Accept the given ClassLoader as cache-safe, even if its classes would
@@ -157,24 +201,82 @@ public class CachedIntrospectionResults {
 				isUnderneathClassLoader(beanClass.getClassLoader(), classLoader));
 	}
 
+	/**
+	 * Limit the number of strongly cached classes, evicting the least recently
+	 * used entries once exceeded. Softly cached entries for non-cache-safe
+	 * classes are not affected since they are subject to garbage collection.
+	 * @param limit the maximum number of strongly cached classes,
+	 * or 0 for no limit (the default)
+	 * @since 5.1
+	 * @see #CACHE_LIMIT_PROPERTY_NAME
+	 */
+	public static void setCacheLimit(int limit) {
+		cacheLimit = Math.max(limit, 0);
+		evictIfNecessary();
+	}
+
+	/**
+	 * Return statistics for the introspection cache, accumulated since startup.
+	 * @since 5.1
+	 */
+	public static CacheStatistics getCacheStatistics() {
+		return new CacheStatistics(hitCount.sum(), missCount.sum(), introspectionCount.sum(),
+				evictionCount.sum(), strongClassCache.size() + softClassCache.size());
+	}
+
 	/**
 	 * Create CachedIntrospectionResults for the given bean class.
 	 * @param beanClass the bean class to analyze
 	 * @return the corresponding CachedIntrospectionResults
 	 * @throws BeansException in case of introspection failure
 	 */
-	@SuppressWarnings("unchecked")
 	static CachedIntrospectionResults forClass(Class<?> beanClass) throws BeansException {
-		CachedIntrospectionResults results = strongClassCache.get(beanClass);
+		CachedIntrospectionResults results = getCachedResults(beanClass);
 		if (results != null) {
+			hitCount.increment();
+			if (cacheLimit > 0) {
+				results.lastAccess = accessCounter.incrementAndGet();
+			}
 			return results;
 		}
-		results = softClassCache.get(beanClass);
-		if (results != null) {
+		missCount.increment();
+
+		// Share a single introspection run between concurrent callers for the same class.
+		Introspection introspection = new Introspection();
+		Introspection inProgress = introspectionsInProgress.putIfAbsent(beanClass, introspection);
+		if (inProgress != null) {
+			if (inProgress.thread == Thread.currentThread()) {
+				// Re-entrant request from a BeanInfoFactory: introspect without caching.
+				return new CachedIntrospectionResults(beanClass);
+			}
+			return inProgress.await();
+		}
+		try {
+			results = getCachedResults(beanClass);
+			if (results == null) {
+				results = introspect(beanClass);
+			}
+			introspection.result.complete(results);
 			return results;
 		}
+		catch (RuntimeException | Error ex) {
+			introspection.result.completeExceptionally(ex);
+			throw ex;
+		}
+		finally {
+			introspectionsInProgress.remove(beanClass, introspection);
+		}
+	}
 
-		results = new CachedIntrospectionResults(beanClass);
+	@Nullable
+	private static CachedIntrospectionResults getCachedResults(Class<?> beanClass) {
+		CachedIntrospectionResults results = strongClassCache.get(beanClass);
+		return (results != null ? results : softClassCache.get(beanClass));
+	}
+
+	private static CachedIntrospectionResults introspect(Class<?> beanClass) {
+		CachedIntrospectionResults results = new CachedIntrospectionResults(beanClass);
+		introspectionCount.increment();
 		ConcurrentMap<Class<?>, CachedIntrospectionResults> classCacheToUse;
 
 		if (ClassUtils.isCacheSafe(beanClass, CachedIntrospectionResults.class.getClassLoader()) ||
@@ -189,7 +291,52 @@ public class CachedIntrospectionResults {
 		}
 
 		CachedIntrospectionResults existing = classCacheToUse.putIfAbsent(beanClass, results);
-		return (existing != null ? existing : results);
+		if (existing != null) {
+			return existing;
+		}
+		if (classCacheToUse == strongClassCache) {
+			evictIfNecessary();
+		}
+		return results;
+	}
+
+	/**
+	 * Evict the least recently used strongly cached entries if the
+	 * {@link #setCacheLimit cache limit} has been exceeded. Evicts down to
+	 * 90% of the limit in order to amortize the cost of sorting the entries.
+	 */
+	private static void evictIfNecessary() {
+		int limit = cacheLimit;
+		if (limit <= 0 || strongClassCache.size() <= limit) {
+			return;
+		}
+		synchronized (evictionMonitor) {
+			int toEvict = strongClassCache.size() - (limit - limit / 10);
+			if (toEvict <= 0) {
+				return;
+			}
+			List<Map.Entry<Class<?>, CachedIntrospectionResults>> entries = new ArrayList<>(strongClassCache.entrySet());
+			entries.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+			for (int i = 0; i < toEvict && i < entries.size(); i++) {
+				Map.Entry<Class<?>, CachedIntrospectionResults> entry = entries.get(i);
+				if (strongClassCache.remove(entry.getKey(), entry.getValue())) {
+					evictionCount.increment();
+				}
+			}
+		}
+	}
+
+	private static int initialCacheLimit() {
+		String limit = SpringProperties.getProperty(CACHE_LIMIT_PROPERTY_NAME);
+		if (limit != null) {
+			try {
+				return Math.max(Integer.parseInt(limit.trim()), 0);
+			}
+			catch (NumberFormatException ex) {
+				logger.warn("Ignoring invalid value for '" + CACHE_LIMIT_PROPERTY_NAME + "': " + limit);
+			}
+		}
+		return 0;
 	}
 
 	/**
@@ -253,12 +400,22 @@ public class CachedIntrospectionResults {
 	/** The BeanInfo object for the introspected bean class */
 	private final BeanInfo beanInfo;
 
-	/** PropertyDescriptor objects keyed by property name String */
+	/** The introspected bean class */
+	private final Class<?> beanClass;
+
+	/** PropertyDescriptor objects as introspected, keyed by property name String */
 	private final Map<String, PropertyDescriptor> propertyDescriptorCache;
 
+	/** GenericTypeAwarePropertyDescriptor objects built on demand, keyed by property name String */
+	private final ConcurrentMap<String, PropertyDescriptor> genericPropertyDescriptorCache =
+			new ConcurrentHashMap<>(16);
+
 	/** TypeDescriptor objects keyed by PropertyDescriptor */
 	private final ConcurrentMap<PropertyDescriptor, TypeDescriptor> typeDescriptorCache;
 
+	/** Logical time of the last access, for least-recently-used eviction */
+	private volatile long lastAccess = accessCounter.incrementAndGet();
+
 
 	/**
 	 * Create a new CachedIntrospectionResults instance for the given class.
@@ -266,6 +423,7 @@ public class CachedIntrospectionResults {
 	 * @throws BeansException in case of introspection failure
 	 */
 	private CachedIntrospectionResults(Class<?> beanClass) throws BeansException {
+		this.beanClass = beanClass;
 		try {
 			if (logger.isTraceEnabled()) {
 				logger.trace("Getting BeanInfo for class [" + beanClass.getName() + "]");
@@ -291,7 +449,6 @@ public class CachedIntrospectionResults {
 							(pd.getPropertyEditorClass() != null ?
 									"; editor [" + pd.getPropertyEditorClass().getName() + "]" : ""));
 				}
-				pd = buildGenericTypeAwarePropertyDescriptor(beanClass, pd);
 				this.propertyDescriptorCache.put(pd.getName(), pd);
 			}
 
@@ -304,7 +461,6 @@ public class CachedIntrospectionResults {
 					if (!ClassUtils.isJavaLanguageInterface(ifc)) {
 						for (PropertyDescriptor pd : getBeanInfo(ifc).getPropertyDescriptors()) {
 							if (!this.propertyDescriptorCache.containsKey(pd.getName())) {
-								pd = buildGenericTypeAwarePropertyDescriptor(beanClass, pd);
 								this.propertyDescriptorCache.put(pd.getName(), pd);
 							}
 						}
@@ -326,7 +482,7 @@ public class CachedIntrospectionResults {
 	}
 
 	Class<?> getBeanClass() {
-		return this.beanInfo.getBeanDescriptor().getBeanClass();
+		return this.beanClass;
 	}
 
 	@Nullable
@@ -339,21 +495,31 @@ public class CachedIntrospectionResults {
 				pd = this.propertyDescriptorCache.get(StringUtils.capitalize(name));
 			}
 		}
-		return (pd == null || pd instanceof GenericTypeAwarePropertyDescriptor ? pd :
-				buildGenericTypeAwarePropertyDescriptor(getBeanClass(), pd));
+		return (pd != null ? getGenericTypeAwarePropertyDescriptor(pd) : null);
 	}
 
 	PropertyDescriptor[] getPropertyDescriptors() {
 		PropertyDescriptor[] pds = new PropertyDescriptor[this.propertyDescriptorCache.size()];
 		int i = 0;
 		for (PropertyDescriptor pd : this.propertyDescriptorCache.values()) {
-			pds[i] = (pd instanceof GenericTypeAwarePropertyDescriptor ? pd :
-					buildGenericTypeAwarePropertyDescriptor(getBeanClass(), pd));
+			pds[i] = getGenericTypeAwarePropertyDescriptor(pd);
 			i++;
 		}
 		return pds;
 	}
 
+	private PropertyDescriptor getGenericTypeAwarePropertyDescriptor(PropertyDescriptor pd) {
+		PropertyDescriptor genericPd = this.genericPropertyDescriptorCache.get(pd.getName());
+		if (genericPd == null) {
+			genericPd = buildGenericTypeAwarePropertyDescriptor(this.beanClass, pd);
+			PropertyDescriptor existing = this.genericPropertyDescriptorCache.putIfAbsent(pd.getName(), genericPd);
+			if (existing != null) {
+				genericPd = existing;
+			}
+		}
+		return genericPd;
+	}
+
 	private PropertyDescriptor buildGenericTypeAwarePropertyDescriptor(Class<?> beanClass, PropertyDescriptor pd) {
 		try {
 			return new GenericTypeAwarePropertyDescriptor(beanClass, pd.getName(), pd.getReadMethod(),
@@ -374,4 +540,104 @@ public class CachedIntrospectionResults {
 		return this.typeDescriptorCache.get(pd);
 	}
 
+
+	/**
+	 * A single introspection run in progress, to be awaited by concurrent callers.
+	 */
+	private static final class Introspection {
+
+		final Thread thread = Thread.currentThread();
+
+		final CompletableFuture<CachedIntrospectionResults> result = new CompletableFuture<>();
+
+		CachedIntrospectionResults await() {
+			try {
+				return this.result.join();
+			}
+			catch (CompletionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw ex;
+			}
+		}
+	}
+
+
+	/**
+	 * Snapshot of statistics for the introspection cache.
+	 * @since 5.1
+	 * @see CachedIntrospectionResults#getCacheStatistics()
+	 */
+	public static final class CacheStatistics {
+
+		private final long hitCount;
+
+		private final long missCount;
+
+		private final long introspectionCount;
+
+		private final long evictionCount;
+
+		private final int cachedClassCount;
+
+		CacheStatistics(long hitCount, long missCount, long introspectionCount,
+				long evictionCount, int cachedClassCount) {
+
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.introspectionCount = introspectionCount;
+			this.evictionCount = evictionCount;
+			this.cachedClassCount = cachedClassCount;
+		}
+
+		/**
+		 * Return the number of requests served from the cache.
+		 */
+		public long getHitCount() {
+			return this.hitCount;
+		}
+
+		/**
+		 * Return the number of requests not served from the cache.
+		 */
+		public long getMissCount() {
+			return this.missCount;
+		}
+
+		/**
+		 * Return the number of actual introspection runs for cached results.
+		 * Lower than the {@link #getMissCount() miss count} if concurrent
+		 * requests for the same class shared a single introspection run.
+		 */
+		public long getIntrospectionCount() {
+			return this.introspectionCount;
+		}
+
+		/**
+		 * Return the number of entries evicted due to the cache limit.
+		 */
+		public long getEvictionCount() {
+			return this.evictionCount;
+		}
+
+		/**
+		 * Return the number of currently cached classes (strongly and softly held).
+		 */
+		public int getCachedClassCount() {
+			return this.cachedClassCount;
+		}
+
+		@Override
+		public String toString() {
+			return "CacheStatistics [hits=" + this.hitCount + ", misses=" + this.missCount +
+					", introspections=" + this.introspectionCount + ", evictions=" + this.evictionCount +
+					", cachedClasses=" + this.cachedClassCount + "]";
+		}
+	}
+
 }
@@ -16,6 +16,7 @@
 
 package org.springframework.beans;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
@@ -126,6 +127,10 @@ public class DirectFieldAccessor extends AbstractNestablePropertyAccessor {
 		@Override
 		@Nullable
 		public Object getValue() throws Exception {
+			MethodHandle getter = PropertyMethodHandles.getFieldGetter(this.field);
+			if (getter != null) {
+				return PropertyMethodHandles.getFieldValue(getter, this.field, getWrappedInstance());
+			}
 			try {
 				ReflectionUtils.makeAccessible(this.field);
 				return this.field.get(getWrappedInstance());
@@ -139,6 +144,11 @@ public class DirectFieldAccessor extends AbstractNestablePropertyAccessor {
 
 		@Override
 		public void setValue(@Nullable Object value) throws Exception {
+			MethodHandle setter = PropertyMethodHandles.getFieldSetter(this.field);
+			if (setter != null && PropertyMethodHandles.isDirectlyAssignable(this.field.getType(), value)) {
+				PropertyMethodHandles.setFieldValue(setter, this.field, getWrappedInstance(), value);
+				return;
+			}
 			try {
 				ReflectionUtils.makeAccessible(this.field);
 				this.field.set(getWrappedInstance(), value);
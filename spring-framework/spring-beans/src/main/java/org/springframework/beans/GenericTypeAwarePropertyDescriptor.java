@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.beans;
 
 import java.beans.IntrospectionException;
 import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.util.HashSet;
 import java.util.Set;
@@ -62,6 +63,19 @@ final class GenericTypeAwarePropertyDescriptor extends PropertyDescriptor {
 
 	private final Class<?> propertyEditorClass;
 
+	@Nullable
+	private volatile MethodHandle readMethodHandle;
+
+	private volatile boolean readMethodHandleResolved;
+
+	@Nullable
+	private volatile MethodHandle writeMethodHandle;
+
+	@Nullable
+	private volatile Class<?> writeMethodHandleParameterType;
+
+	private volatile boolean writeMethodHandleResolved;
+
 
 	public GenericTypeAwarePropertyDescriptor(Class<?> beanClass, String propertyName,
 			@Nullable Method readMethod, @Nullable Method writeMethod, Class<?> propertyEditorClass)
@@ -145,6 +159,55 @@ final class GenericTypeAwarePropertyDescriptor extends PropertyDescriptor {
 		return this.writeMethod;
 	}
 
+	/**
+	 * Return a {@link MethodHandle} for the read method, lazily created on first access.
+	 * @return the getter handle, or {@code null} if not available
+	 * (in which case the read method needs to be invoked reflectively)
+	 * @since 5.1
+	 */
+	@Nullable
+	public MethodHandle getReadMethodHandle() {
+		if (!this.readMethodHandleResolved) {
+			if (this.readMethod != null) {
+				this.readMethodHandle = PropertyMethodHandles.forReadMethod(this.readMethod);
+			}
+			this.readMethodHandleResolved = true;
+		}
+		return this.readMethodHandle;
+	}
+
+	/**
+	 * Return a {@link MethodHandle} for the write method to actually use,
+	 * lazily created on first access.
+	 * @return the setter handle, or {@code null} if not available
+	 * (in which case the write method needs to be invoked reflectively)
+	 * @since 5.1
+	 * @see #getWriteMethodForActualAccess()
+	 */
+	@Nullable
+	public MethodHandle getWriteMethodHandle() {
+		if (!this.writeMethodHandleResolved) {
+			if (this.writeMethod != null) {
+				Method writeMethodToUse = getWriteMethodForActualAccess();
+				this.writeMethodHandleParameterType = writeMethodToUse.getParameterTypes()[0];
+				this.writeMethodHandle = PropertyMethodHandles.forWriteMethod(writeMethodToUse);
+			}
+			this.writeMethodHandleResolved = true;
+		}
+		return this.writeMethodHandle;
+	}
+
+	/**
+	 * Return the raw parameter type of the write method behind
+	 * {@link #getWriteMethodHandle()}, for checking values before invocation.
+	 * @since 5.1
+	 */
+	public Class<?> getWriteMethodHandleParameterType() {
+		Class<?> parameterType = this.writeMethodHandleParameterType;
+		Assert.state(parameterType != null, "No write method handle resolved");
+		return parameterType;
+	}
+
 	public MethodParameter getWriteMethodParameter() {
 		Assert.state(this.writeMethodParameter != null, "No write method available");
 		return this.writeMethodParameter;
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Map;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Internal helper for accessing bean properties and fields through
+ * {@link MethodHandle MethodHandles} instead of reflective invocation.
+ *
+ * <p>All handles are adapted to a generic {@code (Object)Object} getter
+ * and {@code (Object,Object)void} setter signature for {@code invokeExact}.
+ * As with reflective invocation, a target that is not an instance of the declaring
+ * class is rejected with an {@link IllegalArgumentException} upfront, and only
+ * exceptions thrown by an accessor method itself are reported as
+ * {@link InvocationTargetException}; values that need conversion are left to reflection.
+ * Handle creation returns {@code null} if the member cannot be accessed
+ * that way, in which case callers fall back to reflection.
+ *
+ * @since 5.1
+ * @see GenericTypeAwarePropertyDescriptor#getReadMethodHandle()
+ * @see GenericTypeAwarePropertyDescriptor#getWriteMethodHandle()
+ * @see DirectFieldAccessor
+ */
+final class PropertyMethodHandles {
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+	/** Cache of field handles, keyed by Field */
+	private static final Map<Field, FieldHandles> fieldHandlesCache = new ConcurrentReferenceHashMap<>(256);
+
+
+	private PropertyMethodHandles() {
+	}
+
+
+	/**
+	 * Create a getter handle for the given read method.
+	 * @param readMethod the read method of a bean property
+	 * @return the adapted handle, or {@code null} if not available
+	 */
+	@Nullable
+	public static MethodHandle forReadMethod(Method readMethod) {
+		try {
+			ReflectionUtils.makeAccessible(readMethod);
+			return lookup.unreflect(readMethod).asFixedArity().asType(GETTER_TYPE);
+		}
+		catch (IllegalAccessException | RuntimeException ex) {
+			// e.g. static method or module access restriction -> fall back to reflection
+			return null;
+		}
+	}
+
+	/**
+	 * Create a setter handle for the given write method.
+	 * @param writeMethod the write method of a bean property
+	 * @return the adapted handle, or {@code null} if not available
+	 */
+	@Nullable
+	public static MethodHandle forWriteMethod(Method writeMethod) {
+		try {
+			ReflectionUtils.makeAccessible(writeMethod);
+			return lookup.unreflect(writeMethod).asFixedArity().asType(SETTER_TYPE);
+		}
+		catch (IllegalAccessException | RuntimeException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Return the (cached) getter handle for the given field.
+	 * @param field the field to read
+	 * @return the adapted handle, or {@code null} if not available
+	 */
+	@Nullable
+	public static MethodHandle getFieldGetter(Field field) {
+		return getFieldHandles(field).getter;
+	}
+
+	/**
+	 * Return the (cached) setter handle for the given field.
+	 * @param field the field to write
+	 * @return the adapted handle, or {@code null} if not available
+	 */
+	@Nullable
+	public static MethodHandle getFieldSetter(Field field) {
+		return getFieldHandles(field).setter;
+	}
+
+	private static FieldHandles getFieldHandles(Field field) {
+		FieldHandles handles = fieldHandlesCache.get(field);
+		if (handles == null) {
+			handles = new FieldHandles(field);
+			fieldHandlesCache.put(field, handles);
+		}
+		return handles;
+	}
+
+	/**
+	 * Invoke the given getter handle on the given target.
+	 * @param getter the handle from {@link #forReadMethod}
+	 * @param readMethod the read method that the handle has been created for
+	 * @param target the target instance
+	 * @return the property value
+	 * @throws IllegalArgumentException if the target is not an instance of the
+	 * class that declares the read method
+	 * @throws InvocationTargetException wrapping any exception thrown by the getter
+	 */
+	@Nullable
+	public static Object invokeGetter(MethodHandle getter, Method readMethod, Object target)
+			throws InvocationTargetException {
+
+		checkTarget(readMethod.getDeclaringClass(), target);
+		try {
+			return (Object) getter.invokeExact(target);
+		}
+		catch (Throwable ex) {
+			throw new InvocationTargetException(ex);
+		}
+	}
+
+	/**
+	 * Read the given field on the given target through its getter handle.
+	 * @param getter the handle from {@link #getFieldGetter}
+	 * @param field the field that the handle has been created for
+	 * @param target the target instance
+	 * @return the field value
+	 * @throws IllegalArgumentException if the target is not an instance of the
+	 * class that declares the field
+	 */
+	@Nullable
+	public static Object getFieldValue(MethodHandle getter, Field field, Object target) {
+		checkTarget(field.getDeclaringClass(), target);
+		try {
+			return (Object) getter.invokeExact(target);
+		}
+		catch (Throwable ex) {
+			throw rethrow(ex);
+		}
+	}
+
+	/**
+	 * Determine whether the given value can be passed to a setter handle
+	 * for the given type as-is. Otherwise, the caller is supposed to fall back
+	 * to reflective invocation, applying widening conversions for primitive
+	 * types or reporting an argument type mismatch as usual.
+	 * @param valueType the declared type of the value
+	 * @param value the value to set
+	 * @see #invokeSetter
+	 */
+	public static boolean isDirectlyAssignable(Class<?> valueType, @Nullable Object value) {
+		return (value != null ? ClassUtils.isAssignableValue(valueType, value) : !valueType.isPrimitive());
+	}
+
+	/**
+	 * Invoke the given setter handle on the given target.
+	 * <p>The value needs to be {@link #isDirectlyAssignable directly assignable}
+	 * to the setter's type.
+	 * @param setter the handle from {@link #forWriteMethod}
+	 * @param writeMethod the write method that the handle has been created for
+	 * @param target the target instance
+	 * @param value the value to set
+	 * @throws IllegalArgumentException if the target is not an instance of the
+	 * class that declares the write method
+	 * @throws InvocationTargetException wrapping any exception thrown by the setter
+	 */
+	public static void invokeSetter(MethodHandle setter, Method writeMethod, Object target, @Nullable Object value)
+			throws InvocationTargetException {
+
+		checkTarget(writeMethod.getDeclaringClass(), target);
+		try {
+			setter.invokeExact(target, value);
+		}
+		catch (Throwable ex) {
+			throw new InvocationTargetException(ex);
+		}
+	}
+
+	/**
+	 * Write the given field on the given target through its setter handle.
+	 * <p>The value needs to be {@link #isDirectlyAssignable directly assignable}
+	 * to the field's type.
+	 * @param setter the handle from {@link #getFieldSetter}
+	 * @param field the field that the handle has been created for
+	 * @param target the target instance
+	 * @param value the value to set
+	 * @throws IllegalArgumentException if the target is not an instance of the
+	 * class that declares the field
+	 */
+	public static void setFieldValue(MethodHandle setter, Field field, Object target, @Nullable Object value) {
+		checkTarget(field.getDeclaringClass(), target);
+		try {
+			setter.invokeExact(target, value);
+		}
+		catch (Throwable ex) {
+			throw rethrow(ex);
+		}
+	}
+
+	private static void checkTarget(Class<?> declaringClass, Object target) {
+		if (!declaringClass.isInstance(target)) {
+			throw new IllegalArgumentException("Object of type [" + target.getClass().getName() +
+					"] is not an instance of declaring class [" + declaringClass.getName() + "]");
+		}
+	}
+
+	private static RuntimeException rethrow(Throwable ex) {
+		if (ex instanceof RuntimeException) {
+			throw (RuntimeException) ex;
+		}
+		if (ex instanceof Error) {
+			throw (Error) ex;
+		}
+		// field access does not throw checked exceptions
+		throw new UndeclaredThrowableException(ex);
+	}
+
+
+	/**
+	 * Getter and setter handle for a field, if available.
+	 */
+	private static class FieldHandles {
+
+		@Nullable
+		final MethodHandle getter;
+
+		@Nullable
+		final MethodHandle setter;
+
+		FieldHandles(Field field) {
+			MethodHandle getter = null;
+			MethodHandle setter = null;
+			try {
+				ReflectionUtils.makeAccessible(field);
+				getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+				setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+			}
+			catch (IllegalAccessException | RuntimeException ex) {
+				// e.g. static or final field -> fall back to reflection
+			}
+			this.getter = getter;
+			this.setter = setter;
+		}
+	}
+
+}
@@ -20,6 +20,7 @@ import org.springframework.beans.*;
 import org.springframework.beans.factory.*;
 import org.springframework.beans.factory.config.*;
 import org.springframework.core.*;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.*;
 
@@ -469,15 +470,19 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 					beanName, "Validation of method overrides failed", ex);
 		}
 
+		StartupStep beanCreation = getApplicationStartup().start("spring.beans.instantiate")
+				.tag("beanName", beanName);
 		try {
 			//如果当前bean实现了BeanPostProcessor接口，则返回一个BeanPostProcessor的代理对象
 			// Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
 			Object bean = resolveBeforeInstantiation(beanName, mbdToUse);
 			if (bean != null) {
+				beanCreation.end();
 				return bean;
 			}
 		}
 		catch (Throwable ex) {
+			beanCreation.end();
 			throw new BeanCreationException(mbdToUse.getResourceDescription(), beanName,
 					"BeanPostProcessor before instantiation of bean failed", ex);
 		}
@@ -498,6 +503,9 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			throw new BeanCreationException(
 					mbdToUse.getResourceDescription(), beanName, "Unexpected exception during bean creation", ex);
 		}
+		finally {
+			beanCreation.end();
+		}
 	}
 
 	/**
@@ -528,7 +536,14 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			//1、bean定义中指定使用的回调方发创建bean实例
 			//2、bean定义中指定使用工厂方法创建bean实例
 			//3、简单创建bean，直接使用构造函数创建
-			instanceWrapper = createBeanInstance(beanName, mbd, args);
+			StartupStep instantiation = getApplicationStartup().start("spring.beans.instantiate.create-instance")
+					.tag("beanName", beanName);
+			try {
+				instanceWrapper = createBeanInstance(beanName, mbd, args);
+			}
+			finally {
+				instantiation.end();
+			}
 		}
 		final Object bean = instanceWrapper.getWrappedInstance();
 		Class<?> beanType = instanceWrapper.getWrappedClass();
@@ -569,7 +584,14 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		Object exposedObject = bean;
 		try {
 			//填充bean相关属性，依赖注入在此实现
-			populateBean(beanName, mbd, instanceWrapper);
+			StartupStep population = getApplicationStartup().start("spring.beans.populate")
+					.tag("beanName", beanName);
+			try {
+				populateBean(beanName, mbd, instanceWrapper);
+			}
+			finally {
+				population.end();
+			}
 			//初始化bean，执行初始化方法
 			exposedObject = initializeBean(beanName, exposedObject, mbd);
 		}
@@ -1709,9 +1731,18 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		if (mbd == null || !mbd.isSynthetic()) {
 			//对BeanPostProcessor初始化的前置后置处理器的调用；
 			//spring web mvc 利用此处实现 HandlerMapping的注册
-			wrappedBean = applyBeanPostProcessorsBeforeInitialization(wrappedBean, beanName);
+			StartupStep postProcessing = getApplicationStartup().start("spring.beans.post-process.before-initialization")
+					.tag("beanName", beanName);
+			try {
+				wrappedBean = applyBeanPostProcessorsBeforeInitialization(wrappedBean, beanName);
+			}
+			finally {
+				postProcessing.end();
+			}
 		}
 
+		StartupStep initialization = getApplicationStartup().start("spring.beans.init-methods")
+				.tag("beanName", beanName);
 		try {
 			//调用bean指定的初始化方法
 			invokeInitMethods(beanName, wrappedBean, mbd);
@@ -1721,9 +1752,19 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 					(mbd != null ? mbd.getResourceDescription() : null),
 					beanName, "Invocation of init method failed", ex);
 		}
+		finally {
+			initialization.end();
+		}
 		if (mbd == null || !mbd.isSynthetic()) {
 			//对BeanPostProcessor初始化的后置后置处理器的调用
-			wrappedBean = applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName);
+			StartupStep postProcessing = getApplicationStartup().start("spring.beans.post-process.after-initialization")
+					.tag("beanName", beanName);
+			try {
+				wrappedBean = applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName);
+			}
+			finally {
+				postProcessing.end();
+			}
 		}
 
 		return wrappedBean;
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Inverted index from bean types (including all of their superclasses and
+ * interfaces) to the names of the bean definitions exposing them, maintained
+ * incrementally by {@link DefaultListableBeanFactory} on registration and removal.
+ *
+ * <p>Only bean definitions whose exposed type is statically known are indexed:
+ * plain bean classes without factory methods, {@code FactoryBean} indirection or
+ * decorated definitions, and whose actual instance (if any) is of exactly that
+ * class. All other bean definitions remain "unindexed" and are always returned
+ * as candidates, so callers still have to perform a full type match for every
+ * returned name. The index just narrows down the names to check.
+ *
+ * @since 5.1
+ * @see DefaultListableBeanFactory#getBeanNamesForType
+ */
+final class BeanTypeIndex {
+
+	/** Registration state per bean name, including its registration order */
+	private final Map<String, Registration> registrations = new ConcurrentHashMap<>(256);
+
+	/** Map from type to names of indexed bean definitions assignable to that type, keyed by registration order */
+	private final Map<Class<?>, ConcurrentNavigableMap<Integer, String>> beanNamesByType =
+			new ConcurrentHashMap<>(256);
+
+	/** Names of bean definitions whose type is not indexed (yet), keyed by registration order */
+	private final ConcurrentNavigableMap<Integer, String> unindexedBeanNames = new ConcurrentSkipListMap<>();
+
+	/** Number of entries in {@link #unindexedBeanNames}, avoiding a traversal for its size */
+	private volatile int unindexedCount = 0;
+
+	private int registrationCounter = 0;
+
+
+	/**
+	 * Register the given bean name, or reset its indexed type if already registered.
+	 * @param beanName the name of the bean definition
+	 */
+	public synchronized void register(String beanName) {
+		if (this.registrations.containsKey(beanName)) {
+			reset(beanName);
+		}
+		else {
+			Registration registration = new Registration(this.registrationCounter++);
+			this.registrations.put(beanName, registration);
+			addUnindexed(beanName, registration.order);
+		}
+	}
+
+	/**
+	 * Remove the given bean name from the index.
+	 * @param beanName the name of the bean definition
+	 */
+	public synchronized void remove(String beanName) {
+		Registration registration = this.registrations.remove(beanName);
+		if (registration != null) {
+			unindex(registration);
+			removeUnindexed(registration.order);
+		}
+	}
+
+	/**
+	 * Discard the indexed type of the given bean, if any. The bean is going to be
+	 * returned as a candidate for any type until it gets indexed again.
+	 * @param beanName the name of the bean definition
+	 */
+	public synchronized void reset(String beanName) {
+		Registration registration = this.registrations.get(beanName);
+		if (registration != null) {
+			// Always replace the registration, invalidating any pending handle.
+			unindex(registration);
+			this.registrations.put(beanName, new Registration(registration.order));
+			addUnindexed(beanName, registration.order);
+		}
+	}
+
+	/**
+	 * Discard the indexed types of all beans.
+	 */
+	public synchronized void resetAll() {
+		for (Map.Entry<String, Registration> entry : this.registrations.entrySet()) {
+			int order = entry.getValue().order;
+			this.registrations.put(entry.getKey(), new Registration(order));
+			addUnindexed(entry.getKey(), order);
+		}
+		this.beanNamesByType.clear();
+	}
+
+	/**
+	 * Return the current registration handle for the given bean name if the
+	 * bean still needs to be indexed, to be passed into {@link #index} later on.
+	 * @param beanName the name of the bean definition
+	 * @return the registration handle, or {@code null} if the bean is unknown
+	 * or has been indexed (or marked as not indexable) already
+	 */
+	@Nullable
+	public Object getPendingRegistration(String beanName) {
+		Registration registration = this.registrations.get(beanName);
+		return (registration != null && !registration.resolved ? registration : null);
+	}
+
+	/**
+	 * Index the given bean under the given type and all of its supertypes.
+	 * <p>The index is only updated if the bean has not been reset since the
+	 * given handle has been obtained, protecting against concurrent overriding.
+	 * @param beanName the name of the bean definition
+	 * @param pendingRegistration the handle from {@link #getPendingRegistration}
+	 * @param beanType the statically determined type of the bean, or {@code null}
+	 * to mark the bean as not indexable (to be returned for any type)
+	 */
+	public synchronized void index(String beanName, Object pendingRegistration, @Nullable Class<?> beanType) {
+		Registration registration = this.registrations.get(beanName);
+		if (registration != pendingRegistration) {
+			return;
+		}
+		Registration resolved = new Registration(registration.order, beanType);
+		this.registrations.put(beanName, resolved);
+		if (beanType != null) {
+			for (Class<?> type : getTypeHierarchy(beanType)) {
+				this.beanNamesByType.computeIfAbsent(type, key -> new ConcurrentSkipListMap<>())
+						.put(registration.order, beanName);
+			}
+			removeUnindexed(registration.order);
+		}
+	}
+
+	/**
+	 * Return the indexed type of the given bean, if any.
+	 * @param beanName the name of the bean definition
+	 * @return the statically determined type, or {@code null} if not indexed
+	 */
+	@Nullable
+	public Class<?> getIndexedType(String beanName) {
+		Registration registration = this.registrations.get(beanName);
+		return (registration != null ? registration.beanType : null);
+	}
+
+	/**
+	 * Determine the candidate bean names for the given type, in registration order:
+	 * all indexed beans assignable to the given type plus all unindexed beans.
+	 * @param type the raw type to match
+	 * @return the candidate names, or {@code null} if the index would not narrow
+	 * down the names to check (the caller should check all bean names then)
+	 */
+	@Nullable
+	public List<String> getCandidateNames(Class<?> type) {
+		if (Object.class == type) {
+			return null;
+		}
+		int unindexedCount = this.unindexedCount;
+		if (unindexedCount > this.registrations.size() / 2) {
+			// Mostly unindexed still (e.g. during startup): not worth merging.
+			return null;
+		}
+		Map<Integer, String> indexed = this.beanNamesByType.get(type);
+		List<String> result = new ArrayList<>((indexed != null ? indexed.size() : 0) + unindexedCount);
+		// Merge both name maps, each of them sorted by registration order already.
+		Iterator<Map.Entry<Integer, String>> indexedIt =
+				(indexed != null ? indexed.entrySet().iterator() : Collections.emptyIterator());
+		Iterator<Map.Entry<Integer, String>> unindexedIt = this.unindexedBeanNames.entrySet().iterator();
+		Map.Entry<Integer, String> nextIndexed = next(indexedIt);
+		Map.Entry<Integer, String> nextUnindexed = next(unindexedIt);
+		while (nextIndexed != null || nextUnindexed != null) {
+			int comparison = (nextIndexed == null ? 1 : nextUnindexed == null ? -1 :
+					nextIndexed.getKey().compareTo(nextUnindexed.getKey()));
+			Map.Entry<Integer, String> candidate = (comparison <= 0 ? nextIndexed : nextUnindexed);
+			if (comparison <= 0) {
+				nextIndexed = next(indexedIt);
+			}
+			if (comparison >= 0) {
+				nextUnindexed = next(unindexedIt);
+			}
+			// Skip entries for beans concurrently removed or re-registered.
+			Registration registration = this.registrations.get(candidate.getValue());
+			if (registration != null && registration.order == candidate.getKey()) {
+				result.add(candidate.getValue());
+			}
+		}
+		return result;
+	}
+
+	@Nullable
+	private static Map.Entry<Integer, String> next(Iterator<Map.Entry<Integer, String>> it) {
+		return (it.hasNext() ? it.next() : null);
+	}
+
+	private void addUnindexed(String beanName, int order) {
+		if (this.unindexedBeanNames.put(order, beanName) == null) {
+			this.unindexedCount++;
+		}
+	}
+
+	private void removeUnindexed(int order) {
+		if (this.unindexedBeanNames.remove(order) != null) {
+			this.unindexedCount--;
+		}
+	}
+
+	private void unindex(Registration registration) {
+		Class<?> beanType = registration.beanType;
+		if (beanType != null) {
+			for (Class<?> type : getTypeHierarchy(beanType)) {
+				Map<Integer, String> beanNames = this.beanNamesByType.get(type);
+				if (beanNames != null) {
+					beanNames.remove(registration.order);
+				}
+			}
+		}
+	}
+
+	private static Set<Class<?>> getTypeHierarchy(Class<?> beanType) {
+		Set<Class<?>> types = new LinkedHashSet<>();
+		Class<?> current = beanType;
+		while (current != null && current != Object.class) {
+			types.add(current);
+			addInterfaces(current, types);
+			current = current.getSuperclass();
+		}
+		return types;
+	}
+
+	private static void addInterfaces(Class<?> type, Set<Class<?>> types) {
+		for (Class<?> ifc : type.getInterfaces()) {
+			if (types.add(ifc)) {
+				addInterfaces(ifc, types);
+			}
+		}
+	}
+
+
+	/**
+	 * Immutable registration state for a bean name.
+	 */
+	private static final class Registration {
+
+		final int order;
+
+		final boolean resolved;
+
+		@Nullable
+		final Class<?> beanType;
+
+		Registration(int order) {
+			this.order = order;
+			this.resolved = false;
+			this.beanType = null;
+		}
+
+		Registration(int order, @Nullable Class<?> beanType) {
+			this.order = order;
+			this.resolved = true;
+			this.beanType = beanType;
+		}
+	}
+
+}
@@ -40,6 +40,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import javax.inject.Provider;
 
 import org.springframework.beans.BeanUtils;
@@ -64,13 +65,16 @@ import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
 import org.springframework.core.OrderComparator;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -167,6 +171,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	//所有已注册到容器的单例Bean的类型和名称的缓存
 	private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<>(64);
 
+	/** Inverted index from bean types to names of bean definitions with a statically known type */
+	private final BeanTypeIndex beanTypeIndex = new BeanTypeIndex();
+
 	/** List of bean definition names, in registration order */
 	//按注册顺序存放的BeanDefinition缓存
 	private volatile List<String> beanDefinitionNames = new ArrayList<>(256);
@@ -410,12 +417,22 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private String[] doGetBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
 		List<String> result = new ArrayList<>();
 
+		// Narrow down the bean definitions to check through the type index, if possible.
+		Class<?> rawType = type.resolve();
+		List<String> candidateNames = (rawType != null ? this.beanTypeIndex.getCandidateNames(rawType) : null);
+
 		// Check all bean definitions.
-		for (String beanName : this.beanDefinitionNames) {
+		for (String beanName : (candidateNames != null ? candidateNames : this.beanDefinitionNames)) {
 			// Only consider bean as eligible if the bean name
 			// is not defined as alias for some other bean.
 			if (!isAlias(beanName)) {
 				try {
+					if (rawType != null && candidateNames == null) {
+						Class<?> indexedType = this.beanTypeIndex.getIndexedType(beanName);
+						if (indexedType != null && !rawType.isAssignableFrom(indexedType)) {
+							continue;
+						}
+					}
 					RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
 					// Only check bean definition if it is complete.
 					if (!mbd.isAbstract() && (allowEagerInit ||
@@ -438,6 +455,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 						if (matchFound) {
 							result.add(beanName);
 						}
+						indexBeanType(transformedBeanName(beanName), mbd);
 					}
 				}
 				catch (CannotLoadBeanClassException ex) {
@@ -503,6 +521,39 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return (factoryBeanName != null && isFactoryBean(factoryBeanName) && !containsSingleton(factoryBeanName));
 	}
 
+	/**
+	 * Add the given bean to the type index if its exposed type can be determined
+	 * statically, that is, without factory method or {@code FactoryBean} indirection
+	 * and without post-processors exposing a different type, or mark it as not
+	 * indexable otherwise. Beans whose class has not been resolved yet or which are
+	 * currently in creation are left for a later attempt.
+	 * @param beanName the name of the bean
+	 * @param mbd the merged bean definition for the bean
+	 * @see BeanTypeIndex
+	 */
+	private void indexBeanType(String beanName, RootBeanDefinition mbd) {
+		Object pendingRegistration = this.beanTypeIndex.getPendingRegistration(beanName);
+		if (pendingRegistration == null || !mbd.hasBeanClass() || isCurrentlyInCreation(beanName)) {
+			return;
+		}
+		Class<?> beanType = mbd.getBeanClass();
+		if (!mbd.isSingleton() || mbd.getFactoryMethodName() != null || mbd.getInstanceSupplier() != null ||
+				mbd.getDecoratedDefinition() != null || FactoryBean.class.isAssignableFrom(beanType)) {
+			beanType = null;
+		}
+		else {
+			Class<?> targetType = mbd.getTargetType();
+			Object beanInstance = getSingleton(beanName, false);
+			if ((targetType != null && targetType != beanType) ||
+					(beanInstance != null && beanInstance.getClass() != beanType) ||
+					(beanInstance == null && containsSingleton(beanName)) ||
+					(hasInstantiationAwareBeanPostProcessors() && predictBeanType(beanName, mbd) != beanType)) {
+				beanType = null;
+			}
+		}
+		this.beanTypeIndex.index(beanName, pendingRegistration, beanType);
+	}
+
 	@Override
 	public <T> Map<String, T> getBeansOfType(@Nullable Class<T> type) throws BeansException {
 		return getBeansOfType(type, true, true);
@@ -547,8 +598,13 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		List<String> results = new ArrayList<>();
 		for (String beanName : this.beanDefinitionNames) {
 			BeanDefinition beanDefinition = getBeanDefinition(beanName);
-			if (!beanDefinition.isAbstract() && findAnnotationOnBean(beanName, annotationType) != null) {
-				results.add(beanName);
+			if (!beanDefinition.isAbstract()) {
+				// Indexed type is the exposed type as well as the raw bean class: check it directly.
+				Class<?> indexedType = this.beanTypeIndex.getIndexedType(beanName);
+				if (indexedType != null ? AnnotationUtils.findAnnotation(indexedType, annotationType) != null :
+						findAnnotationOnBean(beanName, annotationType) != null) {
+					results.add(beanName);
+				}
 			}
 		}
 		for (String beanName : this.manualSingletonNames) {
@@ -704,6 +760,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	@Override
 	public void clearMetadataCache() {
 		super.clearMetadataCache();
+		this.beanTypeIndex.resetAll();
 		clearByTypeCache();
 	}
 
@@ -781,15 +838,22 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			if (singletonInstance instanceof SmartInitializingSingleton) {
 				//智能初始化单例接口，完成对Bean初始化完毕后的操作。
 				final SmartInitializingSingleton smartSingleton = (SmartInitializingSingleton) singletonInstance;
-				if (System.getSecurityManager() != null) {
-					AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
+				StartupStep smartInitialize = getApplicationStartup().start("spring.beans.smart-initialize")
+						.tag("beanName", beanName);
+				try {
+					if (System.getSecurityManager() != null) {
+						AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
+							smartSingleton.afterSingletonsInstantiated();
+							return null;
+						}, getAccessControlContext());
+					}
+					else {
+						//在Bean初始化完成达到可用后，调用SmartInitializingSingleton接口的afterSingletonsInstantiated方法
 						smartSingleton.afterSingletonsInstantiated();
-						return null;
-					}, getAccessControlContext());
+					}
 				}
-				else {
-					//在Bean初始化完成达到可用后，调用SmartInitializingSingleton接口的afterSingletonsInstantiated方法
-					smartSingleton.afterSingletonsInstantiated();
+				finally {
+					smartInitialize.end();
 				}
 			}
 		}
@@ -874,6 +938,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			}
 			this.frozenBeanDefinitionNames = null;
 		}
+		this.beanTypeIndex.register(beanName);
 
 		if (oldBeanDefinition != null || containsSingleton(beanName)) {
 			resetBeanDefinition(beanName);
@@ -905,6 +970,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.beanDefinitionNames.remove(beanName);
 		}
 		this.frozenBeanDefinitionNames = null;
+		this.beanTypeIndex.remove(beanName);
 
 		resetBeanDefinition(beanName);
 	}
@@ -917,6 +983,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	protected void resetBeanDefinition(String beanName) {
 		// Remove the merged bean definition for the given bean, if already created.
 		clearMergedBeanDefinition(beanName);
+		this.beanTypeIndex.reset(beanName);
 
 		// Remove corresponding bean from singleton cache, if any. Shouldn't usually
 		// be necessary, rather just meant for overriding a context's default beans
@@ -964,23 +1031,63 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			}
 		}
 
-		clearByTypeCache();
+		clearByTypeCacheForSingleton(singletonObject);
 	}
 
 	@Override
 	public void destroySingleton(String beanName) {
 		super.destroySingleton(beanName);
 		this.manualSingletonNames.remove(beanName);
-		clearByTypeCache();
+		this.beanTypeIndex.reset(beanName);
+		if (containsBeanDefinition(beanName)) {
+			// The type predicted for the bean definition might differ from the instance.
+			clearByTypeCache();
+		}
+		else {
+			clearByTypeCacheForBeanName(beanName);
+		}
 	}
 
 	@Override
 	public void destroySingletons() {
 		super.destroySingletons();
 		this.manualSingletonNames.clear();
+		this.beanTypeIndex.resetAll();
 		clearByTypeCache();
 	}
 
+	/**
+	 * Reset the indexed type of the given bean: the exposed singleton
+	 * instance might differ from the type predicted before its creation.
+	 */
+	@Override
+	protected void beforeSingletonCreation(String beanName) {
+		super.beforeSingletonCreation(beanName);
+		this.beanTypeIndex.reset(beanName);
+	}
+
+	/**
+	 * Reset the indexed type of the given bean, to be re-indexed
+	 * against the actual singleton instance on the next lookup.
+	 */
+	@Override
+	protected void addSingleton(String beanName, Object singletonObject) {
+		super.addSingleton(beanName, singletonObject);
+		this.beanTypeIndex.reset(beanName);
+	}
+
+	/**
+	 * Reset all indexed types when a post-processor is added
+	 * that might predict different bean types.
+	 */
+	@Override
+	public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
+		super.addBeanPostProcessor(beanPostProcessor);
+		if (beanPostProcessor instanceof SmartInstantiationAwareBeanPostProcessor) {
+			this.beanTypeIndex.resetAll();
+		}
+	}
+
 	/**
 	 * Remove any assumptions about by-type mappings.
 	 */
@@ -989,6 +1096,39 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		this.singletonBeanNamesByType.clear();
 	}
 
+	/**
+	 * Remove the by-type mappings for all types that the given newly
+	 * registered singleton matches, keeping the mappings for other types.
+	 */
+	private void clearByTypeCacheForSingleton(Object singletonObject) {
+		if (singletonObject instanceof FactoryBean) {
+			// Exposed object type not known upfront: might match any type.
+			clearByTypeCache();
+		}
+		else {
+			this.allBeanNamesByType.keySet().removeIf(type -> type.isInstance(singletonObject));
+			this.singletonBeanNamesByType.keySet().removeIf(type -> type.isInstance(singletonObject));
+		}
+	}
+
+	/**
+	 * Remove the by-type mappings which contain the given removed bean name,
+	 * keeping the mappings for other types.
+	 */
+	private void clearByTypeCacheForBeanName(String beanName) {
+		String factoryBeanName = FACTORY_BEAN_PREFIX + beanName;
+		Predicate<String[]> containsBean = beanNames -> {
+			for (String candidate : beanNames) {
+				if (candidate.equals(beanName) || candidate.equals(factoryBeanName)) {
+					return true;
+				}
+			}
+			return false;
+		};
+		this.allBeanNamesByType.values().removeIf(containsBean);
+		this.singletonBeanNamesByType.values().removeIf(containsBean);
+	}
+
 
 	//---------------------------------------------------------------------
 	// Dependency resolution functionality
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import org.w3c.dom.Element;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Variant of the {@link DefaultBeanDefinitionDocumentReader} which processes
+ * the elements of a {@link StaxElementSource} one at a time, instead of
+ * walking a complete DOM document.
+ *
+ * <p>{@code <beans>} elements (including the root element) are processed
+ * like in the default document reader, with their children being streamed
+ * from the source: each child element is temporarily attached to its
+ * {@code <beans>} element while being parsed and detached afterwards,
+ * so only one top-level element is held in memory at any time.
+ *
+ * @since 5.1
+ * @see StaxXmlBeanDefinitionReader
+ */
+class StaxBeanDefinitionDocumentReader extends DefaultBeanDefinitionDocumentReader {
+
+	private final StaxElementSource elementSource;
+
+	/** The {@code <beans>} element about to be processed from the element source */
+	@Nullable
+	private Element pendingContainer;
+
+
+	public StaxBeanDefinitionDocumentReader(StaxElementSource elementSource) {
+		this.elementSource = elementSource;
+	}
+
+
+	/**
+	 * Register the bean definitions from the element source.
+	 * @param readerContext the current context of the reader
+	 */
+	public void registerBeanDefinitions(XmlReaderContext readerContext) {
+		Element root = this.elementSource.getRootElement();
+		// Any other root element has been read completely, to be processed as usual.
+		this.pendingContainer = (StaxElementSource.isContainer(root) ? root : null);
+		registerBeanDefinitions(root.getOwnerDocument(), readerContext);
+		this.pendingContainer = null;
+	}
+
+	/**
+	 * This implementation streams the child elements of {@code <beans>}
+	 * elements from the element source.
+	 */
+	@Override
+	protected void parseBeanDefinitions(Element root, BeanDefinitionParserDelegate delegate) {
+		if (root != this.pendingContainer) {
+			super.parseBeanDefinitions(root, delegate);
+			return;
+		}
+		this.pendingContainer = null;
+		Element ele;
+		while ((ele = this.elementSource.nextElement()) != null) {
+			root.appendChild(ele);
+			if (!delegate.isDefaultNamespace(ele)) {
+				delegate.parseCustomElement(ele);
+			}
+			else if (delegate.nodeNameEquals(ele, IMPORT_ELEMENT)) {
+				importBeanDefinitionResource(ele);
+			}
+			else if (delegate.nodeNameEquals(ele, ALIAS_ELEMENT)) {
+				processAliasRegistration(ele);
+			}
+			else if (delegate.nodeNameEquals(ele, BEAN_ELEMENT)) {
+				processBeanDefinition(ele, delegate);
+			}
+			else if (StaxElementSource.isContainer(ele)) {
+				// recurse
+				this.pendingContainer = ele;
+				doRegisterBeanDefinitions(ele);
+				if (this.pendingContainer == ele) {
+					// not parsed, e.g. due to non-matching profile
+					this.pendingContainer = null;
+					this.elementSource.skipContainer();
+				}
+			}
+			root.removeChild(ele);
+		}
+	}
+
+}
@@ -0,0 +1,517 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.XMLConstants;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * Source of DOM elements for the {@link StaxBeanDefinitionDocumentReader},
+ * built incrementally from a StAX {@link XMLStreamReader}.
+ *
+ * <p>{@code <beans>} elements of the default namespace are exposed as
+ * "container" elements which carry their attributes but no child nodes;
+ * their children get returned one at a time from {@link #nextElement()}.
+ * Any other element is returned as a complete DOM subtree, so that
+ * {@link NamespaceHandler NamespaceHandlers} and the
+ * {@link BeanDefinitionParserDelegate} can process it as usual.
+ *
+ * <p>Since the stream is not validated, the attribute defaults that the
+ * "spring-beans" XSD declares for the default namespace are applied here.
+ * Top-level elements that are or contain elements of other namespaces are
+ * passed to a {@link CustomElementValidator}, if any, which may apply the
+ * defaults declared by their schemas.
+ *
+ * <p>Documents with a DOCTYPE declaration are not supported: reading them
+ * fails with a {@link DtdNotSupportedException} before any element is returned.
+ *
+ * @since 5.1
+ * @see StaxXmlBeanDefinitionReader
+ */
+abstract class StaxElementSource {
+
+	private static final String DEFAULT_VALUE = BeanDefinitionParserDelegate.DEFAULT_VALUE;
+
+	private static final String SCHEMA_LOCATION_ATTRIBUTE = "schemaLocation";
+
+	/** Attributes that the "spring-beans" XSD defaults to "default", per element */
+	private static final Map<String, String[]> defaultAttributes = new HashMap<>(16);
+
+	static {
+		defaultAttributes.put(DefaultBeanDefinitionDocumentReader.NESTED_BEANS_ELEMENT,
+				new String[] {BeanDefinitionParserDelegate.DEFAULT_LAZY_INIT_ATTRIBUTE,
+						BeanDefinitionParserDelegate.DEFAULT_MERGE_ATTRIBUTE,
+						BeanDefinitionParserDelegate.DEFAULT_AUTOWIRE_ATTRIBUTE});
+		defaultAttributes.put(BeanDefinitionParserDelegate.BEAN_ELEMENT,
+				new String[] {BeanDefinitionParserDelegate.LAZY_INIT_ATTRIBUTE,
+						BeanDefinitionParserDelegate.AUTOWIRE_ATTRIBUTE,
+						BeanDefinitionParserDelegate.AUTOWIRE_CANDIDATE_ATTRIBUTE});
+		String[] merge = new String[] {BeanDefinitionParserDelegate.MERGE_ATTRIBUTE};
+		defaultAttributes.put(BeanDefinitionParserDelegate.ARRAY_ELEMENT, merge);
+		defaultAttributes.put(BeanDefinitionParserDelegate.LIST_ELEMENT, merge);
+		defaultAttributes.put(BeanDefinitionParserDelegate.SET_ELEMENT, merge);
+		defaultAttributes.put(BeanDefinitionParserDelegate.MAP_ELEMENT, merge);
+		defaultAttributes.put(BeanDefinitionParserDelegate.PROPS_ELEMENT, merge);
+	}
+
+
+	/**
+	 * Return the root element of the document: a container element if it is
+	 * a {@code <beans>} element of the default namespace, a complete element otherwise.
+	 */
+	public abstract Element getRootElement();
+
+	/**
+	 * Return the next child element of the current container element.
+	 * <p>Returning a nested container element makes it the current one
+	 * until its end has been reached or {@link #skipContainer()} is called.
+	 * @return the next element, or {@code null} at the end of the current container
+	 */
+	@Nullable
+	public abstract Element nextElement();
+
+	/**
+	 * Skip the remaining children of the current container element,
+	 * e.g. when its profile is not active.
+	 */
+	public abstract void skipContainer();
+
+
+	/**
+	 * Determine whether the given element is a container element,
+	 * i.e. a {@code <beans>} element of the default namespace.
+	 */
+	public static boolean isContainer(Element ele) {
+		return isContainer(ele.getNamespaceURI(), ele.getLocalName());
+	}
+
+	static boolean isContainer(@Nullable String namespaceUri, String localName) {
+		return (isDefaultNamespace(namespaceUri) &&
+				DefaultBeanDefinitionDocumentReader.NESTED_BEANS_ELEMENT.equals(localName));
+	}
+
+	private static boolean isDefaultNamespace(@Nullable String namespaceUri) {
+		return (!StringUtils.hasLength(namespaceUri) ||
+				BeanDefinitionParserDelegate.BEANS_NAMESPACE_URI.equals(namespaceUri));
+	}
+
+
+	/**
+	 * Translate the given parse exception into an {@link XmlBeanDefinitionStoreException}
+	 * which exposes the line number, like for a DOM-based parse failure.
+	 * @param resource the resource being read
+	 * @param ex the exception thrown by the StAX reader
+	 */
+	public static BeanDefinitionStoreException storeException(Resource resource, XMLStreamException ex) {
+		Location location = ex.getLocation();
+		int lineNumber = (location != null ? location.getLineNumber() : -1);
+		int columnNumber = (location != null ? location.getColumnNumber() : -1);
+		SAXParseException cause = new SAXParseException(ex.getMessage(), null, null, lineNumber, columnNumber, ex);
+		return new XmlBeanDefinitionStoreException(resource.getDescription(),
+				"Line " + lineNumber + " in XML document from " + resource + " is invalid", cause);
+	}
+
+	/**
+	 * Create a source which reads elements from the given stream on demand.
+	 * @param reader the StAX reader, positioned at the start of the document
+	 * @param document the document to create the elements with
+	 * @param resource the resource being read (for error reporting)
+	 * @param customElementValidator the validator for elements containing elements of
+	 * other namespaces than the default namespace, or {@code null} to expose them as read
+	 */
+	public static StaxElementSource streaming(XMLStreamReader reader, Document document, Resource resource,
+			@Nullable CustomElementValidator customElementValidator) {
+
+		return new StreamingElementSource(reader, document, resource, customElementValidator);
+	}
+
+	/**
+	 * Create a source which reads all elements from the given stream up front,
+	 * allowing for processing them on a different thread later on.
+	 * @param reader the StAX reader, positioned at the start of the document
+	 * @param document the document to create the elements with
+	 * @param resource the resource being read (for error reporting)
+	 * @param customElementValidator the validator for elements containing elements of
+	 * other namespaces than the default namespace, or {@code null} to expose them as read
+	 */
+	public static StaxElementSource buffered(XMLStreamReader reader, Document document, Resource resource,
+			@Nullable CustomElementValidator customElementValidator) {
+
+		StaxElementSource source = streaming(reader, document, resource, customElementValidator);
+		Element root = source.getRootElement();
+		List<Element> elements = new ArrayList<>();
+		if (isContainer(root)) {
+			int depth = 0;
+			while (depth >= 0) {
+				Element ele = source.nextElement();
+				elements.add(ele);
+				if (ele == null) {
+					depth--;
+				}
+				else if (isContainer(ele)) {
+					depth++;
+				}
+			}
+		}
+		return new BufferedElementSource(root, elements);
+	}
+
+
+	/**
+	 * Strategy for completing an element which is or contains an element
+	 * of a non-default namespace, e.g. by validating it against its schemas.
+	 */
+	@FunctionalInterface
+	interface CustomElementValidator {
+
+		/**
+		 * Validate the given element in place, adding the attribute defaults
+		 * declared by its schemas to it.
+		 * @param ele the element as read from the stream, declaring all
+		 * namespaces in scope as well as the schema locations of the document
+		 * @throws Exception in case of validation errors
+		 */
+		void validateElement(Element ele) throws Exception;
+	}
+
+
+	/**
+	 * Exception thrown when reading a document with a DOCTYPE declaration,
+	 * which is not supported by this source.
+	 */
+	@SuppressWarnings("serial")
+	static class DtdNotSupportedException extends BeanDefinitionStoreException {
+
+		public DtdNotSupportedException(Resource resource) {
+			super(resource.getDescription(), "DTD-based XML document from " + resource +
+					" cannot be read through StAX; use XmlBeanDefinitionReader instead");
+		}
+	}
+
+
+	/**
+	 * Source which builds each element when requested.
+	 */
+	private static class StreamingElementSource extends StaxElementSource {
+
+		private final XMLStreamReader reader;
+
+		private final Document document;
+
+		private final Resource resource;
+
+		@Nullable
+		private final CustomElementValidator customElementValidator;
+
+		/** The container elements currently being read, innermost first */
+		private final Deque<Element> containers = new ArrayDeque<>();
+
+		/** Whether an element of a non-default namespace has been created */
+		private boolean customElementCreated;
+
+		@Nullable
+		private Element rootElement;
+
+		public StreamingElementSource(XMLStreamReader reader, Document document, Resource resource,
+				@Nullable CustomElementValidator customElementValidator) {
+
+			this.reader = reader;
+			this.document = document;
+			this.resource = resource;
+			this.customElementValidator = customElementValidator;
+		}
+
+		@Override
+		public Element getRootElement() {
+			if (this.rootElement == null) {
+				try {
+					int event;
+					while ((event = this.reader.next()) != XMLStreamConstants.START_ELEMENT) {
+						// skip prolog
+						if (event == XMLStreamConstants.DTD) {
+							throw new DtdNotSupportedException(this.resource);
+						}
+					}
+					Element root;
+					if (isContainer(this.reader.getNamespaceURI(), this.reader.getLocalName())) {
+						root = createElement();
+						this.containers.push(root);
+					}
+					else {
+						root = readElement();
+					}
+					this.document.appendChild(root);
+					this.rootElement = root;
+				}
+				catch (XMLStreamException ex) {
+					throw storeException(ex);
+				}
+			}
+			return this.rootElement;
+		}
+
+		@Override
+		@Nullable
+		public Element nextElement() {
+			try {
+				while (this.reader.hasNext()) {
+					int event = this.reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						if (isContainer(this.reader.getNamespaceURI(), this.reader.getLocalName())) {
+							Element container = createElement();
+							this.containers.push(container);
+							return container;
+						}
+						return readElement();
+					}
+					else if (event == XMLStreamConstants.END_ELEMENT) {
+						this.containers.poll();
+						return null;
+					}
+				}
+				return null;
+			}
+			catch (XMLStreamException ex) {
+				throw storeException(ex);
+			}
+		}
+
+		@Override
+		public void skipContainer() {
+			try {
+				int depth = 0;
+				while (this.reader.hasNext()) {
+					int event = this.reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						depth++;
+					}
+					else if (event == XMLStreamConstants.END_ELEMENT) {
+						if (depth == 0) {
+							this.containers.poll();
+							return;
+						}
+						depth--;
+					}
+				}
+			}
+			catch (XMLStreamException ex) {
+				throw storeException(ex);
+			}
+		}
+
+		/**
+		 * Read the element at the current position, including all of its
+		 * content, leaving the reader positioned at its end tag.
+		 * Elements that are or contain elements of non-default namespaces
+		 * get completed by the {@link CustomElementValidator}, if any.
+		 */
+		private Element readElement() throws XMLStreamException {
+			this.customElementCreated = false;
+			Element ele = readElementContent();
+			if (this.customElementValidator == null || !this.customElementCreated) {
+				return ele;
+			}
+			// Declare everything the element depends on, then validate it on its own.
+			List<Attr> addedAttributes = new ArrayList<>();
+			for (Element container : this.containers) {
+				NamedNodeMap attributes = container.getAttributes();
+				for (int i = 0; i < attributes.getLength(); i++) {
+					Attr attribute = (Attr) attributes.item(i);
+					String namespaceUri = attribute.getNamespaceURI();
+					if ((XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(namespaceUri) ||
+							(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(namespaceUri) &&
+									SCHEMA_LOCATION_ATTRIBUTE.equals(attribute.getLocalName()))) &&
+							!ele.hasAttributeNS(namespaceUri, attribute.getLocalName())) {
+						ele.setAttributeNS(namespaceUri, attribute.getName(), attribute.getValue());
+						addedAttributes.add(attribute);
+					}
+				}
+			}
+			try {
+				this.customElementValidator.validateElement(ele);
+				// Not to be seen by the parsers: e.g. mapped to properties by AbstractSimpleBeanDefinitionParser
+				for (Attr attribute : addedAttributes) {
+					ele.removeAttributeNS(attribute.getNamespaceURI(), attribute.getLocalName());
+				}
+				return ele;
+			}
+			catch (BeanDefinitionStoreException ex) {
+				throw ex;
+			}
+			catch (SAXException ex) {
+				throw new XmlBeanDefinitionStoreException(this.resource.getDescription(),
+						"Element [" + ele.getNodeName() + "] in XML document from " + this.resource + " is invalid", ex);
+			}
+			catch (Exception ex) {
+				throw new BeanDefinitionStoreException(this.resource.getDescription(),
+						"Unexpected exception validating element [" + ele.getNodeName() + "] in XML document from " +
+						this.resource, ex);
+			}
+		}
+
+		private Element readElementContent() throws XMLStreamException {
+			Element root = createElement();
+			Deque<Node> stack = new ArrayDeque<>();
+			Node current = root;
+			while (true) {
+				switch (this.reader.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						Element child = createElement();
+						current.appendChild(child);
+						stack.push(current);
+						current = child;
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						if (stack.isEmpty()) {
+							return root;
+						}
+						current = stack.pop();
+						break;
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.SPACE:
+						current.appendChild(this.document.createTextNode(this.reader.getText()));
+						break;
+					case XMLStreamConstants.CDATA:
+						current.appendChild(this.document.createCDATASection(this.reader.getText()));
+						break;
+					case XMLStreamConstants.COMMENT:
+						current.appendChild(this.document.createComment(this.reader.getText()));
+						break;
+					case XMLStreamConstants.END_DOCUMENT:
+						throw new XMLStreamException("Unexpected end of document", this.reader.getLocation());
+					default:
+						// processing instructions etc
+				}
+			}
+		}
+
+		/**
+		 * Create an element for the start tag at the current position,
+		 * with its namespace declarations and attributes but without content.
+		 */
+		private Element createElement() {
+			XMLStreamReader reader = this.reader;
+			String namespaceUri = reader.getNamespaceURI();
+			Element ele = this.document.createElementNS(
+					(StringUtils.hasLength(namespaceUri) ? namespaceUri : null),
+					qualifiedName(reader.getPrefix(), reader.getLocalName()));
+			if (!isDefaultNamespace(namespaceUri)) {
+				this.customElementCreated = true;
+			}
+			for (int i = 0; i < reader.getNamespaceCount(); i++) {
+				String prefix = reader.getNamespacePrefix(i);
+				ele.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+						(StringUtils.hasLength(prefix) ? XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix :
+								XMLConstants.XMLNS_ATTRIBUTE), reader.getNamespaceURI(i));
+			}
+			for (int i = 0; i < reader.getAttributeCount(); i++) {
+				String attributeNamespace = reader.getAttributeNamespace(i);
+				ele.setAttributeNS((StringUtils.hasLength(attributeNamespace) ? attributeNamespace : null),
+						qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+						reader.getAttributeValue(i));
+			}
+			if (isDefaultNamespace(namespaceUri)) {
+				String[] attributeNames = defaultAttributes.get(reader.getLocalName());
+				if (attributeNames != null) {
+					for (String attributeName : attributeNames) {
+						if (!ele.hasAttribute(attributeName)) {
+							ele.setAttribute(attributeName, DEFAULT_VALUE);
+						}
+					}
+				}
+			}
+			return ele;
+		}
+
+		private static String qualifiedName(@Nullable String prefix, String localName) {
+			return (StringUtils.hasLength(prefix) ? prefix + ":" + localName : localName);
+		}
+
+		private BeanDefinitionStoreException storeException(XMLStreamException ex) {
+			return StaxElementSource.storeException(this.resource, ex);
+		}
+	}
+
+
+	/**
+	 * Source which returns elements that have been read before.
+	 */
+	private static class BufferedElementSource extends StaxElementSource {
+
+		private final Element rootElement;
+
+		private final List<Element> elements;
+
+		private int position = 0;
+
+		public BufferedElementSource(Element rootElement, List<Element> elements) {
+			this.rootElement = rootElement;
+			this.elements = elements;
+		}
+
+		@Override
+		public Element getRootElement() {
+			return this.rootElement;
+		}
+
+		@Override
+		@Nullable
+		public Element nextElement() {
+			return (this.position < this.elements.size() ? this.elements.get(this.position++) : null);
+		}
+
+		@Override
+		public void skipContainer() {
+			int depth = 0;
+			while (this.position < this.elements.size()) {
+				Element ele = this.elements.get(this.position++);
+				if (ele == null) {
+					if (depth == 0) {
+						return;
+					}
+					depth--;
+				}
+				else if (isContainer(ele)) {
+					depth++;
+				}
+			}
+		}
+	}
+
+}
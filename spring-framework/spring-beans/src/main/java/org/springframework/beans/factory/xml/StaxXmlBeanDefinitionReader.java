@@ -0,0 +1,451 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.ls.DOMImplementationLS;
+import org.w3c.dom.ls.LSInput;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.util.xml.SimpleSaxErrorHandler;
+
+/**
+ * Variant of the {@link XmlBeanDefinitionReader} which reads XML bean definition
+ * files through a StAX {@link XMLStreamReader} instead of loading a DOM document
+ * for each file: the elements below {@code <beans>} are built and parsed one at
+ * a time, so memory consumption is bounded by the largest top-level element
+ * instead of growing with the size of the file. Imported files get read the
+ * same way.
+ *
+ * <p>Each top-level element is still exposed as a DOM {@link org.w3c.dom.Element}
+ * to the {@link BeanDefinitionParserDelegate} and to {@link NamespaceHandler
+ * NamespaceHandlers}, so existing custom namespaces work unchanged.
+ *
+ * <p>If a {@link #setTaskExecutor task executor} has been specified, several
+ * resources passed to {@link #loadBeanDefinitions(Resource...)} get read in
+ * parallel; their bean definitions are registered one resource after the other
+ * on the calling thread though, in the order given, with the same semantics
+ * (e.g. for bean definition overriding and cyclic import detection) as for
+ * sequential loading.
+ *
+ * <p><b>NOTE:</b> Documents are not validated as a whole. Elements of the
+ * "spring-beans" namespace are never validated against the XSD, but get its
+ * attribute defaults applied nevertheless. Top-level elements which involve
+ * other namespaces get validated in place against the schemas declared by the
+ * document, unless the {@link #setValidationMode validation mode} is
+ * {@link #VALIDATION_NONE}, in order to apply the attribute defaults declared
+ * by those schemas. A custom {@link #setDocumentLoader DocumentLoader} or
+ * {@link #setDocumentReaderClass document reader class} is not used.
+ *
+ * <p>DTD-based documents are not supported by the streaming approach: they
+ * get read through the DOM-based {@link XmlBeanDefinitionReader} instead,
+ * from a fresh stream of the resource.
+ *
+ * @since 5.1
+ * @see #setTaskExecutor
+ */
+public class StaxXmlBeanDefinitionReader extends XmlBeanDefinitionReader {
+
+	private final XMLInputFactory inputFactory;
+
+	private final DocumentBuilderFactory documentBuilderFactory;
+
+	/** Schemas for validating custom elements, keyed by the schema locations of the document */
+	private final Map<String, Schema> schemas = new ConcurrentHashMap<>(4);
+
+	private ErrorHandler errorHandler = new SimpleSaxErrorHandler(logger);
+
+	private final ThreadLocal<Map<Resource, StaxElementSource>> prefetchedElementSources =
+			new NamedThreadLocal<>("XML bean definition resources read in advance");
+
+	@Nullable
+	private Executor taskExecutor;
+
+
+	/**
+	 * Create new StaxXmlBeanDefinitionReader for the given bean factory.
+	 * @param registry the BeanFactory to load bean definitions into,
+	 * in the form of a BeanDefinitionRegistry
+	 */
+	public StaxXmlBeanDefinitionReader(BeanDefinitionRegistry registry) {
+		super(registry);
+		this.inputFactory = XMLInputFactory.newInstance();
+		this.inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+		this.inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		this.inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		this.documentBuilderFactory = DocumentBuilderFactory.newInstance();
+		this.documentBuilderFactory.setNamespaceAware(true);
+	}
+
+
+	/**
+	 * This implementation keeps the handler for loading elements
+	 * of custom namespaces as well.
+	 */
+	@Override
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		super.setErrorHandler(errorHandler);
+		this.errorHandler = errorHandler;
+	}
+
+
+	/**
+	 * Set the executor to read several resources with in parallel,
+	 * e.g. a {@link java.util.concurrent.ForkJoinPool}.
+	 * <p>Default is none, reading all resources on the calling thread.
+	 * @see #loadBeanDefinitions(Resource...)
+	 */
+	public void setTaskExecutor(@Nullable Executor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Return the executor to read several resources with in parallel, if any.
+	 */
+	@Nullable
+	public Executor getTaskExecutor() {
+		return this.taskExecutor;
+	}
+
+
+	/**
+	 * This implementation reads the given resources in parallel if a
+	 * {@link #setTaskExecutor task executor} has been specified,
+	 * registering their bean definitions in the order given.
+	 * <p>Each resource still goes through {@link #loadBeanDefinitions(Resource)}
+	 * for registration, which just picks up the elements read in advance
+	 * without opening the resource again.
+	 */
+	@Override
+	public int loadBeanDefinitions(Resource... resources) throws BeanDefinitionStoreException {
+		Executor executor = this.taskExecutor;
+		if (executor == null || resources.length < 2) {
+			return super.loadBeanDefinitions(resources);
+		}
+
+		List<CompletableFuture<StaxElementSource>> futures = new ArrayList<>(resources.length);
+		for (Resource resource : resources) {
+			futures.add(CompletableFuture.supplyAsync(() -> readElements(resource), executor));
+		}
+		Map<Resource, StaxElementSource> previousSources = this.prefetchedElementSources.get();
+		Map<Resource, StaxElementSource> prefetchedSources = new HashMap<>(4);
+		this.prefetchedElementSources.set(prefetchedSources);
+		try {
+			int counter = 0;
+			for (int i = 0; i < resources.length; i++) {
+				try {
+					StaxElementSource source = futures.get(i).join();
+					if (source != null) {
+						prefetchedSources.put(resources[i], source);
+					}
+				}
+				catch (CompletionException ex) {
+					Throwable cause = ex.getCause();
+					if (cause instanceof BeanDefinitionStoreException) {
+						throw (BeanDefinitionStoreException) cause;
+					}
+					throw new BeanDefinitionStoreException(resources[i].getDescription(),
+							"Unexpected exception parsing XML document from " + resources[i], cause);
+				}
+				counter += loadBeanDefinitions(resources[i]);
+			}
+			return counter;
+		}
+		finally {
+			if (previousSources != null) {
+				this.prefetchedElementSources.set(previousSources);
+			}
+			else {
+				this.prefetchedElementSources.remove();
+			}
+		}
+	}
+
+	/**
+	 * Read all elements from the given resource, for registering
+	 * their bean definitions later on.
+	 * @return the elements read, or {@code null} for a DTD-based document
+	 */
+	@Nullable
+	private StaxElementSource readElements(Resource resource) {
+		try {
+			InputStream inputStream = resource.getInputStream();
+			try {
+				XMLStreamReader reader = createXmlStreamReader(new InputSource(inputStream));
+				try {
+					return StaxElementSource.buffered(reader, createDocument(), resource, getCustomElementValidator());
+				}
+				finally {
+					reader.close();
+				}
+			}
+			finally {
+				inputStream.close();
+			}
+		}
+		catch (StaxElementSource.DtdNotSupportedException ex) {
+			// To be read through the DOM-based reader on registration
+			return null;
+		}
+		catch (BeanDefinitionStoreException ex) {
+			throw ex;
+		}
+		catch (XMLStreamException ex) {
+			throw StaxElementSource.storeException(resource, ex);
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException(resource.getDescription(),
+					"IOException parsing XML document from " + resource, ex);
+		}
+		catch (Throwable ex) {
+			throw new BeanDefinitionStoreException(resource.getDescription(),
+					"Unexpected exception parsing XML document from " + resource, ex);
+		}
+	}
+
+	/**
+	 * This implementation registers the elements of the resource that have
+	 * been read in advance, if any, instead of opening the resource again.
+	 */
+	@Override
+	protected int doLoadBeanDefinitions(EncodedResource encodedResource)
+			throws IOException, BeanDefinitionStoreException {
+
+		Map<Resource, StaxElementSource> prefetchedSources = this.prefetchedElementSources.get();
+		StaxElementSource prefetchedSource =
+				(prefetchedSources != null ? prefetchedSources.remove(encodedResource.getResource()) : null);
+		if (prefetchedSource != null) {
+			return registerBeanDefinitions(prefetchedSource, encodedResource.getResource());
+		}
+		return super.doLoadBeanDefinitions(encodedResource);
+	}
+
+	/**
+	 * This implementation streams the bean definitions from the given
+	 * input source instead of loading a DOM document.
+	 * <p>A DTD-based document gets read through the DOM-based reader instead.
+	 */
+	@Override
+	protected int doLoadBeanDefinitions(InputSource inputSource, Resource resource)
+			throws BeanDefinitionStoreException {
+
+		try {
+			XMLStreamReader reader = createXmlStreamReader(inputSource);
+			try {
+				return registerBeanDefinitions(StaxElementSource.streaming(
+						reader, createDocument(), resource, getCustomElementValidator()), resource);
+			}
+			finally {
+				reader.close();
+			}
+		}
+		catch (StaxElementSource.DtdNotSupportedException ex) {
+			return loadDtdDocument(inputSource, resource, ex);
+		}
+		catch (BeanDefinitionStoreException ex) {
+			throw ex;
+		}
+		catch (XMLStreamException ex) {
+			throw StaxElementSource.storeException(resource, ex);
+		}
+		catch (ParserConfigurationException ex) {
+			throw new BeanDefinitionStoreException(resource.getDescription(),
+					"Parser configuration exception parsing XML from " + resource, ex);
+		}
+		catch (Throwable ex) {
+			throw new BeanDefinitionStoreException(resource.getDescription(),
+					"Unexpected exception parsing XML document from " + resource, ex);
+		}
+	}
+
+	/**
+	 * Load the given DTD-based document through the DOM-based reader,
+	 * from a fresh stream of the resource.
+	 * @param inputSource the input source that has been read from
+	 * @param resource the resource being read
+	 * @param ex the exception to throw if the resource cannot be opened again
+	 */
+	private int loadDtdDocument(InputSource inputSource, Resource resource,
+			StaxElementSource.DtdNotSupportedException ex) {
+
+		InputStream inputStream;
+		try {
+			inputStream = resource.getInputStream();
+		}
+		catch (IOException | IllegalStateException openEx) {
+			// e.g. an InputStreamResource that has been read already
+			throw ex;
+		}
+		try {
+			try {
+				InputSource domInputSource = new InputSource(inputStream);
+				domInputSource.setEncoding(inputSource.getEncoding());
+				return super.doLoadBeanDefinitions(domInputSource, resource);
+			}
+			finally {
+				inputStream.close();
+			}
+		}
+		catch (IOException closeEx) {
+			throw new BeanDefinitionStoreException(resource.getDescription(),
+					"IOException parsing XML document from " + resource, closeEx);
+		}
+	}
+
+	/**
+	 * Register the bean definitions from the given element source.
+	 * @return the number of bean definitions found
+	 */
+	private int registerBeanDefinitions(StaxElementSource elementSource, Resource resource) {
+		StaxBeanDefinitionDocumentReader documentReader = new StaxBeanDefinitionDocumentReader(elementSource);
+		int countBefore = getRegistry().getBeanDefinitionCount();
+		documentReader.registerBeanDefinitions(createReaderContext(resource));
+		return getRegistry().getBeanDefinitionCount() - countBefore;
+	}
+
+	/**
+	 * Create a StAX reader for the given input source.
+	 * @param inputSource the SAX InputSource to read from
+	 * @return the StAX reader
+	 * @throws XMLStreamException if the reader could not be created
+	 */
+	protected XMLStreamReader createXmlStreamReader(InputSource inputSource) throws XMLStreamException {
+		synchronized (this.inputFactory) {
+			if (inputSource.getByteStream() != null) {
+				String encoding = inputSource.getEncoding();
+				return (encoding != null ?
+						this.inputFactory.createXMLStreamReader(inputSource.getByteStream(), encoding) :
+						this.inputFactory.createXMLStreamReader(inputSource.getByteStream()));
+			}
+			else if (inputSource.getCharacterStream() != null) {
+				return this.inputFactory.createXMLStreamReader(inputSource.getCharacterStream());
+			}
+			else {
+				return this.inputFactory.createXMLStreamReader(new StreamSource(inputSource.getSystemId()));
+			}
+		}
+	}
+
+	/**
+	 * Return the validator for elements involving custom namespaces,
+	 * or {@code null} if they are not supposed to be validated.
+	 */
+	@Nullable
+	private StaxElementSource.CustomElementValidator getCustomElementValidator() {
+		return (getValidationMode() != VALIDATION_NONE ? this::validateCustomElement : null);
+	}
+
+	/**
+	 * Validate the given element in place against the schemas declared by the
+	 * document, which adds the attribute defaults declared by those schemas.
+	 * @param ele the element to validate, declaring all namespaces in scope
+	 * and the schema locations of the document
+	 */
+	private void validateCustomElement(Element ele) throws Exception {
+		String schemaLocation = ele.getAttributeNS(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "schemaLocation");
+		Schema schema = this.schemas.get(schemaLocation);
+		if (schema == null) {
+			schema = createSchema(schemaLocation);
+			this.schemas.put(schemaLocation, schema);
+		}
+		Validator validator = schema.newValidator();
+		validator.setErrorHandler(this.errorHandler);
+		validator.validate(new DOMSource(ele), new DOMResult(ele));
+	}
+
+	/**
+	 * Create the schema for the given schema locations of a document,
+	 * resolving the schema files through the {@link #getEntityResolver()
+	 * entity resolver}, like for a validating DOM-based parse.
+	 */
+	private Schema createSchema(String schemaLocation) throws Exception {
+		String[] tokens = StringUtils.tokenizeToStringArray(schemaLocation, " \t\r\n");
+		List<Source> sources = new ArrayList<>(tokens.length / 2);
+		for (int i = 1; i < tokens.length; i += 2) {
+			InputSource inputSource = getEntityResolver().resolveEntity(null, tokens[i]);
+			sources.add(inputSource != null ?
+					new StreamSource(inputSource.getByteStream(), tokens[i]) : new StreamSource(tokens[i]));
+		}
+		DOMImplementationLS domImplementation = (DOMImplementationLS) createDocument().getImplementation();
+		SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		schemaFactory.setResourceResolver((type, namespaceUri, publicId, systemId, baseUri) -> {
+			if (systemId == null) {
+				return null;
+			}
+			InputSource inputSource;
+			try {
+				inputSource = getEntityResolver().resolveEntity(publicId, systemId);
+			}
+			catch (IOException | SAXException ex) {
+				throw new IllegalStateException("Failed to resolve schema [" + systemId + "]", ex);
+			}
+			if (inputSource == null) {
+				return null;
+			}
+			LSInput input = domImplementation.createLSInput();
+			input.setByteStream(inputSource.getByteStream());
+			input.setPublicId(publicId);
+			input.setSystemId(systemId);
+			return input;
+		});
+		return schemaFactory.newSchema(sources.toArray(new Source[0]));
+	}
+
+	/**
+	 * Create the DOM document to build the elements of a resource with.
+	 */
+	private Document createDocument() throws ParserConfigurationException {
+		synchronized (this.documentBuilderFactory) {
+			return this.documentBuilderFactory.newDocumentBuilder().newDocument();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -327,18 +327,7 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 					"Detected cyclic loading of " + encodedResource + " - check your import definitions!");
 		}
 		try {
-			InputStream inputStream = encodedResource.getResource().getInputStream();
-			try {
-				//InputSource不是spring 资源抽象Resource的子类
-				InputSource inputSource = new InputSource(inputStream);
-				if (encodedResource.getEncoding() != null) {
-					inputSource.setEncoding(encodedResource.getEncoding());
-				}
-				return doLoadBeanDefinitions(inputSource, encodedResource.getResource());
-			}
-			finally {
-				inputStream.close();
-			}
+			return doLoadBeanDefinitions(encodedResource);
 		}
 		catch (IOException ex) {
 			throw new BeanDefinitionStoreException(
@@ -352,6 +341,35 @@ public class XmlBeanDefinitionReader extends AbstractBeanDefinitionReader {
 		}
 	}
 
+	/**
+	 * Actually load bean definitions from the specified XML file, once it
+	 * has been registered as currently being loaded.
+	 * <p>The default implementation opens the resource and delegates to
+	 * {@link #doLoadBeanDefinitions(InputSource, Resource)}.
+	 * @param encodedResource the resource descriptor for the XML file,
+	 * allowing to specify an encoding to use for parsing the file
+	 * @return the number of bean definitions found
+	 * @throws IOException if the resource cannot be opened
+	 * @throws BeanDefinitionStoreException in case of loading or parsing errors
+	 * @since 5.1
+	 */
+	protected int doLoadBeanDefinitions(EncodedResource encodedResource)
+			throws IOException, BeanDefinitionStoreException {
+
+		InputStream inputStream = encodedResource.getResource().getInputStream();
+		try {
+			//InputSource不是spring 资源抽象Resource的子类
+			InputSource inputSource = new InputSource(inputStream);
+			if (encodedResource.getEncoding() != null) {
+				inputSource.setEncoding(encodedResource.getEncoding());
+			}
+			return doLoadBeanDefinitions(inputSource, encodedResource.getResource());
+		}
+		finally {
+			inputStream.close();
+		}
+	}
+
 	/**
 	 * Load bean definitions from the specified XML file.
 	 * @param inputSource the SAX InputSource to read from
@@ -233,6 +233,65 @@ public abstract class AbstractPropertyAccessorTests {
 		assertTrue("spousesSpouse = initial point", target == spousesSpouse);
 	}
 
+	@Test
+	public void getAndSetNestedIndexedPropertyRepeatedly() {
+		IndexedTestBean target = new IndexedTestBean();
+		IndexedTestBean otherTarget = new IndexedTestBean();
+		otherTarget.getArray()[1].setName("other1");
+		AbstractPropertyAccessor accessor = createAccessor(target);
+		AbstractPropertyAccessor otherAccessor = createAccessor(otherTarget);
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals("name1", accessor.getPropertyValue("array[1].name"));
+			assertEquals("other1", otherAccessor.getPropertyValue("array[1].name"));
+			assertEquals("name5", accessor.getPropertyValue("map['key.3'].name"));
+			assertEquals("nameY", accessor.getPropertyValue("map[key4][1].name"));
+		}
+
+		accessor.setPropertyValue("list[1].name", "changed3");
+		otherAccessor.setPropertyValue("list[1].name", "otherChanged3");
+		assertEquals("changed3", ((TestBean) target.getList().get(1)).getName());
+		assertEquals("otherChanged3", ((TestBean) otherTarget.getList().get(1)).getName());
+
+		target.getArray()[1] = new TestBean("replaced1", 0);
+		assertEquals("replaced1", accessor.getPropertyValue("array[1].name"));
+		accessor.setPropertyValue("array[1].age", "42");
+		assertEquals(42, target.getArray()[1].getAge());
+	}
+
+	@Test
+	public void unknownNestedPropertyRepeatedly() {
+		IndexedTestBean target = new IndexedTestBean();
+		AbstractPropertyAccessor accessor = createAccessor(target);
+
+		for (int i = 0; i < 3; i++) {
+			assertFalse(accessor.isWritableProperty("array[1].unknown" + i));
+			assertFalse(accessor.isReadableProperty("array[1].unknown"));
+			try {
+				accessor.getPropertyValue("array[1].unknown");
+				fail("Should have thrown NotReadablePropertyException");
+			}
+			catch (NotReadablePropertyException ex) {
+				assertEquals("array[1].unknown", ex.getPropertyName());
+			}
+		}
+		assertEquals("name1", accessor.getPropertyValue("array[1].name"));
+	}
+
+	@Test
+	public void manyDistinctPropertyPaths() {
+		IndexedTestBean target = new IndexedTestBean();
+		AbstractPropertyAccessor accessor = createAccessor(target);
+
+		for (int i = 0; i < 5000; i++) {
+			accessor.setPropertyValue("map[key" + i + "]", "value" + i);
+		}
+		for (int i = 0; i < 5000; i++) {
+			assertEquals("value" + i, accessor.getPropertyValue("map[key" + i + "]"));
+		}
+		assertEquals("name1", accessor.getPropertyValue("array[1].name"));
+	}
+
 	@Test
 	public void getPropertyIntermediatePropertyIsNull() {
 		Person target = createPerson("John", "London", "UK");
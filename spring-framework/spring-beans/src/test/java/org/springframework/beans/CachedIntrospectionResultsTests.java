@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,12 @@ package org.springframework.beans;
 import java.beans.BeanInfo;
 import java.beans.PropertyDescriptor;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
@@ -64,6 +70,93 @@ public class CachedIntrospectionResultsTests {
 		assertFalse(CachedIntrospectionResults.strongClassCache.containsKey(ArrayList.class));
 	}
 
+	@Test
+	public void genericTypeAwarePropertyDescriptorsBuiltOnDemand() {
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(TestBean.class);
+		PropertyDescriptor pd = results.getPropertyDescriptor("name");
+		assertThat(pd, instanceOf(GenericTypeAwarePropertyDescriptor.class));
+		assertSame(pd, results.getPropertyDescriptor("name"));
+		assertSame(pd, results.getPropertyDescriptor("Name"));
+		for (PropertyDescriptor candidate : results.getPropertyDescriptors()) {
+			assertThat(candidate, instanceOf(GenericTypeAwarePropertyDescriptor.class));
+			if (candidate.getName().equals("name")) {
+				assertSame(pd, candidate);
+			}
+		}
+	}
+
+	@Test
+	public void cacheStatistics() {
+		class C {
+			public String getFoo() { return null; }
+		}
+
+		CachedIntrospectionResults.CacheStatistics before = CachedIntrospectionResults.getCacheStatistics();
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(C.class);
+		assertSame(results, CachedIntrospectionResults.forClass(C.class));
+		CachedIntrospectionResults.CacheStatistics after = CachedIntrospectionResults.getCacheStatistics();
+		assertEquals(1, after.getMissCount() - before.getMissCount());
+		assertEquals(1, after.getIntrospectionCount() - before.getIntrospectionCount());
+		assertTrue(after.getHitCount() - before.getHitCount() >= 1);
+	}
+
+	@Test
+	public void concurrentRequestsShareSingleIntrospection() throws Exception {
+		class C {
+			public String getFoo() { return null; }
+		}
+
+		CachedIntrospectionResults.CacheStatistics before = CachedIntrospectionResults.getCacheStatistics();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<CachedIntrospectionResults>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					return CachedIntrospectionResults.forClass(C.class);
+				}));
+			}
+			start.countDown();
+			CachedIntrospectionResults results = futures.get(0).get(10, TimeUnit.SECONDS);
+			for (Future<CachedIntrospectionResults> future : futures) {
+				assertSame(results, future.get(10, TimeUnit.SECONDS));
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		CachedIntrospectionResults.CacheStatistics after = CachedIntrospectionResults.getCacheStatistics();
+		assertEquals(1, after.getIntrospectionCount() - before.getIntrospectionCount());
+	}
+
+	@Test
+	public void cacheLimitEvictsLeastRecentlyUsed() {
+		class A {
+		}
+		class B {
+		}
+		class C {
+		}
+
+		CachedIntrospectionResults.strongClassCache.clear();
+		CachedIntrospectionResults.setCacheLimit(2);
+		try {
+			long evictions = CachedIntrospectionResults.getCacheStatistics().getEvictionCount();
+			CachedIntrospectionResults.forClass(A.class);
+			CachedIntrospectionResults.forClass(B.class);
+			CachedIntrospectionResults.forClass(A.class);
+			CachedIntrospectionResults.forClass(C.class);
+			assertTrue(CachedIntrospectionResults.strongClassCache.containsKey(A.class));
+			assertFalse(CachedIntrospectionResults.strongClassCache.containsKey(B.class));
+			assertTrue(CachedIntrospectionResults.strongClassCache.containsKey(C.class));
+			assertEquals(1, CachedIntrospectionResults.getCacheStatistics().getEvictionCount() - evictions);
+		}
+		finally {
+			CachedIntrospectionResults.setCacheLimit(0);
+		}
+	}
+
 	@Test
 	public void shouldUseExtendedBeanInfoWhenApplicable() throws NoSuchMethodException, SecurityException {
 		// given a class with a non-void returning setter method
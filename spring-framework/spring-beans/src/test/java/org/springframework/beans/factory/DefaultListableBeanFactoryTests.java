@@ -26,6 +26,7 @@ import java.security.Principal;
 import java.security.PrivilegedAction;
 import java.text.NumberFormat;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
@@ -1750,6 +1751,89 @@ public class DefaultListableBeanFactoryTests {
 		assertEquals("&factoryBean", beanNames[0]);
 	}
 
+	@Test
+	public void testGetBeanNamesForTypeWithIndexedTypes() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("nested", new RootBeanDefinition(NestedTestBean.class));
+		lbf.registerBeanDefinition("tb2", new RootBeanDefinition(DerivedTestBean.class));
+		lbf.registerBeanDefinition("list", new RootBeanDefinition(ArrayList.class));
+
+		for (int i = 0; i < 3; i++) {
+			assertArrayEquals(new String[] {"tb1", "tb2"}, lbf.getBeanNamesForType(ITestBean.class));
+			assertArrayEquals(new String[] {"tb2"}, lbf.getBeanNamesForType(DerivedTestBean.class));
+			assertArrayEquals(new String[] {"nested"}, lbf.getBeanNamesForType(NestedTestBean.class));
+			assertArrayEquals(new String[] {"list"}, lbf.getBeanNamesForType(Iterable.class));
+		}
+
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(NestedTestBean.class));
+		assertArrayEquals(new String[] {"tb2"}, lbf.getBeanNamesForType(ITestBean.class));
+		assertArrayEquals(new String[] {"tb1", "nested"}, lbf.getBeanNamesForType(NestedTestBean.class));
+
+		lbf.removeBeanDefinition("tb2");
+		assertEquals(0, lbf.getBeanNamesForType(ITestBean.class).length);
+		assertEquals(2, lbf.getBeansOfType(NestedTestBean.class).size());
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithIndexedTypeReplacedByPostProcessor() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("other", new RootBeanDefinition(DerivedTestBean.class));
+		lbf.addBeanPostProcessor(new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				return ("tb".equals(beanName) ? new NestedTestBean("replaced") : bean);
+			}
+		});
+
+		assertArrayEquals(new String[] {"tb", "other"}, lbf.getBeanNamesForType(TestBean.class));
+		assertEquals(0, lbf.getBeanNamesForType(NestedTestBean.class).length);
+
+		lbf.getBean("tb");
+		assertArrayEquals(new String[] {"other"}, lbf.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"tb"}, lbf.getBeanNamesForType(NestedTestBean.class));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithIndexedAndUnindexedTypesInRegistrationOrder() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		RootBeanDefinition factoryMethodDefinition = new RootBeanDefinition(TestBeanFactory.class);
+		factoryMethodDefinition.setFactoryMethodName("createTestBean");
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("created", factoryMethodDefinition);
+		lbf.registerBeanDefinition("tb2", new RootBeanDefinition(DerivedTestBean.class));
+		lbf.registerBeanDefinition("nested", new RootBeanDefinition(NestedTestBean.class));
+
+		for (int i = 0; i < 3; i++) {
+			assertArrayEquals(new String[] {"tb1", "created", "tb2"}, lbf.getBeanNamesForType(ITestBean.class));
+		}
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(DerivedTestBean.class));
+		assertArrayEquals(new String[] {"tb1", "created", "tb2"}, lbf.getBeanNamesForType(ITestBean.class));
+		assertArrayEquals(new String[] {"tb1", "tb2"}, lbf.getBeanNamesForType(DerivedTestBean.class));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithFrozenConfigurationAndSingletonRegistration() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("nested", new RootBeanDefinition(NestedTestBean.class));
+		lbf.freezeConfiguration();
+
+		String[] testBeanNames = lbf.getBeanNamesForType(TestBean.class);
+		String[] nestedBeanNames = lbf.getBeanNamesForType(NestedTestBean.class);
+		assertArrayEquals(new String[] {"tb"}, testBeanNames);
+
+		lbf.registerSingleton("manual", new DerivedTestBean());
+		assertArrayEquals(new String[] {"tb", "manual"}, lbf.getBeanNamesForType(TestBean.class));
+		assertSame(nestedBeanNames, lbf.getBeanNamesForType(NestedTestBean.class));
+
+		testBeanNames = lbf.getBeanNamesForType(TestBean.class);
+		lbf.destroySingleton("manual");
+		assertArrayEquals(new String[] {"tb"}, lbf.getBeanNamesForType(TestBean.class));
+		assertSame(nestedBeanNames, lbf.getBeanNamesForType(NestedTestBean.class));
+	}
+
 	/**
 	 * Verifies that a dependency on a {@link FactoryBean} can <strong>not</strong>
 	 * be autowired <em>by name</em>, as &amp; is an illegal character in
@@ -17,14 +17,26 @@
 package org.springframework.beans.factory.xml;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Test;
 import org.xml.sax.InputSource;
 
+import org.springframework.beans.Mergeable;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.support.SimpleBeanDefinitionRegistry;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
@@ -138,4 +150,222 @@ public class XmlBeanDefinitionReaderTests {
 		assertNotNull(bean);
 	}
 
+	@Test
+	public void staxWithOpenInputStream() {
+		DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+		Resource resource = new InputStreamResource(getClass().getResourceAsStream("validateWithXsd.xml"));
+		new StaxXmlBeanDefinitionReader(factory).loadBeanDefinitions(resource);
+		assertNotNull(factory.getBean("testBean"));
+	}
+
+	@Test(expected = BeanDefinitionStoreException.class)
+	public void staxWithOpenInputStreamAndDtd() {
+		// Cannot be read again through the DOM-based reader
+		Resource resource = new InputStreamResource(getClass().getResourceAsStream("test.xml"));
+		new StaxXmlBeanDefinitionReader(new SimpleBeanDefinitionRegistry()).loadBeanDefinitions(resource);
+	}
+
+	@Test
+	public void staxWithImport() {
+		SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+		Resource resource = new ClassPathResource("import.xml", getClass());
+		new StaxXmlBeanDefinitionReader(registry).loadBeanDefinitions(resource);
+		testBeanDefinitions(registry);
+	}
+
+	@Test(expected = BeanDefinitionStoreException.class)
+	public void staxWithInputSourceAndDtd() {
+		InputSource resource = new InputSource(getClass().getResourceAsStream("test.xml"));
+		new StaxXmlBeanDefinitionReader(new SimpleBeanDefinitionRegistry()).loadBeanDefinitions(resource);
+	}
+
+	@Test
+	public void staxMatchesDomForCustomNamespacesAndDefaults() {
+		assertSameBeanDefinitions("testUtilNamespace.xml");
+		assertSameBeanDefinitions("collectionMerging.xml");
+		assertSameBeanDefinitions("simplePropertyNamespaceHandlerTests.xml");
+		assertSameBeanDefinitions("NestedBeansElementAttributeRecursionTests-autowire-context.xml");
+		assertSameBeanDefinitions("NestedBeansElementAttributeRecursionTests-lazy-context.xml");
+		assertSameBeanDefinitions("NestedBeansElementAttributeRecursionTests-merge-context.xml");
+		assertSameBeanDefinitions("NestedBeansElementAttributeRecursionTests-init-destroy-context.xml");
+	}
+
+	@Test
+	public void staxWithNestedBeansElementProfile() {
+		Resource resource = new ClassPathResource("NestedBeansElementTests-context.xml", getClass());
+
+		DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+		new StaxXmlBeanDefinitionReader(factory).loadBeanDefinitions(resource);
+		assertEquals("", factory.getBean("foo"));
+		assertFalse(factory.containsBean("devOnlyBean"));
+
+		factory = new DefaultListableBeanFactory();
+		StaxXmlBeanDefinitionReader reader = new StaxXmlBeanDefinitionReader(factory);
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.setActiveProfiles("dev");
+		reader.setEnvironment(environment);
+		reader.loadBeanDefinitions(resource);
+		assertEquals(42, factory.getBean("foo"));
+		assertTrue(factory.containsBean("devOnlyBean"));
+	}
+
+	@Test
+	public void staxWithTaskExecutor() {
+		Resource[] resources = new Resource[] {
+				new ClassPathResource("testUtilNamespace.xml", getClass()),
+				new ClassPathResource("collectionMerging.xml", getClass()),
+				new ClassPathResource("NestedBeansElementTests-context.xml", getClass()),
+				new ClassPathResource("test.xml", getClass())};
+
+		DefaultListableBeanFactory expected = new DefaultListableBeanFactory();
+		int expectedCount = new StaxXmlBeanDefinitionReader(expected).loadBeanDefinitions(resources);
+
+		ExecutorService executor = Executors.newFixedThreadPool(resources.length);
+		try {
+			DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+			StaxXmlBeanDefinitionReader reader = new StaxXmlBeanDefinitionReader(factory);
+			reader.setTaskExecutor(executor);
+			assertEquals(expectedCount, reader.loadBeanDefinitions(resources));
+			assertArrayEquals(expected.getBeanDefinitionNames(), factory.getBeanDefinitionNames());
+			for (String beanName : expected.getBeanDefinitionNames()) {
+				assertSameBeanDefinition(beanName, expected.getBeanDefinition(beanName), factory.getBeanDefinition(beanName));
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void staxWithTaskExecutorDetectsCyclicImport() {
+		Resource[] resources = new Resource[] {
+				new ClassPathResource("staxCyclicImport.xml", getClass()),
+				new ClassPathResource("test.xml", getClass())};
+
+		ExecutorService executor = Executors.newFixedThreadPool(resources.length);
+		try {
+			StaxXmlBeanDefinitionReader reader = new StaxXmlBeanDefinitionReader(new SimpleBeanDefinitionRegistry());
+			reader.setTaskExecutor(executor);
+			reader.loadBeanDefinitions(resources);
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertTrue(ex.getMostSpecificCause().getMessage().contains("cyclic loading"));
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void staxWithCustomRootElement() {
+		String xml = "<util:list id=\"list\" xmlns=\"http://www.springframework.org/schema/beans\"" +
+				" xmlns:util=\"http://www.springframework.org/schema/util\"" +
+				" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xsi:schemaLocation=\"" +
+				"http://www.springframework.org/schema/beans http://www.springframework.org/schema/beans/spring-beans.xsd " +
+				"http://www.springframework.org/schema/util http://www.springframework.org/schema/util/spring-util.xsd\">" +
+				"<value>a</value><value>b</value></util:list>";
+		DefaultListableBeanFactory expected = new DefaultListableBeanFactory();
+		new XmlBeanDefinitionReader(expected).loadBeanDefinitions(new ByteArrayResource(xml.getBytes()));
+		DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+		new StaxXmlBeanDefinitionReader(factory).loadBeanDefinitions(new ByteArrayResource(xml.getBytes()));
+
+		assertEquals(Arrays.asList("a", "b"), factory.getBean("list"));
+		assertSameBeanDefinition("list", expected.getBeanDefinition("list"), factory.getBeanDefinition("list"));
+	}
+
+	@Test
+	public void staxWithDtdReadsThroughDom() {
+		DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+		Resource resource = new ClassPathResource("validateWithDtd.xml", getClass());
+		new StaxXmlBeanDefinitionReader(factory).loadBeanDefinitions(resource);
+		assertNotNull(factory.getBean("testBean"));
+	}
+
+	@Test
+	public void staxWithInvalidXml() {
+		Resource resource = new ByteArrayResource("<beans>\n<bean id=\"a\" class=\"java.lang.Object\">\n</beans>".getBytes());
+		try {
+			new StaxXmlBeanDefinitionReader(new SimpleBeanDefinitionRegistry()).loadBeanDefinitions(resource);
+			fail("Should have thrown XmlBeanDefinitionStoreException");
+		}
+		catch (XmlBeanDefinitionStoreException ex) {
+			assertEquals(3, ex.getLineNumber());
+		}
+	}
+
+	private void assertSameBeanDefinitions(String resourceName) {
+		Resource resource = new ClassPathResource(resourceName, getClass());
+		DefaultListableBeanFactory expected = new DefaultListableBeanFactory();
+		new XmlBeanDefinitionReader(expected).loadBeanDefinitions(resource);
+		DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+		new StaxXmlBeanDefinitionReader(factory).loadBeanDefinitions(resource);
+
+		assertArrayEquals(expected.getBeanDefinitionNames(), factory.getBeanDefinitionNames());
+		for (String beanName : expected.getBeanDefinitionNames()) {
+			assertSameBeanDefinition(resourceName + ": " + beanName,
+					expected.getBeanDefinition(beanName), factory.getBeanDefinition(beanName));
+			assertArrayEquals(expected.getAliases(beanName), factory.getAliases(beanName));
+		}
+	}
+
+	private void assertSameBeanDefinition(String message, BeanDefinition expected, BeanDefinition actual) {
+		assertEquals(message, expected.toString(), actual.toString());
+		ConstructorArgumentValues expectedArgs = expected.getConstructorArgumentValues();
+		ConstructorArgumentValues actualArgs = actual.getConstructorArgumentValues();
+		assertEquals(message, expectedArgs.getIndexedArgumentValues().keySet(),
+				actualArgs.getIndexedArgumentValues().keySet());
+		for (Integer index : expectedArgs.getIndexedArgumentValues().keySet()) {
+			assertSameValue(message, expectedArgs.getIndexedArgumentValues().get(index).getValue(),
+					actualArgs.getIndexedArgumentValues().get(index).getValue());
+		}
+		assertEquals(message, expectedArgs.getGenericArgumentValues().size(), actualArgs.getGenericArgumentValues().size());
+		for (int i = 0; i < expectedArgs.getGenericArgumentValues().size(); i++) {
+			assertSameValue(message, expectedArgs.getGenericArgumentValues().get(i).getValue(),
+					actualArgs.getGenericArgumentValues().get(i).getValue());
+		}
+		PropertyValue[] expectedValues = expected.getPropertyValues().getPropertyValues();
+		PropertyValue[] actualValues = actual.getPropertyValues().getPropertyValues();
+		assertEquals(message, expectedValues.length, actualValues.length);
+		for (int i = 0; i < expectedValues.length; i++) {
+			assertEquals(message, expectedValues[i].getName(), actualValues[i].getName());
+			assertSameValue(message, expectedValues[i].getValue(), actualValues[i].getValue());
+		}
+	}
+
+	private void assertSameValue(String message, Object expected, Object actual) {
+		// Inner bean definitions get generated names: compare their content only
+		if (expected instanceof BeanDefinitionHolder) {
+			assertSameBeanDefinition(message, ((BeanDefinitionHolder) expected).getBeanDefinition(),
+					((BeanDefinitionHolder) actual).getBeanDefinition());
+		}
+		else if (expected instanceof BeanDefinition) {
+			assertSameBeanDefinition(message, (BeanDefinition) expected, (BeanDefinition) actual);
+		}
+		else if (expected instanceof Collection) {
+			assertEquals(message, expected.getClass(), actual.getClass());
+			assertEquals(message, ((Collection<?>) expected).size(), ((Collection<?>) actual).size());
+			Iterator<?> it = ((Collection<?>) actual).iterator();
+			for (Object element : (Collection<?>) expected) {
+				assertSameValue(message, element, it.next());
+			}
+		}
+		else if (expected instanceof Map) {
+			assertEquals(message, expected.getClass(), actual.getClass());
+			assertEquals(message, ((Map<?, ?>) expected).size(), ((Map<?, ?>) actual).size());
+			Iterator<? extends Map.Entry<?, ?>> it = ((Map<?, ?>) actual).entrySet().iterator();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) expected).entrySet()) {
+				Map.Entry<?, ?> actualEntry = it.next();
+				assertSameValue(message, entry.getKey(), actualEntry.getKey());
+				assertSameValue(message, entry.getValue(), actualEntry.getValue());
+			}
+		}
+		else {
+			assertTrue(message, ObjectUtils.nullSafeEquals(expected, actual));
+		}
+		if (expected instanceof Mergeable) {
+			assertEquals(message, ((Mergeable) expected).isMergeEnabled(), ((Mergeable) actual).isMergeEnabled());
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -55,6 +55,8 @@ public class CandidateComponentsIndexer implements Processor {
 
 	private TypeHelper typeHelper;
 
+	private TypeMetadataExtractor typeMetadataExtractor;
+
 	private List<StereotypesProvider> stereotypesProviders;
 
 
@@ -77,8 +79,10 @@ public class CandidateComponentsIndexer implements Processor {
 	public synchronized void init(ProcessingEnvironment env) {
 		this.stereotypesProviders = getStereotypesProviders(env);
 		this.typeHelper = new TypeHelper(env);
+		this.typeMetadataExtractor = new TypeMetadataExtractor(env);
 		this.metadataStore = new MetadataStore(env);
-		this.metadataCollector = new MetadataCollector(env, this.metadataStore.readMetadata());
+		this.metadataCollector = new MetadataCollector(env, this.metadataStore.readMetadata(),
+				this.metadataStore.readTypeMetadata());
 	}
 
 	@Override
@@ -117,7 +121,11 @@ public class CandidateComponentsIndexer implements Processor {
 		Set<String> stereotypes = new LinkedHashSet<>();
 		this.stereotypesProviders.forEach(p -> stereotypes.addAll(p.getStereotypes(element)));
 		if (!stereotypes.isEmpty()) {
-			this.metadataCollector.add(new ItemMetadata(this.typeHelper.getType(element), stereotypes));
+			String type = this.typeHelper.getType(element);
+			this.metadataCollector.add(new ItemMetadata(type, stereotypes));
+			if (element instanceof TypeElement) {
+				this.metadataCollector.add(this.typeMetadataExtractor.extract((TypeElement) element, type));
+			}
 		}
 	}
 
@@ -126,6 +134,7 @@ public class CandidateComponentsIndexer implements Processor {
 		if (!metadata.getItems().isEmpty()) {
 			try {
 				this.metadataStore.writeMetadata(metadata);
+				this.metadataStore.writeTypeMetadata(this.metadataCollector.getTypeMetadata());
 			}
 			catch (IOException ex) {
 				throw new IllegalStateException("Failed to write metadata", ex);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,6 +39,10 @@ class MetadataCollector {
 
 	private final CandidateComponentsMetadata previousMetadata;
 
+	private final List<TypeMetadata> typeMetadataItems = new ArrayList<>();
+
+	private final List<TypeMetadata> previousTypeMetadata;
+
 	private final TypeHelper typeHelper;
 
 	private final Set<String> processedSourceTypes = new HashSet<>();
@@ -52,8 +56,22 @@ class MetadataCollector {
 	public MetadataCollector(ProcessingEnvironment processingEnvironment,
 			CandidateComponentsMetadata previousMetadata) {
 
+		this(processingEnvironment, previousMetadata, null);
+	}
+
+	/**
+	 * Create a new {@code MetadataProcessor} instance.
+	 * @param processingEnvironment The processing environment of the build
+	 * @param previousMetadata Any previous metadata or {@code null}
+	 * @param previousTypeMetadata Any previous type metadata or {@code null}
+	 * @since 5.1
+	 */
+	public MetadataCollector(ProcessingEnvironment processingEnvironment,
+			CandidateComponentsMetadata previousMetadata, List<TypeMetadata> previousTypeMetadata) {
+
 		this.processingEnvironment = processingEnvironment;
 		this.previousMetadata = previousMetadata;
+		this.previousTypeMetadata = previousTypeMetadata;
 		this.typeHelper = new TypeHelper(processingEnvironment);
 	}
 
@@ -74,6 +92,10 @@ class MetadataCollector {
 		this.metadataItems.add(metadata);
 	}
 
+	public void add(TypeMetadata metadata) {
+		this.typeMetadataItems.add(metadata);
+	}
+
 	public CandidateComponentsMetadata getMetadata() {
 		CandidateComponentsMetadata metadata = new CandidateComponentsMetadata();
 		for (ItemMetadata item : this.metadataItems) {
@@ -90,8 +112,23 @@ class MetadataCollector {
 		return metadata;
 	}
 
+	public List<TypeMetadata> getTypeMetadata() {
+		List<TypeMetadata> metadata = new ArrayList<>(this.typeMetadataItems);
+		if (this.previousTypeMetadata != null) {
+			for (TypeMetadata item : this.previousTypeMetadata) {
+				if (shouldBeMerged(item.getType())) {
+					metadata.add(item);
+				}
+			}
+		}
+		return metadata;
+	}
+
 	private boolean shouldBeMerged(ItemMetadata itemMetadata) {
-		String sourceType = itemMetadata.getType();
+		return shouldBeMerged(itemMetadata.getType());
+	}
+
+	private boolean shouldBeMerged(String sourceType) {
 		return (sourceType != null && !deletedInCurrentBuild(sourceType)
 				&& !processedInCurrentBuild(sourceType));
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.context.index;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.List;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.tools.FileObject;
 import javax.tools.StandardLocation;
@@ -33,6 +34,8 @@ class MetadataStore {
 
 	static final String METADATA_PATH = "META-INF/spring.components";
 
+	static final String TYPE_METADATA_PATH = "META-INF/spring.components.types";
+
 	private final ProcessingEnvironment environment;
 
 
@@ -51,6 +54,16 @@ class MetadataStore {
 		}
 	}
 
+	public List<TypeMetadata> readTypeMetadata() {
+		try (InputStream in = getResource(TYPE_METADATA_PATH).openInputStream()) {
+			return TypeMetadataMarshaller.read(in);
+		}
+		catch (IOException ex) {
+			// Failed to read metadata -> ignore.
+			return null;
+		}
+	}
+
 	public void writeMetadata(CandidateComponentsMetadata metadata) throws IOException {
 		if (!metadata.getItems().isEmpty()) {
 			try (OutputStream outputStream = createMetadataResource().openOutputStream()) {
@@ -60,6 +73,16 @@ class MetadataStore {
 	}
 
 
+	public void writeTypeMetadata(List<TypeMetadata> metadata) throws IOException {
+		if (!metadata.isEmpty()) {
+			try (OutputStream outputStream = this.environment.getFiler().createResource(
+					StandardLocation.CLASS_OUTPUT, "", TYPE_METADATA_PATH).openOutputStream()) {
+				TypeMetadataMarshaller.write(metadata, outputStream);
+			}
+		}
+	}
+
+
 	private CandidateComponentsMetadata readMetadata(InputStream in) throws IOException {
 		try {
 			return PropertiesMarshaller.read(in);
@@ -70,7 +93,11 @@ class MetadataStore {
 	}
 
 	private FileObject getMetadataResource() throws IOException {
-		return this.environment.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", METADATA_PATH);
+		return getResource(METADATA_PATH);
+	}
+
+	private FileObject getResource(String path) throws IOException {
+		return this.environment.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", path);
 	}
 
 	private FileObject createMetadataResource() throws IOException {
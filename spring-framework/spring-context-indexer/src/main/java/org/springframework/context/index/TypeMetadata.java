@@ -0,0 +1,217 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Represents the class-level metadata of one candidate type in the index: its
+ * modifiers, type hierarchy, member classes, annotations including meta-annotations and their
+ * explicitly declared attribute values, the {@code @Conditional} classes that
+ * apply to it, the annotations present on its methods and its {@code @Bean}
+ * methods.
+ *
+ * @since 5.1
+ */
+class TypeMetadata {
+
+	static final int INTERFACE = 1;
+
+	static final int ANNOTATION = 2;
+
+	static final int ABSTRACT = 4;
+
+	static final int FINAL = 8;
+
+	static final int INDEPENDENT = 16;
+
+
+	private final String type;
+
+	private final String className;
+
+	private final int flags;
+
+	private final String enclosingClassName;
+
+	private final String superClassName;
+
+	private final List<String> interfaceNames = new ArrayList<>();
+
+	private final List<String> memberClassNames = new ArrayList<>();
+
+	private final Map<String, Set<String>> annotations = new LinkedHashMap<>();
+
+	private final Map<String, Map<String, Object>> annotationAttributes = new LinkedHashMap<>();
+
+	private final Set<String> conditionClassNames = new LinkedHashSet<>();
+
+	private final Set<String> methodAnnotationTypes = new LinkedHashSet<>();
+
+	private final List<BeanMethod> beanMethods = new ArrayList<>();
+
+
+	public TypeMetadata(String type, String className, int flags, String enclosingClassName, String superClassName) {
+		this.type = type;
+		this.className = className;
+		this.flags = flags;
+		this.enclosingClassName = enclosingClassName;
+		this.superClassName = superClassName;
+	}
+
+
+	public String getType() {
+		return this.type;
+	}
+
+	/**
+	 * Return the binary name of the type, as opposed to the name used
+	 * as key in the index.
+	 */
+	public String getClassName() {
+		return this.className;
+	}
+
+	public int getFlags() {
+		return this.flags;
+	}
+
+	public String getEnclosingClassName() {
+		return this.enclosingClassName;
+	}
+
+	public String getSuperClassName() {
+		return this.superClassName;
+	}
+
+	public List<String> getInterfaceNames() {
+		return this.interfaceNames;
+	}
+
+	public List<String> getMemberClassNames() {
+		return this.memberClassNames;
+	}
+
+	/**
+	 * Return the annotations present on the type, mapped to their meta-annotations.
+	 */
+	public Map<String, Set<String>> getAnnotations() {
+		return this.annotations;
+	}
+
+	/**
+	 * Return the explicitly declared attribute values of the annotations present
+	 * on the type, each value being a {@code String} or a {@code List} of
+	 * {@code String}s. Annotations with attribute values that cannot be
+	 * represented that way, e.g. class values, are not included.
+	 */
+	public Map<String, Map<String, Object>> getAnnotationAttributes() {
+		return this.annotationAttributes;
+	}
+
+	/**
+	 * Return the names of the {@code Condition} classes declared via
+	 * {@code @Conditional} on the type, either directly or as a meta-annotation.
+	 */
+	public Set<String> getConditionClassNames() {
+		return this.conditionClassNames;
+	}
+
+	public Set<String> getMethodAnnotationTypes() {
+		return this.methodAnnotationTypes;
+	}
+
+	public List<BeanMethod> getBeanMethods() {
+		return this.beanMethods;
+	}
+
+	@Override
+	public String toString() {
+		return "TypeMetadata{" + "type='" + this.type + '\'' + ", annotations=" + this.annotations + '}';
+	}
+
+
+	/**
+	 * A method annotated or meta-annotated with {@code @Bean}: its signature,
+	 * modifiers and annotations, in the same form as for the type itself.
+	 */
+	static class BeanMethod {
+
+		static final int STATIC = 1;
+
+		static final int FINAL = 2;
+
+		static final int PRIVATE = 4;
+
+		static final int ABSTRACT = 8;
+
+
+		private final String name;
+
+		private final String returnType;
+
+		private final int flags;
+
+		private final Map<String, Set<String>> annotations = new LinkedHashMap<>();
+
+		private final Map<String, Map<String, Object>> annotationAttributes = new LinkedHashMap<>();
+
+		private final Set<String> conditionClassNames = new LinkedHashSet<>();
+
+
+		public BeanMethod(String name, String returnType, int flags) {
+			this.name = name;
+			this.returnType = returnType;
+			this.flags = flags;
+		}
+
+
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Return the name of the erased return type, as per {@code Class.getName()}
+		 * but with a {@code []} suffix for array types.
+		 */
+		public String getReturnType() {
+			return this.returnType;
+		}
+
+		public int getFlags() {
+			return this.flags;
+		}
+
+		public Map<String, Set<String>> getAnnotations() {
+			return this.annotations;
+		}
+
+		public Map<String, Map<String, Object>> getAnnotationAttributes() {
+			return this.annotationAttributes;
+		}
+
+		public Set<String> getConditionClassNames() {
+			return this.conditionClassNames;
+		}
+	}
+
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Extract the {@link TypeMetadata} of a candidate type, mirroring what
+ * the ASM-based class reading of the core container would find.
+ *
+ * @since 5.1
+ */
+class TypeMetadataExtractor {
+
+	private static final String CONDITIONAL_ANNOTATION = "org.springframework.context.annotation.Conditional";
+
+	private static final String BEAN_ANNOTATION = "org.springframework.context.annotation.Bean";
+
+	private static final String JAVA_LANG_ANNOTATION_PACKAGE = "java.lang.annotation.";
+
+	private static final String RETENTION_ANNOTATION = "java.lang.annotation.Retention";
+
+	private final Elements elements;
+
+	private final Types types;
+
+
+	public TypeMetadataExtractor(ProcessingEnvironment env) {
+		this.elements = env.getElementUtils();
+		this.types = env.getTypeUtils();
+	}
+
+
+	public TypeMetadata extract(TypeElement element, String type) {
+		String className = this.elements.getBinaryName(element).toString();
+		TypeMetadata metadata = new TypeMetadata(type, className, getFlags(element),
+				getEnclosingClassName(element), getSuperClassName(element));
+		for (TypeMirror interfaceType : element.getInterfaces()) {
+			String interfaceName = getClassName(interfaceType);
+			if (interfaceName != null) {
+				metadata.getInterfaceNames().add(interfaceName);
+			}
+		}
+		collectAnnotations(element, metadata.getAnnotations(), metadata.getAnnotationAttributes(),
+				metadata.getConditionClassNames());
+		for (Element enclosed : element.getEnclosedElements()) {
+			if (enclosed.getKind().isClass() || enclosed.getKind().isInterface()) {
+				metadata.getMemberClassNames().add(this.elements.getBinaryName((TypeElement) enclosed).toString());
+			}
+			else if (enclosed.getKind() == ElementKind.METHOD || enclosed.getKind() == ElementKind.CONSTRUCTOR) {
+				Set<String> methodAnnotations = new LinkedHashSet<>();
+				for (AnnotationMirror annotation : enclosed.getAnnotationMirrors()) {
+					if (getRetention(annotation) == RetentionPolicy.SOURCE) {
+						continue;
+					}
+					methodAnnotations.add(getClassName(annotation.getAnnotationType()));
+					collectMetaAnnotations(annotation, methodAnnotations, new LinkedHashSet<>());
+				}
+				metadata.getMethodAnnotationTypes().addAll(methodAnnotations);
+				if (enclosed.getKind() == ElementKind.METHOD && methodAnnotations.contains(BEAN_ANNOTATION)) {
+					metadata.getBeanMethods().add(extractBeanMethod((ExecutableElement) enclosed));
+				}
+			}
+		}
+		return metadata;
+	}
+
+	private TypeMetadata.BeanMethod extractBeanMethod(ExecutableElement method) {
+		TypeMetadata.BeanMethod beanMethod = new TypeMetadata.BeanMethod(method.getSimpleName().toString(),
+				getTypeName(method.getReturnType()), getFlags(method));
+		collectAnnotations(method, beanMethod.getAnnotations(), beanMethod.getAnnotationAttributes(),
+				beanMethod.getConditionClassNames());
+		return beanMethod;
+	}
+
+	/**
+	 * Collect the annotations present on the given element along with their
+	 * meta-annotations, their attribute values and the conditions they declare.
+	 */
+	private void collectAnnotations(Element element, Map<String, Set<String>> annotations,
+			Map<String, Map<String, Object>> annotationAttributes, Set<String> conditionClassNames) {
+
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			if (getRetention(annotation) == RetentionPolicy.SOURCE) {
+				continue;
+			}
+			String annotationName = getClassName(annotation.getAnnotationType());
+			Set<String> metaAnnotations = new LinkedHashSet<>();
+			if (!annotationName.startsWith(JAVA_LANG_ANNOTATION_PACKAGE)) {
+				collectConditions(annotation, conditionClassNames);
+				collectMetaAnnotations(annotation, metaAnnotations, conditionClassNames);
+			}
+			annotations.put(annotationName, metaAnnotations);
+			Map<String, Object> attributes = getAttributes(annotation);
+			if (attributes != null) {
+				annotationAttributes.put(annotationName, attributes);
+			}
+		}
+	}
+
+	private int getFlags(TypeElement element) {
+		int flags = 0;
+		Set<Modifier> modifiers = element.getModifiers();
+		if (element.getKind() == ElementKind.INTERFACE || element.getKind() == ElementKind.ANNOTATION_TYPE) {
+			flags |= TypeMetadata.INTERFACE | TypeMetadata.ABSTRACT;
+		}
+		if (element.getKind() == ElementKind.ANNOTATION_TYPE) {
+			flags |= TypeMetadata.ANNOTATION;
+		}
+		if (modifiers.contains(Modifier.ABSTRACT)) {
+			flags |= TypeMetadata.ABSTRACT;
+		}
+		if (modifiers.contains(Modifier.FINAL)) {
+			flags |= TypeMetadata.FINAL;
+		}
+		if (!(element.getEnclosingElement() instanceof TypeElement) || modifiers.contains(Modifier.STATIC)) {
+			flags |= TypeMetadata.INDEPENDENT;
+		}
+		return flags;
+	}
+
+	private int getFlags(ExecutableElement method) {
+		int flags = 0;
+		Set<Modifier> modifiers = method.getModifiers();
+		if (modifiers.contains(Modifier.STATIC)) {
+			flags |= TypeMetadata.BeanMethod.STATIC;
+		}
+		if (modifiers.contains(Modifier.FINAL)) {
+			flags |= TypeMetadata.BeanMethod.FINAL;
+		}
+		if (modifiers.contains(Modifier.PRIVATE)) {
+			flags |= TypeMetadata.BeanMethod.PRIVATE;
+		}
+		if (modifiers.contains(Modifier.ABSTRACT)) {
+			flags |= TypeMetadata.BeanMethod.ABSTRACT;
+		}
+		return flags;
+	}
+
+	private String getEnclosingClassName(TypeElement element) {
+		Element enclosingElement = element.getEnclosingElement();
+		return (enclosingElement instanceof TypeElement ?
+				this.elements.getBinaryName((TypeElement) enclosingElement).toString() : null);
+	}
+
+	private String getSuperClassName(TypeElement element) {
+		if (element.getKind() == ElementKind.INTERFACE || element.getKind() == ElementKind.ANNOTATION_TYPE) {
+			return null;
+		}
+		return getClassName(element.getSuperclass());
+	}
+
+	/**
+	 * Collect the meta-annotations of the given annotation recursively,
+	 * skipping the {@code java.lang.annotation} ones as well as those
+	 * that are not retained at runtime, since these are not visible via
+	 * reflection either.
+	 */
+	private void collectMetaAnnotations(AnnotationMirror annotation, Set<String> metaAnnotations,
+			Set<String> conditionClassNames) {
+
+		Element annotationType = annotation.getAnnotationType().asElement();
+		for (AnnotationMirror metaAnnotation : annotationType.getAnnotationMirrors()) {
+			String metaAnnotationName = getClassName(metaAnnotation.getAnnotationType());
+			if (!metaAnnotationName.startsWith(JAVA_LANG_ANNOTATION_PACKAGE) &&
+					getRetention(metaAnnotation) == RetentionPolicy.RUNTIME &&
+					metaAnnotations.add(metaAnnotationName)) {
+				collectConditions(metaAnnotation, conditionClassNames);
+				collectMetaAnnotations(metaAnnotation, metaAnnotations, conditionClassNames);
+			}
+		}
+	}
+
+	private void collectConditions(AnnotationMirror annotation, Set<String> conditionClassNames) {
+		if (!CONDITIONAL_ANNOTATION.equals(getClassName(annotation.getAnnotationType()))) {
+			return;
+		}
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+				annotation.getElementValues().entrySet()) {
+			if ("value".contentEquals(entry.getKey().getSimpleName())) {
+				Object value = entry.getValue().getValue();
+				if (value instanceof List) {
+					for (Object item : (List<?>) value) {
+						Object condition = ((AnnotationValue) item).getValue();
+						if (condition instanceof TypeMirror) {
+							String conditionClassName = getClassName((TypeMirror) condition);
+							if (conditionClassName != null) {
+								conditionClassNames.add(conditionClassName);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the explicitly declared attribute values of the given annotation,
+	 * or {@code null} if any of them is not a String, primitive or enum value
+	 * or an array of such.
+	 */
+	private Map<String, Object> getAttributes(AnnotationMirror annotation) {
+		Map<String, Object> attributes = new LinkedHashMap<>();
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+				annotation.getElementValues().entrySet()) {
+			Object value = entry.getValue().getValue();
+			Object attribute;
+			if (value instanceof List) {
+				List<String> values = new ArrayList<>();
+				for (Object item : (List<?>) value) {
+					String itemValue = getAttributeValue(((AnnotationValue) item).getValue());
+					if (itemValue == null) {
+						return null;
+					}
+					values.add(itemValue);
+				}
+				attribute = values;
+			}
+			else {
+				attribute = getAttributeValue(value);
+				if (attribute == null) {
+					return null;
+				}
+			}
+			attributes.put(entry.getKey().getSimpleName().toString(), attribute);
+		}
+		return attributes;
+	}
+
+	private String getAttributeValue(Object value) {
+		if (value instanceof VariableElement) {
+			// Enum constant
+			return ((VariableElement) value).getSimpleName().toString();
+		}
+		if (value instanceof TypeMirror || value instanceof AnnotationMirror) {
+			return null;
+		}
+		return value.toString();
+	}
+
+	private RetentionPolicy getRetention(AnnotationMirror annotation) {
+		Element annotationType = annotation.getAnnotationType().asElement();
+		for (AnnotationMirror metaAnnotation : annotationType.getAnnotationMirrors()) {
+			if (RETENTION_ANNOTATION.equals(getClassName(metaAnnotation.getAnnotationType()))) {
+				for (AnnotationValue value : metaAnnotation.getElementValues().values()) {
+					return RetentionPolicy.valueOf(((Element) value.getValue()).getSimpleName().toString());
+				}
+			}
+		}
+		return RetentionPolicy.CLASS;
+	}
+
+	/**
+	 * Return the name of the erasure of the given type as the class reading of
+	 * the core container reports it: the binary name for a declared type, the
+	 * component type name followed by {@code []} for an array type, and the
+	 * keyword for a primitive type or {@code void}.
+	 */
+	private String getTypeName(TypeMirror type) {
+		TypeMirror erasure = this.types.erasure(type);
+		if (erasure.getKind() == TypeKind.ARRAY) {
+			return getTypeName(((ArrayType) erasure).getComponentType()) + "[]";
+		}
+		String className = getClassName(erasure);
+		return (className != null ? className : erasure.toString());
+	}
+
+	/**
+	 * Return the binary name of the given declared type,
+	 * or {@code null} if it is not a declared type.
+	 */
+	private String getClassName(TypeMirror type) {
+		if (type.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+		return this.elements.getBinaryName((TypeElement) ((DeclaredType) type).asElement()).toString();
+	}
+
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Marshaller to write {@link TypeMetadata} in a compact binary format.
+ *
+ * <p>All names are stored once in a leading string table and referenced by
+ * index afterwards. Attribute values are stored as strings as well, or as a
+ * count of -1 for annotations whose attributes are not part of the index.
+ * {@code @Bean} methods are stored with their annotations in the same form as
+ * the annotations of the type. The format is read by {@code IndexedTypeMetadata} in the
+ * {@code spring-context} module; both sides need to be kept in sync.
+ *
+ * @since 5.1
+ */
+abstract class TypeMetadataMarshaller {
+
+	static final int MAGIC = 0x53434958;
+
+	static final int VERSION = 2;
+
+
+	public static void write(List<TypeMetadata> metadata, OutputStream out) throws IOException {
+		Map<String, Integer> strings = new LinkedHashMap<>();
+		for (TypeMetadata type : metadata) {
+			register(strings, type.getType());
+			register(strings, type.getClassName());
+			register(strings, type.getEnclosingClassName());
+			register(strings, type.getSuperClassName());
+			register(strings, type.getInterfaceNames());
+			register(strings, type.getMemberClassNames());
+			registerAnnotations(strings, type.getAnnotations(), type.getAnnotationAttributes());
+			register(strings, type.getConditionClassNames());
+			register(strings, type.getMethodAnnotationTypes());
+			for (TypeMetadata.BeanMethod method : type.getBeanMethods()) {
+				register(strings, method.getName());
+				register(strings, method.getReturnType());
+				registerAnnotations(strings, method.getAnnotations(), method.getAnnotationAttributes());
+				register(strings, method.getConditionClassNames());
+			}
+		}
+
+		DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out));
+		dos.writeInt(MAGIC);
+		dos.writeByte(VERSION);
+		dos.writeInt(strings.size());
+		for (String string : strings.keySet()) {
+			dos.writeUTF(string);
+		}
+		dos.writeInt(metadata.size());
+		for (TypeMetadata type : metadata) {
+			dos.writeInt(strings.get(type.getType()));
+			dos.writeInt(strings.get(type.getClassName()));
+			dos.writeByte(type.getFlags());
+			writeIndex(dos, strings, type.getEnclosingClassName());
+			writeIndex(dos, strings, type.getSuperClassName());
+			writeIndexes(dos, strings, type.getInterfaceNames());
+			writeIndexes(dos, strings, type.getMemberClassNames());
+			writeAnnotations(dos, strings, type.getAnnotations(), type.getAnnotationAttributes());
+			writeIndexes(dos, strings, type.getConditionClassNames());
+			writeIndexes(dos, strings, type.getMethodAnnotationTypes());
+			dos.writeInt(type.getBeanMethods().size());
+			for (TypeMetadata.BeanMethod method : type.getBeanMethods()) {
+				dos.writeInt(strings.get(method.getName()));
+				dos.writeInt(strings.get(method.getReturnType()));
+				dos.writeByte(method.getFlags());
+				writeAnnotations(dos, strings, method.getAnnotations(), method.getAnnotationAttributes());
+				writeIndexes(dos, strings, method.getConditionClassNames());
+			}
+		}
+		dos.flush();
+	}
+
+	public static List<TypeMetadata> read(InputStream in) throws IOException {
+		DataInputStream dis = new DataInputStream(new BufferedInputStream(in));
+		if (dis.readInt() != MAGIC || dis.readUnsignedByte() != VERSION) {
+			throw new IOException("Unsupported type index format");
+		}
+		String[] strings = new String[dis.readInt()];
+		for (int i = 0; i < strings.length; i++) {
+			strings[i] = dis.readUTF();
+		}
+		int typeCount = dis.readInt();
+		List<TypeMetadata> result = new ArrayList<>(typeCount);
+		for (int i = 0; i < typeCount; i++) {
+			String type = strings[dis.readInt()];
+			String className = strings[dis.readInt()];
+			int flags = dis.readUnsignedByte();
+			String enclosingClassName = readString(dis, strings);
+			String superClassName = readString(dis, strings);
+			TypeMetadata metadata = new TypeMetadata(type, className, flags, enclosingClassName, superClassName);
+			readStrings(dis, strings, metadata.getInterfaceNames());
+			readStrings(dis, strings, metadata.getMemberClassNames());
+			readAnnotations(dis, strings, metadata.getAnnotations(), metadata.getAnnotationAttributes());
+			readStrings(dis, strings, metadata.getConditionClassNames());
+			readStrings(dis, strings, metadata.getMethodAnnotationTypes());
+			int beanMethodCount = dis.readInt();
+			for (int j = 0; j < beanMethodCount; j++) {
+				TypeMetadata.BeanMethod method = new TypeMetadata.BeanMethod(
+						strings[dis.readInt()], strings[dis.readInt()], dis.readUnsignedByte());
+				readAnnotations(dis, strings, method.getAnnotations(), method.getAnnotationAttributes());
+				readStrings(dis, strings, method.getConditionClassNames());
+				metadata.getBeanMethods().add(method);
+			}
+			result.add(metadata);
+		}
+		return result;
+	}
+
+
+	private static void register(Map<String, Integer> strings, String string) {
+		if (string != null && !strings.containsKey(string)) {
+			strings.put(string, strings.size());
+		}
+	}
+
+	private static void register(Map<String, Integer> strings, Collection<String> values) {
+		values.forEach(value -> register(strings, value));
+	}
+
+	private static void registerAnnotations(Map<String, Integer> strings, Map<String, Set<String>> annotations,
+			Map<String, Map<String, Object>> annotationAttributes) {
+
+		annotations.forEach((annotationType, metaAnnotationTypes) -> {
+			register(strings, annotationType);
+			register(strings, metaAnnotationTypes);
+		});
+		annotationAttributes.values().forEach(attributes -> attributes.forEach((name, value) -> {
+			register(strings, name);
+			register(strings, asList(value));
+		}));
+	}
+
+	private static void writeIndex(DataOutputStream dos, Map<String, Integer> strings, String string)
+			throws IOException {
+
+		dos.writeInt(string != null ? strings.get(string) : -1);
+	}
+
+	private static void writeIndexes(DataOutputStream dos, Map<String, Integer> strings, Collection<String> values)
+			throws IOException {
+
+		dos.writeInt(values.size());
+		for (String value : values) {
+			dos.writeInt(strings.get(value));
+		}
+	}
+
+	private static void writeAnnotations(DataOutputStream dos, Map<String, Integer> strings,
+			Map<String, Set<String>> annotations, Map<String, Map<String, Object>> annotationAttributes)
+			throws IOException {
+
+		dos.writeInt(annotations.size());
+		for (Map.Entry<String, Set<String>> entry : annotations.entrySet()) {
+			dos.writeInt(strings.get(entry.getKey()));
+			writeIndexes(dos, strings, entry.getValue());
+			writeAttributes(dos, strings, annotationAttributes.get(entry.getKey()));
+		}
+	}
+
+	private static void readAnnotations(DataInputStream dis, String[] strings,
+			Map<String, Set<String>> annotations, Map<String, Map<String, Object>> annotationAttributes)
+			throws IOException {
+
+		int annotationCount = dis.readInt();
+		for (int i = 0; i < annotationCount; i++) {
+			String annotationType = strings[dis.readInt()];
+			Set<String> metaAnnotationTypes = new LinkedHashSet<>();
+			readStrings(dis, strings, metaAnnotationTypes);
+			annotations.put(annotationType, metaAnnotationTypes);
+			Map<String, Object> attributes = readAttributes(dis, strings);
+			if (attributes != null) {
+				annotationAttributes.put(annotationType, attributes);
+			}
+		}
+	}
+
+	private static void writeAttributes(DataOutputStream dos, Map<String, Integer> strings,
+			Map<String, Object> attributes) throws IOException {
+
+		if (attributes == null) {
+			dos.writeInt(-1);
+			return;
+		}
+		dos.writeInt(attributes.size());
+		for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+			dos.writeInt(strings.get(entry.getKey()));
+			if (entry.getValue() instanceof List) {
+				writeIndexes(dos, strings, asList(entry.getValue()));
+			}
+			else {
+				dos.writeInt(-1);
+				dos.writeInt(strings.get((String) entry.getValue()));
+			}
+		}
+	}
+
+	private static Map<String, Object> readAttributes(DataInputStream dis, String[] strings) throws IOException {
+		int count = dis.readInt();
+		if (count < 0) {
+			return null;
+		}
+		Map<String, Object> attributes = new LinkedHashMap<>();
+		for (int i = 0; i < count; i++) {
+			String name = strings[dis.readInt()];
+			int valueCount = dis.readInt();
+			if (valueCount < 0) {
+				attributes.put(name, strings[dis.readInt()]);
+			}
+			else {
+				List<String> values = new ArrayList<>(valueCount);
+				for (int j = 0; j < valueCount; j++) {
+					values.add(strings[dis.readInt()]);
+				}
+				attributes.put(name, values);
+			}
+		}
+		return attributes;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Collection<String> asList(Object value) {
+		return (value instanceof List ? (List<String>) value : Collections.singletonList((String) value));
+	}
+
+	private static String readString(DataInputStream dis, String[] strings) throws IOException {
+		int index = dis.readInt();
+		return (index >= 0 ? strings[index] : null);
+	}
+
+	private static void readStrings(DataInputStream dis, String[] strings, Collection<String> target)
+			throws IOException {
+
+		int count = dis.readInt();
+		for (int i = 0; i < count; i++) {
+			target.add(strings[dis.readInt()]);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,12 @@ package org.springframework.context.index;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
 import javax.annotation.ManagedBean;
 import javax.inject.Named;
 import javax.persistence.Converter;
@@ -32,12 +38,23 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ClassPathBeanDefinitionScanner;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ConfigurationClassPostProcessor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
 import org.springframework.context.index.sample.AbstractController;
 import org.springframework.context.index.sample.MetaControllerIndexed;
 import org.springframework.context.index.sample.SampleComponent;
+import org.springframework.context.index.sample.SampleConfiguration;
 import org.springframework.context.index.sample.SampleController;
 import org.springframework.context.index.sample.SampleMetaController;
 import org.springframework.context.index.sample.SampleMetaIndexedController;
+import org.springframework.context.index.sample.SampleNamedPrototype;
 import org.springframework.context.index.sample.SampleNonStaticEmbedded;
 import org.springframework.context.index.sample.SampleNone;
 import org.springframework.context.index.sample.SampleRepository;
@@ -56,6 +73,8 @@ import org.springframework.context.index.sample.type.SampleSpecializedRepo;
 import org.springframework.context.index.sample.type.SmartRepo;
 import org.springframework.context.index.sample.type.SpecializedRepo;
 import org.springframework.context.index.test.TestCompiler;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ClassUtils;
 
@@ -70,6 +89,8 @@ import static org.springframework.context.index.Metadata.*;
  */
 public class CandidateComponentsIndexerTests {
 
+	private static final String PROFILE_CONDITION = "org.springframework.context.annotation.ProfileCondition";
+
 	private TestCompiler compiler;
 
 	@Rule
@@ -222,6 +243,114 @@ public class CandidateComponentsIndexerTests {
 		assertThat(metadata.getItems(), hasSize(0));
 	}
 
+	@Test
+	public void typeMetadata() throws IOException {
+		CandidateComponentsMetadata metadata = compile(SampleConfiguration.class);
+		assertThat(metadata, hasComponent(SampleConfiguration.class, Component.class));
+
+		List<TypeMetadata> typeMetadata = readGeneratedTypeMetadata(this.compiler.getOutputLocation());
+		assertThat(typeMetadata, hasSize(1));
+		TypeMetadata type = typeMetadata.get(0);
+		assertEquals(SampleConfiguration.class.getName(), type.getType());
+		assertEquals(TypeMetadata.INDEPENDENT, type.getFlags());
+		assertNull(type.getEnclosingClassName());
+		assertEquals(AbstractController.class.getName(), type.getSuperClassName());
+		assertEquals(Arrays.asList(Runnable.class.getName()), type.getInterfaceNames());
+		assertThat(type.getAnnotations().keySet(), contains(Configuration.class.getName(), Profile.class.getName()));
+		assertThat(type.getAnnotations().get(Configuration.class.getName()),
+				contains(Component.class.getName(), "org.springframework.stereotype.Indexed"));
+		assertThat(type.getAnnotations().get(Profile.class.getName()), contains(Conditional.class.getName()));
+		assertThat(type.getConditionClassNames(), contains(PROFILE_CONDITION));
+		assertThat(type.getMethodAnnotationTypes(), containsInAnyOrder(Bean.class.getName(), Lazy.class.getName(),
+				Profile.class.getName(), Conditional.class.getName()));
+		assertEquals(Collections.emptyMap(), type.getAnnotationAttributes().get(Configuration.class.getName()));
+		assertEquals(Collections.singletonMap("value", Collections.singletonList("sample")),
+				type.getAnnotationAttributes().get(Profile.class.getName()));
+		assertThat(type.getMemberClassNames(), empty());
+
+		List<TypeMetadata.BeanMethod> beanMethods = type.getBeanMethods();
+		assertThat(beanMethods, hasSize(3));
+		TypeMetadata.BeanMethod beanMethod = beanMethods.get(0);
+		assertEquals("sampleComponent", beanMethod.getName());
+		assertEquals(SampleComponent.class.getName(), beanMethod.getReturnType());
+		assertEquals(0, beanMethod.getFlags());
+		assertThat(beanMethod.getAnnotations().keySet(), contains(Bean.class.getName(), Lazy.class.getName()));
+		assertEquals(Collections.emptyMap(), beanMethod.getAnnotationAttributes().get(Lazy.class.getName()));
+		assertThat(beanMethod.getConditionClassNames(), empty());
+		beanMethod = beanMethods.get(1);
+		assertEquals("otherComponent", beanMethod.getName());
+		assertEquals(TypeMetadata.BeanMethod.STATIC, beanMethod.getFlags());
+		assertEquals(Collections.singletonMap("value", Collections.singletonList("other")),
+				beanMethod.getAnnotationAttributes().get(Profile.class.getName()));
+		assertThat(beanMethod.getConditionClassNames(), contains(PROFILE_CONDITION));
+		beanMethod = beanMethods.get(2);
+		assertEquals("numbers", beanMethod.getName());
+		assertEquals("int[]", beanMethod.getReturnType());
+	}
+
+	@Test
+	public void componentScanWithIndexDoesNotReadClassFiles() throws IOException {
+		compile(SampleComponent.class, SampleService.class, SampleController.class,
+				SampleNamedPrototype.class, SampleConfiguration.class);
+		IndexOnlyClassLoader classLoader =
+				new IndexOnlyClassLoader(getClass().getClassLoader(), this.compiler.getOutputLocation());
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(beanFactory);
+		scanner.setIncludeAnnotationConfig(false);
+		scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+
+		assertEquals(4, scanner.scan("org.springframework.context.index.sample"));
+		assertThat(beanFactory.getBeanDefinitionNames(),
+				arrayContainingInAnyOrder("sampleComponent", "sampleService", "sampleController", "namedPrototype"));
+		BeanDefinition namedPrototype = beanFactory.getBeanDefinition("namedPrototype");
+		assertEquals(BeanDefinition.SCOPE_PROTOTYPE, namedPrototype.getScope());
+		assertTrue(namedPrototype.isLazyInit());
+		assertThat(classLoader.getClassFileRequests(), empty());
+	}
+
+	@Test
+	public void configurationClassWithIndexDoesNotReadItsClassFile() throws IOException {
+		compile(SampleConfiguration.class);
+		IndexOnlyClassLoader classLoader =
+				new IndexOnlyClassLoader(getClass().getClassLoader(), this.compiler.getOutputLocation());
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.setActiveProfiles("sample");
+		ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(beanFactory, true, environment);
+		scanner.setIncludeAnnotationConfig(false);
+		scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+		assertEquals(1, scanner.scan("org.springframework.context.index.sample"));
+
+		ConfigurationClassPostProcessor postProcessor = new ConfigurationClassPostProcessor();
+		postProcessor.setEnvironment(environment);
+		postProcessor.setResourceLoader(new DefaultResourceLoader(classLoader));
+		postProcessor.postProcessBeanDefinitionRegistry(beanFactory);
+
+		assertThat(beanFactory.getBeanDefinitionNames(),
+				arrayContainingInAnyOrder("sampleConfiguration", "sampleComponent", "numbers"));
+		assertTrue(beanFactory.getBeanDefinition("sampleComponent").isLazyInit());
+		assertThat(classLoader.getClassFileRequests(),
+				not(hasItem(ClassUtils.convertClassNameToResourcePath(SampleConfiguration.class.getName()) +
+						ClassUtils.CLASS_FILE_SUFFIX)));
+	}
+
+	@Test
+	public void typeMetadataForNestedTypes() throws IOException {
+		compile(SampleEmbedded.class);
+		List<TypeMetadata> typeMetadata = readGeneratedTypeMetadata(this.compiler.getOutputLocation());
+		assertThat(typeMetadata, hasSize(2));
+		TypeMetadata type = typeMetadata.get(0);
+		assertEquals(SampleEmbedded.PublicCandidate.class.getName(), type.getType());
+		assertEquals(SampleEmbedded.class.getName(), type.getEnclosingClassName());
+		assertTrue((type.getFlags() & TypeMetadata.INDEPENDENT) != 0);
+		type = typeMetadata.get(1);
+		// Same type name as in the candidates index
+		assertEquals("org.springframework.context.index.sample.SampleEmbedded.Another$AnotherPublicCandidate",
+				type.getType());
+		assertEquals(SampleEmbedded.Another.AnotherPublicCandidate.class.getName(), type.getClassName());
+		assertEquals(SampleEmbedded.Another.class.getName(), type.getEnclosingClassName());
+	}
+
 	private void testComponent(Class<?>... classes) throws IOException {
 		CandidateComponentsMetadata metadata = compile(classes);
 		for (Class<?> c : classes) {
@@ -248,6 +377,12 @@ public class CandidateComponentsIndexerTests {
 		return readGeneratedMetadata(this.compiler.getOutputLocation());
 	}
 
+	private List<TypeMetadata> readGeneratedTypeMetadata(File outputLocation) throws IOException {
+		try (FileInputStream in = new FileInputStream(new File(outputLocation, MetadataStore.TYPE_METADATA_PATH))) {
+			return TypeMetadataMarshaller.read(in);
+		}
+	}
+
 	private CandidateComponentsMetadata readGeneratedMetadata(File outputLocation) {
 		try {
 			File metadataFile = new File(outputLocation,
@@ -264,4 +399,43 @@ public class CandidateComponentsIndexerTests {
 		}
 	}
 
+
+	/**
+	 * {@link ClassLoader} exposing only the index generated in the given location
+	 * and recording requests for class files.
+	 */
+	private static class IndexOnlyClassLoader extends ClassLoader {
+
+		private final File outputLocation;
+
+		private final List<String> classFileRequests = Collections.synchronizedList(new ArrayList<>());
+
+		IndexOnlyClassLoader(ClassLoader parent, File outputLocation) {
+			super(parent);
+			this.outputLocation = outputLocation;
+		}
+
+		List<String> getClassFileRequests() {
+			return this.classFileRequests;
+		}
+
+		@Override
+		public Enumeration<URL> getResources(String name) throws IOException {
+			if (name.startsWith(MetadataStore.METADATA_PATH)) {
+				File file = new File(this.outputLocation, name);
+				return Collections.enumeration(file.isFile() ?
+						Collections.singletonList(file.toURI().toURL()) : Collections.emptyList());
+			}
+			return super.getResources(name);
+		}
+
+		@Override
+		public URL getResource(String name) {
+			if (name.endsWith(".class")) {
+				this.classFileRequests.add(name);
+			}
+			return super.getResource(name);
+		}
+	}
+
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.sample;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Test candidate for the type metadata of a {@link Configuration} class.
+ */
+@Configuration
+@Profile("sample")
+public class SampleConfiguration extends AbstractController implements Runnable {
+
+	@Bean
+	@Lazy
+	public SampleComponent sampleComponent() {
+		return new SampleComponent();
+	}
+
+	@Bean
+	@Profile("other")
+	public static SampleComponent otherComponent() {
+		return new SampleComponent();
+	}
+
+	@Bean
+	public int[] numbers() {
+		return new int[0];
+	}
+
+	@Override
+	public void run() {
+	}
+
+}
@@ -16,6 +16,8 @@
 
 package org.springframework.cache.caffeine;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.function.Function;
 
@@ -99,17 +101,38 @@ public class CaffeineCache extends AbstractValueAdaptingCache {
 		return (T) fromStoreValue(this.cache.get(key, new LoadFunction(valueLoader)));
 	}
 
+	/**
+	 * This implementation returns {@code true}, the store being held in memory.
+	 */
+	@Override
+	protected boolean isNonBlockingStore() {
+		return true;
+	}
+
 	@Override
 	@Nullable
 	protected Object lookup(Object key) {
 		return this.cache.getIfPresent(key);
 	}
 
+	@Override
+	protected Map<?, ?> lookupAll(Collection<?> keys) {
+		if (this.cache instanceof LoadingCache) {
+			return ((LoadingCache<Object, Object>) this.cache).getAll(keys);
+		}
+		return this.cache.getAllPresent(keys);
+	}
+
 	@Override
 	public void put(Object key, @Nullable Object value) {
 		this.cache.put(key, toStoreValue(value));
 	}
 
+	@Override
+	public void putAll(Map<?, ?> values) {
+		this.cache.putAll(toStoreValues(values));
+	}
+
 	@Override
 	@Nullable
 	public ValueWrapper putIfAbsent(Object key, @Nullable final Object value) {
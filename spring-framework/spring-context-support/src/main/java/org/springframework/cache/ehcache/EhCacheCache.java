@@ -16,6 +16,11 @@
 
 package org.springframework.cache.ehcache;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import net.sf.ehcache.Ehcache;
@@ -72,6 +77,18 @@ public class EhCacheCache implements Cache {
 		return toValueWrapper(element);
 	}
 
+	@Override
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, Element> elements = this.cache.getAll(keys);
+		Map<Object, ValueWrapper> result = new LinkedHashMap<>(elements.size());
+		elements.forEach((key, element) -> {
+			if (element != null) {
+				result.put(key, toValueWrapper(element));
+			}
+		});
+		return result;
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	@Nullable
@@ -128,6 +145,13 @@ public class EhCacheCache implements Cache {
 		this.cache.put(new Element(key, value));
 	}
 
+	@Override
+	public void putAll(Map<?, ?> values) {
+		List<Element> elements = new ArrayList<>(values.size());
+		values.forEach((key, value) -> elements.add(new Element(key, value)));
+		this.cache.putAll(elements);
+	}
+
 	@Override
 	@Nullable
 	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
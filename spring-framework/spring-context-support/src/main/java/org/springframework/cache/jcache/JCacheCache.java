@@ -16,6 +16,9 @@
 
 package org.springframework.cache.jcache;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import javax.cache.processor.EntryProcessor;
 import javax.cache.processor.EntryProcessorException;
@@ -76,6 +79,11 @@ public class JCacheCache extends AbstractValueAdaptingCache {
 		return this.cache.get(key);
 	}
 
+	@Override
+	protected Map<?, ?> lookupAll(Collection<?> keys) {
+		return this.cache.getAll(new LinkedHashSet<>(keys));
+	}
+
 	@Override
 	@Nullable
 	public <T> T get(Object key, Callable<T> valueLoader) {
@@ -92,6 +100,11 @@ public class JCacheCache extends AbstractValueAdaptingCache {
 		this.cache.put(key, toStoreValue(value));
 	}
 
+	@Override
+	public void putAll(Map<?, ?> values) {
+		this.cache.putAll(toStoreValues(values));
+	}
+
 	@Override
 	@Nullable
 	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
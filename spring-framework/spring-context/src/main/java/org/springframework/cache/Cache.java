@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,12 @@
 
 package org.springframework.cache;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import org.springframework.lang.Nullable;
 
@@ -98,6 +103,73 @@ public interface Cache {
 	@Nullable
 	<T> T get(Object key, Callable<T> valueLoader);
 
+	/**
+	 * Return the value to which this cache maps the specified key,
+	 * without blocking the calling thread.
+	 * <p>The returned future completes with {@code null} if the cache contains
+	 * no mapping for this key; otherwise, the cached value (which may be
+	 * {@code null} itself) will be provided in a {@link ValueWrapper}.
+	 * <p>The default implementation throws an {@link UnsupportedOperationException}.
+	 * @param key the key whose associated value is to be returned
+	 * @return a future for the value to which this cache maps the specified key
+	 * @throws UnsupportedOperationException if the cache does not support
+	 * asynchronous retrieval
+	 * @since 5.1
+	 * @see #retrieve(Object, Supplier)
+	 */
+	default CompletableFuture<ValueWrapper> retrieve(Object key) {
+		throw new UnsupportedOperationException(
+				getClass().getName() + " does not support CompletableFuture-based retrieval");
+	}
+
+	/**
+	 * Return the value to which this cache maps the specified key, obtaining
+	 * that value from the future returned by {@code valueLoader} if necessary,
+	 * without blocking the calling thread. This is the asynchronous counterpart
+	 * of {@link #get(Object, Callable)}.
+	 * <p>Implementations should ensure that the {@code valueLoader} is only
+	 * called once in case of concurrent access on the same key, with all callers
+	 * sharing the future for the value being loaded. The loaded value is stored
+	 * once that future completes successfully; a failed future is not stored,
+	 * so that a subsequent call is going to call the {@code valueLoader} again.
+	 * <p>The default implementation throws an {@link UnsupportedOperationException}.
+	 * @param key the key whose associated value is to be returned
+	 * @param valueLoader the loader for the value future, in case of a cache miss
+	 * @return a future for the value to which this cache maps the specified key
+	 * @throws UnsupportedOperationException if the cache does not support
+	 * asynchronous retrieval
+	 * @since 5.1
+	 * @see #retrieve(Object)
+	 */
+	default <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+		throw new UnsupportedOperationException(
+				getClass().getName() + " does not support CompletableFuture-based retrieval");
+	}
+
+	/**
+	 * Return the values to which this cache maps the specified keys,
+	 * in a single bulk operation if supported by the native cache.
+	 * <p>The returned map only contains entries for the keys that this cache
+	 * holds a mapping for, with each cached value (which may be {@code null}
+	 * itself) contained within a {@link ValueWrapper}.
+	 * <p>The default implementation calls {@link #get(Object)} for each key.
+	 * @param keys the keys whose associated values are to be returned
+	 * @return a map from each key found to the wrapped value it maps to
+	 * (never {@code null})
+	 * @since 5.1
+	 * @see #putAll(Map)
+	 */
+	default Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, ValueWrapper> result = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = get(key);
+			if (wrapper != null) {
+				result.put(key, wrapper);
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Associate the specified value with the specified key in this cache.
 	 * <p>If the cache previously contained a mapping for this key, the old
@@ -107,6 +179,19 @@ public interface Cache {
 	 */
 	void put(Object key, @Nullable Object value);
 
+	/**
+	 * Associate all the specified key-value pairs in this cache,
+	 * in a single bulk operation if supported by the native cache.
+	 * <p>The default implementation calls {@link #put(Object, Object)}
+	 * for each entry.
+	 * @param values the key-value pairs to be stored
+	 * @since 5.1
+	 * @see #getAll(Collection)
+	 */
+	default void putAll(Map<?, ?> values) {
+		values.forEach(this::put);
+	}
+
 	/**
 	 * Atomically associate the specified value with the specified key in this cache
 	 * if it is not set already.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -179,4 +179,29 @@ public @interface Cacheable {
 	 */
 	boolean sync() default false;
 
+	/**
+	 * Look up the elements of a collection argument in bulk, caching an entry
+	 * per element rather than a single entry for the whole collection.
+	 * <p>Hits are served from the cache via {@link org.springframework.cache.Cache#getAll},
+	 * while the underlying method gets invoked with the missing elements only;
+	 * the entries of its result are put into the cache and merged with the hits,
+	 * in the iteration order of the given collection. This leads to a couple of
+	 * requirements and limitations:
+	 * <ol>
+	 * <li>The method must declare a single {@code Collection}, {@code List} or
+	 * {@code Set} parameter and a {@code Map} return type, keyed by element</li>
+	 * <li>The elements serve as cache keys: {@link #key()} and {@link #keyGenerator()}
+	 * are not supported</li>
+	 * <li>{@link #condition()} applies to the invocation as a whole, while
+	 * {@link #unless()} is evaluated for each entry, with {@code #result}
+	 * referring to the value of that entry</li>
+	 * <li>{@link #sync()} is not supported and no other cache-related operation
+	 * can be combined</li>
+	 * </ol>
+	 * @since 5.1
+	 * @see org.springframework.cache.Cache#getAll
+	 * @see org.springframework.cache.Cache#putAll
+	 */
+	boolean batch() default false;
+
 }
@@ -0,0 +1,700 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link org.springframework.cache.Cache} implementation based on the core JDK
+ * {@code java.util.concurrent} package, holding a bounded number of entries
+ * with an optional time-to-live. A lightweight alternative to a dedicated
+ * caching library when a plain {@link ConcurrentMapCache} would grow without
+ * limits, typically set up through {@link ConcurrentMapCacheManager#setMaximumSize}
+ * and {@link ConcurrentMapCacheManager#setTimeToLive}.
+ *
+ * <p>Entries are spread across a number of segments, each evicting its least
+ * recently used entry once it exceeds its share of the maximum size (segmented
+ * LRU). Reads are served from a concurrent map without locking; a segment's
+ * lock is only taken for writes and for recording the recency of a read, which
+ * gets skipped while another thread holds the lock. Each entry expires individually once
+ * its time-to-live has passed since it was written; expired entries are
+ * removed lazily on access and periodically on write.
+ *
+ * <p>With a {@link #setRefreshLoader refresh loader}, an entry that is read
+ * after its {@link #setRefreshAfterWrite refresh interval} gets reloaded
+ * asynchronously while the current value keeps being returned, so that
+ * frequently read entries do not expire on their callers (refresh-ahead).
+ *
+ * <p>Hit, miss, put, removal, eviction, expiration and refresh counters are exposed
+ * through the {@link BoundedConcurrentMapCacheMBean} interface, which
+ * allows for registering a cache instance with JMX, e.g. via Spring's
+ * {@link org.springframework.jmx.export.MBeanExporter}.
+ *
+ * <p><b>Note:</b> In contrast to {@link ConcurrentMapCache}, this cache
+ * always stores references; store-by-value is not supported.
+ *
+ * @since 5.1
+ * @see ConcurrentMapCacheManager#setMaximumSize
+ * @see ConcurrentMapCacheManager#setTimeToLive
+ */
+public class BoundedConcurrentMapCache extends AbstractValueAdaptingCache implements BoundedConcurrentMapCacheMBean {
+
+	private static final int MAXIMUM_SEGMENT_COUNT = 16;
+
+	/** Minimum number of entries per segment before another segment gets introduced */
+	private static final int MINIMUM_SEGMENT_SIZE = 16;
+
+	private static final Log logger = LogFactory.getLog(BoundedConcurrentMapCache.class);
+
+
+	private final String name;
+
+	private final int maximumSize;
+
+	private final long timeToLiveMillis;
+
+	private final Segment[] segments;
+
+	private final ConcurrentMap<Object, CompletableFuture<Object>> loadsInProgress = new ConcurrentHashMap<>(16);
+
+	private Clock clock = Clock.systemUTC();
+
+	private long refreshAfterWriteMillis;
+
+	@Nullable
+	private Function<Object, ?> refreshLoader;
+
+	private Executor refreshExecutor = ForkJoinPool.commonPool();
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder putCount = new LongAdder();
+
+	private final LongAdder removalCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	private final LongAdder expirationCount = new LongAdder();
+
+	private final LongAdder refreshCount = new LongAdder();
+
+
+	/**
+	 * Create a new BoundedConcurrentMapCache with the specified name,
+	 * holding up to the given number of entries without expiration.
+	 * @param name the name of the cache
+	 * @param maximumSize the maximum number of entries
+	 */
+	public BoundedConcurrentMapCache(String name, int maximumSize) {
+		this(name, maximumSize, null, true);
+	}
+
+	/**
+	 * Create a new BoundedConcurrentMapCache with the specified name.
+	 * @param name the name of the cache
+	 * @param maximumSize the maximum number of entries
+	 * @param timeToLive the time after which an entry expires once written,
+	 * or {@code null} for no expiration
+	 * @param allowNullValues whether to accept and convert {@code null}
+	 * values for this cache
+	 */
+	public BoundedConcurrentMapCache(String name, int maximumSize, @Nullable Duration timeToLive,
+			boolean allowNullValues) {
+
+		super(allowNullValues);
+		Assert.notNull(name, "Name must not be null");
+		Assert.isTrue(maximumSize > 0, "Maximum size must be greater than 0");
+		Assert.isTrue(timeToLive == null || !timeToLive.isNegative() && !timeToLive.isZero(),
+				"Time-to-live must be positive");
+		this.name = name;
+		this.maximumSize = maximumSize;
+		this.timeToLiveMillis = (timeToLive != null ? timeToLive.toMillis() : 0);
+		this.segments = createSegments(maximumSize);
+	}
+
+	private Segment[] createSegments(int maximumSize) {
+		int segmentCount = 1;
+		while (segmentCount < MAXIMUM_SEGMENT_COUNT && maximumSize / (segmentCount * 2) >= MINIMUM_SEGMENT_SIZE) {
+			segmentCount *= 2;
+		}
+		Segment[] segments = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			// Distribute the remainder, so that the segment sizes add up to the maximum size
+			int segmentSize = maximumSize / segmentCount + (i < maximumSize % segmentCount ? 1 : 0);
+			segments[i] = new Segment(segmentSize);
+		}
+		return segments;
+	}
+
+
+	/**
+	 * Set the interval after which an entry gets reloaded asynchronously when
+	 * being read, keeping the current value until the reload has completed.
+	 * Requires a {@link #setRefreshLoader refresh loader}; should be shorter
+	 * than the time-to-live, since expired entries are not refreshed anymore.
+	 */
+	public void setRefreshAfterWrite(Duration refreshAfterWrite) {
+		Assert.isTrue(!refreshAfterWrite.isNegative() && !refreshAfterWrite.isZero(),
+				"Refresh interval must be positive");
+		this.refreshAfterWriteMillis = refreshAfterWrite.toMillis();
+	}
+
+	/**
+	 * Set the function to reload the value for a given key with, in case of a
+	 * {@link #setRefreshAfterWrite refresh}. A failed reload leaves the current
+	 * value in place, to be refreshed again on a subsequent read.
+	 */
+	public void setRefreshLoader(@Nullable Function<Object, ?> refreshLoader) {
+		this.refreshLoader = refreshLoader;
+	}
+
+	/**
+	 * Set the executor to run refresh loads on.
+	 * <p>Default is the {@link ForkJoinPool#commonPool() common pool}.
+	 */
+	public void setRefreshExecutor(Executor refreshExecutor) {
+		Assert.notNull(refreshExecutor, "Executor must not be null");
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	/**
+	 * Set the clock to use for expiration and refresh checks.
+	 * <p>Default is {@link Clock#systemUTC()}; mainly useful for testing.
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "Clock must not be null");
+		this.clock = clock;
+	}
+
+	/**
+	 * Return the clock used for expiration and refresh checks.
+	 */
+	public Clock getClock() {
+		return this.clock;
+	}
+
+
+	@Override
+	public final String getName() {
+		return this.name;
+	}
+
+	/**
+	 * This implementation returns the cache itself,
+	 * as it does not delegate to a separate store.
+	 */
+	@Override
+	public final BoundedConcurrentMapCache getNativeCache() {
+		return this;
+	}
+
+	/**
+	 * This implementation returns {@code true}, the store being held in memory.
+	 */
+	@Override
+	protected boolean isNonBlockingStore() {
+		return true;
+	}
+
+	@Override
+	@Nullable
+	protected Object lookup(Object key) {
+		Entry entry = segmentFor(key).get(key, this.clock.millis(), true);
+		if (entry == null) {
+			this.missCount.increment();
+			return null;
+		}
+		this.hitCount.increment();
+		return entry.value;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		Segment segment = segmentFor(key);
+		Entry entry = segment.get(key, this.clock.millis(), true);
+		if (entry != null) {
+			this.hitCount.increment();
+			return (T) fromStoreValue(entry.value);
+		}
+
+		CompletableFuture<Object> load = new CompletableFuture<>();
+		CompletableFuture<Object> existingLoad = this.loadsInProgress.putIfAbsent(key, load);
+		if (existingLoad != null) {
+			this.missCount.increment();
+			return (T) awaitLoad(key, valueLoader, existingLoad);
+		}
+		try {
+			// Check again, in case of another load having completed in the meantime
+			Object value;
+			entry = segment.get(key, this.clock.millis(), false);
+			if (entry != null) {
+				this.hitCount.increment();
+				value = fromStoreValue(entry.value);
+			}
+			else {
+				this.missCount.increment();
+				value = valueLoader.call();
+				putStoreValue(key, toStoreValue(value));
+			}
+			load.complete(value);
+			return (T) value;
+		}
+		catch (Throwable ex) {
+			load.completeExceptionally(ex);
+			throw new ValueRetrievalException(key, valueLoader, ex);
+		}
+		finally {
+			this.loadsInProgress.remove(key, load);
+		}
+	}
+
+	/**
+	 * This implementation shares loads in progress with
+	 * {@link #get(Object, Callable)}, counting a single hit or miss per call.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+		Segment segment = segmentFor(key);
+		Entry entry = segment.get(key, this.clock.millis(), true);
+		if (entry != null) {
+			this.hitCount.increment();
+			return CompletableFuture.completedFuture((T) fromStoreValue(entry.value));
+		}
+
+		CompletableFuture<Object> load = new CompletableFuture<>();
+		CompletableFuture<Object> existingLoad = this.loadsInProgress.putIfAbsent(key, load);
+		if (existingLoad != null) {
+			// Loading in progress: share its result
+			this.missCount.increment();
+			return (CompletableFuture<T>) existingLoad;
+		}
+		// Check again, in case of another load having completed in the meantime
+		entry = segment.get(key, this.clock.millis(), false);
+		if (entry != null) {
+			this.hitCount.increment();
+			this.loadsInProgress.remove(key, load);
+			load.complete(fromStoreValue(entry.value));
+			return (CompletableFuture<T>) load;
+		}
+
+		this.missCount.increment();
+		CompletableFuture<T> loadingFuture;
+		try {
+			loadingFuture = valueLoader.get();
+		}
+		catch (RuntimeException | Error ex) {
+			this.loadsInProgress.remove(key, load);
+			load.completeExceptionally(ex);
+			throw ex;
+		}
+		loadingFuture.whenComplete((value, ex) -> {
+			Throwable failure = ex;
+			if (failure == null && (value != null || isAllowNullValues())) {
+				try {
+					putStoreValue(key, toStoreValue(value));
+				}
+				catch (Throwable putEx) {
+					failure = putEx;
+				}
+			}
+			this.loadsInProgress.remove(key, load);
+			if (failure != null) {
+				load.completeExceptionally(failure);
+			}
+			else {
+				load.complete(value);
+			}
+		});
+		return (CompletableFuture<T>) load;
+	}
+
+	@Nullable
+	private Object awaitLoad(Object key, Callable<?> valueLoader, CompletableFuture<Object> load) {
+		try {
+			return load.get();
+		}
+		catch (ExecutionException ex) {
+			throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new ValueRetrievalException(key, valueLoader, ex);
+		}
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		putStoreValue(key, toStoreValue(value));
+		this.putCount.increment();
+	}
+
+	private void putStoreValue(Object key, Object storeValue) {
+		segmentFor(key).put(key, new Entry(storeValue, this.clock.millis()), false);
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		Entry existing = segmentFor(key).put(key, new Entry(toStoreValue(value), this.clock.millis()), true);
+		if (existing != null) {
+			this.hitCount.increment();
+			return toValueWrapper(existing.value);
+		}
+		this.putCount.increment();
+		return null;
+	}
+
+	@Override
+	public void evict(Object key) {
+		if (segmentFor(key).remove(key)) {
+			this.removalCount.increment();
+		}
+	}
+
+	@Override
+	public void clear() {
+		for (Segment segment : this.segments) {
+			segment.clear();
+		}
+	}
+
+	private Segment segmentFor(Object key) {
+		int hash = key.hashCode();
+		hash ^= (hash >>> 16);
+		return this.segments[hash & (this.segments.length - 1)];
+	}
+
+	/**
+	 * Reload the given entry asynchronously, replacing it if it has not
+	 * been modified in the meantime.
+	 */
+	private void refresh(Segment segment, Object key, Entry entry, Function<Object, ?> loader) {
+		try {
+			this.refreshExecutor.execute(() -> {
+				try {
+					Entry refreshed = new Entry(toStoreValue(loader.apply(key)), this.clock.millis());
+					if (segment.replace(key, entry, refreshed)) {
+						this.refreshCount.increment();
+					}
+				}
+				catch (Throwable ex) {
+					entry.refreshing = false;
+					if (logger.isDebugEnabled()) {
+						logger.debug("Failed to refresh entry for key '" + key + "' in cache '" + this.name + "'", ex);
+					}
+				}
+			});
+		}
+		catch (RejectedExecutionException ex) {
+			entry.refreshing = false;
+		}
+	}
+
+
+	@Override
+	public int getSize() {
+		int size = 0;
+		for (Segment segment : this.segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	@Override
+	public int getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	@Override
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	@Override
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	@Override
+	public long getPutCount() {
+		return this.putCount.sum();
+	}
+
+	@Override
+	public long getRemovalCount() {
+		return this.removalCount.sum();
+	}
+
+	@Override
+	public long getEvictionCount() {
+		return this.evictionCount.sum();
+	}
+
+	@Override
+	public long getExpirationCount() {
+		return this.expirationCount.sum();
+	}
+
+	@Override
+	public long getRefreshCount() {
+		return this.refreshCount.sum();
+	}
+
+	@Override
+	public void resetStatistics() {
+		this.hitCount.reset();
+		this.missCount.reset();
+		this.putCount.reset();
+		this.removalCount.reset();
+		this.evictionCount.reset();
+		this.expirationCount.reset();
+		this.refreshCount.reset();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + " '" + this.name + "' [size=" + getSize() +
+				", maximumSize=" + this.maximumSize + ", hits=" + getHitCount() + ", misses=" + getMissCount() +
+				", evictions=" + getEvictionCount() + ", expirations=" + getExpirationCount() + "]";
+	}
+
+
+	/**
+	 * A cache entry: the store value and the time it was written at.
+	 */
+	private static final class Entry {
+
+		final Object value;
+
+		final long writeTime;
+
+		volatile boolean refreshing;
+
+		Entry(Object value, long writeTime) {
+			this.value = value;
+			this.writeTime = writeTime;
+		}
+	}
+
+
+	/**
+	 * A segment of the cache: up to a fixed number of entries, evicting the least
+	 * recently used entry. Entries are held in a concurrent map for lock-free reads,
+	 * and additionally in an access-ordered map which tracks their recency under
+	 * the segment lock.
+	 */
+	@SuppressWarnings("serial")
+	private final class Segment extends ReentrantLock {
+
+		private final int maximumSize;
+
+		private final ConcurrentMap<Object, Entry> entries = new ConcurrentHashMap<>(16);
+
+		private final LinkedHashMap<Object, Entry> accessOrder;
+
+		private long nextExpirationSweep;
+
+		Segment(int maximumSize) {
+			this.maximumSize = maximumSize;
+			this.accessOrder = new LinkedHashMap<Object, Entry>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+					if (size() > Segment.this.maximumSize) {
+						entries.remove(eldest.getKey());
+						evictionCount.increment();
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+
+		/**
+		 * Return the live entry for the given key, if any, triggering
+		 * a refresh if it is due and {@code refreshIfDue} is set.
+		 */
+		@Nullable
+		Entry get(Object key, long now, boolean refreshIfDue) {
+			Entry entry = this.entries.get(key);
+			if (entry == null) {
+				return null;
+			}
+			if (isExpired(entry, now)) {
+				lock();
+				try {
+					if (this.entries.remove(key, entry)) {
+						this.accessOrder.remove(key);
+						expirationCount.increment();
+					}
+				}
+				finally {
+					unlock();
+				}
+				return null;
+			}
+			Function<Object, ?> loader = refreshLoader;
+			if (refreshIfDue && loader != null && refreshAfterWriteMillis > 0 && !entry.refreshing &&
+					now - entry.writeTime >= refreshAfterWriteMillis) {
+				boolean refresh = false;
+				lock();
+				try {
+					if (!entry.refreshing && this.entries.get(key) == entry) {
+						entry.refreshing = true;
+						refresh = true;
+					}
+					this.accessOrder.get(key);
+				}
+				finally {
+					unlock();
+				}
+				if (refresh) {
+					refresh(this, key, entry, loader);
+				}
+			}
+			else if (tryLock()) {
+				// Record the access, unless another thread is busy with this segment
+				try {
+					this.accessOrder.get(key);
+				}
+				finally {
+					unlock();
+				}
+			}
+			return entry;
+		}
+
+		/**
+		 * Store the given entry, unless {@code onlyIfAbsent} is set and
+		 * a live entry exists already.
+		 * @return the live entry present before, if any
+		 */
+		@Nullable
+		Entry put(Object key, Entry entry, boolean onlyIfAbsent) {
+			lock();
+			try {
+				Entry existing = this.entries.get(key);
+				if (existing != null && isExpired(existing, entry.writeTime)) {
+					this.entries.remove(key);
+					this.accessOrder.remove(key);
+					expirationCount.increment();
+					existing = null;
+				}
+				if (existing == null || !onlyIfAbsent) {
+					this.entries.put(key, entry);
+					this.accessOrder.put(key, entry);
+				}
+				expireEntries(entry.writeTime);
+				return existing;
+			}
+			finally {
+				unlock();
+			}
+		}
+
+		boolean replace(Object key, Entry oldEntry, Entry newEntry) {
+			lock();
+			try {
+				if (this.entries.get(key) == oldEntry) {
+					this.entries.put(key, newEntry);
+					this.accessOrder.put(key, newEntry);
+					return true;
+				}
+				return false;
+			}
+			finally {
+				unlock();
+			}
+		}
+
+		boolean remove(Object key) {
+			lock();
+			try {
+				this.accessOrder.remove(key);
+				return (this.entries.remove(key) != null);
+			}
+			finally {
+				unlock();
+			}
+		}
+
+		void clear() {
+			lock();
+			try {
+				this.entries.clear();
+				this.accessOrder.clear();
+			}
+			finally {
+				unlock();
+			}
+		}
+
+		int size() {
+			return this.entries.size();
+		}
+
+		private boolean isExpired(Entry entry, long now) {
+			return (timeToLiveMillis > 0 && now - entry.writeTime >= timeToLiveMillis);
+		}
+
+		/**
+		 * Remove all expired entries, at most once per time-to-live interval.
+		 */
+		private void expireEntries(long now) {
+			if (timeToLiveMillis == 0 || now < this.nextExpirationSweep) {
+				return;
+			}
+			this.nextExpirationSweep = now + timeToLiveMillis;
+			for (Iterator<Map.Entry<Object, Entry>> it = this.accessOrder.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<Object, Entry> mapEntry = it.next();
+				if (isExpired(mapEntry.getValue(), now)) {
+					it.remove();
+					this.entries.remove(mapEntry.getKey());
+					expirationCount.increment();
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+/**
+ * MBean operation interface for the statistics of a {@link BoundedConcurrentMapCache}.
+ *
+ * @since 5.1
+ */
+public interface BoundedConcurrentMapCacheMBean {
+
+	/**
+	 * Return the cache name.
+	 */
+	String getName();
+
+	/**
+	 * Return the current number of entries, possibly including
+	 * expired entries which have not been cleaned up yet.
+	 */
+	int getSize();
+
+	/**
+	 * Return the maximum number of entries.
+	 */
+	int getMaximumSize();
+
+	/**
+	 * Return the number of lookups which found a live entry.
+	 */
+	long getHitCount();
+
+	/**
+	 * Return the number of lookups which did not find a live entry.
+	 */
+	long getMissCount();
+
+	/**
+	 * Return the number of put and putIfAbsent operations which stored an entry.
+	 */
+	long getPutCount();
+
+	/**
+	 * Return the number of entries removed through explicit evict operations.
+	 */
+	long getRemovalCount();
+
+	/**
+	 * Return the number of entries evicted due to the size limit.
+	 */
+	long getEvictionCount();
+
+	/**
+	 * Return the number of entries removed due to their time-to-live.
+	 */
+	long getExpirationCount();
+
+	/**
+	 * Return the number of entries refreshed ahead of their expiration.
+	 */
+	long getRefreshCount();
+
+	/**
+	 * Reset all statistics counters to zero.
+	 */
+	void resetStatistics();
+
+}
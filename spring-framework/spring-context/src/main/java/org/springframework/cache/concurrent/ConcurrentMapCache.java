@@ -19,6 +19,7 @@ package org.springframework.cache.concurrent;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -131,6 +132,14 @@ public class ConcurrentMapCache extends AbstractValueAdaptingCache {
 		return this.store;
 	}
 
+	/**
+	 * This implementation returns {@code true}, the store being held in memory.
+	 */
+	@Override
+	protected boolean isNonBlockingStore() {
+		return true;
+	}
+
 	@Override
 	@Nullable
 	protected Object lookup(Object key) {
@@ -156,6 +165,11 @@ public class ConcurrentMapCache extends AbstractValueAdaptingCache {
 		this.store.put(key, toStoreValue(value));
 	}
 
+	@Override
+	public void putAll(Map<?, ?> values) {
+		this.store.putAll(toStoreValues(values));
+	}
+
 	@Override
 	@Nullable
 	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
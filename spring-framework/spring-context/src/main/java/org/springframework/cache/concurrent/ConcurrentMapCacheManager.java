@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.cache.concurrent;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -28,6 +29,8 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.core.serializer.support.SerializationDelegate;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
 
 /**
  * {@link CacheManager} implementation that lazily builds {@link ConcurrentMapCache}
@@ -35,9 +38,12 @@ import org.springframework.lang.Nullable;
  * the set of cache names is pre-defined through {@link #setCacheNames}, with no
  * dynamic creation of further cache regions at runtime.
  *
- * <p>Note: This is by no means a sophisticated CacheManager; it comes with no
- * cache configuration options. However, it may be useful for testing or simple
- * caching scenarios. For advanced local caching needs, consider
+ * <p>Note: This is by no means a sophisticated CacheManager; it comes with
+ * few cache configuration options. However, it may be useful for testing or
+ * simple caching scenarios. A {@link #setMaximumSize maximum size} or a
+ * {@link #setTimeToLive time-to-live} switches to {@link BoundedConcurrentMapCache}
+ * instances, preventing caches from growing without limits.
+ * For advanced local caching needs, consider
  * {@link org.springframework.cache.jcache.JCacheCacheManager},
  * {@link org.springframework.cache.ehcache.EhCacheCacheManager},
  * {@link org.springframework.cache.caffeine.CaffeineCacheManager}.
@@ -56,6 +62,11 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 
 	private boolean storeByValue = false;
 
+	private int maximumSize = 0;
+
+	@Nullable
+	private Duration timeToLive;
+
 	@Nullable
 	private SerializationDelegate serialization;
 
@@ -127,8 +138,10 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 	 * <p>Note: A change of the store-by-value setting will reset all existing caches,
 	 * if any, to reconfigure them with the new store-by-value requirement.
 	 * @since 4.3
+	 * @throws IllegalStateException if a maximum size or time-to-live has been set
 	 */
 	public void setStoreByValue(boolean storeByValue) {
+		assertBoundsSupported(storeByValue, this.maximumSize, this.timeToLive);
 		if (storeByValue != this.storeByValue) {
 			this.storeByValue = storeByValue;
 			// Need to recreate all Cache instances with the new store-by-value configuration...
@@ -146,6 +159,58 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 		return this.storeByValue;
 	}
 
+	/**
+	 * Specify the maximum number of entries per cache, evicting the least
+	 * recently used entries beyond that limit.
+	 * <p>Default is 0, indicating unbounded caches. Not supported in
+	 * combination with {@link #setStoreByValue store-by-value}.
+	 * @since 5.1
+	 * @throws IllegalStateException if store-by-value has been enabled
+	 * @see BoundedConcurrentMapCache
+	 */
+	public void setMaximumSize(int maximumSize) {
+		assertBoundsSupported(this.storeByValue, maximumSize, this.timeToLive);
+		if (maximumSize != this.maximumSize) {
+			this.maximumSize = maximumSize;
+			// Need to recreate all Cache instances with the new bounds...
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Return the maximum number of entries per cache, or 0 if unbounded.
+	 * @since 5.1
+	 */
+	public int getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	/**
+	 * Specify the time after which cache entries expire once written.
+	 * <p>Default is none. Not supported in combination with
+	 * {@link #setStoreByValue store-by-value}.
+	 * @since 5.1
+	 * @throws IllegalStateException if store-by-value has been enabled
+	 * @see BoundedConcurrentMapCache
+	 */
+	public void setTimeToLive(@Nullable Duration timeToLive) {
+		assertBoundsSupported(this.storeByValue, this.maximumSize, timeToLive);
+		if (!ObjectUtils.nullSafeEquals(timeToLive, this.timeToLive)) {
+			this.timeToLive = timeToLive;
+			// Need to recreate all Cache instances with the new expiration...
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Return the time after which cache entries expire once written, if any.
+	 * @since 5.1
+	 */
+	@Nullable
+	public Duration getTimeToLive() {
+		return this.timeToLive;
+	}
+
 	@Override
 	public void setBeanClassLoader(ClassLoader classLoader) {
 		this.serialization = new SerializationDelegate(classLoader);
@@ -177,6 +242,11 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 		return cache;
 	}
 
+	private void assertBoundsSupported(boolean storeByValue, int maximumSize, @Nullable Duration timeToLive) {
+		Assert.state(!storeByValue || (maximumSize <= 0 && timeToLive == null),
+				"Store-by-value is not supported for bounded caches");
+	}
+
 	private void recreateCaches() {
 		for (Map.Entry<String, Cache> entry : this.cacheMap.entrySet()) {
 			entry.setValue(createConcurrentMapCache(entry.getKey()));
@@ -189,6 +259,10 @@ public class ConcurrentMapCacheManager implements CacheManager, BeanClassLoaderA
 	 * @return the ConcurrentMapCache (or a decorator thereof)
 	 */
 	protected Cache createConcurrentMapCache(String name) {
+		if (this.maximumSize > 0 || this.timeToLive != null) {
+			int actualMaximumSize = (this.maximumSize > 0 ? this.maximumSize : Integer.MAX_VALUE);
+			return new BoundedConcurrentMapCache(name, actualMaximumSize, this.timeToLive, isAllowNullValues());
+		}
 		SerializationDelegate actualSerialization = (isStoreByValue() ? this.serialization : null);
 		return new ConcurrentMapCache(name, new ConcurrentHashMap<>(256),
 				isAllowNullValues(), actualSerialization);
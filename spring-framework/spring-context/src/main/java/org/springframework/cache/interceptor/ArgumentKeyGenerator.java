@@ -0,0 +1,227 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link KeyGenerator} that extracts the key directly from a method argument,
+ * optionally navigating bean properties, as a fast path for the most common
+ * shapes of key expressions such as {@code #id}, {@code #p0} or {@code #user.id}.
+ *
+ * <p>Returns {@link #NOT_RESOLVABLE} whenever the outcome might differ from
+ * evaluating the expression, e.g. for a {@code null} value on the way or a
+ * property without a public getter: the caller is expected to fall back to
+ * regular expression evaluation then.
+ *
+ * @since 5.1
+ * @see CacheOperationExpressionEvaluator#createArgumentKeyGenerator
+ */
+final class ArgumentKeyGenerator implements KeyGenerator {
+
+	/**
+	 * Indicate that the key cannot be extracted without evaluating the expression.
+	 */
+	static final Object NOT_RESOLVABLE = new Object();
+
+	private static final Object[] NO_ARGS = new Object[0];
+
+
+	private final int parameterIndex;
+
+	private final PropertyReader[] propertyReaders;
+
+
+	private ArgumentKeyGenerator(int parameterIndex, PropertyReader[] propertyReaders) {
+		this.parameterIndex = parameterIndex;
+		this.propertyReaders = propertyReaders;
+	}
+
+
+	@Override
+	public Object generate(Object target, Method method, Object... params) {
+		Object value = (this.parameterIndex < params.length ? params[this.parameterIndex] : null);
+		for (PropertyReader propertyReader : this.propertyReaders) {
+			if (value == null) {
+				return NOT_RESOLVABLE;
+			}
+			value = propertyReader.read(value);
+			if (value == NOT_RESOLVABLE) {
+				return NOT_RESOLVABLE;
+			}
+		}
+		return value;
+	}
+
+
+	/**
+	 * Create an {@code ArgumentKeyGenerator} for the given key expression,
+	 * if it consists of a method argument reference followed by any number
+	 * of property references only.
+	 * @param expression the key expression
+	 * @param method the method to resolve argument references against
+	 * @param parameterNames the parameter names of the method, if discoverable
+	 * @return the key generator, or {@code null} if the expression is not supported
+	 */
+	@Nullable
+	static ArgumentKeyGenerator forExpression(
+			String expression, Method method, @Nullable String[] parameterNames) {
+
+		if (method.isVarArgs()) {
+			return null;
+		}
+		String trimmed = expression.trim();
+		if (!trimmed.startsWith("#")) {
+			return null;
+		}
+		String[] segments = StringUtils.delimitedListToStringArray(trimmed.substring(1), ".");
+		for (String segment : segments) {
+			if (!isIdentifier(segment)) {
+				return null;
+			}
+		}
+		Integer parameterIndex = getParameterVariables(method, parameterNames).get(segments[0]);
+		if (parameterIndex == null) {
+			return null;
+		}
+		PropertyReader[] propertyReaders = new PropertyReader[segments.length - 1];
+		for (int i = 1; i < segments.length; i++) {
+			propertyReaders[i - 1] = new PropertyReader(segments[i]);
+		}
+		return new ArgumentKeyGenerator(parameterIndex, propertyReaders);
+	}
+
+	/**
+	 * Map the variables exposed by {@link CacheEvaluationContext} to the index
+	 * of the corresponding method parameter, with later declarations winning
+	 * like in the evaluation context itself.
+	 */
+	private static Map<String, Integer> getParameterVariables(Method method, @Nullable String[] parameterNames) {
+		int paramCount = (parameterNames != null ? parameterNames.length : method.getParameterCount());
+		Map<String, Integer> variables = new HashMap<>(paramCount * 4);
+		for (int i = 0; i < paramCount; i++) {
+			variables.put("a" + i, i);
+			variables.put("p" + i, i);
+			if (parameterNames != null) {
+				variables.put(parameterNames[i], i);
+			}
+		}
+		// Set on the context before any argument variable
+		variables.remove(CacheOperationExpressionEvaluator.RESULT_VARIABLE);
+		return variables;
+	}
+
+	private static boolean isIdentifier(String segment) {
+		if (segment.isEmpty() || !Character.isJavaIdentifierStart(segment.charAt(0))) {
+			return false;
+		}
+		for (int i = 1; i < segment.length(); i++) {
+			if (!Character.isJavaIdentifierPart(segment.charAt(i))) {
+				return false;
+			}
+		}
+		return !"root".equals(segment) && !"this".equals(segment);
+	}
+
+
+	/**
+	 * Reads a property through its public getter, caching the getter
+	 * for the most recently seen target type.
+	 */
+	private static class PropertyReader {
+
+		private final String propertyName;
+
+		@Nullable
+		private volatile ResolvedGetter resolvedGetter;
+
+		PropertyReader(String propertyName) {
+			this.propertyName = propertyName;
+		}
+
+		Object read(Object target) {
+			ResolvedGetter getter = this.resolvedGetter;
+			if (getter == null || getter.targetType != target.getClass()) {
+				getter = new ResolvedGetter(target.getClass(), findGetter(target.getClass()));
+				this.resolvedGetter = getter;
+			}
+			if (getter.method == null) {
+				return NOT_RESOLVABLE;
+			}
+			try {
+				return getter.method.invoke(target, NO_ARGS);
+			}
+			catch (InvocationTargetException | IllegalAccessException ex) {
+				// Let expression evaluation report the failure
+				return NOT_RESOLVABLE;
+			}
+		}
+
+		@Nullable
+		private Method findGetter(Class<?> targetType) {
+			if (targetType.isArray() || targetType == Class.class) {
+				return null;
+			}
+			String suffix = StringUtils.capitalize(this.propertyName);
+			List<Method> candidates = new ArrayList<>(2);
+			candidates.add(ClassUtils.getMethodIfAvailable(targetType, "get" + suffix));
+			candidates.add(ClassUtils.getMethodIfAvailable(targetType, "is" + suffix));
+			for (Method candidate : candidates) {
+				if (candidate != null && !Modifier.isStatic(candidate.getModifiers()) &&
+						candidate.getReturnType() != void.class &&
+						(candidate.getName().startsWith("get") || isBooleanType(candidate.getReturnType()))) {
+					ReflectionUtils.makeAccessible(candidate);
+					return candidate;
+				}
+			}
+			return null;
+		}
+
+		private static boolean isBooleanType(Class<?> type) {
+			return (type == boolean.class || type == Boolean.class);
+		}
+	}
+
+
+	/**
+	 * The getter for a given target type, or {@code null} if none.
+	 */
+	private static class ResolvedGetter {
+
+		final Class<?> targetType;
+
+		@Nullable
+		final Method method;
+
+		ResolvedGetter(Class<?> targetType, @Nullable Method method) {
+			this.targetType = targetType;
+			this.method = method;
+		}
+	}
+
+}
@@ -20,14 +20,25 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.beans.factory.BeanFactory;
@@ -40,6 +51,8 @@ import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.expression.AnnotatedElementKey;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -63,6 +76,14 @@ import org.springframework.util.StringUtils;
  * used for determining caching operations, a {@link KeyGenerator} will build the
  * cache keys, and a {@link CacheResolver} will resolve the actual cache(s) to use.
  *
+ * <p>Methods returning a {@link CompletableFuture} or, if Reactor is present,
+ * a single-value or multi-value reactive type such as {@code Mono} or {@code Flux}
+ * get their result value cached once it is available, rather than the future
+ * or publisher itself; the values of a multi-value type get cached as a
+ * {@code List}. For such methods, {@code sync=true} is processed through
+ * {@link Cache#retrieve(Object, java.util.function.Supplier)} without blocking,
+ * sharing a single invocation between concurrent cache misses on the same key.
+ *
  * <p>Note: A cache aspect is serializable but does not perform any actual caching
  * after deserialization.
  *
@@ -77,6 +98,13 @@ import org.springframework.util.StringUtils;
 public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		implements BeanFactoryAware, InitializingBean, SmartInitializingSingleton {
 
+	private static final boolean reactorPresent = ClassUtils.isPresent(
+			"reactor.core.publisher.Flux", CacheAspectSupport.class.getClassLoader());
+
+	/** Marker for a return type not handled by the {@link ReactiveCachingHandler} */
+	private static final Object NOT_HANDLED = new Object();
+
+
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private final Map<CacheOperationCacheKey, CacheOperationMetadata> metadataCache = new ConcurrentHashMap<>(1024);
@@ -94,9 +122,16 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	@Nullable
 	private BeanFactory beanFactory;
 
+	@Nullable
+	private final ReactiveCachingHandler reactiveCachingHandler;
+
 	private boolean initialized = false;
 
 
+	protected CacheAspectSupport() {
+		this.reactiveCachingHandler = (reactorPresent ? new ReactiveCachingHandler() : null);
+	}
+
 	/**
 	 * Set one or more cache operation sources which are used to find the cache
 	 * attributes. If more than one source is provided, they will be aggregated
@@ -268,8 +303,10 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 				operationCacheResolver = getCacheResolver();
 				Assert.state(operationCacheResolver != null, "No CacheResolver/CacheManager set");
 			}
+			ArgumentKeyGenerator argumentKeyGenerator = (StringUtils.hasText(operation.getKey()) ?
+					this.evaluator.createArgumentKeyGenerator(operation.getKey(), method, targetClass) : null);
 			metadata = new CacheOperationMetadata(operation, method, targetClass,
-					operationKeyGenerator, operationCacheResolver);
+					operationKeyGenerator, operationCacheResolver, argumentKeyGenerator);
 			this.metadataCache.put(cacheKey, metadata);
 		}
 		return metadata;
@@ -346,6 +383,16 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			if (isConditionPassing(context, CacheOperationExpressionEvaluator.NO_RESULT)) {
 				Object key = generateKey(context, CacheOperationExpressionEvaluator.NO_RESULT);
 				Cache cache = context.getCaches().iterator().next();
+				if (isFutureType(method.getReturnType())) {
+					return retrieve(cache, key, () ->
+							((CompletionStage<?>) invokeOperation(invoker)).toCompletableFuture());
+				}
+				if (this.reactiveCachingHandler != null) {
+					Object returnValue = this.reactiveCachingHandler.executeSynchronized(invoker, method, cache, key);
+					if (returnValue != NOT_HANDLED) {
+						return returnValue;
+					}
+				}
 				try {
 					return wrapCacheValue(method, cache.get(key, () -> unwrapReturnValue(invokeOperation(invoker))));
 				}
@@ -361,6 +408,10 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			}
 		}
 
+		// Special handling of batched invocation
+		if (contexts.isBatch()) {
+			return executeBatch(invoker, contexts.get(CacheableOperation.class).iterator().next());
+		}
 
 		// Process any early evictions
 		processCacheEvicts(contexts.get(CacheEvictOperation.class), true,
@@ -387,10 +438,34 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		else {
 			// Invoke the method if we don't have a cache hit
 			returnValue = invokeOperation(invoker);
+
+			// Asynchronous result: process puts and late evictions once the value is available
+			if (isFutureType(method.getReturnType()) && returnValue instanceof CompletionStage) {
+				return ((CompletionStage<?>) returnValue).thenApply(value -> {
+					performCacheUpdates(contexts, cachePutRequests, value);
+					return value;
+				});
+			}
+			if (this.reactiveCachingHandler != null) {
+				Object adaptedValue = this.reactiveCachingHandler.processCacheUpdates(method, returnValue,
+						value -> performCacheUpdates(contexts, cachePutRequests, value));
+				if (adaptedValue != NOT_HANDLED) {
+					return adaptedValue;
+				}
+			}
 			cacheValue = unwrapReturnValue(returnValue);
 		}
 
-		// Collect any explicit @CachePuts
+		performCacheUpdates(contexts, cachePutRequests, cacheValue);
+		return returnValue;
+	}
+
+	private void performCacheUpdates(CacheOperationContexts contexts,
+			List<CachePutRequest> missPutRequests, @Nullable Object cacheValue) {
+
+		// Collect any explicit @CachePuts, in a fresh list per update since an
+		// asynchronous result may be subscribed to more than once
+		List<CachePutRequest> cachePutRequests = new LinkedList<>(missPutRequests);
 		collectPutRequests(contexts.get(CachePutOperation.class), cacheValue, cachePutRequests);
 
 		// Process any collected put requests, either from @CachePut or a @Cacheable miss
@@ -400,8 +475,6 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		// Process any late evictions
 		processCacheEvicts(contexts.get(CacheEvictOperation.class), false, cacheValue);
-
-		return returnValue;
 	}
 
 	@Nullable
@@ -410,9 +483,61 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 				(cacheValue == null || cacheValue.getClass() != Optional.class)) {
 			return Optional.ofNullable(cacheValue);
 		}
+		if (isFutureType(method.getReturnType())) {
+			return CompletableFuture.completedFuture(cacheValue);
+		}
+		if (this.reactiveCachingHandler != null) {
+			Object returnValue = this.reactiveCachingHandler.wrapCacheValue(method, cacheValue);
+			if (returnValue != NOT_HANDLED) {
+				return returnValue;
+			}
+		}
 		return cacheValue;
 	}
 
+	private boolean isFutureType(Class<?> returnType) {
+		return (returnType == CompletableFuture.class || returnType == CompletionStage.class);
+	}
+
+	/**
+	 * Retrieve the value for the given key from the given cache, loading it
+	 * through the given value loader if necessary.
+	 * <p>Every caller gets a future of its own, so that cancelling or completing
+	 * it does not affect other callers sharing the same load. Caches that do not
+	 * support {@code CompletableFuture}-based retrieval are accessed through a
+	 * blocking {@link Cache#get(Object, java.util.concurrent.Callable)} instead.
+	 */
+	private <T> CompletableFuture<T> retrieve(Cache cache, Object key, Supplier<CompletableFuture<T>> valueLoader) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		CompletableFuture<T> sharedResult;
+		try {
+			sharedResult = cache.retrieve(key, valueLoader);
+		}
+		catch (UnsupportedOperationException ex) {
+			try {
+				result.complete(cache.get(key, () -> valueLoader.get().join()));
+			}
+			catch (Cache.ValueRetrievalException ex2) {
+				Throwable cause = ex2.getCause();
+				if (cause instanceof CacheOperationInvoker.ThrowableWrapper) {
+					throw (CacheOperationInvoker.ThrowableWrapper) cause;
+				}
+				result.completeExceptionally(cause instanceof CompletionException && cause.getCause() != null ?
+						cause.getCause() : cause);
+			}
+			return result;
+		}
+		sharedResult.whenComplete((value, ex) -> {
+			if (ex != null) {
+				result.completeExceptionally(ex);
+			}
+			else {
+				result.complete(value);
+			}
+		});
+		return result;
+	}
+
 	@Nullable
 	private Object unwrapReturnValue(Object returnValue) {
 		return ObjectUtils.unwrapOptional(returnValue);
@@ -531,6 +656,74 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		return null;
 	}
 
+	/**
+	 * Execute a {@link CacheableOperation#isBatch() batch} operation: look up
+	 * the elements of the collection argument in bulk and invoke the method
+	 * with the missing elements only, merging its result with the cache hits.
+	 */
+	@SuppressWarnings("unchecked")
+	private Object executeBatch(CacheOperationInvoker invoker, CacheOperationContext context) {
+		Collection<Object> elements = (Collection<Object>) context.getArgs()[0];
+		if (CollectionUtils.isEmpty(elements) ||
+				!isConditionPassing(context, CacheOperationExpressionEvaluator.NO_RESULT)) {
+			// No caching required, only call the underlying method
+			return invokeOperation(invoker);
+		}
+
+		Map<Object, Object> cachedValues = new HashMap<>();
+		Set<Object> missingElements = new LinkedHashSet<>(elements);
+		for (Cache cache : context.getCaches()) {
+			Map<Object, Cache.ValueWrapper> hits = doGetAll(cache, missingElements);
+			hits.forEach((key, wrapper) -> cachedValues.put(key, wrapper.get()));
+			missingElements.removeAll(hits.keySet());
+			if (logger.isTraceEnabled() && !hits.isEmpty()) {
+				logger.trace(hits.size() + " cache entries found in cache '" + cache.getName() + "'");
+			}
+			if (missingElements.isEmpty()) {
+				break;
+			}
+		}
+
+		Map<?, ?> loadedValues = Collections.emptyMap();
+		if (!missingElements.isEmpty()) {
+			Collection<Object> missingArg = (elements instanceof Set ?
+					new LinkedHashSet<>(missingElements) : new ArrayList<>(missingElements));
+			Object returnValue;
+			try {
+				returnValue = invoker.invoke(new Object[] {missingArg});
+			}
+			catch (UnsupportedOperationException ex) {
+				// Arguments cannot be replaced: invoke with the original collection
+				returnValue = invokeOperation(invoker);
+			}
+			if (returnValue != null) {
+				loadedValues = (Map<?, ?>) returnValue;
+			}
+			Map<Object, Object> valuesToCache = new LinkedHashMap<>(loadedValues.size());
+			loadedValues.forEach((key, value) -> {
+				if (missingElements.contains(key) && context.canPutToCache(value)) {
+					valuesToCache.put(key, value);
+				}
+			});
+			if (!valuesToCache.isEmpty()) {
+				for (Cache cache : context.getCaches()) {
+					doPutAll(cache, valuesToCache);
+				}
+			}
+		}
+
+		Map<Object, Object> result = new LinkedHashMap<>(elements.size());
+		for (Object element : elements) {
+			if (cachedValues.containsKey(element)) {
+				result.put(element, cachedValues.get(element));
+			}
+			else if (loadedValues.containsKey(element)) {
+				result.put(element, loadedValues.get(element));
+			}
+		}
+		return result;
+	}
+
 	private boolean isConditionPassing(CacheOperationContext context, @Nullable Object result) {
 		boolean passing = context.isConditionPassing(result);
 		if (!passing && logger.isTraceEnabled()) {
@@ -560,6 +753,8 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		private final boolean sync;
 
+		private final boolean batch;
+
 		public CacheOperationContexts(Collection<? extends CacheOperation> operations, Method method,
 				Object[] args, Object target, Class<?> targetClass) {
 
@@ -567,6 +762,7 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 				this.contexts.add(operation.getClass(), getOperationContext(operation, method, args, target, targetClass));
 			}
 			this.sync = determineSyncFlag(method);
+			this.batch = determineBatchFlag(method);
 		}
 
 		public Collection<CacheOperationContext> get(Class<? extends CacheOperation> operationClass) {
@@ -578,6 +774,10 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			return this.sync;
 		}
 
+		public boolean isBatch() {
+			return this.batch;
+		}
+
 		private boolean determineSyncFlag(Method method) {
 			List<CacheOperationContext> cacheOperationContexts = this.contexts.get(CacheableOperation.class);
 			if (cacheOperationContexts == null) {  // no @Cacheable operation at all
@@ -609,6 +809,45 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			}
 			return false;
 		}
+
+		private boolean determineBatchFlag(Method method) {
+			List<CacheOperationContext> cacheOperationContexts = this.contexts.get(CacheableOperation.class);
+			if (cacheOperationContexts == null) {  // no @Cacheable operation at all
+				return false;
+			}
+			boolean batchEnabled = false;
+			for (CacheOperationContext cacheOperationContext : cacheOperationContexts) {
+				if (((CacheableOperation) cacheOperationContext.getOperation()).isBatch()) {
+					batchEnabled = true;
+					break;
+				}
+			}
+			if (batchEnabled) {
+				if (this.contexts.size() > 1) {
+					throw new IllegalStateException("@Cacheable(batch=true) cannot be combined with other cache operations on '" + method + "'");
+				}
+				if (cacheOperationContexts.size() > 1) {
+					throw new IllegalStateException("Only one @Cacheable(batch=true) entry is allowed on '" + method + "'");
+				}
+				CacheableOperation operation = (CacheableOperation) cacheOperationContexts.iterator().next().getOperation();
+				if (this.sync) {
+					throw new IllegalStateException("@Cacheable(batch=true) cannot be combined with sync=true on '" + operation + "'");
+				}
+				if (StringUtils.hasText(operation.getKey()) || StringUtils.hasText(operation.getKeyGenerator())) {
+					throw new IllegalStateException("@Cacheable(batch=true) does not support key or keyGenerator attribute on '" + operation + "'");
+				}
+				Class<?>[] parameterTypes = method.getParameterTypes();
+				if (parameterTypes.length != 1 || !Collection.class.isAssignableFrom(parameterTypes[0]) ||
+						!(parameterTypes[0].isAssignableFrom(ArrayList.class) || parameterTypes[0].isAssignableFrom(LinkedHashSet.class))) {
+					throw new IllegalStateException("@Cacheable(batch=true) requires a single Collection, List or Set parameter on '" + method + "'");
+				}
+				if (!method.getReturnType().isAssignableFrom(LinkedHashMap.class)) {
+					throw new IllegalStateException("@Cacheable(batch=true) requires a Map return type on '" + method + "'");
+				}
+				return true;
+			}
+			return false;
+		}
 	}
 
 
@@ -628,14 +867,25 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		private final CacheResolver cacheResolver;
 
+		@Nullable
+		private final ArgumentKeyGenerator argumentKeyGenerator;
+
 		public CacheOperationMetadata(CacheOperation operation, Method method, Class<?> targetClass,
 				KeyGenerator keyGenerator, CacheResolver cacheResolver) {
 
+			this(operation, method, targetClass, keyGenerator, cacheResolver, null);
+		}
+
+		CacheOperationMetadata(CacheOperation operation, Method method, Class<?> targetClass,
+				KeyGenerator keyGenerator, CacheResolver cacheResolver,
+				@Nullable ArgumentKeyGenerator argumentKeyGenerator) {
+
 			this.operation = operation;
 			this.method = method;
 			this.targetClass = targetClass;
 			this.keyGenerator = keyGenerator;
 			this.cacheResolver = cacheResolver;
+			this.argumentKeyGenerator = argumentKeyGenerator;
 		}
 	}
 
@@ -724,6 +974,13 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		@Nullable
 		protected Object generateKey(@Nullable Object result) {
 			if (StringUtils.hasText(this.metadata.operation.getKey())) {
+				if (this.metadata.argumentKeyGenerator != null) {
+					// Fast path for plain argument references such as "#id"
+					Object key = this.metadata.argumentKeyGenerator.generate(this.target, this.metadata.method, this.args);
+					if (key != ArgumentKeyGenerator.NOT_RESOLVABLE) {
+						return key;
+					}
+				}
 				EvaluationContext evaluationContext = createEvaluationContext(result);
 				return evaluator.key(this.metadata.operation.getKey(), this.methodCacheKey, evaluationContext);
 			}
@@ -774,6 +1031,74 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	}
 
 
+	/**
+	 * Inner class to avoid a hard dependency on Reactor at runtime.
+	 */
+	private class ReactiveCachingHandler {
+
+		private final ReactiveAdapterRegistry registry = ReactiveAdapterRegistry.getSharedInstance();
+
+		@Nullable
+		private ReactiveAdapter getAdapter(Method method) {
+			ReactiveAdapter adapter = this.registry.getAdapter(method.getReturnType());
+			return (adapter != null && !adapter.isNoValue() ? adapter : null);
+		}
+
+		@Nullable
+		public Object executeSynchronized(CacheOperationInvoker invoker, Method method, Cache cache, Object key) {
+			ReactiveAdapter adapter = getAdapter(method);
+			if (adapter == null) {
+				return NOT_HANDLED;
+			}
+			if (adapter.isMultiValue()) {
+				return adapter.fromPublisher(Mono.defer(() -> retrieve(cache, key, () ->
+						Flux.from(adapter.toPublisher(invokeOperation(invoker))).collectList().toFuture()))
+						.flatMapMany(Flux::fromIterable));
+			}
+			return adapter.fromPublisher(Mono.defer(() -> retrieve(cache, key, () ->
+					Mono.from(adapter.toPublisher(invokeOperation(invoker))).toFuture())));
+		}
+
+		private <T> Mono<T> retrieve(Cache cache, Object key, Supplier<CompletableFuture<T>> valueLoader) {
+			try {
+				return Mono.fromFuture(CacheAspectSupport.this.retrieve(cache, key, valueLoader));
+			}
+			catch (CacheOperationInvoker.ThrowableWrapper ex) {
+				return Mono.error(ex.getOriginal());
+			}
+		}
+
+		@Nullable
+		public Object processCacheUpdates(Method method, @Nullable Object returnValue, Consumer<Object> updater) {
+			ReactiveAdapter adapter = getAdapter(method);
+			if (adapter == null || returnValue == null) {
+				return NOT_HANDLED;
+			}
+			if (adapter.isMultiValue()) {
+				Flux<?> source = Flux.from(adapter.toPublisher(returnValue));
+				return adapter.fromPublisher(Flux.defer(() -> {
+					List<Object> values = new ArrayList<>();
+					return source.doOnNext(values::add).doOnComplete(() -> updater.accept(values));
+				}));
+			}
+			return adapter.fromPublisher(Mono.from(adapter.toPublisher(returnValue)).doOnSuccess(updater));
+		}
+
+		@Nullable
+		public Object wrapCacheValue(Method method, @Nullable Object cacheValue) {
+			ReactiveAdapter adapter = getAdapter(method);
+			if (adapter == null) {
+				return NOT_HANDLED;
+			}
+			if (adapter.isMultiValue()) {
+				return adapter.fromPublisher(cacheValue instanceof Iterable ?
+						Flux.fromIterable((Iterable<?>) cacheValue) : Mono.justOrEmpty(cacheValue));
+			}
+			return adapter.fromPublisher(Mono.justOrEmpty(cacheValue));
+		}
+	}
+
+
 	private static final class CacheOperationCacheKey implements Comparable<CacheOperationCacheKey> {
 
 		private final CacheOperation cacheOperation;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.cache.interceptor;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.Map;
@@ -27,8 +28,13 @@ import org.springframework.cache.Cache;
 import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.context.expression.BeanFactoryResolver;
 import org.springframework.context.expression.CachedExpressionEvaluator;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.SpringProperties;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.lang.Nullable;
 
 /**
@@ -36,7 +42,10 @@ import org.springframework.lang.Nullable;
  * Meant to be used as a reusable, thread-safe component.
  *
  * <p>Performs internal caching for performance reasons
- * using {@link AnnotatedElementKey}.
+ * using {@link AnnotatedElementKey}. Expressions get compiled once
+ * they have been evaluated often enough ({@link SpelCompilerMode#MIXED}),
+ * unless a compiler mode has been configured explicitly through the
+ * {@code "spring.expression.compiler.mode"} property.
  *
  * @author Costin Leau
  * @author Phillip Webb
@@ -61,6 +70,8 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 	 */
 	public static final String RESULT_VARIABLE = "result";
 
+	private static final String COMPILER_MODE_PROPERTY_NAME = "spring.expression.compiler.mode";
+
 
 	private final Map<ExpressionKey, Expression> keyCache = new ConcurrentHashMap<>(64);
 
@@ -68,8 +79,20 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 
 	private final Map<ExpressionKey, Expression> unlessCache = new ConcurrentHashMap<>(64);
 
-	private final Map<AnnotatedElementKey, Method> targetMethodCache = new ConcurrentHashMap<>(64);
+	private final Map<AnnotatedElementKey, EvaluationTemplate> templateCache = new ConcurrentHashMap<>(64);
+
 
+	public CacheOperationExpressionEvaluator() {
+		super(createParser());
+	}
+
+	private static SpelExpressionParser createParser() {
+		if (SpringProperties.getProperty(COMPILER_MODE_PROPERTY_NAME) != null) {
+			// Explicit compiler mode applies by default
+			return new SpelExpressionParser();
+		}
+		return new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.MIXED, null));
+	}
 
 	/**
 	 * Create an {@link EvaluationContext} without a return value.
@@ -98,9 +121,9 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 
 		CacheExpressionRootObject rootObject = new CacheExpressionRootObject(
 				caches, method, args, target, targetClass);
-		Method targetMethod = getTargetMethod(targetClass, method);
+		EvaluationTemplate template = getEvaluationTemplate(targetClass, method);
 		CacheEvaluationContext evaluationContext = new CacheEvaluationContext(
-				rootObject, targetMethod, args, getParameterNameDiscoverer());
+				rootObject, template.targetMethod, args, template);
 		if (result == RESULT_UNAVAILABLE) {
 			evaluationContext.addUnavailableVariable(RESULT_VARIABLE);
 		}
@@ -128,6 +151,22 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 				evalContext, Boolean.class)));
 	}
 
+	/**
+	 * Create a {@link KeyGenerator} which extracts the key for the given
+	 * key expression directly from the method arguments, if possible.
+	 * @param keyExpression the key expression
+	 * @param method the method
+	 * @param targetClass the target class
+	 * @return the key generator, or {@code null} if the expression needs to be evaluated
+	 * @since 5.1
+	 * @see ArgumentKeyGenerator#NOT_RESOLVABLE
+	 */
+	@Nullable
+	ArgumentKeyGenerator createArgumentKeyGenerator(String keyExpression, Method method, Class<?> targetClass) {
+		EvaluationTemplate template = getEvaluationTemplate(targetClass, method);
+		return ArgumentKeyGenerator.forExpression(keyExpression, template.targetMethod, template.parameterNames);
+	}
+
 	/**
 	 * Clear all caches.
 	 */
@@ -135,17 +174,49 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 		this.keyCache.clear();
 		this.conditionCache.clear();
 		this.unlessCache.clear();
-		this.targetMethodCache.clear();
+		this.templateCache.clear();
 	}
 
-	private Method getTargetMethod(Class<?> targetClass, Method method) {
+	private EvaluationTemplate getEvaluationTemplate(Class<?> targetClass, Method method) {
 		AnnotatedElementKey methodKey = new AnnotatedElementKey(method, targetClass);
-		Method targetMethod = this.targetMethodCache.get(methodKey);
-		if (targetMethod == null) {
-			targetMethod = AopUtils.getMostSpecificMethod(method, targetClass);
-			this.targetMethodCache.put(methodKey, targetMethod);
+		EvaluationTemplate template = this.templateCache.get(methodKey);
+		if (template == null) {
+			Method targetMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+			template = new EvaluationTemplate(targetMethod, getParameterNameDiscoverer());
+			this.templateCache.put(methodKey, template);
+		}
+		return template;
+	}
+
+
+	/**
+	 * The per-method state shared by all evaluation contexts for that method:
+	 * the target method and its parameter names, discovered once upfront
+	 * rather than for every evaluation context.
+	 */
+	private static class EvaluationTemplate implements ParameterNameDiscoverer {
+
+		final Method targetMethod;
+
+		@Nullable
+		final String[] parameterNames;
+
+		EvaluationTemplate(Method targetMethod, ParameterNameDiscoverer parameterNameDiscoverer) {
+			this.targetMethod = targetMethod;
+			this.parameterNames = parameterNameDiscoverer.getParameterNames(targetMethod);
+		}
+
+		@Override
+		@Nullable
+		public String[] getParameterNames(Method method) {
+			return (method.equals(this.targetMethod) ? this.parameterNames : null);
+		}
+
+		@Override
+		@Nullable
+		public String[] getParameterNames(Constructor<?> ctor) {
+			return null;
 		}
-		return targetMethod;
 	}
 
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,6 +38,25 @@ public interface CacheOperationInvoker {
 	 */
 	Object invoke() throws ThrowableWrapper;
 
+	/**
+	 * Invoke the cache operation defined by this instance with the given
+	 * arguments instead of the original ones, e.g. for passing a subset of
+	 * a collection argument in a {@link CacheableOperation#isBatch() batch}
+	 * operation. Wraps any exception that is thrown during the invocation
+	 * in a {@link ThrowableWrapper}.
+	 * <p>The default implementation throws an {@link UnsupportedOperationException}.
+	 * @param args the arguments to invoke the operation with
+	 * @return the result of the operation
+	 * @throws ThrowableWrapper if an error occurred while invoking the operation
+	 * @throws UnsupportedOperationException if this invoker cannot replace
+	 * the original arguments
+	 * @since 5.1
+	 */
+	default Object invoke(Object[] args) throws ThrowableWrapper {
+		throw new UnsupportedOperationException(
+				getClass().getName() + " does not support invocation with different arguments");
+	}
+
 
 	/**
 	 * Wrap any exception thrown while invoking {@link #invoke()}.
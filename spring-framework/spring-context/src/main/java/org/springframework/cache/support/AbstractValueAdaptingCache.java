@@ -16,6 +16,14 @@
 
 package org.springframework.cache.support;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
 import org.springframework.cache.Cache;
 import org.springframework.lang.Nullable;
 
@@ -28,6 +36,14 @@ import org.springframework.lang.Nullable;
  * {@link NullValue#INSTANCE}, if configured to support {@code null} values
  * (as indicated by {@link #isAllowNullValues()}.
  *
+ * <p>Also provides {@code CompletableFuture}-based retrieval on top of
+ * {@link #lookup} and {@link #put} for in-memory stores that can be accessed
+ * without blocking, as indicated by {@link #isNonBlockingStore()}: concurrent
+ * loads for the same key share a single future, and the loaded value gets
+ * stored once it is available. Other stores do not support such retrieval.
+ * Bulk retrieval goes through {@link #lookupAll}, which subclasses may
+ * override with a native multi-get operation.
+ *
  * @author Juergen Hoeller
  * @since 4.2.2
  */
@@ -35,6 +51,9 @@ public abstract class AbstractValueAdaptingCache implements Cache {
 
 	private final boolean allowNullValues;
 
+	/** Futures for values currently being loaded, keyed by cache key */
+	private final ConcurrentMap<Object, CompletableFuture<?>> loadsInProgress = new ConcurrentHashMap<>(16);
+
 
 	/**
 	 * Create an {@code AbstractValueAdaptingCache} with the given setting.
@@ -71,6 +90,103 @@ public abstract class AbstractValueAdaptingCache implements Cache {
 		return (T) value;
 	}
 
+	@Override
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<?, ?> storeValues = lookupAll(keys);
+		Map<Object, ValueWrapper> result = new LinkedHashMap<>(storeValues.size());
+		storeValues.forEach((key, storeValue) -> {
+			if (storeValue != null) {
+				result.put(key, toValueWrapper(storeValue));
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * This implementation performs a {@link #lookup} for a
+	 * {@link #isNonBlockingStore() non-blocking store}, throwing an
+	 * {@link UnsupportedOperationException} otherwise.
+	 */
+	@Override
+	public CompletableFuture<ValueWrapper> retrieve(Object key) {
+		if (!isNonBlockingStore()) {
+			return Cache.super.retrieve(key);
+		}
+		return CompletableFuture.completedFuture(toValueWrapper(lookup(key)));
+	}
+
+	/**
+	 * This implementation performs a {@link #lookup}, followed by a {@link #put}
+	 * once the loaded value is available, for a {@link #isNonBlockingStore()
+	 * non-blocking store}, throwing an {@link UnsupportedOperationException} otherwise.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+		if (!isNonBlockingStore()) {
+			return Cache.super.retrieve(key, valueLoader);
+		}
+		Object storeValue = lookup(key);
+		if (storeValue != null) {
+			return CompletableFuture.completedFuture((T) fromStoreValue(storeValue));
+		}
+
+		CompletableFuture<T> result = new CompletableFuture<>();
+		CompletableFuture<?> existing = this.loadsInProgress.putIfAbsent(key, result);
+		if (existing != null) {
+			// Loading in progress: share its result
+			return (CompletableFuture<T>) existing;
+		}
+		// Check again, in case of another load having completed in the meantime
+		storeValue = lookup(key);
+		if (storeValue != null) {
+			this.loadsInProgress.remove(key, result);
+			result.complete((T) fromStoreValue(storeValue));
+			return result;
+		}
+
+		CompletableFuture<T> loadingFuture;
+		try {
+			loadingFuture = valueLoader.get();
+		}
+		catch (RuntimeException | Error ex) {
+			this.loadsInProgress.remove(key, result);
+			result.completeExceptionally(ex);
+			throw ex;
+		}
+		loadingFuture.whenComplete((value, ex) -> {
+			Throwable failure = ex;
+			if (failure == null && (value != null || this.allowNullValues)) {
+				try {
+					put(key, value);
+				}
+				catch (Throwable putEx) {
+					failure = putEx;
+				}
+			}
+			this.loadsInProgress.remove(key, result);
+			if (failure != null) {
+				result.completeExceptionally(failure);
+			}
+			else {
+				result.complete(value);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Return whether the underlying store can be accessed without blocking,
+	 * e.g. since it is held in memory, which is a prerequisite for the
+	 * {@code CompletableFuture}-based {@link #retrieve} operations.
+	 * <p>The default implementation returns {@code false}, since a store
+	 * may be remote, in which case a lookup would block the caller.
+	 * @since 5.1
+	 */
+	protected boolean isNonBlockingStore() {
+		return false;
+	}
+
 	/**
 	 * Perform an actual lookup in the underlying store.
 	 * @param key the key whose associated value is to be returned
@@ -79,6 +195,26 @@ public abstract class AbstractValueAdaptingCache implements Cache {
 	@Nullable
 	protected abstract Object lookup(Object key);
 
+	/**
+	 * Perform an actual lookup of several keys in the underlying store.
+	 * <p>The default implementation calls {@link #lookup} for each key.
+	 * Subclasses may override this with a bulk operation of the native cache.
+	 * @param keys the keys whose associated values are to be returned
+	 * @return the raw store values for the keys found (keys without
+	 * a mapping may be missing or mapped to {@code null})
+	 * @since 5.1
+	 */
+	protected Map<?, ?> lookupAll(Collection<?> keys) {
+		Map<Object, Object> storeValues = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			Object storeValue = lookup(key);
+			if (storeValue != null) {
+				storeValues.put(key, storeValue);
+			}
+		}
+		return storeValues;
+	}
+
 
 	/**
 	 * Convert the given value from the internal store to a user value
@@ -111,6 +247,20 @@ public abstract class AbstractValueAdaptingCache implements Cache {
 		return userValue;
 	}
 
+	/**
+	 * Convert the given user values, as passed into the {@code putAll} method,
+	 * to values in the internal store (adapting {@code null}).
+	 * @param userValues the given key-value pairs
+	 * @return the key-value pairs to store
+	 * @since 5.1
+	 * @see #toStoreValue
+	 */
+	protected Map<Object, Object> toStoreValues(Map<?, ?> userValues) {
+		Map<Object, Object> storeValues = new LinkedHashMap<>(userValues.size());
+		userValues.forEach((key, value) -> storeValues.put(key, toStoreValue(value)));
+		return storeValues;
+	}
+
 	/**
 	 * Wrap the given store value with a {@link SimpleValueWrapper}, also going
 	 * through {@link #fromStoreValue} conversion. Useful for {@link #get(Object)}
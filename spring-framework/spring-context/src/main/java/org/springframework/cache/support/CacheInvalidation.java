@@ -0,0 +1,113 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.io.Serializable;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * An invalidation message for a local cache level, sent through a
+ * {@link CacheInvalidationChannel} when an entry has been modified or
+ * evicted on another node.
+ *
+ * @since 5.1
+ * @see TieredCacheManager
+ */
+@SuppressWarnings("serial")
+public final class CacheInvalidation implements Serializable {
+
+	private final String origin;
+
+	private final String cacheName;
+
+	@Nullable
+	private final Object key;
+
+
+	/**
+	 * Create a new {@code CacheInvalidation}.
+	 * @param origin the identifier of the node which sent the message
+	 * @param cacheName the name of the affected cache
+	 * @param key the affected key, or {@code null} if the entire cache has been cleared
+	 */
+	public CacheInvalidation(String origin, String cacheName, @Nullable Object key) {
+		Assert.notNull(origin, "Origin must not be null");
+		Assert.notNull(cacheName, "Cache name must not be null");
+		this.origin = origin;
+		this.cacheName = cacheName;
+		this.key = key;
+	}
+
+
+	/**
+	 * Return the identifier of the node which sent the message.
+	 */
+	public String getOrigin() {
+		return this.origin;
+	}
+
+	/**
+	 * Return the name of the affected cache.
+	 */
+	public String getCacheName() {
+		return this.cacheName;
+	}
+
+	/**
+	 * Return the affected key, or {@code null} if the entire cache has been cleared.
+	 */
+	@Nullable
+	public Object getKey() {
+		return this.key;
+	}
+
+	/**
+	 * Return whether the entire cache has been cleared.
+	 */
+	public boolean isClear() {
+		return (this.key == null);
+	}
+
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof CacheInvalidation)) {
+			return false;
+		}
+		CacheInvalidation otherInvalidation = (CacheInvalidation) other;
+		return (this.origin.equals(otherInvalidation.origin) && this.cacheName.equals(otherInvalidation.cacheName) &&
+				ObjectUtils.nullSafeEquals(this.key, otherInvalidation.key));
+	}
+
+	@Override
+	public int hashCode() {
+		return this.cacheName.hashCode() * 29 + ObjectUtils.nullSafeHashCode(this.key);
+	}
+
+	@Override
+	public String toString() {
+		return "CacheInvalidation from '" + this.origin + "' for cache '" + this.cacheName + "'" +
+				(this.key != null ? " and key '" + this.key + "'" : " (clear)");
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.function.Consumer;
+
+/**
+ * Strategy for broadcasting {@link CacheInvalidation} messages between the
+ * nodes sharing a remote cache level, e.g. on top of a messaging system or
+ * the publish/subscribe facility of the remote cache itself.
+ *
+ * <p>Implementations are expected to deliver each published message to the
+ * subscribers on all nodes, potentially including the publishing node; the
+ * {@link CacheInvalidation#getOrigin() origin} allows subscribers to skip
+ * their own messages.
+ *
+ * @since 5.1
+ * @see TieredCacheManager#setInvalidationChannel
+ * @see LocalCacheInvalidationChannel
+ */
+public interface CacheInvalidationChannel {
+
+	/**
+	 * Publish the given invalidation message to all subscribers.
+	 * @param invalidation the message to publish
+	 */
+	void publish(CacheInvalidation invalidation);
+
+	/**
+	 * Register a subscriber for invalidation messages.
+	 * @param subscriber the callback for each message received
+	 */
+	void subscribe(Consumer<CacheInvalidation> subscriber);
+
+	/**
+	 * Remove a subscriber previously registered via {@link #subscribe}.
+	 * @param subscriber the callback to remove
+	 */
+	void unsubscribe(Consumer<CacheInvalidation> subscriber);
+
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link Cache} implementation composing a local cache (L1) in front of
+ * a remote cache (L2) which is shared between several nodes.
+ *
+ * <p>Lookups read L1 first, then L2, promoting L2 hits into L1. Writes and
+ * evictions go through to both levels, with L2 being written first, and get
+ * announced to the other nodes through a {@link CacheInvalidationChannel}
+ * (if any) so that they drop the affected entries from their own L1.
+ *
+ * <p>Note that L1 entries may still be stale for a short period of time
+ * until an invalidation has been received; the local cache is therefore
+ * typically configured with a short time-to-live. A value read from L2 is
+ * not kept in L1 if an invalidation is applied while it is being promoted,
+ * since it may have been read before the modification on the other node.
+ *
+ * @since 5.1
+ * @see TieredCacheManager
+ */
+public class TieredCache implements Cache {
+
+	private final Cache localCache;
+
+	private final Cache remoteCache;
+
+	@Nullable
+	private final CacheInvalidationChannel invalidationChannel;
+
+	private final Supplier<String> nodeId;
+
+	private final AtomicLong invalidationStamp = new AtomicLong();
+
+
+	/**
+	 * Create a new {@code TieredCache} without invalidation messaging.
+	 * @param localCache the local cache (L1)
+	 * @param remoteCache the remote cache (L2)
+	 */
+	public TieredCache(Cache localCache, Cache remoteCache) {
+		this(localCache, remoteCache, null, "");
+	}
+
+	/**
+	 * Create a new {@code TieredCache}.
+	 * @param localCache the local cache (L1)
+	 * @param remoteCache the remote cache (L2)
+	 * @param invalidationChannel the channel to announce modifications through, if any
+	 * @param nodeId the identifier of this node, used as origin of the messages
+	 */
+	public TieredCache(Cache localCache, Cache remoteCache,
+			@Nullable CacheInvalidationChannel invalidationChannel, String nodeId) {
+
+		this(localCache, remoteCache, invalidationChannel, () -> nodeId);
+		Assert.notNull(nodeId, "Node id must not be null");
+	}
+
+	/**
+	 * Create a new {@code TieredCache}.
+	 * @param localCache the local cache (L1)
+	 * @param remoteCache the remote cache (L2)
+	 * @param invalidationChannel the channel to announce modifications through, if any
+	 * @param nodeId the supplier of the identifier of this node, used as origin
+	 * of the messages and called for every message, e.g. {@code cacheManager::getNodeId}
+	 */
+	public TieredCache(Cache localCache, Cache remoteCache,
+			@Nullable CacheInvalidationChannel invalidationChannel, Supplier<String> nodeId) {
+
+		Assert.notNull(localCache, "Local cache must not be null");
+		Assert.notNull(remoteCache, "Remote cache must not be null");
+		Assert.notNull(nodeId, "Node id must not be null");
+		this.localCache = localCache;
+		this.remoteCache = remoteCache;
+		this.invalidationChannel = invalidationChannel;
+		this.nodeId = nodeId;
+	}
+
+
+	/**
+	 * Return the local cache (L1).
+	 */
+	public final Cache getLocalCache() {
+		return this.localCache;
+	}
+
+	/**
+	 * Return the remote cache (L2).
+	 */
+	public final Cache getRemoteCache() {
+		return this.remoteCache;
+	}
+
+	@Override
+	public String getName() {
+		return this.remoteCache.getName();
+	}
+
+	/**
+	 * This implementation returns the native cache of the remote cache (L2).
+	 */
+	@Override
+	public Object getNativeCache() {
+		return this.remoteCache.getNativeCache();
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper get(Object key) {
+		ValueWrapper wrapper = this.localCache.get(key);
+		if (wrapper == null) {
+			long stamp = this.invalidationStamp.get();
+			wrapper = this.remoteCache.get(key);
+			if (wrapper != null) {
+				putLocal(key, wrapper.get(), stamp);
+			}
+		}
+		return wrapper;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, @Nullable Class<T> type) {
+		ValueWrapper wrapper = get(key);
+		Object value = (wrapper != null ? wrapper.get() : null);
+		if (value != null && type != null && !type.isInstance(value)) {
+			throw new IllegalStateException(
+					"Cached value is not of required type [" + type.getName() + "]: " + value);
+		}
+		return (T) value;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper wrapper = this.localCache.get(key);
+		if (wrapper != null) {
+			return (T) wrapper.get();
+		}
+		long stamp = this.invalidationStamp.get();
+		AtomicBoolean loaded = new AtomicBoolean();
+		T value = this.remoteCache.get(key, () -> {
+			loaded.set(true);
+			return valueLoader.call();
+		});
+		putLocal(key, value, stamp);
+		if (loaded.get()) {
+			publishInvalidation(key);
+		}
+		return value;
+	}
+
+	/**
+	 * This implementation reads the local cache (L1) directly, and otherwise
+	 * delegates to the remote cache (L2), promoting the value into L1.
+	 */
+	@Override
+	public CompletableFuture<ValueWrapper> retrieve(Object key) {
+		ValueWrapper wrapper = this.localCache.get(key);
+		if (wrapper != null) {
+			return CompletableFuture.completedFuture(wrapper);
+		}
+		long stamp = this.invalidationStamp.get();
+		return this.remoteCache.retrieve(key).thenApply(remoteWrapper -> {
+			if (remoteWrapper != null) {
+				putLocal(key, remoteWrapper.get(), stamp);
+			}
+			return remoteWrapper;
+		});
+	}
+
+	/**
+	 * This implementation reads the local cache (L1) directly, and otherwise
+	 * delegates to the remote cache (L2), promoting the value into L1 and
+	 * announcing it if it had to be loaded.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+		ValueWrapper wrapper = this.localCache.get(key);
+		if (wrapper != null) {
+			return CompletableFuture.completedFuture((T) wrapper.get());
+		}
+		long stamp = this.invalidationStamp.get();
+		AtomicBoolean loaded = new AtomicBoolean();
+		return this.remoteCache.retrieve(key, () -> {
+			loaded.set(true);
+			return valueLoader.get();
+		}).thenApply(value -> {
+			putLocal(key, value, stamp);
+			if (loaded.get()) {
+				publishInvalidation(key);
+			}
+			return value;
+		});
+	}
+
+	@Override
+	public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+		Map<Object, ValueWrapper> localHits = this.localCache.getAll(keys);
+		if (localHits.size() == keys.size()) {
+			return localHits;
+		}
+		List<Object> missingKeys = new ArrayList<>(keys.size() - localHits.size());
+		for (Object key : keys) {
+			if (!localHits.containsKey(key)) {
+				missingKeys.add(key);
+			}
+		}
+		long stamp = this.invalidationStamp.get();
+		Map<Object, ValueWrapper> remoteHits = this.remoteCache.getAll(missingKeys);
+		if (!remoteHits.isEmpty()) {
+			Map<Object, Object> promotedValues = new LinkedHashMap<>(remoteHits.size());
+			remoteHits.forEach((key, wrapper) -> promotedValues.put(key, wrapper.get()));
+			putAllLocal(promotedValues, stamp);
+		}
+		Map<Object, ValueWrapper> result = new LinkedHashMap<>(localHits.size() + remoteHits.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = localHits.get(key);
+			if (wrapper == null) {
+				wrapper = remoteHits.get(key);
+			}
+			if (wrapper != null) {
+				result.put(key, wrapper);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		long stamp = this.invalidationStamp.get();
+		this.remoteCache.put(key, value);
+		putLocal(key, value, stamp);
+		publishInvalidation(key);
+	}
+
+	@Override
+	public void putAll(Map<?, ?> values) {
+		long stamp = this.invalidationStamp.get();
+		this.remoteCache.putAll(values);
+		putAllLocal(values, stamp);
+		values.keySet().forEach(this::publishInvalidation);
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		long stamp = this.invalidationStamp.get();
+		ValueWrapper existing = this.remoteCache.putIfAbsent(key, value);
+		if (existing != null) {
+			putLocal(key, existing.get(), stamp);
+		}
+		else {
+			putLocal(key, value, stamp);
+			publishInvalidation(key);
+		}
+		return existing;
+	}
+
+	@Override
+	public void evict(Object key) {
+		this.remoteCache.evict(key);
+		this.localCache.evict(key);
+		publishInvalidation(key);
+	}
+
+	@Override
+	public void clear() {
+		this.remoteCache.clear();
+		this.localCache.clear();
+		publishInvalidation(null);
+	}
+
+	/**
+	 * Evict the given key from the local cache (L1) only, in response to
+	 * a modification on another node.
+	 * @param key the key to evict
+	 */
+	public void evictLocal(Object key) {
+		this.invalidationStamp.incrementAndGet();
+		this.localCache.evict(key);
+	}
+
+	/**
+	 * Clear the local cache (L1) only, in response to a modification
+	 * on another node.
+	 */
+	public void clearLocal() {
+		this.invalidationStamp.incrementAndGet();
+		this.localCache.clear();
+	}
+
+	/**
+	 * Put the given value into the local cache (L1), unless an invalidation
+	 * has been applied since the given stamp was taken: the value may have
+	 * been read from L2 before the modification that the invalidation is
+	 * about. The stamp is checked again after the put since an invalidation
+	 * may be applied concurrently.
+	 */
+	private void putLocal(Object key, @Nullable Object value, long stamp) {
+		if (this.invalidationStamp.get() == stamp) {
+			this.localCache.put(key, value);
+			if (this.invalidationStamp.get() != stamp) {
+				this.localCache.evict(key);
+			}
+		}
+	}
+
+	private void putAllLocal(Map<?, ?> values, long stamp) {
+		if (this.invalidationStamp.get() == stamp) {
+			this.localCache.putAll(values);
+			if (this.invalidationStamp.get() != stamp) {
+				values.keySet().forEach(this.localCache::evict);
+			}
+		}
+	}
+
+	private void publishInvalidation(@Nullable Object key) {
+		if (this.invalidationChannel != null) {
+			this.invalidationChannel.publish(new CacheInvalidation(this.nodeId.get(), getName(), key));
+		}
+	}
+
+}
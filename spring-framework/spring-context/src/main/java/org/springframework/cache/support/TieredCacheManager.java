@@ -0,0 +1,182 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CacheManager} implementation composing a local (L1) and a remote (L2)
+ * {@link CacheManager} per cache lookup, as opposed to {@link CompositeCacheManager}
+ * which picks a single delegate per cache name.
+ *
+ * <p>Each cache known to both delegates is exposed as a {@link TieredCache}:
+ * reading L1 first, then L2, promoting L2 hits into L1, and writing through both
+ * levels. A cache known to one of the delegates only is exposed as-is.
+ *
+ * <p>With an {@link #setInvalidationChannel invalidation channel}, modifications
+ * get announced to the other nodes, which then drop the affected entries from
+ * their local caches. Every node needs a distinct {@link #setNodeId node id}
+ * (a random one by default) in order to skip its own messages.
+ *
+ * @since 5.1
+ * @see TieredCache
+ * @see CacheInvalidationChannel
+ */
+public class TieredCacheManager implements CacheManager, InitializingBean, DisposableBean {
+
+	private static final Log logger = LogFactory.getLog(TieredCacheManager.class);
+
+	private final CacheManager localCacheManager;
+
+	private final CacheManager remoteCacheManager;
+
+	@Nullable
+	private CacheInvalidationChannel invalidationChannel;
+
+	private volatile String nodeId = UUID.randomUUID().toString();
+
+	private final ConcurrentMap<String, Cache> cacheMap = new ConcurrentHashMap<>(16);
+
+	private final Consumer<CacheInvalidation> invalidationSubscriber = this::onInvalidation;
+
+
+	/**
+	 * Create a new TieredCacheManager for the given delegates.
+	 * @param localCacheManager the CacheManager for the local caches (L1)
+	 * @param remoteCacheManager the CacheManager for the remote caches (L2)
+	 */
+	public TieredCacheManager(CacheManager localCacheManager, CacheManager remoteCacheManager) {
+		Assert.notNull(localCacheManager, "Local CacheManager must not be null");
+		Assert.notNull(remoteCacheManager, "Remote CacheManager must not be null");
+		this.localCacheManager = localCacheManager;
+		this.remoteCacheManager = remoteCacheManager;
+	}
+
+
+	/**
+	 * Specify the channel to exchange invalidation messages with other nodes.
+	 * <p>Default is none, not invalidating any other node's local caches.
+	 */
+	public void setInvalidationChannel(@Nullable CacheInvalidationChannel invalidationChannel) {
+		this.invalidationChannel = invalidationChannel;
+	}
+
+	/**
+	 * Specify the identifier of this node, which needs to be unique among
+	 * all nodes sharing an invalidation channel.
+	 * <p>Default is a random UUID.
+	 */
+	public void setNodeId(String nodeId) {
+		Assert.hasText(nodeId, "Node id must not be empty");
+		this.nodeId = nodeId;
+	}
+
+	/**
+	 * Return the identifier of this node.
+	 */
+	public String getNodeId() {
+		return this.nodeId;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (this.invalidationChannel != null) {
+			this.invalidationChannel.subscribe(this.invalidationSubscriber);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (this.invalidationChannel != null) {
+			this.invalidationChannel.unsubscribe(this.invalidationSubscriber);
+		}
+	}
+
+
+	@Override
+	@Nullable
+	public Cache getCache(String name) {
+		Cache cache = this.cacheMap.get(name);
+		if (cache == null) {
+			Cache localCache = this.localCacheManager.getCache(name);
+			Cache remoteCache = this.remoteCacheManager.getCache(name);
+			if (localCache != null && remoteCache != null) {
+				cache = new TieredCache(localCache, remoteCache, this.invalidationChannel, this::getNodeId);
+			}
+			else {
+				cache = (localCache != null ? localCache : remoteCache);
+			}
+			if (cache == null) {
+				return null;
+			}
+			Cache existing = this.cacheMap.putIfAbsent(name, cache);
+			if (existing != null) {
+				cache = existing;
+			}
+		}
+		return cache;
+	}
+
+	@Override
+	public Collection<String> getCacheNames() {
+		Set<String> names = new LinkedHashSet<>(this.localCacheManager.getCacheNames());
+		names.addAll(this.remoteCacheManager.getCacheNames());
+		return Collections.unmodifiableSet(names);
+	}
+
+	/**
+	 * Apply an invalidation message received from another node to the
+	 * corresponding local cache, if this node has set up a tiered cache
+	 * of that name already.
+	 * @param invalidation the message received
+	 */
+	protected void onInvalidation(CacheInvalidation invalidation) {
+		if (this.nodeId.equals(invalidation.getOrigin())) {
+			return;
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Applying " + invalidation);
+		}
+		Cache cache = this.cacheMap.get(invalidation.getCacheName());
+		if (cache instanceof TieredCache) {
+			if (invalidation.isClear()) {
+				((TieredCache) cache).clearLocal();
+			}
+			else {
+				((TieredCache) cache).evictLocal(invalidation.getKey());
+			}
+		}
+	}
+
+}
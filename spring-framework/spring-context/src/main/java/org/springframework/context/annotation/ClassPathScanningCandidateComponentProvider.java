@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,6 +27,7 @@ import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.index.CandidateComponentsIndex;
 import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.context.index.IndexedTypeMetadata;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
@@ -59,7 +60,8 @@ import java.util.*;
  * include filters. {@link AnnotationTypeFilter}, {@link AssignableTypeFilter} include
  * filters on an annotation/superclass that are annotated with {@link Indexed} are
  * supported: if any other include filter is specified, the index is ignored and
- * classpath scanning is used instead.
+ * classpath scanning is used instead. If the index also holds the metadata of the
+ * candidate types, class files are only read once that metadata is not sufficient.
  *
  * <p>This implementation is based on Spring's
  * {@link org.springframework.core.type.classreading.MetadataReader MetadataReader}
@@ -390,7 +392,7 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 			boolean debugEnabled = logger.isDebugEnabled();
 			//将筛选出来的候选类名，转化为BeanDefinition
 			for (String type : types) {
-				MetadataReader metadataReader = getMetadataReaderFactory().getMetadataReader(type);
+				MetadataReader metadataReader = getMetadataReaderFromIndex(index, type);
 				if (isCandidateComponent(metadataReader)) {
 					AnnotatedGenericBeanDefinition sbd = new AnnotatedGenericBeanDefinition(
 							metadataReader.getAnnotationMetadata());
@@ -419,6 +421,22 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return candidates;
 	}
 
+	/**
+	 * Obtain a {@link MetadataReader} for the given candidate type, backed by
+	 * the type metadata of the index if available so that the class file is
+	 * only read if the index cannot answer a query.
+	 */
+	private MetadataReader getMetadataReaderFromIndex(CandidateComponentsIndex index, String type)
+			throws IOException {
+
+		IndexedTypeMetadata typeMetadata = index.getTypeMetadata(type);
+		if (typeMetadata != null) {
+			return new IndexedMetadataReader(
+					typeMetadata, getMetadataReaderFactory(), getResourceLoader().getClassLoader());
+		}
+		return getMetadataReaderFactory().getMetadataReader(type);
+	}
+
 	private Set<BeanDefinition> scanCandidateComponents(String basePackage) {
 		Set<BeanDefinition> candidates = new LinkedHashSet<>();
 		try {
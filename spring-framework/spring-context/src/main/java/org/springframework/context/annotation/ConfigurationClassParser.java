@@ -115,6 +115,14 @@ class ConfigurationClassParser {
 
 	private final ImportStack importStack = new ImportStack();
 
+	private final Map<String, SourceClass> sourceClassCache = new HashMap<>();
+
+	private final Map<SourceClass, Set<SourceClass>> annotationImportsCache = new HashMap<>();
+
+	private final Map<String, Boolean> skippedClasses = new HashMap<>();
+
+	private int skippedClassesBeanDefinitionCount = -1;
+
 	@Nullable
 	private List<DeferredImportSelectorHolder> deferredImportSelectors;
 
@@ -199,7 +207,7 @@ class ConfigurationClassParser {
 
 	protected void processConfigurationClass(ConfigurationClass configClass) throws IOException {
 		//根据@Conditional，在配置阶段，判断是否该启动该配置类ConfigurationClass；
-		if (this.conditionEvaluator.shouldSkip(configClass.getMetadata(), ConfigurationPhase.PARSE_CONFIGURATION)) {
+		if (shouldSkip(configClass)) {
 			return;
 		}
 
@@ -237,6 +245,28 @@ class ConfigurationClassParser {
 		this.configurationClasses.put(configClass, configClass);
 	}
 
+	/**
+	 * Determine whether the given configuration class should be skipped based on
+	 * its {@code @Conditional} annotations in the parse phase. The outcome is
+	 * memoized per class since the same class is typically imported from several
+	 * places, as long as no bean definitions get registered in the meantime:
+	 * component scanning does so mid-parse, and conditions may depend on them.
+	 */
+	private boolean shouldSkip(ConfigurationClass configClass) {
+		int beanDefinitionCount = this.registry.getBeanDefinitionCount();
+		if (beanDefinitionCount != this.skippedClassesBeanDefinitionCount) {
+			this.skippedClasses.clear();
+			this.skippedClassesBeanDefinitionCount = beanDefinitionCount;
+		}
+		String className = configClass.getMetadata().getClassName();
+		Boolean skip = this.skippedClasses.get(className);
+		if (skip == null) {
+			skip = this.conditionEvaluator.shouldSkip(configClass.getMetadata(), ConfigurationPhase.PARSE_CONFIGURATION);
+			this.skippedClasses.put(className, skip);
+		}
+		return skip;
+	}
+
 	/**
 	 * Apply processing and build a complete {@link ConfigurationClass} by reading the
 	 * 	 * annotations, members and methods from the source class. This method can be called
@@ -559,8 +589,29 @@ class ConfigurationClassParser {
 	 */
 	private Set<SourceClass> getImports(SourceClass sourceClass) throws IOException {
 		Set<SourceClass> imports = new LinkedHashSet<>();
-		Set<SourceClass> visited = new LinkedHashSet<>();
-		collectImports(sourceClass, imports, visited);
+		for (SourceClass annotation : sourceClass.getAnnotations()) {
+			String annName = annotation.getMetadata().getClassName();
+			if (!annName.startsWith("java") && !annName.equals(Import.class.getName())) {
+				imports.addAll(getAnnotationImports(annotation));
+			}
+		}
+		imports.addAll(sourceClass.getAnnotationAttributes(Import.class.getName(), "value"));
+		return imports;
+	}
+
+	/**
+	 * Return the {@code @Import} values declared on the given annotation type,
+	 * considering all of its meta-annotations. The result is cached since the
+	 * same annotations, e.g. {@code @Enable} annotations, are typically declared
+	 * on many configuration classes.
+	 */
+	private Set<SourceClass> getAnnotationImports(SourceClass annotation) throws IOException {
+		Set<SourceClass> imports = this.annotationImportsCache.get(annotation);
+		if (imports == null) {
+			imports = new LinkedHashSet<>();
+			collectImports(annotation, imports, new HashSet<>());
+			this.annotationImportsCache.put(annotation, imports);
+		}
 		return imports;
 	}
 
@@ -753,6 +804,10 @@ class ConfigurationClassParser {
 			//和AnnotationMetadata 的功能有些相近。
 			return asSourceClass(((StandardAnnotationMetadata) metadata).getIntrospectedClass());
 		}
+		if (metadata instanceof IndexedMetadataReader.IndexedAnnotationMetadata) {
+			// Component scanned from the index: keep answering from the type metadata
+			return new SourceClass(((IndexedMetadataReader.IndexedAnnotationMetadata) metadata).getMetadataReader());
+		}
 		return asSourceClass(metadata.getClassName());
 	}
 
@@ -795,16 +850,23 @@ class ConfigurationClassParser {
 		if (className == null) {
 			return new SourceClass(Object.class);
 		}
-		if (className.startsWith("java")) {
-			// Never use ASM for core java types
-			try {
-				return new SourceClass(ClassUtils.forName(className, this.resourceLoader.getClassLoader()));
+		SourceClass sourceClass = this.sourceClassCache.get(className);
+		if (sourceClass == null) {
+			if (className.startsWith("java")) {
+				// Never use ASM for core java types
+				try {
+					sourceClass = new SourceClass(ClassUtils.forName(className, this.resourceLoader.getClassLoader()));
+				}
+				catch (ClassNotFoundException ex) {
+					throw new NestedIOException("Failed to load class [" + className + "]", ex);
+				}
 			}
-			catch (ClassNotFoundException ex) {
-				throw new NestedIOException("Failed to load class [" + className + "]", ex);
+			else {
+				sourceClass = new SourceClass(this.metadataReaderFactory.getMetadataReader(className));
 			}
+			this.sourceClassCache.put(className, sourceClass);
 		}
-		return new SourceClass(this.metadataReaderFactory.getMetadataReader(className));
+		return sourceClass;
 	}
 
 
@@ -41,6 +41,8 @@ import org.springframework.core.env.Environment;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
@@ -305,6 +307,8 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 				this.metadataReaderFactory, this.problemReporter, this.environment,
 				this.resourceLoader, this.componentScanBeanNameGenerator, registry);
 
+		ApplicationStartup applicationStartup = (registry instanceof ConfigurableBeanFactory ?
+				((ConfigurableBeanFactory) registry).getApplicationStartup() : ApplicationStartup.DEFAULT);
 		Set<BeanDefinitionHolder> candidates = new LinkedHashSet<>(configCandidates);
 		Set<ConfigurationClass> alreadyParsed = new HashSet<>(configCandidates.size());
 		do {
@@ -329,11 +333,18 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 			//	c、将每一个class按照@Import来处理
 
 			/*注意：这里还未对@Bean注解修饰的方法还未进行BeanDefinition注册*/
-			parser.parse(candidates);
-			//验证配置类：
-			//1、配置类不能是final类
-			//2、验证@Bean修饰的方法必须可以被重写
-			parser.validate();
+			StartupStep parseConfigClasses = applicationStartup.start("spring.context.config-classes.parse")
+					.tag("classCount", String.valueOf(candidates.size()));
+			try {
+				parser.parse(candidates);
+				//验证配置类：
+				//1、配置类不能是final类
+				//2、验证@Bean修饰的方法必须可以被重写
+				parser.validate();
+			}
+			finally {
+				parseConfigClasses.end();
+			}
 
 			//删除已处理的配置类
 			Set<ConfigurationClass> configClasses = new LinkedHashSet<>(parser.getConfigurationClasses());
@@ -350,7 +361,14 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 			//2、将当前配置类@Bean标记的方法，利用其元数据构建ConfigurationClassBeanDefinition注册
 			//3、将@ImportResource引入的内容（xml和groovy）进行处理注册
 			//4、对@Import引入的ImportBeanDefinitionRegistrar进行处理注册（动态注册）
-			this.reader.loadBeanDefinitions(configClasses);
+			StartupStep loadBeanDefinitions = applicationStartup.start("spring.context.config-classes.load")
+					.tag("classCount", String.valueOf(configClasses.size()));
+			try {
+				this.reader.loadBeanDefinitions(configClasses);
+			}
+			finally {
+				loadBeanDefinitions.end();
+			}
 			alreadyParsed.addAll(configClasses);
 
 			candidates.clear();
@@ -416,28 +434,37 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 			return;
 		}
 
-		ConfigurationClassEnhancer enhancer = new ConfigurationClassEnhancer();
-		for (Map.Entry<String, AbstractBeanDefinition> entry : configBeanDefs.entrySet()) {
-			AbstractBeanDefinition beanDef = entry.getValue();
-			// If a @Configuration class gets proxied, always proxy the target class
-			beanDef.setAttribute(AutoProxyUtils.PRESERVE_TARGET_CLASS_ATTRIBUTE, Boolean.TRUE);
-			try {
-				// Set enhanced subclass of the user-specified bean class
-				Class<?> configClass = beanDef.resolveBeanClass(this.beanClassLoader);
-				if (configClass != null) {
-					Class<?> enhancedClass = enhancer.enhance(configClass, this.beanClassLoader);
-					if (configClass != enhancedClass) {
-						if (logger.isDebugEnabled()) {
-							logger.debug(String.format("Replacing bean definition '%s' existing class '%s' with " +
-									"enhanced class '%s'", entry.getKey(), configClass.getName(), enhancedClass.getName()));
+		StartupStep enhanceConfigClasses = beanFactory.getApplicationStartup()
+				.start("spring.context.config-classes.enhance")
+				.tag("classCount", String.valueOf(configBeanDefs.size()));
+		try {
+			ConfigurationClassEnhancer enhancer = new ConfigurationClassEnhancer();
+			for (Map.Entry<String, AbstractBeanDefinition> entry : configBeanDefs.entrySet()) {
+				AbstractBeanDefinition beanDef = entry.getValue();
+				// If a @Configuration class gets proxied, always proxy the target class
+				beanDef.setAttribute(AutoProxyUtils.PRESERVE_TARGET_CLASS_ATTRIBUTE, Boolean.TRUE);
+				try {
+					// Set enhanced subclass of the user-specified bean class
+					Class<?> configClass = beanDef.resolveBeanClass(this.beanClassLoader);
+					if (configClass != null) {
+						Class<?> enhancedClass = enhancer.enhance(configClass, this.beanClassLoader);
+						if (configClass != enhancedClass) {
+							if (logger.isDebugEnabled()) {
+								logger.debug(String.format("Replacing bean definition '%s' existing class '%s' " +
+										"with enhanced class '%s'", entry.getKey(), configClass.getName(),
+										enhancedClass.getName()));
+							}
+							beanDef.setBeanClass(enhancedClass);
 						}
-						beanDef.setBeanClass(enhancedClass);
 					}
 				}
+				catch (Throwable ex) {
+					throw new IllegalStateException("Cannot load configuration class: " + beanDef.getBeanClassName(), ex);
+				}
 			}
-			catch (Throwable ex) {
-				throw new IllegalStateException("Cannot load configuration class: " + beanDef.getBeanClassName(), ex);
-			}
+		}
+		finally {
+			enhanceConfigClasses.end();
 		}
 	}
 
@@ -0,0 +1,572 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.context.index.IndexedTypeMetadata;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.ClassMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link MetadataReader} for a candidate component that answers class-level
+ * queries from the {@link IndexedTypeMetadata} recorded at compile time.
+ *
+ * <p>Annotation attributes are resolved from the indexed attribute values,
+ * through annotations synthesized from them and the meta-annotations declared
+ * on the loaded annotation types. {@code @Conditional} classes and {@code @Bean}
+ * methods, including their annotations, are served from the index as well.
+ * The class file is only read, via the given {@link MetadataReaderFactory},
+ * once information is requested that the index does not hold: attributes of
+ * annotations that declare class or nested annotation values, methods with
+ * annotations other than {@code @Bean} and the class file resource itself.
+ * Scanning a typical stereotype component or parsing a typical
+ * {@code @Configuration} class, including bean names, scopes and conditions,
+ * therefore does not read its class file at all.
+ *
+ * @since 5.1
+ * @see ClassPathScanningCandidateComponentProvider
+ */
+class IndexedMetadataReader implements MetadataReader {
+
+	private static final String CONDITIONAL_ANNOTATION = Conditional.class.getName();
+
+	private static final String BEAN_ANNOTATION = Bean.class.getName();
+
+
+	private final IndexedTypeMetadata typeMetadata;
+
+	private final MetadataReaderFactory metadataReaderFactory;
+
+	@Nullable
+	private final ClassLoader classLoader;
+
+	private final AnnotationMetadata annotationMetadata = new IndexedAnnotationMetadata();
+
+	@Nullable
+	private volatile MetadataReader delegate;
+
+	@Nullable
+	private volatile Set<MethodMetadata> beanMethods;
+
+
+	IndexedMetadataReader(IndexedTypeMetadata typeMetadata, MetadataReaderFactory metadataReaderFactory,
+			@Nullable ClassLoader classLoader) {
+
+		this.typeMetadata = typeMetadata;
+		this.metadataReaderFactory = metadataReaderFactory;
+		this.classLoader = classLoader;
+	}
+
+
+	@Override
+	public Resource getResource() {
+		return getDelegate().getResource();
+	}
+
+	@Override
+	public ClassMetadata getClassMetadata() {
+		return this.annotationMetadata;
+	}
+
+	@Override
+	public AnnotationMetadata getAnnotationMetadata() {
+		return this.annotationMetadata;
+	}
+
+	private MetadataReader getDelegate() {
+		MetadataReader delegate = this.delegate;
+		if (delegate == null) {
+			try {
+				delegate = this.metadataReaderFactory.getMetadataReader(this.typeMetadata.getClassName());
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException(
+						"Failed to read class [" + this.typeMetadata.getClassName() + "]", ex);
+			}
+			this.delegate = delegate;
+		}
+		return delegate;
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Object convertValue(Object value, Class<?> type) {
+		if (type.isArray()) {
+			String[] values = (value instanceof String[] ? (String[]) value : new String[] {(String) value});
+			Object array = Array.newInstance(type.getComponentType(), values.length);
+			for (int i = 0; i < values.length; i++) {
+				Array.set(array, i, convertValue(values[i], type.getComponentType()));
+			}
+			return array;
+		}
+		String stringValue = (String) value;
+		if (type == String.class) {
+			return stringValue;
+		}
+		if (type.isEnum()) {
+			return Enum.valueOf((Class<Enum>) type, stringValue);
+		}
+		if (type == boolean.class) {
+			return Boolean.valueOf(stringValue);
+		}
+		if (type == char.class) {
+			return stringValue.charAt(0);
+		}
+		if (type == byte.class) {
+			return Byte.valueOf(stringValue);
+		}
+		if (type == short.class) {
+			return Short.valueOf(stringValue);
+		}
+		if (type == int.class) {
+			return Integer.valueOf(stringValue);
+		}
+		if (type == long.class) {
+			return Long.valueOf(stringValue);
+		}
+		if (type == float.class) {
+			return Float.valueOf(stringValue);
+		}
+		if (type == double.class) {
+			return Double.valueOf(stringValue);
+		}
+		throw new IllegalArgumentException("Unsupported attribute type [" + type.getName() + "]");
+	}
+
+
+	/**
+	 * Base class for metadata backed by the index: annotation attributes are
+	 * resolved from annotations synthesized from the indexed values, reading
+	 * the class file lazily if the index does not hold all of them.
+	 */
+	private abstract class IndexedAnnotatedTypeMetadata implements AnnotatedTypeMetadata {
+
+		@Nullable
+		private volatile AnnotatedElement indexedAnnotations;
+
+		private volatile boolean indexedAnnotationsResolved;
+
+		/**
+		 * Return the names of the annotation types present on the element.
+		 */
+		protected abstract Set<String> getIndexedAnnotationTypes();
+
+		/**
+		 * Return the indexed attribute values of the given annotation type,
+		 * or {@code null} if they are not part of the index.
+		 */
+		@Nullable
+		protected abstract Map<String, Object> getIndexedAttributeValues(String annotationName);
+
+		/**
+		 * Return the names of the {@code Condition} classes that apply to the element.
+		 */
+		protected abstract Set<String> getConditionClassNames();
+
+		/**
+		 * Return the metadata read from the class file.
+		 */
+		protected abstract AnnotatedTypeMetadata getDelegateMetadata();
+
+		@Override
+		@Nullable
+		public Map<String, Object> getAnnotationAttributes(String annotationName) {
+			return getAnnotationAttributes(annotationName, false);
+		}
+
+		@Override
+		@Nullable
+		public Map<String, Object> getAnnotationAttributes(String annotationName, boolean classValuesAsString) {
+			if (!isAnnotated(annotationName)) {
+				return null;
+			}
+			AnnotatedElement indexedAnnotations = getIndexedAnnotations(annotationName);
+			if (indexedAnnotations != null) {
+				return AnnotatedElementUtils.getMergedAnnotationAttributes(
+						indexedAnnotations, annotationName, classValuesAsString, true);
+			}
+			return getDelegateMetadata().getAnnotationAttributes(annotationName, classValuesAsString);
+		}
+
+		@Override
+		@Nullable
+		public MultiValueMap<String, Object> getAllAnnotationAttributes(String annotationName) {
+			return getAllAnnotationAttributes(annotationName, false);
+		}
+
+		@Override
+		@Nullable
+		public MultiValueMap<String, Object> getAllAnnotationAttributes(
+				String annotationName, boolean classValuesAsString) {
+
+			if (!isAnnotated(annotationName)) {
+				return null;
+			}
+			if (classValuesAsString && CONDITIONAL_ANNOTATION.equals(annotationName)) {
+				MultiValueMap<String, Object> attributes = new LinkedMultiValueMap<>();
+				attributes.add("value", StringUtils.toStringArray(getConditionClassNames()));
+				return attributes;
+			}
+			AnnotatedElement indexedAnnotations = getIndexedAnnotations(annotationName);
+			if (indexedAnnotations != null) {
+				return AnnotatedElementUtils.getAllAnnotationAttributes(
+						indexedAnnotations, annotationName, classValuesAsString, true);
+			}
+			return getDelegateMetadata().getAllAnnotationAttributes(annotationName, classValuesAsString);
+		}
+
+		/**
+		 * Return an {@link AnnotatedElement} exposing the annotations on the element
+		 * as synthesized from the index for looking up the given annotation type, or
+		 * {@code null} if the index does not hold the attributes of all of them or an
+		 * annotation type cannot be loaded.
+		 */
+		@Nullable
+		private AnnotatedElement getIndexedAnnotations(String annotationName) {
+			if (CONDITIONAL_ANNOTATION.equals(annotationName) &&
+					getIndexedAnnotationTypes().contains(CONDITIONAL_ANNOTATION)) {
+				// A directly declared @Conditional is not synthesized from the index
+				return null;
+			}
+			if (!this.indexedAnnotationsResolved) {
+				this.indexedAnnotations = synthesizeIndexedAnnotations();
+				this.indexedAnnotationsResolved = true;
+			}
+			return this.indexedAnnotations;
+		}
+
+		@Nullable
+		@SuppressWarnings("unchecked")
+		private AnnotatedElement synthesizeIndexedAnnotations() {
+			Set<String> annotationTypes = getIndexedAnnotationTypes();
+			List<Annotation> annotations = new ArrayList<>(annotationTypes.size());
+			try {
+				for (String annotationName : annotationTypes) {
+					if (CONDITIONAL_ANNOTATION.equals(annotationName)) {
+						// Class values are not indexed - conditions come from the condition class names
+						continue;
+					}
+					Map<String, Object> values = getIndexedAttributeValues(annotationName);
+					if (values == null) {
+						return null;
+					}
+					Class<? extends Annotation> annotationType =
+							(Class<? extends Annotation>) ClassUtils.forName(annotationName, classLoader);
+					Map<String, Object> attributes = new LinkedHashMap<>();
+					for (Map.Entry<String, Object> entry : values.entrySet()) {
+						Class<?> attributeType = annotationType.getMethod(entry.getKey()).getReturnType();
+						attributes.put(entry.getKey(), convertValue(entry.getValue(), attributeType));
+					}
+					annotations.add(AnnotationUtils.synthesizeAnnotation(attributes, annotationType, null));
+				}
+			}
+			catch (Throwable ex) {
+				// Not resolvable from the index - fall back to reading the class file
+				return null;
+			}
+			return AnnotatedElementUtils.forAnnotations(annotations.toArray(new Annotation[0]));
+		}
+	}
+
+
+	/**
+	 * {@link AnnotationMetadata} backed by the index, reading the class
+	 * file lazily for the parts that the index does not cover.
+	 */
+	class IndexedAnnotationMetadata extends IndexedAnnotatedTypeMetadata implements AnnotationMetadata {
+
+		/**
+		 * Return the {@link MetadataReader} that this metadata belongs to.
+		 */
+		public MetadataReader getMetadataReader() {
+			return IndexedMetadataReader.this;
+		}
+
+		@Override
+		public String getClassName() {
+			return typeMetadata.getClassName();
+		}
+
+		@Override
+		public boolean isInterface() {
+			return typeMetadata.isInterface();
+		}
+
+		@Override
+		public boolean isAnnotation() {
+			return typeMetadata.isAnnotation();
+		}
+
+		@Override
+		public boolean isAbstract() {
+			return typeMetadata.isAbstract();
+		}
+
+		@Override
+		public boolean isConcrete() {
+			return !(typeMetadata.isInterface() || typeMetadata.isAbstract());
+		}
+
+		@Override
+		public boolean isFinal() {
+			return typeMetadata.isFinal();
+		}
+
+		@Override
+		public boolean isIndependent() {
+			return typeMetadata.isIndependent();
+		}
+
+		@Override
+		public boolean hasEnclosingClass() {
+			return (typeMetadata.getEnclosingClassName() != null);
+		}
+
+		@Override
+		@Nullable
+		public String getEnclosingClassName() {
+			return typeMetadata.getEnclosingClassName();
+		}
+
+		@Override
+		public boolean hasSuperClass() {
+			return (typeMetadata.getSuperClassName() != null);
+		}
+
+		@Override
+		@Nullable
+		public String getSuperClassName() {
+			return typeMetadata.getSuperClassName();
+		}
+
+		@Override
+		public String[] getInterfaceNames() {
+			return typeMetadata.getInterfaceNames().toArray(new String[0]);
+		}
+
+		@Override
+		public String[] getMemberClassNames() {
+			return typeMetadata.getMemberClassNames().toArray(new String[0]);
+		}
+
+		@Override
+		public Set<String> getAnnotationTypes() {
+			return typeMetadata.getAnnotationTypes();
+		}
+
+		@Override
+		public Set<String> getMetaAnnotationTypes(String annotationName) {
+			Set<String> metaAnnotationTypes = typeMetadata.getMetaAnnotationTypes(annotationName);
+			return (metaAnnotationTypes != null ? metaAnnotationTypes : Collections.emptySet());
+		}
+
+		@Override
+		public boolean hasAnnotation(String annotationName) {
+			return typeMetadata.getAnnotationTypes().contains(annotationName);
+		}
+
+		@Override
+		public boolean hasMetaAnnotation(String metaAnnotationName) {
+			for (String annotationType : typeMetadata.getAnnotationTypes()) {
+				Set<String> metaAnnotationTypes = typeMetadata.getMetaAnnotationTypes(annotationType);
+				if (metaAnnotationTypes != null && metaAnnotationTypes.contains(metaAnnotationName)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public boolean isAnnotated(String annotationName) {
+			return typeMetadata.isAnnotated(annotationName);
+		}
+
+		@Override
+		public boolean hasAnnotatedMethods(String annotationName) {
+			return typeMetadata.hasAnnotatedMethods(annotationName);
+		}
+
+		@Override
+		public Set<MethodMetadata> getAnnotatedMethods(String annotationName) {
+			if (!typeMetadata.hasAnnotatedMethods(annotationName)) {
+				return Collections.emptySet();
+			}
+			if (BEAN_ANNOTATION.equals(annotationName)) {
+				Set<MethodMetadata> beanMethods = IndexedMetadataReader.this.beanMethods;
+				if (beanMethods == null) {
+					beanMethods = new LinkedHashSet<>();
+					for (IndexedTypeMetadata.BeanMethod beanMethod : typeMetadata.getBeanMethods()) {
+						beanMethods.add(new IndexedMethodMetadata(beanMethod));
+					}
+					beanMethods = Collections.unmodifiableSet(beanMethods);
+					IndexedMetadataReader.this.beanMethods = beanMethods;
+				}
+				return beanMethods;
+			}
+			return getDelegate().getAnnotationMetadata().getAnnotatedMethods(annotationName);
+		}
+
+		@Override
+		protected Set<String> getIndexedAnnotationTypes() {
+			return typeMetadata.getAnnotationTypes();
+		}
+
+		@Override
+		@Nullable
+		protected Map<String, Object> getIndexedAttributeValues(String annotationName) {
+			return typeMetadata.getAnnotationAttributeValues(annotationName);
+		}
+
+		@Override
+		protected Set<String> getConditionClassNames() {
+			return typeMetadata.getConditionClassNames();
+		}
+
+		@Override
+		protected AnnotatedTypeMetadata getDelegateMetadata() {
+			return getDelegate().getAnnotationMetadata();
+		}
+
+		@Override
+		public String toString() {
+			return getClassName();
+		}
+	}
+
+
+	/**
+	 * {@link MethodMetadata} for a {@code @Bean} method backed by the index,
+	 * reading the class file lazily for the parts that the index does not cover.
+	 */
+	private class IndexedMethodMetadata extends IndexedAnnotatedTypeMetadata implements MethodMetadata {
+
+		private final IndexedTypeMetadata.BeanMethod beanMethod;
+
+		@Nullable
+		private volatile MethodMetadata delegate;
+
+		IndexedMethodMetadata(IndexedTypeMetadata.BeanMethod beanMethod) {
+			this.beanMethod = beanMethod;
+		}
+
+		@Override
+		public String getMethodName() {
+			return this.beanMethod.getMethodName();
+		}
+
+		@Override
+		public String getDeclaringClassName() {
+			return typeMetadata.getClassName();
+		}
+
+		@Override
+		public String getReturnTypeName() {
+			return this.beanMethod.getReturnTypeName();
+		}
+
+		@Override
+		public boolean isAbstract() {
+			return this.beanMethod.isAbstract();
+		}
+
+		@Override
+		public boolean isStatic() {
+			return this.beanMethod.isStatic();
+		}
+
+		@Override
+		public boolean isFinal() {
+			return this.beanMethod.isFinal();
+		}
+
+		@Override
+		public boolean isOverridable() {
+			return (!isStatic() && !isFinal() && !this.beanMethod.isPrivate());
+		}
+
+		@Override
+		public boolean isAnnotated(String annotationName) {
+			return this.beanMethod.isAnnotated(annotationName);
+		}
+
+		@Override
+		protected Set<String> getIndexedAnnotationTypes() {
+			return this.beanMethod.getAnnotationTypes();
+		}
+
+		@Override
+		@Nullable
+		protected Map<String, Object> getIndexedAttributeValues(String annotationName) {
+			return this.beanMethod.getAnnotationAttributeValues(annotationName);
+		}
+
+		@Override
+		protected Set<String> getConditionClassNames() {
+			return this.beanMethod.getConditionClassNames();
+		}
+
+		@Override
+		protected AnnotatedTypeMetadata getDelegateMetadata() {
+			MethodMetadata delegate = this.delegate;
+			if (delegate == null) {
+				Set<MethodMetadata> candidates =
+						getDelegate().getAnnotationMetadata().getAnnotatedMethods(BEAN_ANNOTATION);
+				for (MethodMetadata candidate : candidates) {
+					if (candidate.getMethodName().equals(getMethodName()) &&
+							candidate.getReturnTypeName().equals(getReturnTypeName())) {
+						delegate = candidate;
+						break;
+					}
+				}
+				if (delegate == null) {
+					throw new IllegalStateException("Indexed @Bean method [" + this.beanMethod +
+							"] not found in class [" + typeMetadata.getClassName() + "]");
+				}
+				this.delegate = delegate;
+			}
+			return delegate;
+		}
+
+		@Override
+		public String toString() {
+			return getDeclaringClassName() + "." + getMethodName();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,13 @@
 
 package org.springframework.context.event;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -34,7 +38,6 @@ import org.springframework.context.ApplicationListener;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.lang.Nullable;
-import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
 
@@ -52,6 +55,11 @@ import org.springframework.util.ObjectUtils;
  * all events to all registered listeners, invoking them in the calling thread.
  * Alternative implementations could be more sophisticated in those respects.
  *
+ * <p>The listeners matching a given event type and source type get cached in
+ * sorted array form, with the cache being updated in place when listener
+ * instances are added, so that retrieving listeners for a known event type
+ * neither locks nor allocates.
+ *
  * @author Juergen Hoeller
  * @author Stephane Nicoll
  * @since 1.2.3
@@ -63,7 +71,7 @@ public abstract class AbstractApplicationEventMulticaster
 
 	private final ListenerRetriever defaultRetriever = new ListenerRetriever(false);
 
-	final Map<ListenerCacheKey, ListenerRetriever> retrieverCache = new ConcurrentHashMap<>(64);
+	final Map<ResolvableType, Map<Class<?>, CachedListeners>> retrieverCache = new ConcurrentHashMap<>(64);
 
 	@Nullable
 	private ClassLoader beanClassLoader;
@@ -91,7 +99,12 @@ public abstract class AbstractApplicationEventMulticaster
 		}
 	}
 
-	private BeanFactory getBeanFactory() {
+	/**
+	 * Return the BeanFactory that this multicaster is associated with.
+	 * @throws IllegalStateException if there is none
+	 * @since 5.1
+	 */
+	protected BeanFactory getBeanFactory() {
 		if (this.beanFactory == null) {
 			throw new IllegalStateException("ApplicationEventMulticaster cannot retrieve listener beans " +
 					"because it is not associated with a BeanFactory");
@@ -108,9 +121,17 @@ public abstract class AbstractApplicationEventMulticaster
 			Object singletonTarget = AopProxyUtils.getSingletonTarget(listener);
 			if (singletonTarget instanceof ApplicationListener) {
 				this.defaultRetriever.applicationListeners.remove(singletonTarget);
+				evictCachedListeners(singletonTarget);
 			}
 			this.defaultRetriever.applicationListeners.add(listener);
-			this.retrieverCache.clear();
+			// Incrementally add the listener to the cached listeners it applies to
+			for (Map<Class<?>, CachedListeners> cachedBySourceType : this.retrieverCache.values()) {
+				for (CachedListeners cachedListeners : cachedBySourceType.values()) {
+					if (supportsEvent(listener, cachedListeners.eventType, cachedListeners.sourceType)) {
+						cachedListeners.add(listener);
+					}
+				}
+			}
 		}
 	}
 
@@ -126,7 +147,7 @@ public abstract class AbstractApplicationEventMulticaster
 	public void removeApplicationListener(ApplicationListener<?> listener) {
 		synchronized (this.retrievalMutex) {
 			this.defaultRetriever.applicationListeners.remove(listener);
-			this.retrieverCache.clear();
+			evictCachedListeners(listener);
 		}
 	}
 
@@ -147,6 +168,17 @@ public abstract class AbstractApplicationEventMulticaster
 		}
 	}
 
+	/**
+	 * Evict all cached listeners which contain the given listener, since it
+	 * might still be registered as a listener bean as well.
+	 */
+	private void evictCachedListeners(Object listener) {
+		for (Map<Class<?>, CachedListeners> cachedBySourceType : this.retrieverCache.values()) {
+			cachedBySourceType.values().removeIf(cachedListeners -> cachedListeners.contains(listener));
+		}
+		this.retrieverCache.values().removeIf(Map::isEmpty);
+	}
+
 
 	/**
 	 * Return a Collection containing all ApplicationListeners.
@@ -165,7 +197,8 @@ public abstract class AbstractApplicationEventMulticaster
 	 * @param event the event to be propagated. Allows for excluding
 	 * non-matching listeners early, based on cached matching information.
 	 * @param eventType the event type
-	 * @return a Collection of ApplicationListeners
+	 * @return a Collection of ApplicationListeners, not to be modified
+	 * since it may be shared between calls
 	 * @see org.springframework.context.ApplicationListener
 	 */
 	protected Collection<ApplicationListener<?>> getApplicationListeners(
@@ -173,28 +206,33 @@ public abstract class AbstractApplicationEventMulticaster
 
 		Object source = event.getSource();
 		Class<?> sourceType = (source != null ? source.getClass() : null);
-		ListenerCacheKey cacheKey = new ListenerCacheKey(eventType, sourceType);
 
 		// Quick check for existing entry on ConcurrentHashMap...
-		ListenerRetriever retriever = this.retrieverCache.get(cacheKey);
-		if (retriever != null) {
-			return retriever.getApplicationListeners();
+		Map<Class<?>, CachedListeners> cachedBySourceType = this.retrieverCache.get(eventType);
+		if (cachedBySourceType != null && sourceType != null) {
+			CachedListeners cachedListeners = cachedBySourceType.get(sourceType);
+			if (cachedListeners != null) {
+				return cachedListeners.getApplicationListeners();
+			}
 		}
 
-		if (this.beanClassLoader == null ||
+		if (sourceType != null && (this.beanClassLoader == null ||
 				(ClassUtils.isCacheSafe(event.getClass(), this.beanClassLoader) &&
-						(sourceType == null || ClassUtils.isCacheSafe(sourceType, this.beanClassLoader)))) {
-			// Fully synchronized building and caching of a ListenerRetriever
+						ClassUtils.isCacheSafe(sourceType, this.beanClassLoader)))) {
+			// Fully synchronized building and caching of the listeners
 			synchronized (this.retrievalMutex) {
-				retriever = this.retrieverCache.get(cacheKey);
-				if (retriever != null) {
-					return retriever.getApplicationListeners();
+				cachedBySourceType = this.retrieverCache.get(eventType);
+				CachedListeners cachedListeners = (cachedBySourceType != null ? cachedBySourceType.get(sourceType) : null);
+				if (cachedListeners != null) {
+					return cachedListeners.getApplicationListeners();
 				}
-				retriever = new ListenerRetriever(true);
+				cachedListeners = new CachedListeners(eventType, sourceType);
 				Collection<ApplicationListener<?>> listeners =
-						retrieveApplicationListeners(eventType, sourceType, retriever);
-				this.retrieverCache.put(cacheKey, retriever);
-				return listeners;
+						retrieveApplicationListeners(eventType, sourceType, cachedListeners);
+				// Listener retrieval may have cached other event types in the meantime
+				this.retrieverCache.computeIfAbsent(eventType, key -> new ConcurrentHashMap<>(4))
+						.put(sourceType, cachedListeners);
+				return (cachedListeners.listenerBeans.isEmpty() ? cachedListeners.getApplicationListeners() : listeners);
 			}
 		}
 		else {
@@ -207,11 +245,11 @@ public abstract class AbstractApplicationEventMulticaster
 	 * Actually retrieve the application listeners for the given event and source type.
 	 * @param eventType the event type
 	 * @param sourceType the event source type
-	 * @param retriever the ListenerRetriever, if supposed to populate one (for caching purposes)
+	 * @param cachedListeners the CachedListeners, if supposed to populate one (for caching purposes)
 	 * @return the pre-filtered list of application listeners for the given event and source type
 	 */
 	private Collection<ApplicationListener<?>> retrieveApplicationListeners(
-			ResolvableType eventType, @Nullable Class<?> sourceType, @Nullable ListenerRetriever retriever) {
+			ResolvableType eventType, @Nullable Class<?> sourceType, @Nullable CachedListeners cachedListeners) {
 
 		LinkedList<ApplicationListener<?>> allListeners = new LinkedList<>();
 		Set<ApplicationListener<?>> listeners;
@@ -222,12 +260,10 @@ public abstract class AbstractApplicationEventMulticaster
 		}
 		for (ApplicationListener<?> listener : listeners) {
 			if (supportsEvent(listener, eventType, sourceType)) {
-				if (retriever != null) {
-					retriever.applicationListeners.add(listener);
-				}
 				allListeners.add(listener);
 			}
 		}
+		List<ApplicationListener<?>> nonSingletonListeners = new ArrayList<>(0);
 		if (!listenerBeans.isEmpty()) {
 			BeanFactory beanFactory = getBeanFactory();
 			for (String listenerBeanName : listenerBeans) {
@@ -237,8 +273,10 @@ public abstract class AbstractApplicationEventMulticaster
 						ApplicationListener<?> listener =
 								beanFactory.getBean(listenerBeanName, ApplicationListener.class);
 						if (!allListeners.contains(listener) && supportsEvent(listener, eventType, sourceType)) {
-							if (retriever != null) {
-								retriever.applicationListenerBeans.add(listenerBeanName);
+							if (cachedListeners != null && !beanFactory.isSingleton(listenerBeanName)) {
+								// Needs to be retrieved from the BeanFactory for every event
+								cachedListeners.listenerBeans.add(listenerBeanName);
+								nonSingletonListeners.add(listener);
 							}
 							allListeners.add(listener);
 						}
@@ -251,6 +289,11 @@ public abstract class AbstractApplicationEventMulticaster
 			}
 		}
 		AnnotationAwareOrderComparator.sort(allListeners);
+		if (cachedListeners != null) {
+			List<ApplicationListener<?>> cacheableListeners = new ArrayList<>(allListeners);
+			cacheableListeners.removeAll(nonSingletonListeners);
+			cachedListeners.setListeners(cacheableListeners);
+		}
 		return allListeners;
 	}
 
@@ -296,54 +339,84 @@ public abstract class AbstractApplicationEventMulticaster
 
 
 	/**
-	 * Cache key for ListenerRetrievers, based on event type and source type.
+	 * Copy-on-write holder for the listeners matching a specific event type
+	 * and source type, kept sorted in array form.
+	 * <p>Listener instances get added in place, while listener beans which
+	 * are not singletons are retrieved from the BeanFactory for every event.
 	 */
-	private static final class ListenerCacheKey implements Comparable<ListenerCacheKey> {
+	private class CachedListeners {
 
-		private final ResolvableType eventType;
+		final ResolvableType eventType;
 
-		@Nullable
-		private final Class<?> sourceType;
+		final Class<?> sourceType;
 
-		public ListenerCacheKey(ResolvableType eventType, @Nullable Class<?> sourceType) {
-			Assert.notNull(eventType, "Event type must not be null");
+		final Set<String> listenerBeans = new LinkedHashSet<>();
+
+		private ApplicationListener<?>[] listeners = new ApplicationListener<?>[0];
+
+		private volatile List<ApplicationListener<?>> listenerView = Collections.emptyList();
+
+		public CachedListeners(ResolvableType eventType, Class<?> sourceType) {
 			this.eventType = eventType;
 			this.sourceType = sourceType;
 		}
 
-		@Override
-		public boolean equals(Object other) {
-			if (this == other) {
-				return true;
-			}
-			ListenerCacheKey otherKey = (ListenerCacheKey) other;
-			return (this.eventType.equals(otherKey.eventType) &&
-					ObjectUtils.nullSafeEquals(this.sourceType, otherKey.sourceType));
+		/**
+		 * Set the initial listeners, already sorted.
+		 */
+		public void setListeners(List<ApplicationListener<?>> listeners) {
+			setListeners(listeners.toArray(new ApplicationListener<?>[0]));
 		}
 
-		@Override
-		public int hashCode() {
-			return this.eventType.hashCode() * 29 + ObjectUtils.nullSafeHashCode(this.sourceType);
+		private void setListeners(ApplicationListener<?>[] listeners) {
+			this.listeners = listeners;
+			this.listenerView = Collections.unmodifiableList(Arrays.asList(listeners));
+		}
+
+		/**
+		 * Add the given listener after all listeners with the same or a higher
+		 * precedence, unless contained already. To be called under the retrieval mutex.
+		 */
+		public void add(ApplicationListener<?> listener) {
+			ApplicationListener<?>[] current = this.listeners;
+			if (ObjectUtils.containsElement(current, listener)) {
+				return;
+			}
+			int index = current.length;
+			while (index > 0 && AnnotationAwareOrderComparator.INSTANCE.compare(current[index - 1], listener) > 0) {
+				index--;
+			}
+			ApplicationListener<?>[] updated = new ApplicationListener<?>[current.length + 1];
+			System.arraycopy(current, 0, updated, 0, index);
+			updated[index] = listener;
+			System.arraycopy(current, index, updated, index + 1, current.length - index);
+			setListeners(updated);
 		}
 
-		@Override
-		public String toString() {
-			return "ListenerCacheKey [eventType = " + this.eventType + ", sourceType = " + this.sourceType + "]";
+		public boolean contains(Object listener) {
+			return ObjectUtils.containsElement(this.listeners, listener);
 		}
 
-		@Override
-		public int compareTo(ListenerCacheKey other) {
-			int result = this.eventType.toString().compareTo(other.eventType.toString());
-			if (result == 0) {
-				if (this.sourceType == null) {
-					return (other.sourceType == null ? 0 : -1);
+		public Collection<ApplicationListener<?>> getApplicationListeners() {
+			List<ApplicationListener<?>> cachedListeners = this.listenerView;
+			if (this.listenerBeans.isEmpty()) {
+				return cachedListeners;
+			}
+			List<ApplicationListener<?>> allListeners =
+					new ArrayList<>(cachedListeners.size() + this.listenerBeans.size());
+			allListeners.addAll(cachedListeners);
+			BeanFactory beanFactory = getBeanFactory();
+			for (String listenerBeanName : this.listenerBeans) {
+				try {
+					allListeners.add(beanFactory.getBean(listenerBeanName, ApplicationListener.class));
 				}
-				if (other.sourceType == null) {
-					return 1;
+				catch (NoSuchBeanDefinitionException ex) {
+					// Listener bean definition disappeared -
+					// probably in the middle of the destruction phase
 				}
-				result = this.sourceType.getName().compareTo(other.sourceType.getName());
 			}
-			return result;
+			AnnotationAwareOrderComparator.sort(allListeners);
+			return allListeners;
 		}
 	}
 
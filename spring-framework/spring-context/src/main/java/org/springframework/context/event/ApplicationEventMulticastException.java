@@ -0,0 +1,59 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.core.NestedRuntimeException;
+
+/**
+ * Exception thrown when several listeners failed to handle the same event,
+ * aggregating all of their failures. The first failure is exposed as the
+ * cause, all of them are available through {@link #getFailures()}.
+ *
+ * @since 5.1
+ * @see ParallelApplicationEventMulticaster
+ */
+@SuppressWarnings("serial")
+public class ApplicationEventMulticastException extends NestedRuntimeException {
+
+	private final List<Throwable> failures;
+
+
+	/**
+	 * Create a new ApplicationEventMulticastException.
+	 * @param msg the detail message
+	 * @param failures the failures of the individual listeners (not empty)
+	 */
+	public ApplicationEventMulticastException(String msg, List<Throwable> failures) {
+		super(msg, failures.get(0));
+		this.failures = Collections.unmodifiableList(failures);
+		for (int i = 1; i < failures.size(); i++) {
+			addSuppressed(failures.get(i));
+		}
+	}
+
+
+	/**
+	 * Return the failures of the individual listeners, in the order they got collected.
+	 */
+	public List<Throwable> getFailures() {
+		return this.failures;
+	}
+
+}
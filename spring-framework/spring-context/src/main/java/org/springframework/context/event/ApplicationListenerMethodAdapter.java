@@ -77,6 +77,9 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 
 	private final int order;
 
+	@Nullable
+	private final String executorName;
+
 	private final AnnotatedElementKey methodKey;
 
 	@Nullable
@@ -98,6 +101,7 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 		this.declaredEventTypes = resolveDeclaredEventTypes(method, ann);
 		this.condition = (ann != null ? ann.condition() : null);
 		this.order = resolveOrder(method);
+		this.executorName = (ann != null && StringUtils.hasText(ann.executor()) ? ann.executor() : null);
 
 		this.methodKey = new AnnotatedElementKey(method, targetClass);
 	}
@@ -109,6 +113,12 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 			throw new IllegalStateException(
 					"Maximum one parameter is allowed for event listener method: " + method);
 		}
+		if (ann != null && ann.maxBatchSize() > 0) {
+			if (count == 0 || !List.class.isAssignableFrom(method.getParameterTypes()[0])) {
+				throw new IllegalStateException(
+						"List parameter is mandatory for batching event listener method: " + method);
+			}
+		}
 		if (ann != null && ann.classes().length > 0) {
 			List<ResolvableType> types = new ArrayList<>(ann.classes().length);
 			for (Class<?> eventType : ann.classes()) {
@@ -121,7 +131,18 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 				throw new IllegalStateException(
 						"Event parameter is mandatory for event listener method: " + method);
 			}
-			return Collections.singletonList(ResolvableType.forMethodParameter(method, 0));
+			ResolvableType parameterType = ResolvableType.forMethodParameter(method, 0);
+			if (ann != null && ann.maxBatchSize() > 0) {
+				// Events get delivered as List elements
+				ResolvableType elementType = parameterType.as(List.class).getGeneric();
+				Class<?> elementClass = elementType.resolve();
+				if (elementClass == null) {
+					throw new IllegalStateException("Cannot resolve List element type of batching event " +
+							"listener method - declare the event classes instead: " + method);
+				}
+				parameterType = (elementType.getRawClass() != null ? elementType : ResolvableType.forClass(elementClass));
+			}
+			return Collections.singletonList(parameterType);
 		}
 	}
 
@@ -171,6 +192,17 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 		return this.order;
 	}
 
+	/**
+	 * Return the name of the executor bean to invoke this listener with,
+	 * as declared by {@link EventListener#executor()}.
+	 * @return the executor bean name, or {@code null} if none specified
+	 * @since 5.1
+	 */
+	@Nullable
+	public String getExecutorName() {
+		return this.executorName;
+	}
+
 
 	/**
 	 * Process the specified {@link ApplicationEvent}, checking if the condition
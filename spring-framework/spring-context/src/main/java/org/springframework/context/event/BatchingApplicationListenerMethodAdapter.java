@@ -0,0 +1,237 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * {@link ApplicationListenerMethodAdapter} for {@link EventListener} methods
+ * which receive their events in batches, as configured through
+ * {@link EventListener#maxBatchSize()} and {@link EventListener#maxBatchLatency()}.
+ *
+ * <p>Events which pass the listener's condition get buffered in a lock-free
+ * queue. A single batch is delivered in the publishing thread once the maximum
+ * batch size has been reached, and all buffered events get delivered through the
+ * {@link #setTaskScheduler TaskScheduler} once the maximum latency has elapsed
+ * for the oldest buffered event. Batches are delivered one at a time, in the
+ * order in which their events arrived. A batch that the listener method fails
+ * on is retained for the next delivery attempt.
+ *
+ * @since 5.1
+ * @see DefaultEventListenerFactory
+ */
+public class BatchingApplicationListenerMethodAdapter extends ApplicationListenerMethodAdapter {
+
+	private final int maxBatchSize;
+
+	private final long maxBatchLatency;
+
+	private final Queue<Object> buffer = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger bufferSize = new AtomicInteger();
+
+	private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+	private final Lock deliveryLock = new ReentrantLock();
+
+	/** The batch that the last delivery attempt failed on, guarded by the delivery lock */
+	@Nullable
+	private List<Object> failedBatch;
+
+	@Nullable
+	private TaskScheduler taskScheduler;
+
+	private volatile boolean closed;
+
+
+	public BatchingApplicationListenerMethodAdapter(String beanName, Class<?> targetClass, Method method) {
+		super(beanName, targetClass, method);
+		EventListener ann = AnnotatedElementUtils.findMergedAnnotation(
+				ClassUtils.getMostSpecificMethod(method, targetClass), EventListener.class);
+		Assert.state(ann != null && ann.maxBatchSize() > 0, () -> "No batching @EventListener method: " + method);
+		this.maxBatchSize = ann.maxBatchSize();
+		this.maxBatchLatency = ann.maxBatchLatency();
+	}
+
+
+	/**
+	 * Set the scheduler to deliver batches with once their maximum latency
+	 * has elapsed. Without a scheduler, batches only get delivered once full
+	 * or through an explicit {@link #flush()}.
+	 */
+	public void setTaskScheduler(@Nullable TaskScheduler taskScheduler) {
+		this.taskScheduler = taskScheduler;
+	}
+
+	/**
+	 * Return the maximum number of events to deliver at once.
+	 */
+	public int getMaxBatchSize() {
+		return this.maxBatchSize;
+	}
+
+	/**
+	 * Return the maximum time in milliseconds to buffer an event for.
+	 */
+	public long getMaxBatchLatency() {
+		return this.maxBatchLatency;
+	}
+
+	/**
+	 * Return the number of events currently buffered, including
+	 * those of a batch that failed to be delivered.
+	 */
+	public int getBufferedEventCount() {
+		return this.bufferSize.get();
+	}
+
+	/**
+	 * Stop scheduling deliveries through the {@link #setTaskScheduler TaskScheduler},
+	 * e.g. when the context is closed. Events buffered afterwards only get delivered
+	 * once a batch is full or through an explicit {@link #flush()}.
+	 */
+	public void close() {
+		this.closed = true;
+	}
+
+
+	/**
+	 * This implementation buffers the single event argument, delivering
+	 * a single batch if the maximum batch size has been reached.
+	 */
+	@Override
+	@Nullable
+	protected Object doInvoke(Object... args) {
+		this.buffer.add(args[0]);
+		try {
+			if (this.bufferSize.incrementAndGet() >= this.maxBatchSize) {
+				deliverBatch();
+			}
+		}
+		finally {
+			if (this.bufferSize.get() > 0) {
+				scheduleFlush();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Deliver all buffered events, in batches of the maximum size.
+	 */
+	public void flush() {
+		this.deliveryLock.lock();
+		try {
+			while (deliverBatch()) {
+				// keep delivering
+			}
+		}
+		finally {
+			this.deliveryLock.unlock();
+		}
+	}
+
+	/**
+	 * Deliver the next batch, if any.
+	 * @return {@code true} if a batch has been delivered
+	 */
+	private boolean deliverBatch() {
+		this.deliveryLock.lock();
+		try {
+			List<Object> batch = this.failedBatch;
+			if (batch != null) {
+				this.failedBatch = null;
+				this.bufferSize.addAndGet(-batch.size());
+			}
+			else {
+				batch = nextBatch();
+				if (batch.isEmpty()) {
+					return false;
+				}
+			}
+			Object result;
+			try {
+				result = super.doInvoke(batch);
+			}
+			catch (RuntimeException | Error ex) {
+				this.failedBatch = batch;
+				this.bufferSize.addAndGet(batch.size());
+				throw ex;
+			}
+			if (result != null) {
+				handleResult(result);
+			}
+			return true;
+		}
+		finally {
+			this.deliveryLock.unlock();
+		}
+	}
+
+	private List<Object> nextBatch() {
+		List<Object> batch = new ArrayList<>(Math.max(Math.min(this.bufferSize.get(), this.maxBatchSize), 0));
+		Object event;
+		while (batch.size() < this.maxBatchSize && (event = this.buffer.poll()) != null) {
+			batch.add(event);
+			this.bufferSize.decrementAndGet();
+		}
+		return batch;
+	}
+
+	private void scheduleFlush() {
+		TaskScheduler scheduler = this.taskScheduler;
+		if (scheduler != null && !this.closed && this.flushScheduled.compareAndSet(false, true)) {
+			try {
+				scheduler.schedule(this::scheduledFlush, new Date(System.currentTimeMillis() + this.maxBatchLatency));
+			}
+			catch (RuntimeException ex) {
+				// To be scheduled again with the next event
+				this.flushScheduled.set(false);
+				logger.warn("Failed to schedule delivery of buffered events to " + this, ex);
+			}
+		}
+	}
+
+	private void scheduledFlush() {
+		this.flushScheduled.set(false);
+		try {
+			flush();
+		}
+		catch (Throwable ex) {
+			logger.error("Failed to deliver batch of events to " + this, ex);
+		}
+		if (this.bufferSize.get() > 0) {
+			scheduleFlush();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,11 +20,15 @@ import java.lang.reflect.Method;
 
 import org.springframework.context.ApplicationListener;
 import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
 
 /**
  * Default {@link EventListenerFactory} implementation that supports the
  * regular {@link EventListener} annotation.
- * <p>Used as "catch-all" implementation by default.
+ * <p>Used as "catch-all" implementation by default. Creates a
+ * {@link BatchingApplicationListenerMethodAdapter} for methods with
+ * a positive {@link EventListener#maxBatchSize()}.
  *
  * @author Stephane Nicoll
  * @since 4.2
@@ -48,6 +52,11 @@ public class DefaultEventListenerFactory implements EventListenerFactory, Ordere
 
 	@Override
 	public ApplicationListener<?> createApplicationListener(String beanName, Class<?> type, Method method) {
+		EventListener ann = AnnotatedElementUtils.findMergedAnnotation(
+				ClassUtils.getMostSpecificMethod(method, type), EventListener.class);
+		if (ann != null && ann.maxBatchSize() > 0) {
+			return new BatchingApplicationListenerMethodAdapter(beanName, type, method);
+		}
 		return new ApplicationListenerMethodAdapter(beanName, type, method);
 	}
 
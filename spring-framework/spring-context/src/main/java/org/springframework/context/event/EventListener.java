@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -102,4 +102,37 @@ public @interface EventListener {
 	 */
 	String condition() default "";
 
+	/**
+	 * The name of the {@link java.util.concurrent.Executor} bean to invoke
+	 * this listener with, if the event is multicast by a
+	 * {@link ParallelApplicationEventMulticaster}.
+	 * <p>Default is {@code ""}, meaning the multicaster's default executor
+	 * is used, if any, and the listener is invoked in the publishing thread
+	 * otherwise. Other multicasters ignore this attribute.
+	 * @since 5.1
+	 * @see ParallelApplicationEventMulticaster#determineExecutor
+	 */
+	String executor() default "";
+
+	/**
+	 * The maximum number of events to deliver to the listener at once.
+	 * <p>Default is {@code 0}, delivering every event individually. A positive
+	 * value turns on batching: the annotated method needs to declare a single
+	 * {@link java.util.List} parameter then, receiving the buffered events (or
+	 * their payloads) once this number of events has been reached or after
+	 * the {@link #maxBatchLatency} has elapsed, whatever comes first. The
+	 * {@link #condition} gets evaluated against each individual event.
+	 * @since 5.1
+	 * @see BatchingApplicationListenerMethodAdapter
+	 */
+	int maxBatchSize() default 0;
+
+	/**
+	 * The maximum time in milliseconds to buffer an event for before
+	 * delivering it, if {@link #maxBatchSize batching} is turned on.
+	 * <p>Default is {@code 100}.
+	 * @since 5.1
+	 */
+	long maxBatchLatency() default 100;
+
 }
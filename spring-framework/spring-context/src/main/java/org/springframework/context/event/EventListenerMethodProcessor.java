@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,6 +32,7 @@ import org.springframework.aop.scope.ScopedObject;
 import org.springframework.aop.scope.ScopedProxyUtils;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -41,6 +42,8 @@ import org.springframework.core.MethodIntrospector;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
@@ -48,11 +51,18 @@ import org.springframework.util.CollectionUtils;
  * Register {@link EventListener} annotated method as individual {@link ApplicationListener}
  * instances.
  *
+ * <p>{@link BatchingApplicationListenerMethodAdapter batching listeners} get
+ * the unique {@link TaskScheduler} bean in the context to deliver their batches
+ * with, or a dedicated scheduler if none. Their pending events get delivered
+ * when the context is closed, and the dedicated scheduler gets shut down on
+ * {@link #destroy()}, also if the context fails to refresh.
+ *
  * @author Stephane Nicoll
  * @author Juergen Hoeller
  * @since 4.2
  */
-public class EventListenerMethodProcessor implements SmartInitializingSingleton, ApplicationContextAware {
+public class EventListenerMethodProcessor
+		implements SmartInitializingSingleton, ApplicationContextAware, DisposableBean {
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -63,6 +73,14 @@ public class EventListenerMethodProcessor implements SmartInitializingSingleton,
 
 	private final Set<Class<?>> nonAnnotatedClasses = Collections.newSetFromMap(new ConcurrentHashMap<>(64));
 
+	private final List<BatchingApplicationListenerMethodAdapter> batchingListeners = new ArrayList<>();
+
+	@Nullable
+	private TaskScheduler batchScheduler;
+
+	@Nullable
+	private ThreadPoolTaskScheduler dedicatedBatchScheduler;
+
 
 	@Override
 	public void setApplicationContext(ApplicationContext applicationContext) {
@@ -168,6 +186,9 @@ public class EventListenerMethodProcessor implements SmartInitializingSingleton,
 							if (applicationListener instanceof ApplicationListenerMethodAdapter) {
 								((ApplicationListenerMethodAdapter) applicationListener).init(context, this.evaluator);
 							}
+							if (applicationListener instanceof BatchingApplicationListenerMethodAdapter) {
+								registerBatchingListener((BatchingApplicationListenerMethodAdapter) applicationListener);
+							}
 							context.addApplicationListener(applicationListener);
 							break;
 						}
@@ -181,4 +202,73 @@ public class EventListenerMethodProcessor implements SmartInitializingSingleton,
 		}
 	}
 
+	/**
+	 * Stop the batching listeners from scheduling deliveries,
+	 * shutting down the dedicated batch scheduler, if any.
+	 * @since 5.1
+	 */
+	@Override
+	public void destroy() {
+		for (BatchingApplicationListenerMethodAdapter listener : this.batchingListeners) {
+			listener.close();
+		}
+		if (this.dedicatedBatchScheduler != null) {
+			this.dedicatedBatchScheduler.shutdown();
+		}
+	}
+
+	/**
+	 * Provide the given batching listener with a scheduler, and make sure that
+	 * its pending events get delivered when the context is closed.
+	 */
+	private void registerBatchingListener(BatchingApplicationListenerMethodAdapter listener) {
+		ConfigurableApplicationContext context = getApplicationContext();
+		if (this.batchingListeners.isEmpty()) {
+			String[] schedulerNames = context.getBeanNamesForType(TaskScheduler.class, false, false);
+			if (schedulerNames.length == 1) {
+				this.batchScheduler = context.getBean(schedulerNames[0], TaskScheduler.class);
+			}
+			else {
+				ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+				scheduler.setThreadNamePrefix("eventListenerBatch-");
+				scheduler.setDaemon(true);
+				scheduler.initialize();
+				this.batchScheduler = scheduler;
+				this.dedicatedBatchScheduler = scheduler;
+			}
+			context.addApplicationListener(new BatchFlushingListener(context));
+		}
+		listener.setTaskScheduler(this.batchScheduler);
+		this.batchingListeners.add(listener);
+	}
+
+
+	/**
+	 * Delivers the pending events of all batching listeners on context close.
+	 */
+	private class BatchFlushingListener implements ApplicationListener<ContextClosedEvent> {
+
+		private final ApplicationContext context;
+
+		BatchFlushingListener(ApplicationContext context) {
+			this.context = context;
+		}
+
+		@Override
+		public void onApplicationEvent(ContextClosedEvent event) {
+			if (event.getApplicationContext() != this.context) {
+				return;
+			}
+			for (BatchingApplicationListenerMethodAdapter listener : batchingListeners) {
+				listener.close();
+				try {
+					listener.flush();
+				}
+				catch (Throwable ex) {
+					logger.warn("Failed to deliver pending events to " + listener, ex);
+				}
+			}
+		}
+	}
+
 }
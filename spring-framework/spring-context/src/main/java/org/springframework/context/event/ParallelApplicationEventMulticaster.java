@@ -0,0 +1,288 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Variant of the {@link SimpleApplicationEventMulticaster} which routes each
+ * listener to an executor of its own, fanning out independent listeners in
+ * parallel while preserving the order of the others.
+ *
+ * <p>The executor for a listener is determined through {@link #determineExecutor}:
+ * by default, the executor bean named by {@link EventListener#executor()} or
+ * registered under that name via {@link #setExecutors}, falling back to the
+ * {@link #setTaskExecutor default task executor}. Listeners without any executor
+ * are invoked in the publishing thread, in their regular order.
+ *
+ * <p>Listeners with the same order value (as determined by the
+ * {@link AnnotationAwareOrderComparator}, e.g. via {@code @Order}) form a group:
+ * the listeners of a group run concurrently, while a group only starts once all
+ * listeners of the previous group have completed. Listeners without any order
+ * value form the last group, which is not awaited unless
+ * {@link #setAwaitCompletion "awaitCompletion"} has been set. Events published
+ * from within a listener that this multicaster invokes on an executor are multicast
+ * in that thread, so that executor threads never wait for each other.
+ *
+ * <p>All listeners get invoked even if some of them fail. Unless an
+ * {@link #setErrorHandler ErrorHandler} has been specified, the failures of
+ * synchronous and awaited listeners are rethrown at the end of the multicast:
+ * a single failure as-is, several ones as an {@link ApplicationEventMulticastException}.
+ * Failures of listeners which are not awaited get logged.
+ *
+ * <p>To throttle publishers when executors cannot keep up, specify a
+ * {@link #setMaxPendingListeners maximum number of pending listener invocations},
+ * beyond which listeners get invoked in the publishing thread; the same applies
+ * to listeners rejected by a saturated executor. To use this multicaster in an
+ * application context, define it as a bean named "applicationEventMulticaster".
+ *
+ * @since 5.1
+ * @see EventListener#executor()
+ * @see org.springframework.context.support.AbstractApplicationContext#APPLICATION_EVENT_MULTICASTER_BEAN_NAME
+ */
+public class ParallelApplicationEventMulticaster extends SimpleApplicationEventMulticaster {
+
+	private static final Log logger = LogFactory.getLog(ParallelApplicationEventMulticaster.class);
+
+	private static final ThreadLocal<Boolean> listenerThread =
+			new NamedThreadLocal<>("Parallel event listener invocation");
+
+	private final Map<String, Executor> executors = new ConcurrentHashMap<>(8);
+
+	private boolean awaitCompletion = false;
+
+	@Nullable
+	private Semaphore pendingPermits;
+
+
+	/**
+	 * Create a new ParallelApplicationEventMulticaster.
+	 */
+	public ParallelApplicationEventMulticaster() {
+	}
+
+	/**
+	 * Create a new ParallelApplicationEventMulticaster for the given BeanFactory.
+	 */
+	public ParallelApplicationEventMulticaster(BeanFactory beanFactory) {
+		setBeanFactory(beanFactory);
+	}
+
+
+	/**
+	 * Register executors under the given names, to be referenced by
+	 * {@link EventListener#executor()} instead of executor beans.
+	 */
+	public void setExecutors(Map<String, ? extends Executor> executors) {
+		this.executors.putAll(executors);
+	}
+
+	/**
+	 * Set whether to wait for all listeners to complete before returning
+	 * from a multicast, rethrowing their failures.
+	 * <p>Default is "false": listeners without an order value may still be
+	 * running when the multicast returns.
+	 */
+	public void setAwaitCompletion(boolean awaitCompletion) {
+		this.awaitCompletion = awaitCompletion;
+	}
+
+	/**
+	 * Return whether to wait for all listeners to complete before returning
+	 * from a multicast.
+	 */
+	public boolean isAwaitCompletion() {
+		return this.awaitCompletion;
+	}
+
+	/**
+	 * Set the maximum number of listener invocations which may be pending on
+	 * executors at any time, across all multicasts. Once the limit has been
+	 * reached, further listeners get invoked in the publishing thread.
+	 * <p>Default is -1, not limiting the number of pending invocations.
+	 */
+	public void setMaxPendingListeners(int maxPendingListeners) {
+		Assert.isTrue(maxPendingListeners == -1 || maxPendingListeners > 0,
+				"'maxPendingListeners' must be positive or -1");
+		this.pendingPermits = (maxPendingListeners > 0 ? new Semaphore(maxPendingListeners) : null);
+	}
+
+
+	@Override
+	public void multicastEvent(ApplicationEvent event, @Nullable ResolvableType eventType) {
+		ResolvableType type = (eventType != null ? eventType : ResolvableType.forInstance(event));
+		List<Throwable> failures = new ArrayList<>();
+		List<CompletableFuture<Void>> pending = new ArrayList<>();
+		// Within an executor thread: do not wait for other executor threads
+		boolean inline = (listenerThread.get() != null);
+		ApplicationListener<?> previous = null;
+		for (ApplicationListener<?> listener : getApplicationListeners(event, type)) {
+			if (previous != null && AnnotationAwareOrderComparator.INSTANCE.compare(previous, listener) != 0) {
+				awaitAll(pending, failures);
+			}
+			previous = listener;
+			Executor executor = (inline ? null : determineExecutor(listener));
+			if (executor != null) {
+				pending.add(invokeListener(listener, event, executor));
+			}
+			else {
+				try {
+					invokeListener(listener, event);
+				}
+				catch (Throwable ex) {
+					failures.add(ex);
+				}
+			}
+		}
+		if (this.awaitCompletion) {
+			awaitAll(pending, failures);
+		}
+		else {
+			for (CompletableFuture<Void> future : pending) {
+				future.whenComplete((result, ex) -> {
+					if (ex != null) {
+						logger.error("Asynchronous event listener failed for " + event, ex);
+					}
+				});
+			}
+		}
+		rethrowFailures(event, failures);
+	}
+
+	/**
+	 * Determine the executor to invoke the given listener with.
+	 * <p>The default implementation resolves the executor named by
+	 * {@link EventListener#executor()}, if any, and returns the
+	 * {@link #getTaskExecutor() default task executor} otherwise.
+	 * @param listener the listener to invoke
+	 * @return the executor, or {@code null} to invoke the listener
+	 * in the publishing thread
+	 */
+	@Nullable
+	protected Executor determineExecutor(ApplicationListener<?> listener) {
+		if (listener instanceof ApplicationListenerMethodAdapter) {
+			String executorName = ((ApplicationListenerMethodAdapter) listener).getExecutorName();
+			if (executorName != null) {
+				Executor executor = this.executors.get(executorName);
+				if (executor == null) {
+					executor = getBeanFactory().getBean(executorName, Executor.class);
+					this.executors.put(executorName, executor);
+				}
+				return executor;
+			}
+		}
+		return getTaskExecutor();
+	}
+
+	/**
+	 * Invoke the given listener with the given executor, or in the publishing
+	 * thread if the maximum number of pending invocations has been reached.
+	 */
+	private CompletableFuture<Void> invokeListener(
+			ApplicationListener<?> listener, ApplicationEvent event, Executor executor) {
+
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		Semaphore permits = this.pendingPermits;
+		boolean acquired = (permits != null && permits.tryAcquire());
+		Runnable task = () -> {
+			Boolean previous = listenerThread.get();
+			listenerThread.set(Boolean.TRUE);
+			try {
+				invokeListener(listener, event);
+				future.complete(null);
+			}
+			catch (Throwable ex) {
+				future.completeExceptionally(ex);
+			}
+			finally {
+				if (previous == null) {
+					listenerThread.remove();
+				}
+				if (acquired) {
+					permits.release();
+				}
+			}
+		};
+		if (permits != null && !acquired) {
+			// Too many pending invocations: throttle the publisher by invoking the listener right here
+			task.run();
+			return future;
+		}
+		try {
+			executor.execute(task);
+		}
+		catch (RejectedExecutionException ex) {
+			// Saturated executor: throttle the publisher by invoking the listener right here
+			task.run();
+		}
+		return future;
+	}
+
+	private void awaitAll(List<CompletableFuture<Void>> pending, List<Throwable> failures) {
+		for (CompletableFuture<Void> future : pending) {
+			try {
+				future.join();
+			}
+			catch (CompletionException ex) {
+				failures.add(ex.getCause() != null ? ex.getCause() : ex);
+			}
+			catch (CancellationException ex) {
+				failures.add(ex);
+			}
+		}
+		pending.clear();
+	}
+
+	private void rethrowFailures(ApplicationEvent event, List<Throwable> failures) {
+		if (failures.isEmpty()) {
+			return;
+		}
+		if (failures.size() == 1) {
+			Throwable failure = failures.get(0);
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			}
+			if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+		}
+		throw new ApplicationEventMulticastException(
+				failures.size() + " listener(s) failed for " + event, failures);
+	}
+
+}
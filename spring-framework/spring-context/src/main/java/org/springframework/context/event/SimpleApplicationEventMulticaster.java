@@ -16,6 +16,7 @@
 
 package org.springframework.context.event;
 
+import java.util.Map;
 import java.util.concurrent.Executor;
 
 import org.apache.commons.logging.Log;
@@ -25,7 +26,9 @@ import org.springframework.beans.factory.BeanFactory;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.ResolvableTypeProvider;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ErrorHandler;
 
 /**
@@ -48,6 +51,8 @@ import org.springframework.util.ErrorHandler;
  */
 public class SimpleApplicationEventMulticaster extends AbstractApplicationEventMulticaster {
 
+	private final Map<Class<?>, ResolvableType> defaultEventTypeCache = new ConcurrentReferenceHashMap<>(64);
+
 	@Nullable
 	private Executor taskExecutor;
 
@@ -142,7 +147,10 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	}
 
 	private ResolvableType resolveDefaultEventType(ApplicationEvent event) {
-		return ResolvableType.forInstance(event);
+		if (event instanceof ResolvableTypeProvider) {
+			return ResolvableType.forInstance(event);
+		}
+		return this.defaultEventTypeCache.computeIfAbsent(event.getClass(), ResolvableType::forClass);
 	}
 
 	/**
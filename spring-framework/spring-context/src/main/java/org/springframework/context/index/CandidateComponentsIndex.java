@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,11 +17,13 @@
 package org.springframework.context.index;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+import org.springframework.lang.Nullable;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.LinkedMultiValueMap;
@@ -43,6 +45,10 @@ import org.springframework.util.MultiValueMap;
  * not a rule. Similarly, the {@code stereotype} is usually the fully qualified name of
  * a target type but it can be any marker really.
  *
+ * <p>If the index was generated along with {@code META-INF/spring.components.types},
+ * the class-level metadata of each candidate is available as well, see
+ * {@link #getTypeMetadata(String)}.
+ *
  * @author Stephane Nicoll
  * @since 5.0
  */
@@ -52,9 +58,16 @@ public class CandidateComponentsIndex {
 
 	private final MultiValueMap<String, Entry> index;
 
+	private final Map<String, IndexedTypeMetadata> typeMetadata;
+
 
 	CandidateComponentsIndex(List<Properties> content) {
+		this(content, Collections.emptyMap());
+	}
+
+	CandidateComponentsIndex(List<Properties> content, Map<String, IndexedTypeMetadata> typeMetadata) {
 		this.index = parseIndex(content);
+		this.typeMetadata = typeMetadata;
 	}
 
 
@@ -68,14 +81,29 @@ public class CandidateComponentsIndex {
 	public Set<String> getCandidateTypes(String basePackage, String stereotype) {
 		List<Entry> candidates = this.index.get(stereotype);
 		if (candidates != null) {
-			return candidates.parallelStream()
-					.filter(t -> t.match(basePackage))
-					.map(t -> t.type)
-					.collect(Collectors.toSet());
+			Set<String> result = new HashSet<>();
+			for (Entry candidate : candidates) {
+				if (candidate.match(basePackage)) {
+					result.add(candidate.type);
+				}
+			}
+			return result;
 		}
 		return Collections.emptySet();
 	}
 
+	/**
+	 * Return the class-level metadata recorded for the specified candidate type.
+	 * @param type a candidate type, as returned by {@link #getCandidateTypes}
+	 * @return the metadata of the type, or {@code null} if the index holds no
+	 * metadata for it (e.g. as it was built by an older version of the indexer)
+	 * @since 5.1
+	 */
+	@Nullable
+	public IndexedTypeMetadata getTypeMetadata(String type) {
+		return this.typeMetadata.get(type);
+	}
+
 	private static MultiValueMap<String, Entry> parseIndex(List<Properties> content) {
 		MultiValueMap<String, Entry> index = new LinkedMultiValueMap<>();
 		for (Properties entry : content) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,10 +17,13 @@
 package org.springframework.context.index;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentMap;
 
@@ -47,6 +50,15 @@ public class CandidateComponentsIndexLoader {
 	 */
 	public static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/spring.components";
 
+	/**
+	 * The location to look for the class-level metadata of the components.
+	 * <p>Can be present in multiple JAR files, usually next to
+	 * {@value #COMPONENTS_RESOURCE_LOCATION}.
+	 * @since 5.1
+	 * @see IndexedTypeMetadata
+	 */
+	public static final String TYPES_RESOURCE_LOCATION = "META-INF/spring.components.types";
+
 	/**
 	 * System property that instructs Spring to ignore the index, i.e.
 	 * to always return {@code null} from {@link #loadIndex(ClassLoader)}.
@@ -106,7 +118,7 @@ public class CandidateComponentsIndexLoader {
 				logger.debug("Loaded " + result.size() + "] index(es)");
 			}
 			int totalCount = result.stream().mapToInt(Properties::size).sum();
-			return (totalCount > 0 ? new CandidateComponentsIndex(result) : null);
+			return (totalCount > 0 ? new CandidateComponentsIndex(result, loadTypeMetadata(classLoader)) : null);
 		}
 		catch (IOException ex) {
 			throw new IllegalStateException("Unable to load indexes from location [" +
@@ -114,4 +126,28 @@ public class CandidateComponentsIndexLoader {
 		}
 	}
 
+	/**
+	 * Load the type metadata from {@value #TYPES_RESOURCE_LOCATION}. The type
+	 * metadata is optional: resources that cannot be read are ignored, leaving
+	 * the corresponding types to regular class reading.
+	 */
+	private static Map<String, IndexedTypeMetadata> loadTypeMetadata(ClassLoader classLoader) throws IOException {
+		Map<String, IndexedTypeMetadata> result = new HashMap<>();
+		Enumeration<URL> urls = classLoader.getResources(TYPES_RESOURCE_LOCATION);
+		while (urls.hasMoreElements()) {
+			URL url = urls.nextElement();
+			try (InputStream in = url.openStream()) {
+				for (IndexedTypeMetadata metadata : IndexedTypeMetadata.read(in)) {
+					result.putIfAbsent(metadata.getType(), metadata);
+				}
+			}
+			catch (IOException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring type metadata index [" + url + "]: " + ex.getMessage());
+				}
+			}
+		}
+		return result;
+	}
+
 }
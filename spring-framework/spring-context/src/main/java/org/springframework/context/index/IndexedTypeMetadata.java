@@ -0,0 +1,481 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Class-level metadata of a candidate type, as recorded at compile time by the
+ * {@code spring-context-indexer} annotation processor in
+ * {@value CandidateComponentsIndexLoader#TYPES_RESOURCE_LOCATION}.
+ *
+ * <p>Exposes the modifiers, type hierarchy and member classes of the class,
+ * the annotations present on it (including their meta-annotations), the
+ * {@code @Conditional} classes that apply to it, the annotations present on
+ * its methods and its {@code @Bean} methods: what is needed to select and
+ * register a candidate.
+ * Explicitly declared annotation attributes are part of the index as long as
+ * they are String, primitive or enum values, or arrays of such.
+ *
+ * @since 5.1
+ * @see CandidateComponentsIndex#getTypeMetadata(String)
+ */
+public final class IndexedTypeMetadata {
+
+	private static final int MAGIC = 0x53434958;
+
+	private static final int VERSION = 2;
+
+	private static final int INTERFACE = 1;
+
+	private static final int ANNOTATION = 2;
+
+	private static final int ABSTRACT = 4;
+
+	private static final int FINAL = 8;
+
+	private static final int INDEPENDENT = 16;
+
+	private static final int STATIC_METHOD = 1;
+
+	private static final int FINAL_METHOD = 2;
+
+	private static final int PRIVATE_METHOD = 4;
+
+	private static final int ABSTRACT_METHOD = 8;
+
+	private static final String JAVA_LANG_ANNOTATION_PACKAGE = "java.lang.annotation.";
+
+
+	private final String type;
+
+	private final String className;
+
+	private final int flags;
+
+	@Nullable
+	private final String enclosingClassName;
+
+	@Nullable
+	private final String superClassName;
+
+	private final List<String> interfaceNames = new ArrayList<>();
+
+	private final List<String> memberClassNames = new ArrayList<>();
+
+	private final Annotations annotations = new Annotations();
+
+	private final Set<String> methodAnnotationTypes = new LinkedHashSet<>();
+
+	private final List<BeanMethod> beanMethods = new ArrayList<>();
+
+
+	private IndexedTypeMetadata(String type, String className, int flags,
+			@Nullable String enclosingClassName, @Nullable String superClassName) {
+
+		this.type = type;
+		this.className = className;
+		this.flags = flags;
+		this.enclosingClassName = enclosingClassName;
+		this.superClassName = superClassName;
+	}
+
+
+	/**
+	 * Return the name of the type as used in the candidate components index.
+	 */
+	String getType() {
+		return this.type;
+	}
+
+	/**
+	 * Return the binary name of the type.
+	 */
+	public String getClassName() {
+		return this.className;
+	}
+
+	public boolean isInterface() {
+		return (this.flags & INTERFACE) != 0;
+	}
+
+	public boolean isAnnotation() {
+		return (this.flags & ANNOTATION) != 0;
+	}
+
+	public boolean isAbstract() {
+		return (this.flags & ABSTRACT) != 0;
+	}
+
+	public boolean isFinal() {
+		return (this.flags & FINAL) != 0;
+	}
+
+	/**
+	 * Return whether the type is either a top-level class or a static
+	 * nested class, i.e. can be constructed independently from an
+	 * enclosing class.
+	 */
+	public boolean isIndependent() {
+		return (this.flags & INDEPENDENT) != 0;
+	}
+
+	@Nullable
+	public String getEnclosingClassName() {
+		return this.enclosingClassName;
+	}
+
+	@Nullable
+	public String getSuperClassName() {
+		return this.superClassName;
+	}
+
+	public List<String> getInterfaceNames() {
+		return Collections.unmodifiableList(this.interfaceNames);
+	}
+
+	/**
+	 * Return the names of all classes declared as members of the type.
+	 */
+	public List<String> getMemberClassNames() {
+		return Collections.unmodifiableList(this.memberClassNames);
+	}
+
+	/**
+	 * Return the names of all annotation types that are present on the type.
+	 */
+	public Set<String> getAnnotationTypes() {
+		return this.annotations.getAnnotationTypes();
+	}
+
+	/**
+	 * Return the names of all meta-annotation types present on the given
+	 * annotation type on the type.
+	 * @param annotationName the fully qualified class name of the annotation type
+	 * @return the meta-annotation type names, or {@code null} if the given
+	 * annotation is not present on the type
+	 */
+	@Nullable
+	public Set<String> getMetaAnnotationTypes(String annotationName) {
+		return this.annotations.getMetaAnnotationTypes(annotationName);
+	}
+
+	/**
+	 * Return the explicitly declared attribute values of the given annotation
+	 * type on the type, in their string representation: enum values by name,
+	 * other values as per {@code toString()}.
+	 * @param annotationName the fully qualified class name of the annotation type
+	 * @return a map of attribute names to {@code String} or {@code String[]}
+	 * values, or {@code null} if the given annotation is not present on the
+	 * type or its attributes are not part of the index
+	 */
+	@Nullable
+	public Map<String, Object> getAnnotationAttributeValues(String annotationName) {
+		return this.annotations.getAnnotationAttributeValues(annotationName);
+	}
+
+	/**
+	 * Determine whether the type has an annotation or meta-annotation of the
+	 * given type defined, not considering {@code java.lang.annotation} types.
+	 * @param annotationName the fully qualified class name of the annotation type
+	 */
+	public boolean isAnnotated(String annotationName) {
+		return this.annotations.isAnnotated(annotationName);
+	}
+
+	/**
+	 * Return the names of the {@code Condition} classes declared via
+	 * {@code @Conditional} on the type, either directly or as a meta-annotation.
+	 */
+	public Set<String> getConditionClassNames() {
+		return this.annotations.getConditionClassNames();
+	}
+
+	/**
+	 * Determine whether the type has at least one method that is annotated
+	 * or meta-annotated with the given annotation type.
+	 * @param annotationName the fully qualified class name of the annotation type
+	 */
+	public boolean hasAnnotatedMethods(String annotationName) {
+		return this.methodAnnotationTypes.contains(annotationName);
+	}
+
+	/**
+	 * Return the methods of the type that are annotated or meta-annotated
+	 * with {@code @Bean}, in the order of their declaration.
+	 */
+	public List<BeanMethod> getBeanMethods() {
+		return Collections.unmodifiableList(this.beanMethods);
+	}
+
+	@Override
+	public String toString() {
+		return "IndexedTypeMetadata for " + this.className;
+	}
+
+
+	/**
+	 * Read the metadata of all types from the given stream.
+	 * @param in the stream to read from
+	 * @throws IOException if the stream cannot be read or is not
+	 * in a supported format
+	 */
+	static List<IndexedTypeMetadata> read(InputStream in) throws IOException {
+		DataInputStream dis = new DataInputStream(new BufferedInputStream(in));
+		if (dis.readInt() != MAGIC || dis.readUnsignedByte() != VERSION) {
+			throw new IOException("Unsupported type index format");
+		}
+		String[] strings = new String[dis.readInt()];
+		for (int i = 0; i < strings.length; i++) {
+			strings[i] = dis.readUTF();
+		}
+		int typeCount = dis.readInt();
+		List<IndexedTypeMetadata> result = new ArrayList<>(typeCount);
+		for (int i = 0; i < typeCount; i++) {
+			String type = strings[dis.readInt()];
+			String className = strings[dis.readInt()];
+			int flags = dis.readUnsignedByte();
+			String enclosingClassName = readString(dis, strings);
+			String superClassName = readString(dis, strings);
+			IndexedTypeMetadata metadata =
+					new IndexedTypeMetadata(type, className, flags, enclosingClassName, superClassName);
+			readStrings(dis, strings, metadata.interfaceNames);
+			readStrings(dis, strings, metadata.memberClassNames);
+			metadata.annotations.read(dis, strings);
+			readStrings(dis, strings, metadata.methodAnnotationTypes);
+			int beanMethodCount = dis.readInt();
+			for (int j = 0; j < beanMethodCount; j++) {
+				BeanMethod beanMethod =
+						new BeanMethod(strings[dis.readInt()], strings[dis.readInt()], dis.readUnsignedByte());
+				beanMethod.annotations.read(dis, strings);
+				metadata.beanMethods.add(beanMethod);
+			}
+			result.add(metadata);
+		}
+		return result;
+	}
+
+	@Nullable
+	private static String readString(DataInputStream dis, String[] strings) throws IOException {
+		int index = dis.readInt();
+		return (index >= 0 ? strings[index] : null);
+	}
+
+	private static void readStrings(DataInputStream dis, String[] strings, Collection<String> target)
+			throws IOException {
+
+		int count = dis.readInt();
+		for (int i = 0; i < count; i++) {
+			target.add(strings[dis.readInt()]);
+		}
+	}
+
+
+	/**
+	 * A method of the type that is annotated or meta-annotated with {@code @Bean}.
+	 * Its annotations are exposed in the same form as those of the type.
+	 */
+	public static final class BeanMethod {
+
+		private final String methodName;
+
+		private final String returnTypeName;
+
+		private final int flags;
+
+		private final Annotations annotations = new Annotations();
+
+		BeanMethod(String methodName, String returnTypeName, int flags) {
+			this.methodName = methodName;
+			this.returnTypeName = returnTypeName;
+			this.flags = flags;
+		}
+
+		public String getMethodName() {
+			return this.methodName;
+		}
+
+		/**
+		 * Return the name of the erased return type, as per {@code Class.getName()}
+		 * but with a {@code []} suffix for array types.
+		 */
+		public String getReturnTypeName() {
+			return this.returnTypeName;
+		}
+
+		public boolean isStatic() {
+			return (this.flags & STATIC_METHOD) != 0;
+		}
+
+		public boolean isFinal() {
+			return (this.flags & FINAL_METHOD) != 0;
+		}
+
+		public boolean isPrivate() {
+			return (this.flags & PRIVATE_METHOD) != 0;
+		}
+
+		public boolean isAbstract() {
+			return (this.flags & ABSTRACT_METHOD) != 0;
+		}
+
+		/**
+		 * Return the names of all annotation types that are present on the method.
+		 */
+		public Set<String> getAnnotationTypes() {
+			return this.annotations.getAnnotationTypes();
+		}
+
+		/**
+		 * Return the names of all meta-annotation types present on the given
+		 * annotation type on the method, or {@code null} if not present.
+		 * @param annotationName the fully qualified class name of the annotation type
+		 */
+		@Nullable
+		public Set<String> getMetaAnnotationTypes(String annotationName) {
+			return this.annotations.getMetaAnnotationTypes(annotationName);
+		}
+
+		/**
+		 * Return the explicitly declared attribute values of the given annotation
+		 * type on the method, like {@link IndexedTypeMetadata#getAnnotationAttributeValues}.
+		 * @param annotationName the fully qualified class name of the annotation type
+		 */
+		@Nullable
+		public Map<String, Object> getAnnotationAttributeValues(String annotationName) {
+			return this.annotations.getAnnotationAttributeValues(annotationName);
+		}
+
+		/**
+		 * Determine whether the method has an annotation or meta-annotation of the
+		 * given type defined, not considering {@code java.lang.annotation} types.
+		 * @param annotationName the fully qualified class name of the annotation type
+		 */
+		public boolean isAnnotated(String annotationName) {
+			return this.annotations.isAnnotated(annotationName);
+		}
+
+		/**
+		 * Return the names of the {@code Condition} classes declared via
+		 * {@code @Conditional} on the method, either directly or as a meta-annotation.
+		 */
+		public Set<String> getConditionClassNames() {
+			return this.annotations.getConditionClassNames();
+		}
+
+		@Override
+		public String toString() {
+			return this.returnTypeName + " " + this.methodName + "()";
+		}
+	}
+
+
+	/**
+	 * The annotations present on a type or method, with their meta-annotations,
+	 * their indexed attribute values and the conditions they declare.
+	 */
+	private static class Annotations {
+
+		private final Map<String, Set<String>> metaAnnotations = new LinkedHashMap<>();
+
+		private final Map<String, Map<String, Object>> attributes = new LinkedHashMap<>();
+
+		private final Set<String> conditionClassNames = new LinkedHashSet<>();
+
+		public Set<String> getAnnotationTypes() {
+			return Collections.unmodifiableSet(this.metaAnnotations.keySet());
+		}
+
+		@Nullable
+		public Set<String> getMetaAnnotationTypes(String annotationName) {
+			Set<String> metaAnnotationTypes = this.metaAnnotations.get(annotationName);
+			return (metaAnnotationTypes != null ? Collections.unmodifiableSet(metaAnnotationTypes) : null);
+		}
+
+		@Nullable
+		public Map<String, Object> getAnnotationAttributeValues(String annotationName) {
+			Map<String, Object> attributes = this.attributes.get(annotationName);
+			return (attributes != null ? Collections.unmodifiableMap(attributes) : null);
+		}
+
+		public boolean isAnnotated(String annotationName) {
+			if (annotationName.startsWith(JAVA_LANG_ANNOTATION_PACKAGE)) {
+				return false;
+			}
+			if (this.metaAnnotations.containsKey(annotationName)) {
+				return true;
+			}
+			for (Set<String> metaAnnotationTypes : this.metaAnnotations.values()) {
+				if (metaAnnotationTypes.contains(annotationName)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public Set<String> getConditionClassNames() {
+			return Collections.unmodifiableSet(this.conditionClassNames);
+		}
+
+		/**
+		 * Read the annotations, followed by the condition class names.
+		 */
+		void read(DataInputStream dis, String[] strings) throws IOException {
+			int annotationCount = dis.readInt();
+			for (int i = 0; i < annotationCount; i++) {
+				String annotationType = strings[dis.readInt()];
+				Set<String> metaAnnotationTypes = new LinkedHashSet<>();
+				readStrings(dis, strings, metaAnnotationTypes);
+				this.metaAnnotations.put(annotationType, metaAnnotationTypes);
+				int attributeCount = dis.readInt();
+				if (attributeCount >= 0) {
+					Map<String, Object> attributes = new LinkedHashMap<>();
+					for (int j = 0; j < attributeCount; j++) {
+						String name = strings[dis.readInt()];
+						int valueCount = dis.readInt();
+						if (valueCount < 0) {
+							attributes.put(name, strings[dis.readInt()]);
+						}
+						else {
+							String[] values = new String[valueCount];
+							for (int k = 0; k < valueCount; k++) {
+								values[k] = strings[dis.readInt()];
+							}
+							attributes.put(name, values);
+						}
+					}
+					this.attributes.put(annotationType, attributes);
+				}
+			}
+			readStrings(dis, strings, this.conditionClassNames);
+		}
+	}
+
+}
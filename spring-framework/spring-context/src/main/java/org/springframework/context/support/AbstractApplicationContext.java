@@ -42,6 +42,8 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
@@ -186,6 +188,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	@Nullable
 	private Set<ApplicationEvent> earlyApplicationEvents;
 
+	/** Application startup metrics */
+	private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
 
 	/**
 	 * Create a new AbstractApplicationContext with no parent.
@@ -294,6 +299,17 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		return new StandardEnvironment();
 	}
 
+	@Override
+	public void setApplicationStartup(ApplicationStartup applicationStartup) {
+		Assert.notNull(applicationStartup, "ApplicationStartup must not be null");
+		this.applicationStartup = applicationStartup;
+	}
+
+	@Override
+	public ApplicationStartup getApplicationStartup() {
+		return this.applicationStartup;
+	}
+
 	/**
 	 * Return this context's internal bean factory as AutowireCapableBeanFactory,
 	 * if already available.
@@ -487,73 +503,91 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	@Override
 	public void refresh() throws BeansException, IllegalStateException {
 		synchronized (this.startupShutdownMonitor) {
-			// Prepare this context for refreshing.
-			prepareRefresh();
+			StartupStep contextRefresh = this.applicationStartup.start("spring.context.refresh");
+			try {
+				// Prepare this context for refreshing.
+				prepareRefresh();
 
-			// Tell the subclass to refresh the internal bean factory.
-			//1、Bean资源定位
-			//2、bean资源的载入
-			//3、解析资源为BeanDefinition
-			//4、向DefaultListableBeanFactory注册BeanDefinition
-			ConfigurableListableBeanFactory beanFactory = obtainFreshBeanFactory();
+				// Tell the subclass to refresh the internal bean factory.
+				//1、Bean资源定位
+				//2、bean资源的载入
+				//3、解析资源为BeanDefinition
+				//4、向DefaultListableBeanFactory注册BeanDefinition
+				ConfigurableListableBeanFactory beanFactory = obtainFreshBeanFactory();
 
-			// Prepare the bean factory for use in this context.
-			//容器启动准备工作：配置classloader、propertyEditor和BeanPostProcessor；
-			//相反的，容器销毁时，有doClose()方法。
-			prepareBeanFactory(beanFactory);
+				// Prepare the bean factory for use in this context.
+				//容器启动准备工作：配置classloader、propertyEditor和BeanPostProcessor；
+				//相反的，容器销毁时，有doClose()方法。
+				prepareBeanFactory(beanFactory);
 
-			try {
-				// Allows post-processing of the bean factory in context subclasses.
-				postProcessBeanFactory(beanFactory);
+				try {
+					// Allows post-processing of the bean factory in context subclasses.
+					postProcessBeanFactory(beanFactory);
+
+					// Invoke factory processors registered as beans in the context.
+					// 执行有注册功能和没有注册功能的BeanFactoryPostProcessor；
+					// 有注册功能BeanFactoryPostProcessor提供注解驱动，注册Bean定义BeanDefinition
+					StartupStep beanPostProcess = this.applicationStartup.start("spring.context.beans.post-process");
+					try {
+						invokeBeanFactoryPostProcessors(beanFactory);
+					}
+					finally {
+						beanPostProcess.end();
+					}
 
-				// Invoke factory processors registered as beans in the context.
-				// 执行有注册功能和没有注册功能的BeanFactoryPostProcessor；
-				// 有注册功能BeanFactoryPostProcessor提供注解驱动，注册Bean定义BeanDefinition
-				invokeBeanFactoryPostProcessors(beanFactory);
+					// Register bean processors that intercept bean creation.
+					registerBeanPostProcessors(beanFactory);
 
-				// Register bean processors that intercept bean creation.
-				registerBeanPostProcessors(beanFactory);
+					// Initialize message source for this context.
+					initMessageSource();
 
-				// Initialize message source for this context.
-				initMessageSource();
+					// Initialize event multicaster for this context.
+					initApplicationEventMulticaster();
 
-				// Initialize event multicaster for this context.
-				initApplicationEventMulticaster();
+					// Initialize other special beans in specific context subclasses.
+					onRefresh();
 
-				// Initialize other special beans in specific context subclasses.
-				onRefresh();
+					// Check for listener beans and register them.
+					registerListeners();
 
-				// Check for listener beans and register them.
-				registerListeners();
+					// Instantiate all remaining (non-lazy-init) singletons.
+					//预实例化 lazy-init的处理
+					StartupStep beanInstantiation = this.applicationStartup.start("spring.context.beans.instantiate");
+					try {
+						finishBeanFactoryInitialization(beanFactory);
+					}
+					finally {
+						beanInstantiation.end();
+					}
 
-				// Instantiate all remaining (non-lazy-init) singletons.
-				//预实例化 lazy-init的处理
-				finishBeanFactoryInitialization(beanFactory);
+					// Last step: publish corresponding event.
+					finishRefresh();
+				}
 
-				// Last step: publish corresponding event.
-				finishRefresh();
-			}
+				catch (BeansException ex) {
+					if (logger.isWarnEnabled()) {
+						logger.warn("Exception encountered during context initialization - " +
+								"cancelling refresh attempt: " + ex);
+					}
 
-			catch (BeansException ex) {
-				if (logger.isWarnEnabled()) {
-					logger.warn("Exception encountered during context initialization - " +
-							"cancelling refresh attempt: " + ex);
-				}
+					// Destroy already created singletons to avoid dangling resources.
+					destroyBeans();
 
-				// Destroy already created singletons to avoid dangling resources.
-				destroyBeans();
+					// Reset 'active' flag.
+					cancelRefresh(ex);
 
-				// Reset 'active' flag.
-				cancelRefresh(ex);
+					// Propagate exception to caller.
+					throw ex;
+				}
 
-				// Propagate exception to caller.
-				throw ex;
+				finally {
+					// Reset common introspection caches in Spring's core, since we
+					// might not ever need metadata for singleton beans anymore...
+					resetCommonCaches();
+				}
 			}
-
 			finally {
-				// Reset common introspection caches in Spring's core, since we
-				// might not ever need metadata for singleton beans anymore...
-				resetCommonCaches();
+				contextRefresh.end();
 			}
 		}
 	}
@@ -615,6 +649,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	protected void prepareBeanFactory(ConfigurableListableBeanFactory beanFactory) {
 		// Tell the internal bean factory to use the context's class loader etc.
 		beanFactory.setBeanClassLoader(getClassLoader());
+		beanFactory.setApplicationStartup(getApplicationStartup());
 		beanFactory.setBeanExpressionResolver(new StandardBeanExpressionResolver(beanFactory.getBeanClassLoader()));
 		beanFactory.addPropertyEditorRegistrar(new ResourceEditorRegistrar(this, getEnvironment()));
 
@@ -655,6 +690,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		if (!beanFactory.containsLocalBean(SYSTEM_ENVIRONMENT_BEAN_NAME)) {
 			beanFactory.registerSingleton(SYSTEM_ENVIRONMENT_BEAN_NAME, getEnvironment().getSystemEnvironment());
 		}
+		if (!beanFactory.containsLocalBean(APPLICATION_STARTUP_BEAN_NAME)) {
+			beanFactory.registerSingleton(APPLICATION_STARTUP_BEAN_NAME, getApplicationStartup());
+		}
 	}
 
 	/**
@@ -221,11 +221,9 @@ public abstract class AbstractMessageSource extends MessageSourceSupport impleme
 			// are defined in the child MessageSource.
 			argsToUse = resolveArguments(args, locale);
 
-			MessageFormat messageFormat = resolveCode(code, locale);
-			if (messageFormat != null) {
-				synchronized (messageFormat) {
-					return messageFormat.format(argsToUse);
-				}
+			MessageTemplate messageTemplate = resolveTemplate(code, locale);
+			if (messageTemplate != null) {
+				return messageTemplate.format(argsToUse);
 			}
 		}
 
@@ -368,6 +366,25 @@ public abstract class AbstractMessageSource extends MessageSourceSupport impleme
 		return null;
 	}
 
+	/**
+	 * Resolve the given message code into a {@link MessageTemplate}
+	 * for formatting it with arguments.
+	 * <p>The default implementation wraps the {@code MessageFormat} returned by
+	 * {@link #resolveCode}, formatting through it with synchronization. Subclasses
+	 * are encouraged to return cached, {@link MessageTemplate#compile compiled}
+	 * templates instead, which format without any locking.
+	 * @param code the code of the message to resolve
+	 * @param locale the locale to resolve the code for
+	 * @return the MessageTemplate for the message, or {@code null} if not found
+	 * @since 5.1
+	 * @see ReloadableResourceBundleMessageSource#resolveTemplate
+	 */
+	@Nullable
+	protected MessageTemplate resolveTemplate(String code, Locale locale) {
+		MessageFormat messageFormat = resolveCode(code, locale);
+		return (messageFormat != null ? MessageTemplate.forMessageFormat(messageFormat) : null);
+	}
+
 	/**
 	 * Subclasses must implement this method to resolve a message.
 	 * <p>Returns a MessageFormat instance rather than a message String,
@@ -0,0 +1,441 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.support;
+
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.Format;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Immutable, thread-safe message template, formatting arguments like a
+ * {@link MessageFormat} for the same pattern and locale would, without
+ * synchronizing on a shared {@code MessageFormat} instance.
+ *
+ * <p>The pattern is parsed once, by {@code MessageFormat} itself, into literal
+ * text and argument segments. Dates get formatted through cached
+ * {@link DateTimeFormatter DateTimeFormatters} equivalent to the date formats of
+ * the {@code MessageFormat}, numbers through a per-thread copy of the respective
+ * number format. Templates with other kinds of formats, e.g. choice formats, keep
+ * using the {@code MessageFormat} for formatting, synchronized as usual.
+ *
+ * @since 5.1
+ * @see ReloadableResourceBundleMessageSource
+ * @see AbstractMessageSource#resolveTemplate
+ */
+public final class MessageTemplate {
+
+	// Private-use characters marking the position of arguments in a rendered message
+	private static final char MARKER_START = '\uE000';
+
+	private static final char MARKER_END = '\uE001';
+
+	// Pattern letters with the same meaning for SimpleDateFormat and DateTimeFormatter
+	private static final String COMPATIBLE_DATE_PATTERN_LETTERS = "GyMdEaHhKkmsz";
+
+	// Characters reserved by DateTimeFormatter but literal text for SimpleDateFormat
+	private static final String RESERVED_DATE_PATTERN_CHARS = "[]{}#";
+
+	private static final Map<Locale, ArgumentFormatter> defaultDateFormatters = new ConcurrentReferenceHashMap<>();
+
+	private static final Map<Locale, ArgumentFormatter> defaultNumberFormatters = new ConcurrentReferenceHashMap<>();
+
+
+	@Nullable
+	private final Segment[] segments;
+
+	@Nullable
+	private final MessageFormat messageFormat;
+
+	private final int estimatedLength;
+
+
+	private MessageTemplate(Segment[] segments, int estimatedLength) {
+		this.segments = segments;
+		this.messageFormat = null;
+		this.estimatedLength = estimatedLength;
+	}
+
+	private MessageTemplate(MessageFormat messageFormat) {
+		this.segments = null;
+		this.messageFormat = messageFormat;
+		this.estimatedLength = 0;
+	}
+
+
+	/**
+	 * Format the given arguments into the message.
+	 * @param args the arguments to fill in for the placeholders,
+	 * or {@code null} if none
+	 * @return the formatted message
+	 * @throws IllegalArgumentException if an argument does not fit its format,
+	 * e.g. a String for a number placeholder
+	 * @see MessageFormat#format(Object)
+	 */
+	public String format(@Nullable Object[] args) {
+		if (this.segments == null) {
+			MessageFormat messageFormat = this.messageFormat;
+			synchronized (messageFormat) {
+				return messageFormat.format(args != null ? args : new Object[0]);
+			}
+		}
+		StringBuilder builder = new StringBuilder(this.estimatedLength);
+		for (Segment segment : this.segments) {
+			segment.appendTo(builder, args);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Return whether this template formats without synchronization,
+	 * as opposed to delegating to a {@code MessageFormat}.
+	 */
+	public boolean isCompiled() {
+		return (this.segments != null);
+	}
+
+
+	/**
+	 * Compile a template for the given message pattern and locale.
+	 * @param pattern the pattern in {@link MessageFormat} syntax
+	 * @param locale the locale to format arguments for
+	 * @return the template
+	 * @throws IllegalArgumentException if the pattern is invalid
+	 */
+	public static MessageTemplate compile(String pattern, Locale locale) {
+		return compile(new MessageFormat(pattern, locale));
+	}
+
+	/**
+	 * Compile a template from the given {@code MessageFormat}.
+	 * <p>The {@code MessageFormat} must not be modified afterwards.
+	 * @param messageFormat the {@code MessageFormat} to take the pattern,
+	 * locale and argument formats from
+	 * @return the template
+	 */
+	public static MessageTemplate compile(MessageFormat messageFormat) {
+		Locale locale = messageFormat.getLocale();
+		Format[] formats = messageFormat.getFormats();
+		ArgumentFormatter[] formatters = new ArgumentFormatter[formats.length];
+		for (int i = 0; i < formats.length; i++) {
+			ArgumentFormatter formatter = (locale != null ? createFormatter(formats[i], locale) : null);
+			if (formatter == null) {
+				return new MessageTemplate(messageFormat);
+			}
+			formatters[i] = formatter;
+		}
+
+		// Let MessageFormat reveal the literal text and the order of arguments
+		MessageFormat plainFormat = (MessageFormat) messageFormat.clone();
+		plainFormat.setFormats(new Format[formats.length]);
+		String plainPattern = plainFormat.toPattern();
+		if (plainPattern.indexOf(MARKER_START) != -1 || plainPattern.indexOf(MARKER_END) != -1) {
+			return new MessageTemplate(messageFormat);
+		}
+		int argumentCount = plainFormat.getFormatsByArgumentIndex().length;
+		Object[] markers = new Object[argumentCount];
+		for (int i = 0; i < argumentCount; i++) {
+			markers[i] = MARKER_START + Integer.toString(i) + MARKER_END;
+		}
+		String rendered = plainFormat.format(markers);
+
+		List<Segment> segments = new ArrayList<>(formats.length * 2 + 1);
+		int literalLength = 0;
+		int position = 0;
+		int formatIndex = 0;
+		int start;
+		while ((start = rendered.indexOf(MARKER_START, position)) != -1) {
+			int end = rendered.indexOf(MARKER_END, start);
+			if (start > position) {
+				segments.add(new LiteralSegment(rendered.substring(position, start)));
+				literalLength += start - position;
+			}
+			int argumentIndex = Integer.parseInt(rendered.substring(start + 1, end));
+			segments.add(new ArgumentSegment(argumentIndex, formatters[formatIndex++]));
+			position = end + 1;
+		}
+		if (position < rendered.length()) {
+			segments.add(new LiteralSegment(rendered.substring(position)));
+			literalLength += rendered.length() - position;
+		}
+		return new MessageTemplate(segments.toArray(new Segment[0]), literalLength + 16 * formats.length);
+	}
+
+	/**
+	 * Create a template formatting through the given {@code MessageFormat},
+	 * with synchronization, without compiling it.
+	 * @param messageFormat the {@code MessageFormat} to delegate to
+	 * @return the template
+	 */
+	static MessageTemplate forMessageFormat(MessageFormat messageFormat) {
+		return new MessageTemplate(messageFormat);
+	}
+
+	/**
+	 * Create a thread-safe formatter equivalent to the given argument format.
+	 * @return the formatter, or {@code null} if not supported
+	 */
+	@Nullable
+	private static ArgumentFormatter createFormatter(@Nullable Format format, Locale locale) {
+		if (format == null) {
+			return new DefaultFormatter(locale);
+		}
+		if (format.getClass() == DecimalFormat.class) {
+			return new PerThreadFormatter(format);
+		}
+		if (format instanceof SimpleDateFormat) {
+			SimpleDateFormat dateFormat = (SimpleDateFormat) format;
+			return createDateFormatter(dateFormat, locale, dateFormat.getTimeZone().toZoneId());
+		}
+		return null;
+	}
+
+	/**
+	 * Create a {@link DateFormatter} equivalent to the given date format.
+	 * @param zoneId the time zone to format in, or {@code null} for the
+	 * JVM default time zone at the time of formatting
+	 * @return the formatter, or {@code null} if not supported
+	 */
+	@Nullable
+	private static ArgumentFormatter createDateFormatter(
+			SimpleDateFormat dateFormat, Locale locale, @Nullable ZoneId zoneId) {
+
+		if (dateFormat.getClass() != SimpleDateFormat.class ||
+				dateFormat.getCalendar().getClass() != GregorianCalendar.class) {
+			return null;
+		}
+		String pattern = dateFormat.toPattern();
+		StringBuilder converted = new StringBuilder(pattern.length() + 8);
+		boolean quoted = false;
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = pattern.charAt(i);
+			if (c == '\'') {
+				quoted = !quoted;
+			}
+			else if (!quoted && ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) &&
+					COMPATIBLE_DATE_PATTERN_LETTERS.indexOf(c) == -1) {
+				return null;
+			}
+			else if (!quoted && RESERVED_DATE_PATTERN_CHARS.indexOf(c) != -1) {
+				converted.append('\'').append(c).append('\'');
+				continue;
+			}
+			converted.append(c);
+		}
+		try {
+			return new DateFormatter(DateTimeFormatter.ofPattern(converted.toString(), locale), zoneId);
+		}
+		catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+
+	private static ArgumentFormatter getDefaultDateFormatter(Locale locale) {
+		ArgumentFormatter formatter = defaultDateFormatters.get(locale);
+		if (formatter == null) {
+			// Shared across time zones: always format in the current JVM default time zone.
+			DateFormat dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale);
+			formatter = (dateFormat instanceof SimpleDateFormat ?
+					createDateFormatter((SimpleDateFormat) dateFormat, locale, null) : null);
+			if (formatter == null) {
+				formatter = new PerThreadFormatter(dateFormat, true);
+			}
+			defaultDateFormatters.put(locale, formatter);
+		}
+		return formatter;
+	}
+
+	private static ArgumentFormatter getDefaultNumberFormatter(Locale locale) {
+		return defaultNumberFormatters.computeIfAbsent(locale, key -> new PerThreadFormatter(NumberFormat.getInstance(key)));
+	}
+
+
+	/**
+	 * Part of a compiled message.
+	 */
+	private interface Segment {
+
+		void appendTo(StringBuilder builder, @Nullable Object[] args);
+	}
+
+
+	/**
+	 * Literal text, with quotes already resolved.
+	 */
+	private static final class LiteralSegment implements Segment {
+
+		private final String text;
+
+		LiteralSegment(String text) {
+			this.text = text;
+		}
+
+		@Override
+		public void appendTo(StringBuilder builder, @Nullable Object[] args) {
+			builder.append(this.text);
+		}
+	}
+
+
+	/**
+	 * Placeholder for an argument.
+	 */
+	private static final class ArgumentSegment implements Segment {
+
+		private final int index;
+
+		private final ArgumentFormatter formatter;
+
+		ArgumentSegment(int index, ArgumentFormatter formatter) {
+			this.index = index;
+			this.formatter = formatter;
+		}
+
+		@Override
+		public void appendTo(StringBuilder builder, @Nullable Object[] args) {
+			if (args == null || this.index >= args.length) {
+				// Like MessageFormat: leave the placeholder in place
+				builder.append('{').append(this.index).append('}');
+			}
+			else if (args[this.index] == null) {
+				builder.append("null");
+			}
+			else {
+				this.formatter.appendTo(builder, args[this.index]);
+			}
+		}
+	}
+
+
+	/**
+	 * Formats a single non-null argument.
+	 */
+	@FunctionalInterface
+	private interface ArgumentFormatter {
+
+		void appendTo(StringBuilder builder, Object arg);
+	}
+
+
+	/**
+	 * Formats an argument without an explicit format like MessageFormat does.
+	 */
+	private static final class DefaultFormatter implements ArgumentFormatter {
+
+		private final Locale locale;
+
+		DefaultFormatter(Locale locale) {
+			this.locale = locale;
+		}
+
+		@Override
+		public void appendTo(StringBuilder builder, Object arg) {
+			if (arg instanceof String) {
+				builder.append((String) arg);
+			}
+			else if (arg instanceof Number) {
+				getDefaultNumberFormatter(this.locale).appendTo(builder, arg);
+			}
+			else if (arg instanceof Date) {
+				getDefaultDateFormatter(this.locale).appendTo(builder, arg);
+			}
+			else {
+				builder.append(arg.toString());
+			}
+		}
+	}
+
+
+	/**
+	 * Formats dates through an equivalent {@link DateTimeFormatter}.
+	 */
+	private static final class DateFormatter implements ArgumentFormatter {
+
+		private final DateTimeFormatter formatter;
+
+		@Nullable
+		private final ZoneId zoneId;
+
+		DateFormatter(DateTimeFormatter formatter, @Nullable ZoneId zoneId) {
+			this.formatter = formatter;
+			this.zoneId = zoneId;
+		}
+
+		@Override
+		public void appendTo(StringBuilder builder, Object arg) {
+			Instant instant;
+			if (arg instanceof Date) {
+				instant = ((Date) arg).toInstant();
+			}
+			else if (arg instanceof Number) {
+				instant = Instant.ofEpochMilli(((Number) arg).longValue());
+			}
+			else {
+				throw new IllegalArgumentException("Cannot format given Object as a Date");
+			}
+			ZoneId zoneId = (this.zoneId != null ? this.zoneId : ZoneId.systemDefault());
+			this.formatter.formatTo(instant.atZone(zoneId), builder);
+		}
+	}
+
+
+	/**
+	 * Formats through a per-thread copy of a non-thread-safe format,
+	 * e.g. a {@link DecimalFormat}.
+	 */
+	private static final class PerThreadFormatter implements ArgumentFormatter {
+
+		private final ThreadLocal<Format> format;
+
+		private final boolean defaultTimeZone;
+
+		PerThreadFormatter(Format format) {
+			this(format, false);
+		}
+
+		PerThreadFormatter(Format format, boolean defaultTimeZone) {
+			Format original = (Format) format.clone();
+			this.format = ThreadLocal.withInitial(() -> (Format) original.clone());
+			this.defaultTimeZone = defaultTimeZone;
+		}
+
+		@Override
+		public void appendTo(StringBuilder builder, Object arg) {
+			Format format = this.format.get();
+			if (this.defaultTimeZone) {
+				((DateFormat) format).setTimeZone(TimeZone.getDefault());
+			}
+			builder.append(format.format(arg));
+		}
+	}
+
+}
@@ -16,26 +16,47 @@
 
 package org.springframework.context.support;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.lang.Nullable;
 import org.springframework.util.DefaultPropertiesPersister;
 import org.springframework.util.PropertiesPersister;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.ResourceUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -70,6 +91,17 @@ import org.springframework.util.StringUtils;
  * simply getting overridden with the ApplicationContext's resource loader
  * if running in a context. It does not have any other specific dependencies.
  *
+ * <p>With {@link #setPreloadBundles "preloadBundles"} switched on and the default
+ * "cacheSeconds" value of -1, all bundle files get loaded on startup and messages
+ * get resolved from memory only afterwards, through compiled {@link MessageTemplate
+ * MessageTemplates} which do not require synchronization for formatting.
+ *
+ * <p>As an alternative to a positive "cacheSeconds" value, which checks the
+ * last-modified timestamp of the files during message resolution, changes can be
+ * picked up by a background thread via {@link #setWatchForChanges "watchForChanges"}
+ * for bundle files in the file system, replacing the cached properties once a file
+ * has changed while message resolution keeps reading from memory only.
+ *
  * <p>Thanks to Thomas Achleitner for providing the initial implementation of
  * this message source!
  *
@@ -86,12 +118,15 @@ import org.springframework.util.StringUtils;
  * @see java.util.ResourceBundle
  */
 public class ReloadableResourceBundleMessageSource extends AbstractResourceBasedMessageSource
-		implements ResourceLoaderAware {
+		implements ResourceLoaderAware, InitializingBean, DisposableBean {
 
 	private static final String PROPERTIES_SUFFIX = ".properties";
 
 	private static final String XML_SUFFIX = ".xml";
 
+	// Time to wait for further changes before reloading, e.g. for a file being rewritten
+	private static final long WATCH_SETTLE_MILLIS = 100;
+
 
 	@Nullable
 	private Properties fileEncodings;
@@ -102,6 +137,10 @@ public class ReloadableResourceBundleMessageSource extends AbstractResourceBased
 
 	private ResourceLoader resourceLoader = new DefaultResourceLoader();
 
+	private boolean preloadBundles = false;
+
+	private boolean watchForChanges = false;
+
 	// Cache to hold filename lists per Locale
 	private final ConcurrentMap<String, Map<Locale, List<String>>> cachedFilenames = new ConcurrentHashMap<>();
 
@@ -111,6 +150,22 @@ public class ReloadableResourceBundleMessageSource extends AbstractResourceBased
 	// Cache to hold already loaded properties per filename
 	private final ConcurrentMap<Locale, PropertiesHolder> cachedMergedProperties = new ConcurrentHashMap<>();
 
+	// Incremented whenever watched bundle files have been reloaded
+	private final AtomicInteger reloadCount = new AtomicInteger();
+
+	// Basenames whose files have all been found and loaded by preloadBundles()
+	private volatile Set<String> preloadedBasenames = Collections.emptySet();
+
+	// Filenames found for the preloaded basenames
+	private volatile Set<String> preloadedFilenames = Collections.emptySet();
+
+	@Nullable
+	private WatchService watchService;
+
+	// Whether a subclass overrides the resolution of message codes
+	private final boolean customResolution =
+			(isOverridden("resolveCode") || isOverridden("resolveCodeWithoutArguments"));
+
 
 	/**
 	 * Set per-file charsets to use for parsing properties files.
@@ -165,6 +220,294 @@ public class ReloadableResourceBundleMessageSource extends AbstractResourceBased
 		this.resourceLoader = (resourceLoader != null ? resourceLoader : new DefaultResourceLoader());
 	}
 
+	/**
+	 * Specify whether to load all bundle files for all locales on startup,
+	 * precompiling their messages into {@link MessageTemplate MessageTemplates}.
+	 * <p>Default is "false", loading each bundle file on first access.
+	 * Switch this flag to "true" in order to avoid any resource lookups at
+	 * request time: this requires the default "cacheSeconds" value of -1,
+	 * i.e. caching forever, since a refresh check touches the files again.
+	 * @since 5.1
+	 * @see #preloadBundles()
+	 * @see #setCacheSeconds
+	 */
+	public void setPreloadBundles(boolean preloadBundles) {
+		this.preloadBundles = preloadBundles;
+	}
+
+	/**
+	 * Specify whether to watch the directories of the bundle files for changes,
+	 * reloading changed files in a background thread.
+	 * <p>Default is "false". Switch this flag to "true" in order to pick up
+	 * changes without any file system access during message resolution:
+	 * the cached properties get replaced as a whole, with lookups always
+	 * seeing either the old or the new properties of a file.
+	 * <p>Requires the default "cacheSeconds" value of -1, i.e. caching forever
+	 * between changes, and bundle files in the file system: basenames which
+	 * resolve to a jar file entry or another kind of resource are not watched.
+	 * @since 5.1
+	 * @see #setCacheSeconds
+	 * @see java.nio.file.WatchService
+	 */
+	public void setWatchForChanges(boolean watchForChanges) {
+		this.watchForChanges = watchForChanges;
+	}
+
+
+	@Override
+	public void afterPropertiesSet() throws IOException {
+		if (this.watchForChanges) {
+			if (getCacheMillis() >= 0) {
+				throw new IllegalStateException(
+						"Watching for changes requires caching forever: set 'cacheSeconds' to -1");
+			}
+			startWatching();
+		}
+		if (this.preloadBundles) {
+			preloadBundles();
+		}
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		WatchService watchService = this.watchService;
+		if (watchService != null) {
+			this.watchService = null;
+			watchService.close();
+		}
+	}
+
+	/**
+	 * Register the directories of all basenames with a {@link WatchService}
+	 * and start a daemon thread processing its events.
+	 */
+	private void startWatching() throws IOException {
+		WatchService watchService = FileSystems.getDefault().newWatchService();
+		Map<WatchKey, List<String>> watchedBasenames = new HashMap<>();
+		Map<Path, WatchKey> watchKeys = new HashMap<>();
+		for (String basename : getBasenameSet()) {
+			String directory = basename.substring(0, getFilenameIndex(basename));
+			Path path;
+			try {
+				File file = this.resourceLoader.getResource(directory).getFile();
+				if (!file.isDirectory()) {
+					continue;
+				}
+				path = file.toPath();
+			}
+			catch (IOException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Cannot watch bundle files for basename [" + basename +
+							"] - not resolvable in the file system", ex);
+				}
+				continue;
+			}
+			WatchKey watchKey = watchKeys.get(path);
+			if (watchKey == null) {
+				watchKey = path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+				watchKeys.put(path, watchKey);
+				watchedBasenames.put(watchKey, new ArrayList<>());
+			}
+			watchedBasenames.get(watchKey).add(basename);
+		}
+
+		if (watchKeys.isEmpty()) {
+			watchService.close();
+			return;
+		}
+		this.watchService = watchService;
+		Thread watchThread = new Thread(() -> watchForChanges(watchService, watchedBasenames));
+		watchThread.setName("MessageSource Watcher [" + StringUtils.collectionToCommaDelimitedString(getBasenameSet()) + "]");
+		watchThread.setDaemon(true);
+		watchThread.start();
+		if (logger.isDebugEnabled()) {
+			logger.debug("Watching bundle directories " + watchKeys.keySet() + " for changes");
+		}
+	}
+
+	private void watchForChanges(WatchService watchService, Map<WatchKey, List<String>> watchedBasenames) {
+		try {
+			while (true) {
+				Set<String> changedFilenames = new LinkedHashSet<>();
+				WatchKey watchKey = watchService.take();
+				while (watchKey != null) {
+					List<String> basenames = watchedBasenames.get(watchKey);
+					for (WatchEvent<?> event : watchKey.pollEvents()) {
+						if (basenames != null && event.context() instanceof Path) {
+							try {
+								String changedFilename = determineBundleFilename(basenames, event.context().toString());
+								if (changedFilename != null) {
+									changedFilenames.add(changedFilename);
+								}
+							}
+							catch (RuntimeException ex) {
+								logger.warn("Could not process change event for file [" + event.context() + "]", ex);
+							}
+						}
+					}
+					watchKey.reset();
+					// Collect further changes until the files have settled.
+					watchKey = watchService.poll(WATCH_SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+				}
+				if (!changedFilenames.isEmpty()) {
+					// Keep watching for further changes if reloading fails.
+					try {
+						reloadProperties(changedFilenames);
+					}
+					catch (RuntimeException ex) {
+						logger.warn("Could not reload properties for files " + changedFilenames, ex);
+					}
+				}
+			}
+		}
+		catch (ClosedWatchServiceException | InterruptedException ex) {
+			// Shut down.
+		}
+	}
+
+	/**
+	 * Determine the bundle filename (basename + Locale) for the given file
+	 * in the directory of the given basenames, if it is a bundle file.
+	 */
+	@Nullable
+	private String determineBundleFilename(List<String> basenames, String resourceFilename) {
+		String name;
+		if (resourceFilename.endsWith(PROPERTIES_SUFFIX)) {
+			name = resourceFilename.substring(0, resourceFilename.length() - PROPERTIES_SUFFIX.length());
+		}
+		else if (resourceFilename.endsWith(XML_SUFFIX)) {
+			name = resourceFilename.substring(0, resourceFilename.length() - XML_SUFFIX.length());
+		}
+		else {
+			return null;
+		}
+		for (String basename : basenames) {
+			String simpleName = basename.substring(getFilenameIndex(basename));
+			if (name.equals(simpleName) || name.startsWith(simpleName + "_")) {
+				return basename + name.substring(simpleName.length());
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reload the given bundle files, and replace the merged properties
+	 * cached for each Locale with a freshly merged snapshot.
+	 */
+	private void reloadProperties(Set<String> filenames) {
+		Set<String> preloadedFilenames = this.preloadedFilenames;
+		if (!preloadedFilenames.isEmpty() && !preloadedFilenames.containsAll(filenames)) {
+			Set<String> knownFilenames = new LinkedHashSet<>(preloadedFilenames);
+			knownFilenames.addAll(filenames);
+			this.preloadedFilenames = knownFilenames;
+		}
+		for (String filename : filenames) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Reloading properties for filename [" + filename + "] - file has been modified");
+			}
+			refreshProperties(filename, null);
+		}
+		this.reloadCount.incrementAndGet();
+		for (Locale locale : this.cachedMergedProperties.keySet()) {
+			this.cachedMergedProperties.put(locale, mergeProperties(locale));
+		}
+	}
+
+	/**
+	 * Load the bundle files for all locales that can be found for the
+	 * specified basenames, and precompile their messages.
+	 * <p>Locale-specific files are found through a {@link ResourcePatternResolver}
+	 * search for "basename_*.properties" and "basename_*.xml", across all class path
+	 * locations for a "classpath:" basename. For "classpath:" and "file:" basenames,
+	 * subsequent lookups of other files will not touch any resources anymore if
+	 * caching forever, treating them as not found; files for other basenames, e.g.
+	 * relative to a web application root, get looked up as usual since the search
+	 * may not be able to find them all.
+	 * @throws IOException if the search for bundle files failed
+	 * @since 5.1
+	 * @see #setPreloadBundles
+	 */
+	public void preloadBundles() throws IOException {
+		ResourcePatternResolver resolver = (this.resourceLoader instanceof ResourcePatternResolver ?
+				(ResourcePatternResolver) this.resourceLoader :
+				new PathMatchingResourcePatternResolver(this.resourceLoader));
+		Set<String> basenames = new LinkedHashSet<>(getBasenameSet());
+		Set<String> filenames = new LinkedHashSet<>();
+		Set<Locale> locales = new LinkedHashSet<>();
+		if (isFallbackToSystemLocale()) {
+			locales.add(Locale.getDefault());
+		}
+
+		Set<String> searchedBasenames = new LinkedHashSet<>();
+		for (String basename : basenames) {
+			String searchBasename = basename;
+			if (basename.startsWith(ResourceLoader.CLASSPATH_URL_PREFIX)) {
+				searchBasename = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
+						basename.substring(ResourceLoader.CLASSPATH_URL_PREFIX.length());
+				searchedBasenames.add(basename);
+			}
+			else if (basename.startsWith(ResourceUtils.FILE_URL_PREFIX)) {
+				searchedBasenames.add(basename);
+			}
+			String prefix = basename.substring(getFilenameIndex(basename)) + "_";
+			for (String suffix : new String[] {PROPERTIES_SUFFIX, XML_SUFFIX}) {
+				for (Resource resource : resolver.getResources(searchBasename + "_*" + suffix)) {
+					String resourceFilename = resource.getFilename();
+					if (resourceFilename == null || !resourceFilename.startsWith(prefix) ||
+							!resourceFilename.endsWith(suffix) || !resource.exists()) {
+						continue;
+					}
+					String localePart = resourceFilename.substring(
+							prefix.length(), resourceFilename.length() - suffix.length());
+					Locale locale = StringUtils.parseLocaleString(localePart);
+					String filename = basename + "_" + localePart;
+					if (locale != null && calculateFilenamesForLocale(basename, locale).contains(filename)) {
+						filenames.add(filename);
+						locales.add(locale);
+					}
+				}
+			}
+			filenames.add(basename);
+		}
+
+		for (String filename : filenames) {
+			getProperties(filename);
+		}
+		this.preloadedFilenames = filenames;
+		this.preloadedBasenames = searchedBasenames;
+
+		for (Locale locale : locales) {
+			if (getCacheMillis() < 0) {
+				precompileTemplates(getMergedProperties(locale), locale);
+			}
+			else {
+				for (String basename : basenames) {
+					for (String filename : calculateAllFilenames(basename, locale)) {
+						precompileTemplates(getProperties(filename), locale);
+					}
+				}
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Preloaded " + filenames.size() + " bundle files for locales " + locales);
+		}
+	}
+
+	private void precompileTemplates(PropertiesHolder propHolder, Locale locale) {
+		Properties props = propHolder.getProperties();
+		if (props != null) {
+			for (String code : props.stringPropertyNames()) {
+				try {
+					propHolder.getMessageTemplate(code, locale);
+				}
+				catch (IllegalArgumentException ex) {
+					// Not a valid MessageFormat pattern: only resolvable without arguments.
+				}
+			}
+		}
+	}
+
 
 	/**
 	 * Resolves the given message code as key in the retrieved bundle files,
@@ -194,6 +537,43 @@ public class ReloadableResourceBundleMessageSource extends AbstractResourceBased
 		return null;
 	}
 
+	/**
+	 * Resolves the given message code as key in the retrieved bundle files,
+	 * using a cached compiled MessageTemplate instance per message code.
+	 * <p>If a subclass overrides {@link #resolveCode} or
+	 * {@link #resolveCodeWithoutArguments}, messages get resolved through
+	 * {@code resolveCode} instead, as in previous versions.
+	 * @since 5.1
+	 */
+	@Override
+	@Nullable
+	protected MessageTemplate resolveTemplate(String code, Locale locale) {
+		if (this.customResolution) {
+			// Let a subclass-specific resolveCode implementation apply
+			return super.resolveTemplate(code, locale);
+		}
+		if (getCacheMillis() < 0) {
+			PropertiesHolder propHolder = getMergedProperties(locale);
+			MessageTemplate result = propHolder.getMessageTemplate(code, locale);
+			if (result != null) {
+				return result;
+			}
+		}
+		else {
+			for (String basename : getBasenameSet()) {
+				List<String> filenames = calculateAllFilenames(basename, locale);
+				for (String filename : filenames) {
+					PropertiesHolder propHolder = getProperties(filename);
+					MessageTemplate result = propHolder.getMessageTemplate(code, locale);
+					if (result != null) {
+						return result;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Resolves the given message code as key in the retrieved bundle files,
 	 * using a cached MessageFormat instance per message code.
@@ -237,6 +617,25 @@ public class ReloadableResourceBundleMessageSource extends AbstractResourceBased
 		if (mergedHolder != null) {
 			return mergedHolder;
 		}
+		while (true) {
+			int reloadCount = this.reloadCount.get();
+			mergedHolder = mergeProperties(locale);
+			PropertiesHolder existing = this.cachedMergedProperties.putIfAbsent(locale, mergedHolder);
+			if (existing != null) {
+				return existing;
+			}
+			if (this.reloadCount.get() == reloadCount) {
+				return mergedHolder;
+			}
+			// Bundle files reloaded in the meantime, possibly missing our snapshot: merge again
+			this.cachedMergedProperties.remove(locale, mergedHolder);
+		}
+	}
+
+	/**
+	 * Merge the properties of all specified resource bundles for the given Locale.
+	 */
+	private PropertiesHolder mergeProperties(Locale locale) {
 		Properties mergedProps = newProperties();
 		long latestTimestamp = -1;
 		String[] basenames = StringUtils.toStringArray(getBasenameSet());
@@ -253,12 +652,7 @@ public class ReloadableResourceBundleMessageSource extends AbstractResourceBased
 				}
 			}
 		}
-		mergedHolder = new PropertiesHolder(mergedProps, latestTimestamp);
-		PropertiesHolder existing = this.cachedMergedProperties.putIfAbsent(locale, mergedHolder);
-		if (existing != null) {
-			mergedHolder = existing;
-		}
-		return mergedHolder;
+		return new PropertiesHolder(mergedProps, latestTimestamp);
 	}
 
 	/**
@@ -399,6 +793,14 @@ public class ReloadableResourceBundleMessageSource extends AbstractResourceBased
 	protected PropertiesHolder refreshProperties(String filename, @Nullable PropertiesHolder propHolder) {
 		long refreshTimestamp = (getCacheMillis() < 0 ? -1 : System.currentTimeMillis());
 
+		if (refreshTimestamp == -1 && isKnownToBeMissing(filename)) {
+			// Preloaded basename without such a file: no need to check resources.
+			propHolder = new PropertiesHolder();
+			propHolder.setRefreshTimestamp(refreshTimestamp);
+			this.cachedProperties.put(filename, propHolder);
+			return propHolder;
+		}
+
 		Resource resource = this.resourceLoader.getResource(filename + PROPERTIES_SUFFIX);
 		if (!resource.exists()) {
 			resource = this.resourceLoader.getResource(filename + XML_SUFFIX);
@@ -453,6 +855,38 @@ public class ReloadableResourceBundleMessageSource extends AbstractResourceBased
 		return propHolder;
 	}
 
+	/**
+	 * Determine the start of the filename within the given basename,
+	 * after its directory and resource prefix such as "classpath:".
+	 */
+	private static int getFilenameIndex(String basename) {
+		return Math.max(basename.lastIndexOf('/'), basename.indexOf(':')) + 1;
+	}
+
+	/**
+	 * Determine whether the given resolution method is overridden in a subclass.
+	 */
+	private boolean isOverridden(String methodName) {
+		Method method = ReflectionUtils.findMethod(getClass(), methodName, String.class, Locale.class);
+		return (method != null && method.getDeclaringClass() != ReloadableResourceBundleMessageSource.class);
+	}
+
+	/**
+	 * Determine whether the given bundle filename belongs to a preloaded
+	 * basename but has not been found when preloading.
+	 */
+	private boolean isKnownToBeMissing(String filename) {
+		if (this.preloadedFilenames.contains(filename)) {
+			return false;
+		}
+		for (String basename : this.preloadedBasenames) {
+			if (filename.startsWith(basename + "_")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Load the properties from the given resource.
 	 * @param resource the resource to load from
@@ -517,6 +951,8 @@ public class ReloadableResourceBundleMessageSource extends AbstractResourceBased
 		logger.debug("Clearing entire resource bundle cache");
 		this.cachedProperties.clear();
 		this.cachedMergedProperties.clear();
+		this.preloadedBasenames = Collections.emptySet();
+		this.preloadedFilenames = Collections.emptySet();
 	}
 
 	/**
@@ -558,6 +994,10 @@ public class ReloadableResourceBundleMessageSource extends AbstractResourceBased
 		private final ConcurrentMap<String, Map<Locale, MessageFormat>> cachedMessageFormats =
 				new ConcurrentHashMap<>();
 
+		/** Cache to hold already compiled MessageTemplates per message code */
+		private final ConcurrentMap<String, Map<Locale, MessageTemplate>> cachedMessageTemplates =
+				new ConcurrentHashMap<>();
+
 		public PropertiesHolder() {
 			this.properties = null;
 			this.fileTimestamp = -1;
@@ -620,6 +1060,38 @@ public class ReloadableResourceBundleMessageSource extends AbstractResourceBased
 			}
 			return null;
 		}
+
+		/**
+		 * Return a compiled template for the given message code and locale.
+		 * @since 5.1
+		 */
+		@Nullable
+		public MessageTemplate getMessageTemplate(String code, Locale locale) {
+			if (this.properties == null) {
+				return null;
+			}
+			Map<Locale, MessageTemplate> localeMap = this.cachedMessageTemplates.get(code);
+			if (localeMap != null) {
+				MessageTemplate result = localeMap.get(locale);
+				if (result != null) {
+					return result;
+				}
+			}
+			String msg = this.properties.getProperty(code);
+			if (msg != null) {
+				if (localeMap == null) {
+					localeMap = new ConcurrentHashMap<>();
+					Map<Locale, MessageTemplate> existing = this.cachedMessageTemplates.putIfAbsent(code, localeMap);
+					if (existing != null) {
+						localeMap = existing;
+					}
+				}
+				MessageTemplate result = MessageTemplate.compile(createMessageFormat(msg, locale));
+				localeMap.put(locale, result);
+				return result;
+			}
+			return null;
+		}
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import java.util.EnumMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.format.Formatter;
 import org.springframework.format.annotation.DateTimeFormat.ISO;
@@ -35,6 +36,9 @@ import org.springframework.util.StringUtils;
  * A formatter for {@link java.util.Date} types.
  * Allows the configuration of an explicit date pattern and locale.
  *
+ * <p>The underlying DateFormat is created once per locale and cloned for
+ * every print and parse call, since it is not thread-safe.
+ *
  * @author Keith Donald
  * @author Juergen Hoeller
  * @author Phillip Webb
@@ -72,6 +76,9 @@ public class DateFormatter implements Formatter<Date> {
 
 	private boolean lenient = false;
 
+	/** Prototype DateFormat per Locale, never handed out directly */
+	private final Map<Locale, DateFormat> dateFormatCache = new ConcurrentHashMap<>(4);
+
 
 	/**
 	 * Create a new default DateFormatter.
@@ -93,6 +100,7 @@ public class DateFormatter implements Formatter<Date> {
 	 */
 	public void setPattern(String pattern) {
 		this.pattern = pattern;
+		this.dateFormatCache.clear();
 	}
 
 	/**
@@ -102,6 +110,7 @@ public class DateFormatter implements Formatter<Date> {
 	 */
 	public void setIso(ISO iso) {
 		this.iso = iso;
+		this.dateFormatCache.clear();
 	}
 
 	/**
@@ -115,6 +124,7 @@ public class DateFormatter implements Formatter<Date> {
 	 */
 	public void setStyle(int style) {
 		this.style = style;
+		this.dateFormatCache.clear();
 	}
 
 	/**
@@ -133,6 +143,7 @@ public class DateFormatter implements Formatter<Date> {
 	 */
 	public void setStylePattern(String stylePattern) {
 		this.stylePattern = stylePattern;
+		this.dateFormatCache.clear();
 	}
 
 	/**
@@ -140,6 +151,7 @@ public class DateFormatter implements Formatter<Date> {
 	 */
 	public void setTimeZone(TimeZone timeZone) {
 		this.timeZone = timeZone;
+		this.dateFormatCache.clear();
 	}
 
 	/**
@@ -149,6 +161,7 @@ public class DateFormatter implements Formatter<Date> {
 	 */
 	public void setLenient(boolean lenient) {
 		this.lenient = lenient;
+		this.dateFormatCache.clear();
 	}
 
 
@@ -164,6 +177,24 @@ public class DateFormatter implements Formatter<Date> {
 
 
 	protected DateFormat getDateFormat(Locale locale) {
+		DateFormat dateFormat = this.dateFormatCache.get(locale);
+		if (dateFormat == null) {
+			dateFormat = buildDateFormat(locale);
+			this.dateFormatCache.put(locale, dateFormat);
+		}
+		DateFormat clone = (DateFormat) dateFormat.clone();
+		if (this.timeZone == null && !isIsoFormat()) {
+			// The JVM default time zone might have changed since the prototype was built.
+			clone.setTimeZone(TimeZone.getDefault());
+		}
+		return clone;
+	}
+
+	private boolean isIsoFormat() {
+		return (!StringUtils.hasLength(this.pattern) && this.iso != null && this.iso != ISO.NONE);
+	}
+
+	private DateFormat buildDateFormat(Locale locale) {
 		DateFormat dateFormat = createDateFormat(locale);
 		if (this.timeZone != null) {
 			dateFormat.setTimeZone(this.timeZone);
@@ -176,7 +207,7 @@ public class DateFormatter implements Formatter<Date> {
 		if (StringUtils.hasLength(this.pattern)) {
 			return new SimpleDateFormat(this.pattern, locale);
 		}
-		if (this.iso != null && this.iso != ISO.NONE) {
+		if (isIsoFormat()) {
 			String pattern = ISO_PATTERNS.get(this.iso);
 			if (pattern == null) {
 				throw new IllegalStateException("Unsupported ISO format " + this.iso);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,9 @@ import java.text.NumberFormat;
 import java.text.ParseException;
 import java.text.ParsePosition;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.springframework.format.Formatter;
 
@@ -27,6 +30,9 @@ import org.springframework.format.Formatter;
  * Abstract formatter for Numbers,
  * providing a {@link #getNumberFormat(java.util.Locale)} template method.
  *
+ * <p>The concrete formatters in this package create their NumberFormat once
+ * per locale and hand out a clone of it for every print and parse call.
+ *
  * @author Juergen Hoeller
  * @author Keith Donald
  * @since 3.0
@@ -35,6 +41,9 @@ public abstract class AbstractNumberFormatter implements Formatter<Number> {
 
 	private boolean lenient = false;
 
+	/** Prototype NumberFormat per Locale, never handed out directly */
+	private final Map<Locale, NumberFormat> numberFormatCache = new ConcurrentHashMap<>(4);
+
 
 	/**
 	 * Specify whether or not parsing is to be lenient. Default is false.
@@ -75,4 +84,31 @@ public abstract class AbstractNumberFormatter implements Formatter<Number> {
 	 */
 	protected abstract NumberFormat getNumberFormat(Locale locale);
 
+	/**
+	 * Return a copy of the NumberFormat that the given factory creates for the
+	 * specified locale. The factory is only called once per locale: cloning the
+	 * kept prototype is considerably cheaper than locale lookup and pattern parsing,
+	 * and each caller still gets an instance of its own since NumberFormat is not
+	 * thread-safe.
+	 * @since 5.1
+	 * @see #clearNumberFormatCache()
+	 */
+	NumberFormat getCachedNumberFormat(Locale locale, Function<Locale, NumberFormat> factory) {
+		NumberFormat format = this.numberFormatCache.get(locale);
+		if (format == null) {
+			format = factory.apply(locale);
+			this.numberFormatCache.put(locale, format);
+		}
+		return (NumberFormat) format.clone();
+	}
+
+	/**
+	 * Discard the cached NumberFormat prototypes, to be called
+	 * whenever a setting that affects them changes.
+	 * @since 5.1
+	 */
+	void clearNumberFormatCache() {
+		this.numberFormatCache.clear();
+	}
+
 }
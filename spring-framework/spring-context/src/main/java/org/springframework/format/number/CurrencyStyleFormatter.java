@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -59,6 +59,7 @@ public class CurrencyStyleFormatter extends AbstractNumberFormatter {
 	 */
 	public void setFractionDigits(int fractionDigits) {
 		this.fractionDigits = fractionDigits;
+		clearNumberFormatCache();
 	}
 
 	/**
@@ -67,6 +68,7 @@ public class CurrencyStyleFormatter extends AbstractNumberFormatter {
 	 */
 	public void setRoundingMode(RoundingMode roundingMode) {
 		this.roundingMode = roundingMode;
+		clearNumberFormatCache();
 	}
 
 	/**
@@ -74,6 +76,7 @@ public class CurrencyStyleFormatter extends AbstractNumberFormatter {
 	 */
 	public void setCurrency(Currency currency) {
 		this.currency = currency;
+		clearNumberFormatCache();
 	}
 
 	/**
@@ -83,6 +86,7 @@ public class CurrencyStyleFormatter extends AbstractNumberFormatter {
 	 */
 	public void setPattern(String pattern) {
 		this.pattern = pattern;
+		clearNumberFormatCache();
 	}
 
 
@@ -100,6 +104,10 @@ public class CurrencyStyleFormatter extends AbstractNumberFormatter {
 
 	@Override
 	protected NumberFormat getNumberFormat(Locale locale) {
+		return getCachedNumberFormat(locale, this::createNumberFormat);
+	}
+
+	private NumberFormat createNumberFormat(Locale locale) {
 		DecimalFormat format = (DecimalFormat) NumberFormat.getCurrencyInstance(locale);
 		format.setParseBigDecimal(true);
 		format.setMaximumFractionDigits(this.fractionDigits);
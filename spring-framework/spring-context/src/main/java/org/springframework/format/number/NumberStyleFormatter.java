@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -65,11 +65,16 @@ public class NumberStyleFormatter extends AbstractNumberFormatter {
 	 */
 	public void setPattern(String pattern) {
 		this.pattern = pattern;
+		clearNumberFormatCache();
 	}
 
 
 	@Override
 	public NumberFormat getNumberFormat(Locale locale) {
+		return getCachedNumberFormat(locale, this::createNumberFormat);
+	}
+
+	private NumberFormat createNumberFormat(Locale locale) {
 		NumberFormat format = NumberFormat.getInstance(locale);
 		if (!(format instanceof DecimalFormat)) {
 			if (this.pattern != null) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -36,6 +36,10 @@ public class PercentStyleFormatter extends AbstractNumberFormatter {
 
 	@Override
 	protected NumberFormat getNumberFormat(Locale locale) {
+		return getCachedNumberFormat(locale, this::createNumberFormat);
+	}
+
+	private NumberFormat createNumberFormat(Locale locale) {
 		NumberFormat format = NumberFormat.getPercentInstance(locale);
 		if (format instanceof DecimalFormat) {
 			((DecimalFormat) format).setParseBigDecimal(true);
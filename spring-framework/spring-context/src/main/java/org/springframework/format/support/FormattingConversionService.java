@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -353,8 +353,14 @@ public class FormattingConversionService extends GenericConversionService
 			if (this == other) {
 				return true;
 			}
+			if (!(other instanceof AnnotationConverterKey)) {
+				return false;
+			}
 			AnnotationConverterKey otherKey = (AnnotationConverterKey) other;
-			return (this.fieldType == otherKey.fieldType && this.annotation.equals(otherKey.annotation));
+			// Annotation instances are typically shared for the same field,
+			// so check identity before the member-by-member comparison.
+			return (this.fieldType == otherKey.fieldType && (this.annotation == otherKey.annotation ||
+					this.annotation.equals(otherKey.annotation)));
 		}
 
 		@Override
@@ -25,6 +25,8 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import javax.management.DynamicMBean;
 import javax.management.JMException;
 import javax.management.MBeanException;
@@ -53,6 +55,7 @@ import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.core.Constants;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.jmx.export.assembler.AutodetectCapableMBeanInfoAssembler;
 import org.springframework.jmx.export.assembler.MBeanInfoAssembler;
 import org.springframework.jmx.export.assembler.SimpleReflectiveMBeanInfoAssembler;
@@ -185,6 +188,14 @@ public class MBeanExporter extends MBeanRegistrationSupport implements MBeanExpo
 	@Nullable
 	private ListableBeanFactory beanFactory;
 
+	/** The executor to register beans with in the background, if any */
+	@Nullable
+	private AsyncTaskExecutor registrationExecutor;
+
+	/** The result of the background registration, if in progress or done */
+	@Nullable
+	private volatile Future<?> registrationFuture;
+
 
 	/**
 	 * Supply a {@code Map} of beans to be registered with the JMX
@@ -386,6 +397,26 @@ public class MBeanExporter extends MBeanRegistrationSupport implements MBeanExpo
 		this.notificationListeners = notificationListeners.toArray(new NotificationListenerBean[0]);
 	}
 
+	/**
+	 * Specify an asynchronous executor for registering the beans in the
+	 * background, after the regular singleton instantiation phase.
+	 * <p>By default, registration happens synchronously on startup, delaying
+	 * the completion of the context refresh by the time it takes to assemble
+	 * the management interfaces and to register all MBeans. With an executor
+	 * set, the refresh completes right away and the MBeans become available
+	 * shortly afterwards. Registration failures are logged and do not fail
+	 * the startup then; {@link #destroy()} waits for a registration that is
+	 * still in progress before unregistering.
+	 * <p>Note that this executor is not shut down by the exporter; it is
+	 * typically a {@link org.springframework.core.task.SimpleAsyncTaskExecutor}
+	 * or a shared thread pool.
+	 * @since 5.1
+	 * @see #afterSingletonsInstantiated()
+	 */
+	public void setRegistrationExecutor(@Nullable AsyncTaskExecutor registrationExecutor) {
+		this.registrationExecutor = registrationExecutor;
+	}
+
 	@Override
 	public void setBeanClassLoader(ClassLoader classLoader) {
 		this.beanClassLoader = classLoader;
@@ -424,13 +455,33 @@ public class MBeanExporter extends MBeanRegistrationSupport implements MBeanExpo
 	}
 
 	/**
-	 * Kick off bean registration automatically after the regular singleton instantiation phase.
+	 * Kick off bean registration automatically after the regular singleton instantiation phase,
+	 * either right away or through the {@link #setRegistrationExecutor registration executor}.
 	 * @see #registerBeans()
 	 */
 	@Override
 	public void afterSingletonsInstantiated() {
-		try {
+		AsyncTaskExecutor registrationExecutor = this.registrationExecutor;
+		if (registrationExecutor != null) {
+			logger.info("Registering beans for JMX exposure in the background");
+			this.registrationFuture = registrationExecutor.submit(() -> {
+				try {
+					registerBeansAndNotificationListeners();
+				}
+				catch (RuntimeException ex) {
+					logger.error("Background registration of beans for JMX exposure failed", ex);
+					throw ex;
+				}
+			});
+		}
+		else {
 			logger.info("Registering beans for JMX exposure on startup");
+			registerBeansAndNotificationListeners();
+		}
+	}
+
+	private void registerBeansAndNotificationListeners() {
+		try {
 			registerBeans();
 			registerNotificationListeners();
 		}
@@ -445,9 +496,23 @@ public class MBeanExporter extends MBeanRegistrationSupport implements MBeanExpo
 	/**
 	 * Unregisters all beans that this exported has exposed via JMX
 	 * when the enclosing {@code ApplicationContext} is destroyed.
+	 * <p>Waits for a background registration to complete first, if any.
 	 */
 	@Override
 	public void destroy() {
+		Future<?> registrationFuture = this.registrationFuture;
+		if (registrationFuture != null) {
+			try {
+				registrationFuture.get();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			catch (ExecutionException ex) {
+				// Already logged and cleaned up by the registration task itself.
+			}
+			this.registrationFuture = null;
+		}
 		logger.info("Unregistering JMX-exposed beans on shutdown");
 		unregisterNotificationListeners();
 		unregisterBeans();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2007 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,10 @@
 
 package org.springframework.jmx.export;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.management.Attribute;
 import javax.management.AttributeList;
 import javax.management.AttributeNotFoundException;
@@ -23,16 +27,29 @@ import javax.management.InstanceNotFoundException;
 import javax.management.InvalidAttributeValueException;
 import javax.management.MBeanException;
 import javax.management.ReflectionException;
+import javax.management.RuntimeErrorException;
 import javax.management.RuntimeOperationsException;
 import javax.management.modelmbean.InvalidTargetObjectTypeException;
+import javax.management.modelmbean.ModelMBeanAttributeInfo;
 import javax.management.modelmbean.ModelMBeanInfo;
+import javax.management.modelmbean.ModelMBeanOperationInfo;
 import javax.management.modelmbean.RequiredModelMBean;
 
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
 /**
  * Extension of the {@link RequiredModelMBean} class that ensures the
  * {@link Thread#getContextClassLoader() thread context ClassLoader} is switched
  * for the managed resource's {@link ClassLoader} before any invocations occur.
  *
+ * <p>As of 5.1, attribute reads are dispatched straight to the getter method
+ * of the managed resource, resolved once per attribute, as long as the
+ * attribute is not subject to value caching via a {@code currencyTimeLimit}
+ * descriptor field. This avoids the per-call descriptor lookups and method
+ * resolution of the standard {@link RequiredModelMBean} implementation.
+ *
  * @author Rob Harrop
  * @since 2.0
  * @see RequiredModelMBean
@@ -45,6 +62,20 @@ public class SpringModelMBean extends RequiredModelMBean {
 	 */
 	private ClassLoader managedResourceClassLoader = Thread.currentThread().getContextClassLoader();
 
+	/** Marker for attributes that are not eligible for direct getter invocation */
+	private static final Object NO_GETTER = new Object();
+
+	// No field initializers below: setModelMBeanInfo may be called from the superclass constructor.
+
+	@Nullable
+	private volatile ModelMBeanInfo modelMBeanInfo;
+
+	@Nullable
+	private volatile Object managedResource;
+
+	@Nullable
+	private volatile Map<String, Object> attributeGetters;
+
 
 	/**
 	 * Construct a new SpringModelMBean instance with an empty {@link ModelMBeanInfo}.
@@ -72,6 +103,19 @@ public class SpringModelMBean extends RequiredModelMBean {
 
 		this.managedResourceClassLoader = managedResource.getClass().getClassLoader();
 		super.setManagedResource(managedResource, managedResourceType);
+		this.managedResource = managedResource;
+		this.attributeGetters = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Sets the management interface and resets the getter methods resolved
+	 * for the previous one.
+	 */
+	@Override
+	public void setModelMBeanInfo(ModelMBeanInfo mbi) throws MBeanException, RuntimeOperationsException {
+		super.setModelMBeanInfo(mbi);
+		this.modelMBeanInfo = (ModelMBeanInfo) mbi.clone();
+		this.attributeGetters = new ConcurrentHashMap<>();
 	}
 
 
@@ -106,6 +150,11 @@ public class SpringModelMBean extends RequiredModelMBean {
 		ClassLoader currentClassLoader = Thread.currentThread().getContextClassLoader();
 		try {
 			Thread.currentThread().setContextClassLoader(this.managedResourceClassLoader);
+			Object managedResource = this.managedResource;
+			Method getter = getAttributeGetter(attrName);
+			if (managedResource != null && getter != null) {
+				return invokeAttributeGetter(getter, managedResource);
+			}
 			return super.getAttribute(attrName);
 		}
 		finally {
@@ -113,6 +162,90 @@ public class SpringModelMBean extends RequiredModelMBean {
 		}
 	}
 
+	/**
+	 * Return the getter method to invoke directly for the given attribute,
+	 * or {@code null} if the read needs to go through the standard
+	 * {@link RequiredModelMBean} algorithm.
+	 */
+	@Nullable
+	private Method getAttributeGetter(@Nullable String attrName) {
+		Map<String, Object> attributeGetters = this.attributeGetters;
+		if (attrName == null || attributeGetters == null) {
+			return null;
+		}
+		Object getter = attributeGetters.get(attrName);
+		if (getter == null) {
+			getter = resolveAttributeGetter(attrName);
+			attributeGetters.put(attrName, (getter != null ? getter : NO_GETTER));
+		}
+		return (getter != NO_GETTER ? (Method) getter : null);
+	}
+
+	@Nullable
+	private Method resolveAttributeGetter(String attrName) {
+		ModelMBeanInfo info = this.modelMBeanInfo;
+		Object managedResource = this.managedResource;
+		if (info == null || managedResource == null) {
+			return null;
+		}
+		try {
+			if (info.getMBeanDescriptor().getFieldValue("currencyTimeLimit") != null) {
+				return null;
+			}
+			ModelMBeanAttributeInfo attrInfo = info.getAttribute(attrName);
+			if (attrInfo == null || !attrInfo.isReadable() ||
+					attrInfo.getDescriptor().getFieldValue("currencyTimeLimit") != null) {
+				return null;
+			}
+			Object getMethodName = attrInfo.getDescriptor().getFieldValue("getMethod");
+			if (!(getMethodName instanceof String)) {
+				return null;
+			}
+			ModelMBeanOperationInfo opInfo = info.getOperation((String) getMethodName);
+			if (opInfo == null || opInfo.getSignature().length > 0 ||
+					opInfo.getDescriptor().getFieldValue("targetObject") != null) {
+				return null;
+			}
+			Method getter = ClassUtils.getMethodIfAvailable(managedResource.getClass(), (String) getMethodName);
+			if (getter == null || !getter.getReturnType().getName().equals(attrInfo.getType())) {
+				return null;
+			}
+			ReflectionUtils.makeAccessible(getter);
+			return getter;
+		}
+		catch (MBeanException | RuntimeException ex) {
+			// Let the standard algorithm deal with it.
+			return null;
+		}
+	}
+
+	private Object invokeAttributeGetter(Method getter, Object managedResource)
+			throws MBeanException, ReflectionException {
+
+		try {
+			return getter.invoke(managedResource);
+		}
+		catch (InvocationTargetException ex) {
+			Throwable targetEx = ex.getTargetException();
+			if (targetEx instanceof RuntimeException) {
+				throw new MBeanException((RuntimeException) targetEx,
+						"RuntimeException thrown in SpringModelMBean while trying to invoke operation " + getter.getName());
+			}
+			if (targetEx instanceof Error) {
+				throw new RuntimeErrorException((Error) targetEx,
+						"Error occurred in SpringModelMBean while trying to invoke operation " + getter.getName());
+			}
+			if (targetEx instanceof ReflectionException) {
+				throw (ReflectionException) targetEx;
+			}
+			throw new MBeanException((Exception) targetEx,
+					"Exception thrown in SpringModelMBean while trying to invoke operation " + getter.getName());
+		}
+		catch (Exception ex) {
+			throw new ReflectionException(ex, "Failed to invoke " + getter.getName());
+		}
+	}
+
 	/**
 	 * Switches the {@link Thread#getContextClassLoader() context ClassLoader} for the
 	 * managed resources {@link ClassLoader} before allowing the invocation to occur.
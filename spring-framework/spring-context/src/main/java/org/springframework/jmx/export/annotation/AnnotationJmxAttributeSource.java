@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 import org.springframework.beans.BeanUtils;
@@ -33,12 +34,18 @@ import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.jmx.export.metadata.InvalidMetadataException;
 import org.springframework.jmx.export.metadata.JmxAttributeSource;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.StringValueResolver;
 
 /**
  * Implementation of the {@code JmxAttributeSource} interface that
  * reads annotations and exposes the corresponding attributes.
  *
+ * <p>The metadata is resolved once per class and method and cached from then
+ * on, since assemblers and naming strategies typically ask for the same
+ * metadata repeatedly while building a management interface. The returned
+ * metadata objects are therefore shared and must not be modified by callers.
+ *
  * @author Rob Harrop
  * @author Juergen Hoeller
  * @author Jennifer Hickey
@@ -50,14 +57,26 @@ import org.springframework.util.StringValueResolver;
  */
 public class AnnotationJmxAttributeSource implements JmxAttributeSource, BeanFactoryAware {
 
+	private static final Object NO_METADATA = new Object();
+
+
 	@Nullable
 	private StringValueResolver embeddedValueResolver;
 
+	private final Map<Class<?>, Object> managedResourceCache = new ConcurrentReferenceHashMap<>();
+
+	private final Map<Class<?>, org.springframework.jmx.export.metadata.ManagedNotification[]> managedNotificationsCache =
+			new ConcurrentReferenceHashMap<>();
+
+	private final Map<Method, MethodMetadata> methodMetadataCache = new ConcurrentReferenceHashMap<>();
+
 
 	@Override
 	public void setBeanFactory(BeanFactory beanFactory) {
 		if (beanFactory instanceof ConfigurableBeanFactory) {
 			this.embeddedValueResolver = new EmbeddedValueResolver((ConfigurableBeanFactory) beanFactory);
+			// Placeholders in previously resolved metadata may resolve differently now.
+			this.managedResourceCache.clear();
 		}
 	}
 
@@ -65,6 +84,16 @@ public class AnnotationJmxAttributeSource implements JmxAttributeSource, BeanFac
 	@Override
 	@Nullable
 	public org.springframework.jmx.export.metadata.ManagedResource getManagedResource(Class<?> beanClass) throws InvalidMetadataException {
+		Object cached = this.managedResourceCache.get(beanClass);
+		if (cached == null) {
+			cached = findManagedResource(beanClass);
+			this.managedResourceCache.put(beanClass, (cached != null ? cached : NO_METADATA));
+		}
+		return (cached != NO_METADATA ? (org.springframework.jmx.export.metadata.ManagedResource) cached : null);
+	}
+
+	@Nullable
+	private org.springframework.jmx.export.metadata.ManagedResource findManagedResource(Class<?> beanClass) {
 		ManagedResource ann = AnnotationUtils.findAnnotation(beanClass, ManagedResource.class);
 		if (ann == null) {
 			return null;
@@ -82,48 +111,56 @@ public class AnnotationJmxAttributeSource implements JmxAttributeSource, BeanFac
 	@Override
 	@Nullable
 	public org.springframework.jmx.export.metadata.ManagedAttribute getManagedAttribute(Method method) throws InvalidMetadataException {
-		ManagedAttribute ann = AnnotationUtils.findAnnotation(method, ManagedAttribute.class);
-		if (ann == null) {
-			return null;
-		}
-		org.springframework.jmx.export.metadata.ManagedAttribute managedAttribute = new org.springframework.jmx.export.metadata.ManagedAttribute();
-		AnnotationBeanUtils.copyPropertiesToBean(ann, managedAttribute, "defaultValue");
-		if (ann.defaultValue().length() > 0) {
-			managedAttribute.setDefaultValue(ann.defaultValue());
-		}
-		return managedAttribute;
+		return getMethodMetadata(method).managedAttribute;
 	}
 
 	@Override
 	@Nullable
 	public org.springframework.jmx.export.metadata.ManagedMetric getManagedMetric(Method method) throws InvalidMetadataException {
-		ManagedMetric ann = AnnotationUtils.findAnnotation(method, ManagedMetric.class);
-		return copyPropertiesToBean(ann, org.springframework.jmx.export.metadata.ManagedMetric.class);
+		return getMethodMetadata(method).managedMetric;
 	}
 
 	@Override
 	@Nullable
 	public org.springframework.jmx.export.metadata.ManagedOperation getManagedOperation(Method method) throws InvalidMetadataException {
-		ManagedOperation ann = AnnotationUtils.findAnnotation(method, ManagedOperation.class);
-		return copyPropertiesToBean(ann, org.springframework.jmx.export.metadata.ManagedOperation.class);
+		return getMethodMetadata(method).managedOperation;
 	}
 
 	@Override
 	public org.springframework.jmx.export.metadata.ManagedOperationParameter[] getManagedOperationParameters(Method method)
 			throws InvalidMetadataException {
 
-		Set<ManagedOperationParameter> anns = AnnotationUtils.getRepeatableAnnotations(
-				method, ManagedOperationParameter.class, ManagedOperationParameters.class);
-		return copyPropertiesToBeanArray(anns, org.springframework.jmx.export.metadata.ManagedOperationParameter.class);
+		return getMethodMetadata(method).managedOperationParameters.clone();
 	}
 
 	@Override
 	public org.springframework.jmx.export.metadata.ManagedNotification[] getManagedNotifications(Class<?> clazz)
 			throws InvalidMetadataException {
 
-		Set<ManagedNotification> anns = AnnotationUtils.getRepeatableAnnotations(
-				clazz, ManagedNotification.class, ManagedNotifications.class);
-		return copyPropertiesToBeanArray(anns, org.springframework.jmx.export.metadata.ManagedNotification.class);
+		return this.managedNotificationsCache.computeIfAbsent(clazz, key -> {
+			Set<ManagedNotification> anns = AnnotationUtils.getRepeatableAnnotations(
+					key, ManagedNotification.class, ManagedNotifications.class);
+			return copyPropertiesToBeanArray(anns, org.springframework.jmx.export.metadata.ManagedNotification.class);
+		}).clone();
+	}
+
+	private MethodMetadata getMethodMetadata(Method method) {
+		return this.methodMetadataCache.computeIfAbsent(method, MethodMetadata::new);
+	}
+
+
+	@Nullable
+	private static org.springframework.jmx.export.metadata.ManagedAttribute findManagedAttribute(Method method) {
+		ManagedAttribute ann = AnnotationUtils.findAnnotation(method, ManagedAttribute.class);
+		if (ann == null) {
+			return null;
+		}
+		org.springframework.jmx.export.metadata.ManagedAttribute managedAttribute = new org.springframework.jmx.export.metadata.ManagedAttribute();
+		AnnotationBeanUtils.copyPropertiesToBean(ann, managedAttribute, "defaultValue");
+		if (ann.defaultValue().length() > 0) {
+			managedAttribute.setDefaultValue(ann.defaultValue());
+		}
+		return managedAttribute;
 	}
 
 
@@ -147,4 +184,34 @@ public class AnnotationJmxAttributeSource implements JmxAttributeSource, BeanFac
 		return bean;
 	}
 
+
+	/**
+	 * Holder for the metadata resolved for a given method.
+	 */
+	private static class MethodMetadata {
+
+		@Nullable
+		final org.springframework.jmx.export.metadata.ManagedAttribute managedAttribute;
+
+		@Nullable
+		final org.springframework.jmx.export.metadata.ManagedMetric managedMetric;
+
+		@Nullable
+		final org.springframework.jmx.export.metadata.ManagedOperation managedOperation;
+
+		final org.springframework.jmx.export.metadata.ManagedOperationParameter[] managedOperationParameters;
+
+		MethodMetadata(Method method) {
+			this.managedAttribute = findManagedAttribute(method);
+			this.managedMetric = copyPropertiesToBean(AnnotationUtils.findAnnotation(method, ManagedMetric.class),
+					org.springframework.jmx.export.metadata.ManagedMetric.class);
+			this.managedOperation = copyPropertiesToBean(AnnotationUtils.findAnnotation(method, ManagedOperation.class),
+					org.springframework.jmx.export.metadata.ManagedOperation.class);
+			Set<ManagedOperationParameter> anns = AnnotationUtils.getRepeatableAnnotations(
+					method, ManagedOperationParameter.class, ManagedOperationParameters.class);
+			this.managedOperationParameters = copyPropertiesToBeanArray(
+					anns, org.springframework.jmx.export.metadata.ManagedOperationParameter.class);
+		}
+	}
+
 }
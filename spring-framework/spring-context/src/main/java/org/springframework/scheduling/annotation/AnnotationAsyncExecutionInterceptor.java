@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,12 +17,21 @@
 package org.springframework.scheduling.annotation;
 
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 
 import org.springframework.aop.interceptor.AsyncExecutionInterceptor;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
 import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.ExecutorConfigurationSupport;
+import org.springframework.scheduling.concurrent.ExecutorMetrics;
+import org.springframework.util.ClassUtils;
 
 /**
  * Specialization of {@link AsyncExecutionInterceptor} that delegates method execution to
@@ -39,6 +48,9 @@ import org.springframework.lang.Nullable;
  */
 public class AnnotationAsyncExecutionInterceptor extends AsyncExecutionInterceptor {
 
+	private final Map<Method, String> submissionTags = new ConcurrentHashMap<>(16);
+
+
 	/**
 	 * Create a new {@code AnnotationAsyncExecutionInterceptor} with the given executor
 	 * and a simple {@link AsyncUncaughtExceptionHandler}.
@@ -87,4 +99,99 @@ public class AnnotationAsyncExecutionInterceptor extends AsyncExecutionIntercept
 		return (async != null ? async.value() : null);
 	}
 
+	/**
+	 * This implementation tags the submitted task with the qualified name of the
+	 * given method, so that its execution time shows up per method in the
+	 * {@link ExecutorMetrics} of a Spring-managed executor. Executors without
+	 * metrics do not get a tag.
+	 * <p>If called within an {@link AsyncScope}, the task runs in a child scope
+	 * of it, so that the deadline and cancellation of the scope propagate to it.
+	 * A {@link CompletableFuture} handle is bridged to a task submitted to the
+	 * executor in that case, so that cancelling it interrupts the method; a
+	 * {@code void} method that is skipped because of its scope does not fail.
+	 * @since 5.1
+	 * @see ExecutorMetrics#getExecutionTimes(String)
+	 * @see AsyncFanOut
+	 */
+	@Override
+	@Nullable
+	protected Object doSubmit(Callable<Object> task, AsyncTaskExecutor executor, Class<?> returnType, Method method) {
+		AsyncScope scope = AsyncScope.current();
+		AsyncScope childScope = (scope != null ? scope.newChild() : null);
+		boolean tagged = (executor instanceof ExecutorConfigurationSupport &&
+				((ExecutorConfigurationSupport) executor).getMetrics() != null);
+		String previousTag = (tagged ? ExecutorMetrics.setSubmissionTag(
+				this.submissionTags.computeIfAbsent(method, ClassUtils::getQualifiedMethodName)) : null);
+		try {
+			if (childScope == null) {
+				return super.doSubmit(task, executor, returnType, method);
+			}
+			boolean failIfSkipped = Future.class.isAssignableFrom(returnType);
+			Callable<Object> scopedTask = () -> childScope.call(task, failIfSkipped);
+			Object result = (CompletableFuture.class.isAssignableFrom(returnType) ?
+					submitCompletable(scopedTask, executor) :
+					super.doSubmit(scopedTask, executor, returnType, method));
+			if (result instanceof Future) {
+				childScope.setFuture((Future<?>) result);
+			}
+			return result;
+		}
+		catch (RuntimeException ex) {
+			if (childScope != null) {
+				childScope.close();
+			}
+			throw ex;
+		}
+		finally {
+			if (tagged) {
+				ExecutorMetrics.setSubmissionTag(previousTag);
+			}
+		}
+	}
+
+	/**
+	 * Submit the given task to the executor, exposing its result through a
+	 * {@link CompletableFuture} that cancels the submitted task when cancelled.
+	 */
+	private static CompletableFuture<Object> submitCompletable(Callable<Object> task, AsyncTaskExecutor executor) {
+		InterruptibleCompletableFuture future = new InterruptibleCompletableFuture();
+		future.setTask(executor.submit(() -> {
+			try {
+				future.complete(task.call());
+			}
+			catch (Throwable ex) {
+				future.completeExceptionally(ex);
+			}
+		}));
+		return future;
+	}
+
+
+	/**
+	 * {@link CompletableFuture} that cancels, and thereby interrupts, the
+	 * task computing its result when cancelled itself.
+	 */
+	private static class InterruptibleCompletableFuture extends CompletableFuture<Object> {
+
+		@Nullable
+		private volatile Future<?> task;
+
+		void setTask(Future<?> task) {
+			this.task = task;
+			if (isCancelled()) {
+				task.cancel(true);
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			Future<?> task = this.task;
+			if (task != null) {
+				task.cancel(mayInterruptIfRunning);
+			}
+			return cancelled;
+		}
+	}
+
 }
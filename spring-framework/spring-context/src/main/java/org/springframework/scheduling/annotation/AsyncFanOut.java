@@ -0,0 +1,177 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.annotation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.util.Assert;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Helper for fanning out a number of {@link Async @Async} calls and joining
+ * their results within a common timeout.
+ *
+ * <pre class="code">
+ * List&lt;Quote&gt; quotes = AsyncFanOut.invokeAll(Duration.ofSeconds(2),
+ *     () -&gt; quoteService.quoteFromA(request),
+ *     () -&gt; quoteService.quoteFromB(request));
+ * </pre>
+ *
+ * <p>The calls are made within a new {@link AsyncScope}: if one of them fails
+ * or the timeout is exceeded, all calls that are still running get cancelled,
+ * including the {@code @Async} calls that they made in turn. The aggregating
+ * thread thus never waits longer than the timeout, and no executor thread
+ * keeps working on a result that nobody is going to pick up.
+ *
+ * <p>Results are awaited in the order in which the calls complete, so that a
+ * failing call is reported right away. Completion is signalled by
+ * {@link CompletableFuture} and {@link ListenableFuture} handles, whereas
+ * other handles get polled.
+ *
+ * <p>A fan-out within an {@code @Async} method that runs in a scope itself
+ * inherits the deadline of that scope if it is earlier than its own one.
+ *
+ * @since 5.1
+ * @see AsyncScope
+ */
+public abstract class AsyncFanOut {
+
+	/** The interval for polling handles which cannot signal their completion */
+	private static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	/**
+	 * Invoke the given asynchronous calls and wait for all of their results.
+	 * @param timeout the maximum time to wait for all results
+	 * @param calls the calls to make, each returning the {@link Future} handle
+	 * of an asynchronous invocation, typically of an {@code @Async} method
+	 * @return the results, in the order of the given calls
+	 * @throws TimeoutException if not all results were available in time
+	 * @throws ExecutionException if one of the calls failed
+	 * @throws InterruptedException if the current thread was interrupted while waiting
+	 */
+	@SafeVarargs
+	public static <T> List<T> invokeAll(Duration timeout, Supplier<? extends Future<? extends T>>... calls)
+			throws TimeoutException, ExecutionException, InterruptedException {
+
+		return invokeAll(timeout, Arrays.asList(calls));
+	}
+
+	/**
+	 * Invoke the given asynchronous calls and wait for all of their results.
+	 * @param timeout the maximum time to wait for all results
+	 * @param calls the calls to make, each returning the {@link Future} handle
+	 * of an asynchronous invocation, typically of an {@code @Async} method
+	 * @return the results, in the order of the given calls
+	 * @throws TimeoutException if not all results were available in time
+	 * @throws ExecutionException if one of the calls failed
+	 * @throws InterruptedException if the current thread was interrupted while waiting
+	 */
+	public static <T> List<T> invokeAll(Duration timeout, List<? extends Supplier<? extends Future<? extends T>>> calls)
+			throws TimeoutException, ExecutionException, InterruptedException {
+
+		Assert.notNull(timeout, "Timeout must not be null");
+		Assert.notNull(calls, "Calls must not be null");
+		AsyncScope scope = AsyncScope.open(timeout.toNanos());
+		List<Future<? extends T>> futures = new ArrayList<>(calls.size());
+		boolean completed = false;
+		try {
+			AsyncScope previousScope = AsyncScope.setCurrent(scope);
+			try {
+				for (Supplier<? extends Future<? extends T>> call : calls) {
+					Future<? extends T> future = call.get();
+					Assert.state(future != null, "Async call did not return a Future handle");
+					futures.add(future);
+				}
+			}
+			finally {
+				AsyncScope.setCurrent(previousScope);
+			}
+			awaitAll(futures, scope);
+			List<T> results = new ArrayList<>(futures.size());
+			for (Future<? extends T> future : futures) {
+				results.add(future.get());
+			}
+			completed = true;
+			return results;
+		}
+		finally {
+			if (!completed) {
+				scope.cancel();
+				for (Future<? extends T> future : futures) {
+					future.cancel(true);
+				}
+			}
+			scope.close();
+		}
+	}
+
+	/**
+	 * Wait for the given futures to complete, in the order of their completion.
+	 * @throws ExecutionException as soon as one of them has failed
+	 */
+	private static void awaitAll(List<? extends Future<?>> futures, AsyncScope scope)
+			throws TimeoutException, ExecutionException, InterruptedException {
+
+		Semaphore completions = new Semaphore(0);
+		boolean polling = false;
+		for (Future<?> future : futures) {
+			if (future instanceof CompletableFuture) {
+				((CompletableFuture<?>) future).whenComplete((result, ex) -> completions.release());
+			}
+			else if (future instanceof ListenableFuture) {
+				((ListenableFuture<?>) future).addCallback(result -> completions.release(), ex -> completions.release());
+			}
+			else {
+				polling = true;
+			}
+		}
+		List<Future<?>> pending = new LinkedList<>(futures);
+		while (true) {
+			for (Iterator<Future<?>> it = pending.iterator(); it.hasNext();) {
+				Future<?> future = it.next();
+				if (future.isDone()) {
+					// Throws ExecutionException for a failed call
+					future.get();
+					it.remove();
+				}
+			}
+			if (pending.isEmpty()) {
+				return;
+			}
+			long remainingNanos = scope.getRemainingNanos();
+			if (remainingNanos <= 0) {
+				throw new TimeoutException("Not all asynchronous calls completed within timeout");
+			}
+			completions.tryAcquire((polling ? Math.min(remainingNanos, POLL_INTERVAL_NANOS) : remainingNanos),
+					TimeUnit.NANOSECONDS);
+			completions.drainPermits();
+		}
+	}
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.annotation;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.lang.Nullable;
+
+/**
+ * Deadline and cancellation state shared by an {@link AsyncFanOut} and all
+ * {@link Async @Async} invocations made within it, directly or transitively.
+ *
+ * <p>Each {@code @Async} method that is invoked through an
+ * {@link AnnotationAsyncExecutionInterceptor} while a scope is current runs
+ * in a child scope with the same deadline, and gets cancelled along with its
+ * parent: its {@code Future} handle is cancelled (interrupting the method if the
+ * executor supports it, for {@code CompletableFuture} return types as well),
+ * and any further {@code @Async} invocations made from it are not run anymore.
+ * An invocation that only starts after the deadline has passed is not run
+ * either. The {@code Future} handle of such a skipped invocation fails with a
+ * {@link CancellationException} or {@link TimeoutException}, whereas a skipped
+ * {@code void} method is silently ignored.
+ *
+ * <p>Asynchronous methods may use {@link #current()} to check for cancellation
+ * or for the remaining time, e.g. to pass it on to a blocking remote call.
+ *
+ * @since 5.1
+ * @see AsyncFanOut
+ */
+public final class AsyncScope {
+
+	private static final ThreadLocal<AsyncScope> currentScope = new NamedThreadLocal<>("Current async scope");
+
+
+	@Nullable
+	private final AsyncScope parent;
+
+	private final long deadline;
+
+	private final Set<AsyncScope> children = ConcurrentHashMap.newKeySet();
+
+	private volatile boolean cancelled;
+
+	@Nullable
+	private volatile Future<?> future;
+
+
+	private AsyncScope(@Nullable AsyncScope parent, long deadline) {
+		this.parent = parent;
+		this.deadline = deadline;
+	}
+
+
+	/**
+	 * Return whether this scope has been cancelled, either explicitly or
+	 * along with its parent scope.
+	 */
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+
+	/**
+	 * Return whether the deadline of this scope has passed.
+	 */
+	public boolean isExpired() {
+		return (getRemainingNanos() <= 0);
+	}
+
+	/**
+	 * Return the time left until the deadline of this scope, in nanoseconds.
+	 */
+	public long getRemainingNanos() {
+		return this.deadline - System.nanoTime();
+	}
+
+	/**
+	 * Open a new child scope, inheriting the deadline of this scope.
+	 */
+	AsyncScope newChild() {
+		return newChild(this.deadline);
+	}
+
+	/**
+	 * Open a new child scope with the given deadline, or the deadline
+	 * of this scope if that is earlier.
+	 */
+	AsyncScope newChild(long deadline) {
+		AsyncScope child = new AsyncScope(this, (deadline - this.deadline < 0 ? deadline : this.deadline));
+		this.children.add(child);
+		if (this.cancelled) {
+			child.cancel();
+		}
+		return child;
+	}
+
+	/**
+	 * Associate the given handle for the work that runs in this scope,
+	 * to be cancelled along with the scope.
+	 */
+	void setFuture(Future<?> future) {
+		this.future = future;
+		if (this.cancelled) {
+			future.cancel(true);
+		}
+	}
+
+	/**
+	 * Run the given task with this scope exposed as current scope, unless the
+	 * scope has been cancelled or its deadline has passed in the meantime.
+	 * @param task the task to run
+	 * @param failIfSkipped whether to throw an exception if the task is not run,
+	 * rather than returning {@code null}
+	 * @throws CancellationException if the scope has been cancelled
+	 * @throws TimeoutException if the deadline of the scope has passed
+	 */
+	@Nullable
+	<T> T call(Callable<T> task, boolean failIfSkipped) throws Exception {
+		try {
+			if (this.cancelled) {
+				if (!failIfSkipped) {
+					return null;
+				}
+				throw new CancellationException("Async scope has been cancelled");
+			}
+			if (isExpired()) {
+				if (!failIfSkipped) {
+					return null;
+				}
+				throw new TimeoutException("Deadline of async scope has passed");
+			}
+			AsyncScope previousScope = setCurrent(this);
+			try {
+				return task.call();
+			}
+			finally {
+				setCurrent(previousScope);
+			}
+		}
+		finally {
+			close();
+		}
+	}
+
+	/**
+	 * Cancel this scope and, transitively, all of its child scopes.
+	 */
+	void cancel() {
+		this.cancelled = true;
+		Future<?> future = this.future;
+		if (future != null) {
+			future.cancel(true);
+		}
+		for (AsyncScope child : this.children) {
+			child.cancel();
+		}
+	}
+
+	/**
+	 * Detach this scope from its parent once the work in it has completed.
+	 */
+	void close() {
+		if (this.parent != null) {
+			this.parent.children.remove(this);
+		}
+	}
+
+
+	/**
+	 * Return the scope that the current thread runs in, if any.
+	 * @return the current scope, or {@code null} if the current thread does not
+	 * run within an {@link AsyncFanOut} or an {@code @Async} invocation made from one
+	 */
+	@Nullable
+	public static AsyncScope current() {
+		return currentScope.get();
+	}
+
+	/**
+	 * Open a new top-level scope or, if there is a current scope already,
+	 * a child of it, with the given timeout.
+	 */
+	static AsyncScope open(long timeoutNanos) {
+		long deadline = System.nanoTime() + timeoutNanos;
+		AsyncScope parent = current();
+		return (parent != null ? parent.newChild(deadline) : new AsyncScope(null, deadline));
+	}
+
+	/**
+	 * Expose the given scope as current scope for the current thread.
+	 * @return the previously current scope, if any
+	 */
+	@Nullable
+	static AsyncScope setCurrent(@Nullable AsyncScope scope) {
+		AsyncScope previousScope = currentScope.get();
+		if (scope != null) {
+			currentScope.set(scope);
+		}
+		else {
+			currentScope.remove();
+		}
+		return previousScope;
+	}
+
+}
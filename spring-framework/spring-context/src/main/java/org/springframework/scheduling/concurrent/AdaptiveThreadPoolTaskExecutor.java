@@ -0,0 +1,241 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Variant of {@link ThreadPoolTaskExecutor} which grows its pool up to the
+ * {@link #setMaxPoolSize maximum pool size} before queueing tasks, and which
+ * adapts its effective maximum pool size to the observed load.
+ *
+ * <p>A plain {@code ThreadPoolExecutor} only starts threads beyond its core pool
+ * size once its queue is full, i.e. never with the default unbounded queue. Here,
+ * a submitted task is handed over to an idle thread if there is one, or triggers
+ * a new thread as long as the pool is below its effective maximum size; it only
+ * gets queued once that many threads are busy. The queue is an unbounded,
+ * lock-free {@link LinkedTransferQueue}; the {@link #setQueueCapacity "queueCapacity"}
+ * setting does not apply.
+ *
+ * <p>At most once per {@link #setAdjustmentInterval adjustment interval}, the
+ * effective maximum pool size gets recalculated on submission of a task, between
+ * the core and the configured maximum pool size: based on the throughput measured
+ * over the last interval, the queue latency is estimated through Little's law; if
+ * it exceeds the {@link #setTargetQueueLatency target}, the pool grows to as many
+ * threads as are needed to work off the queued tasks within the target latency at
+ * the measured throughput per thread, otherwise it shrinks halfway towards the
+ * number of busy threads. Surplus idle
+ * threads terminate after the {@link #setKeepAliveSeconds keep-alive time}.
+ *
+ * <p><b>NOTE:</b> Make sure to specify a {@link #setMaxPoolSize maximum pool size},
+ * since a burst of tasks may start that many threads before the first adjustment.
+ *
+ * @since 5.1
+ * @see #setTargetQueueLatency
+ * @see #setAdjustmentInterval
+ */
+@SuppressWarnings("serial")
+public class AdaptiveThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
+
+	private long targetQueueLatency = 100;
+
+	private long adjustmentInterval = 1000;
+
+	@Nullable
+	private TaskQueue taskQueue;
+
+	@Nullable
+	private volatile ThreadPoolExecutor adaptiveExecutor;
+
+	private final AtomicLong nextAdjustmentTime = new AtomicLong();
+
+	// Only accessed by the thread performing an adjustment
+	private long lastAdjustmentTime;
+
+	private long lastCompletedTaskCount;
+
+
+	/**
+	 * Set the queue latency in milliseconds to aim for: more threads get
+	 * started when tasks are estimated to wait longer for a thread.
+	 * Default is 100.
+	 */
+	public void setTargetQueueLatency(long targetQueueLatency) {
+		Assert.isTrue(targetQueueLatency > 0, "'targetQueueLatency' must be positive");
+		this.targetQueueLatency = targetQueueLatency;
+	}
+
+	/**
+	 * Set the minimum interval in milliseconds between adjustments of the
+	 * effective maximum pool size. Default is 1000.
+	 */
+	public void setAdjustmentInterval(long adjustmentInterval) {
+		Assert.isTrue(adjustmentInterval > 0, "'adjustmentInterval' must be positive");
+		this.adjustmentInterval = adjustmentInterval;
+	}
+
+	/**
+	 * Return the current effective maximum pool size, as last adjusted
+	 * to the load of this executor.
+	 * @see #getMaxPoolSize()
+	 */
+	public int getEffectiveMaxPoolSize() {
+		ThreadPoolExecutor executor = this.adaptiveExecutor;
+		return (executor != null ? executor.getMaximumPoolSize() : getMaxPoolSize());
+	}
+
+
+	@Override
+	protected ExecutorService initializeExecutor(
+			ThreadFactory threadFactory, RejectedExecutionHandler rejectedExecutionHandler) {
+
+		RejectedExecutionHandler queueingHandler = (task, executor) -> {
+			// Only rejected if no further thread could be started: queue it after all
+			TaskQueue queue = this.taskQueue;
+			if (executor.isShutdown() || queue == null || !queue.force(task) ||
+					(executor.isShutdown() && queue.remove(task))) {
+				rejectedExecutionHandler.rejectedExecution(task, executor);
+			}
+		};
+		ExecutorService executorService = super.initializeExecutor(threadFactory, queueingHandler);
+		ThreadPoolExecutor executor = getThreadPoolExecutor();
+		this.lastAdjustmentTime = System.nanoTime();
+		this.lastCompletedTaskCount = 0;
+		this.nextAdjustmentTime.set(this.lastAdjustmentTime + TimeUnit.MILLISECONDS.toNanos(this.adjustmentInterval));
+		this.adaptiveExecutor = executor;
+		return executorService;
+	}
+
+	/**
+	 * This implementation creates a {@link LinkedTransferQueue} which declines
+	 * tasks while the pool may still grow, ignoring the given capacity.
+	 */
+	@Override
+	protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+		TaskQueue queue = new TaskQueue();
+		this.taskQueue = queue;
+		return queue;
+	}
+
+	/**
+	 * Adjust the effective maximum pool size if the adjustment interval elapsed.
+	 */
+	private void adjustPoolSizeIfNecessary(ThreadPoolExecutor executor) {
+		long now = System.nanoTime();
+		long next = this.nextAdjustmentTime.get();
+		if (now - next >= 0 &&
+				this.nextAdjustmentTime.compareAndSet(next, now + TimeUnit.MILLISECONDS.toNanos(this.adjustmentInterval))) {
+			adjustPoolSize(executor, now);
+		}
+	}
+
+	private void adjustPoolSize(ThreadPoolExecutor executor, long now) {
+		long completedTaskCount = executor.getCompletedTaskCount();
+		double elapsedSeconds = (now - this.lastAdjustmentTime) / (double) TimeUnit.SECONDS.toNanos(1);
+		double throughput = (completedTaskCount - this.lastCompletedTaskCount) / elapsedSeconds;
+		this.lastAdjustmentTime = now;
+		this.lastCompletedTaskCount = completedTaskCount;
+
+		TaskQueue queue = this.taskQueue;
+		int queued = (queue != null ? queue.size() : 0);
+		int active = executor.getActiveCount();
+		int current = executor.getMaximumPoolSize();
+		int target = determinePoolSize(queued, active, current, throughput, this.targetQueueLatency / 1000.0);
+
+		int newMax = Math.min(Math.max(target, Math.max(executor.getCorePoolSize(), 1)), getMaxPoolSize());
+		if (newMax != current) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Adjusting effective maximum pool size from " + current + " to " + newMax +
+						" (queued: " + queued + ", active: " + active + ", throughput: " + (long) throughput + "/s)");
+			}
+			executor.setMaximumPoolSize(newMax);
+		}
+	}
+
+	/**
+	 * Determine the pool size to aim for, before applying the core and maximum
+	 * pool size bounds.
+	 * @param queued the number of tasks waiting in the queue
+	 * @param active the number of threads busy executing tasks
+	 * @param current the current effective maximum pool size
+	 * @param throughput the number of tasks completed per second
+	 * @param targetLatency the target queue latency in seconds
+	 */
+	static int determinePoolSize(int queued, int active, int current, double throughput, double targetLatency) {
+		int target;
+		if (queued == 0) {
+			target = active;
+		}
+		else if (throughput == 0) {
+			// Nothing completed while tasks are waiting: add a thread at a time
+			target = current + 1;
+		}
+		else {
+			// Little's law: queue latency = queue length / throughput, where each
+			// of the busy threads contributes throughput / active on average
+			double queueLatency = queued / throughput;
+			int needed = (int) Math.ceil(queued * Math.max(active, 1) / (throughput * targetLatency));
+			target = (queueLatency <= targetLatency ? active : Math.max(active, needed));
+		}
+		if (target < current) {
+			// Shrink gradually, halfway towards the target
+			target = current - Math.max((current - target) / 2, 1);
+		}
+		return target;
+	}
+
+
+	/**
+	 * Queue which declines tasks for the executor to start a thread instead,
+	 * as long as the pool is below its maximum size.
+	 */
+	@SuppressWarnings("serial")
+	private class TaskQueue extends LinkedTransferQueue<Runnable> {
+
+		@Override
+		public boolean offer(Runnable task) {
+			ThreadPoolExecutor executor = adaptiveExecutor;
+			if (executor == null) {
+				return super.offer(task);
+			}
+			adjustPoolSizeIfNecessary(executor);
+			if (tryTransfer(task)) {
+				// Handed over to an idle thread
+				return true;
+			}
+			if (executor.getPoolSize() < executor.getMaximumPoolSize()) {
+				return false;
+			}
+			return super.offer(task);
+		}
+
+		public boolean force(Runnable task) {
+			return super.offer(task);
+		}
+	}
+
+}
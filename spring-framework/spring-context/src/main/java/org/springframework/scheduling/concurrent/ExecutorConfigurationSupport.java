@@ -61,12 +61,17 @@ public abstract class ExecutorConfigurationSupport extends CustomizableThreadFac
 
 	private int awaitTerminationSeconds = 0;
 
+	private boolean metricsEnabled = false;
+
 	@Nullable
 	private String beanName;
 
 	@Nullable
 	private ExecutorService executor;
 
+	@Nullable
+	private ExecutorMetrics metrics;
+
 
 	/**
 	 * Set the ThreadFactory to use for the ExecutorService's thread pool.
@@ -148,6 +153,28 @@ public abstract class ExecutorConfigurationSupport extends CustomizableThreadFac
 		this.awaitTerminationSeconds = awaitTerminationSeconds;
 	}
 
+	/**
+	 * Set whether to collect {@link ExecutorMetrics} for the tasks run by this executor.
+	 * <p>Default is "false". Switch this flag to "true" for exposing queue latency,
+	 * execution time, completed and rejected counts as well as the queue depth
+	 * through {@link #getMetrics()}, at the expense of a small overhead per task.
+	 * @since 5.1
+	 * @see #getMetrics()
+	 */
+	public void setMetricsEnabled(boolean metricsEnabled) {
+		this.metricsEnabled = metricsEnabled;
+	}
+
+	/**
+	 * Return the {@link ExecutorMetrics} of this executor, if
+	 * {@link #setMetricsEnabled enabled} and initialized already.
+	 * @since 5.1
+	 */
+	@Nullable
+	public ExecutorMetrics getMetrics() {
+		return this.metrics;
+	}
+
 	@Override
 	public void setBeanName(String name) {
 		this.beanName = name;
@@ -173,7 +200,17 @@ public abstract class ExecutorConfigurationSupport extends CustomizableThreadFac
 		if (!this.threadNamePrefixSet && this.beanName != null) {
 			setThreadNamePrefix(this.beanName + "-");
 		}
-		this.executor = initializeExecutor(this.threadFactory, this.rejectedExecutionHandler);
+		RejectedExecutionHandler rejectedExecutionHandler = this.rejectedExecutionHandler;
+		if (this.metricsEnabled) {
+			ExecutorMetrics metrics = new ExecutorMetrics();
+			rejectedExecutionHandler = metrics.countRejections(rejectedExecutionHandler);
+			this.metrics = metrics;
+		}
+		ExecutorService executor = initializeExecutor(this.threadFactory, rejectedExecutionHandler);
+		if (this.metrics != null && executor instanceof ThreadPoolExecutor) {
+			this.metrics.setThreadPoolExecutor((ThreadPoolExecutor) executor);
+		}
+		this.executor = executor;
 	}
 
 	/**
@@ -0,0 +1,535 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Low-overhead statistics for the tasks run by an {@link ExecutorConfigurationSupport}
+ * subclass: submitted, completed, failed and rejected counts, the current queue depth,
+ * and histograms of the time tasks waited in the queue and of their execution time.
+ *
+ * <p>Counters are striped {@link LongAdder LongAdders}; the {@link Histogram histograms}
+ * use logarithmic buckets with linear sub-buckets, so that recording a value is a
+ * single atomic increment and percentiles have a relative error of at most 12.5%.
+ *
+ * <p>Execution times can additionally be tagged, e.g. by the {@code @Async} method a
+ * task has been submitted for: see {@link #setSubmissionTag}.
+ *
+ * <p>Obtained through {@link ExecutorConfigurationSupport#getMetrics()} once metrics
+ * have been {@link ExecutorConfigurationSupport#setMetricsEnabled enabled}. Implements
+ * the {@link ExecutorMetricsMBean} interface, so that it can be registered with an
+ * {@link org.springframework.jmx.export.MBeanExporter} as well.
+ *
+ * @since 5.1
+ * @see ThreadPoolTaskExecutor
+ * @see ThreadPoolTaskScheduler
+ */
+public class ExecutorMetrics implements ExecutorMetricsMBean {
+
+	private static final ThreadLocal<String> submissionTag = new NamedThreadLocal<>("Executor submission tag");
+
+	private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+
+	private final LongAdder submittedCount = new LongAdder();
+
+	private final LongAdder completedCount = new LongAdder();
+
+	private final LongAdder failedCount = new LongAdder();
+
+	private final LongAdder rejectedCount = new LongAdder();
+
+	private final Histogram queueLatency = new Histogram();
+
+	private final Histogram executionTime = new Histogram();
+
+	private final Map<String, Histogram> taggedExecutionTimes = new ConcurrentHashMap<>(64);
+
+	@Nullable
+	private volatile ThreadPoolExecutor threadPoolExecutor;
+
+
+	/**
+	 * Tag the tasks submitted from the current thread, until reset to {@code null}.
+	 * <p>Typically set around the submission of a single task only.
+	 * @param tag the tag, or {@code null} to reset
+	 * @return the previous tag of the current thread, if any
+	 * @see #getExecutionTimes(String)
+	 * @see org.springframework.scheduling.annotation.AnnotationAsyncExecutionInterceptor
+	 */
+	@Nullable
+	public static String setSubmissionTag(@Nullable String tag) {
+		String previousTag = submissionTag.get();
+		if (tag != null) {
+			submissionTag.set(tag);
+		}
+		else {
+			submissionTag.remove();
+		}
+		return previousTag;
+	}
+
+
+	/**
+	 * Expose the given executor for the queue size and active count gauges.
+	 */
+	void setThreadPoolExecutor(ThreadPoolExecutor threadPoolExecutor) {
+		this.threadPoolExecutor = threadPoolExecutor;
+	}
+
+	/**
+	 * Decorate the given handler for counting rejected tasks.
+	 */
+	RejectedExecutionHandler countRejections(RejectedExecutionHandler rejectedExecutionHandler) {
+		return (task, executor) -> {
+			this.rejectedCount.increment();
+			rejectedExecutionHandler.rejectedExecution(task, executor);
+		};
+	}
+
+	/**
+	 * Decorate the given task for recording its queue latency and execution time.
+	 * @param task the task about to be queued
+	 * @return the decorated task
+	 */
+	Runnable instrument(Runnable task) {
+		this.submittedCount.increment();
+		String tag = submissionTag.get();
+		long submitTime = System.nanoTime();
+		return () -> run(task, System.nanoTime() - submitTime, tag);
+	}
+
+	/**
+	 * Run the given task, recording the given queue latency and its execution time.
+	 * @param task the task to run
+	 * @param queueLatency the time the task waited for a thread, in nanoseconds
+	 * @param tag the tag the task was submitted with, if any
+	 */
+	void run(Runnable task, long queueLatency, @Nullable String tag) {
+		boolean completed = false;
+		try {
+			runTimed(task, queueLatency, tag);
+			completed = !(task instanceof Future && hasFailed((Future<?>) task));
+		}
+		finally {
+			(completed ? this.completedCount : this.failedCount).increment();
+		}
+	}
+
+	/**
+	 * Run the given task, recording the given queue latency and its execution
+	 * time but not counting it as completed or failed.
+	 */
+	private void runTimed(Runnable task, long queueLatency, @Nullable String tag) {
+		this.queueLatency.record(queueLatency);
+		long startTime = System.nanoTime();
+		try {
+			task.run();
+		}
+		finally {
+			long time = System.nanoTime() - startTime;
+			this.executionTime.record(time);
+			if (tag != null) {
+				this.taggedExecutionTimes.computeIfAbsent(tag, key -> new Histogram()).record(time);
+			}
+		}
+	}
+
+	/**
+	 * Decorate the given scheduled task for recording its delay past the
+	 * scheduled execution time as queue latency, and its execution time.
+	 * @param task the task about to be scheduled
+	 * @param executor the executor to remove the task from when cancelled,
+	 * in case of {@link ScheduledThreadPoolExecutor#getRemoveOnCancelPolicy()}
+	 * @return the decorated task
+	 */
+	<V> RunnableScheduledFuture<V> instrument(RunnableScheduledFuture<V> task, ScheduledThreadPoolExecutor executor) {
+		this.submittedCount.increment();
+		return new InstrumentedScheduledFuture<>(task, executor, submissionTag.get());
+	}
+
+	private static boolean hasFailed(Future<?> future) {
+		if (!future.isDone() || future.isCancelled()) {
+			return false;
+		}
+		try {
+			future.get();
+			return false;
+		}
+		catch (ExecutionException ex) {
+			return true;
+		}
+		catch (InterruptedException | CancellationException ex) {
+			return false;
+		}
+	}
+
+
+	@Override
+	public long getSubmittedCount() {
+		return this.submittedCount.sum();
+	}
+
+	@Override
+	public long getCompletedCount() {
+		return this.completedCount.sum();
+	}
+
+	@Override
+	public long getFailedCount() {
+		return this.failedCount.sum();
+	}
+
+	@Override
+	public long getRejectedCount() {
+		return this.rejectedCount.sum();
+	}
+
+	@Override
+	public int getQueueSize() {
+		ThreadPoolExecutor executor = this.threadPoolExecutor;
+		return (executor != null ? executor.getQueue().size() : 0);
+	}
+
+	@Override
+	public int getActiveCount() {
+		ThreadPoolExecutor executor = this.threadPoolExecutor;
+		return (executor != null ? executor.getActiveCount() : 0);
+	}
+
+	/**
+	 * Return the histogram of the time tasks waited for a thread.
+	 * <p>For scheduled tasks, this is the delay between their scheduled
+	 * execution time and their actual start.
+	 */
+	public Histogram getQueueLatency() {
+		return this.queueLatency;
+	}
+
+	/**
+	 * Return the histogram of the execution time of all tasks.
+	 */
+	public Histogram getExecutionTime() {
+		return this.executionTime;
+	}
+
+	/**
+	 * Return the histogram of the execution time of the tasks submitted
+	 * with the given tag.
+	 * @param tag the tag, e.g. an {@code @Async} method name
+	 * @return the histogram, or {@code null} if no such task completed yet
+	 * @see #setSubmissionTag
+	 */
+	@Nullable
+	public Histogram getExecutionTimes(String tag) {
+		return this.taggedExecutionTimes.get(tag);
+	}
+
+	/**
+	 * Return the histograms of the execution time for all tags seen so far.
+	 */
+	public Map<String, Histogram> getTaggedExecutionTimes() {
+		return Collections.unmodifiableMap(this.taggedExecutionTimes);
+	}
+
+	@Override
+	public double getQueueLatencyMeanMillis() {
+		return this.queueLatency.getMean() / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getQueueLatency99thPercentileMillis() {
+		return this.queueLatency.getPercentile(99) / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getQueueLatencyMaxMillis() {
+		return this.queueLatency.getMax() / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getExecutionTimeMeanMillis() {
+		return this.executionTime.getMean() / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getExecutionTime99thPercentileMillis() {
+		return this.executionTime.getPercentile(99) / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public double getExecutionTimeMaxMillis() {
+		return this.executionTime.getMax() / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public void resetStatistics() {
+		this.submittedCount.reset();
+		this.completedCount.reset();
+		this.failedCount.reset();
+		this.rejectedCount.reset();
+		this.queueLatency.reset();
+		this.executionTime.reset();
+		this.taggedExecutionTimes.clear();
+	}
+
+
+	/**
+	 * Scheduled task recording its executions, for each period in case of
+	 * a repeating task. A repeating task counts as completed or failed once
+	 * only: when it gets cancelled, or when one of its executions fails.
+	 */
+	private final class InstrumentedScheduledFuture<V> implements RunnableScheduledFuture<V> {
+
+		private final RunnableScheduledFuture<V> task;
+
+		private final ScheduledThreadPoolExecutor executor;
+
+		@Nullable
+		private final String tag;
+
+		private final AtomicBoolean finished = new AtomicBoolean();
+
+		InstrumentedScheduledFuture(RunnableScheduledFuture<V> task, ScheduledThreadPoolExecutor executor,
+				@Nullable String tag) {
+
+			this.task = task;
+			this.executor = executor;
+			this.tag = tag;
+		}
+
+		@Override
+		public void run() {
+			long queueLatency = -this.task.getDelay(TimeUnit.NANOSECONDS);
+			if (!this.task.isPeriodic()) {
+				ExecutorMetrics.this.run(this.task, queueLatency, this.tag);
+				return;
+			}
+			boolean failed = true;
+			try {
+				runTimed(this.task, queueLatency, this.tag);
+				failed = hasFailed(this.task);
+			}
+			finally {
+				if (failed || this.task.isDone()) {
+					finish(failed);
+				}
+			}
+		}
+
+		private void finish(boolean failed) {
+			if (this.finished.compareAndSet(false, true)) {
+				(failed ? failedCount : completedCount).increment();
+			}
+		}
+
+		@Override
+		public boolean isPeriodic() {
+			return this.task.isPeriodic();
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return this.task.getDelay(unit);
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			return this.task.compareTo(other instanceof InstrumentedScheduledFuture ?
+					((InstrumentedScheduledFuture<?>) other).task : other);
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = this.task.cancel(mayInterruptIfRunning);
+			if (cancelled && this.task.isPeriodic()) {
+				finish(false);
+			}
+			if (cancelled && this.executor.getRemoveOnCancelPolicy()) {
+				// The executor's queue holds this decorator rather than the task itself
+				this.executor.remove(this);
+			}
+			return cancelled;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return this.task.isCancelled();
+		}
+
+		@Override
+		public boolean isDone() {
+			return this.task.isDone();
+		}
+
+		@Override
+		public V get() throws InterruptedException, ExecutionException {
+			return this.task.get();
+		}
+
+		@Override
+		public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			return this.task.get(timeout, unit);
+		}
+	}
+
+
+	/**
+	 * Histogram of non-negative durations in nanoseconds, with buckets
+	 * for each power of two split into 8 linear sub-buckets.
+	 */
+	public static final class Histogram {
+
+		private static final int SUB_BUCKET_BITS = 3;
+
+		private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+		private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKET_COUNT);
+
+		private final LongAdder count = new LongAdder();
+
+		private final LongAdder sum = new LongAdder();
+
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		Histogram() {
+		}
+
+		/**
+		 * Record the given duration.
+		 * @param nanos the duration in nanoseconds (negative values count as zero)
+		 */
+		public void record(long nanos) {
+			long value = Math.max(nanos, 0);
+			this.buckets.incrementAndGet(bucketIndex(value));
+			this.count.increment();
+			this.sum.add(value);
+			this.max.accumulate(value);
+		}
+
+		/**
+		 * Return the number of recorded durations.
+		 */
+		public long getCount() {
+			return this.count.sum();
+		}
+
+		/**
+		 * Return the mean of the recorded durations in nanoseconds,
+		 * or 0 if none recorded.
+		 */
+		public double getMean() {
+			long count = this.count.sum();
+			return (count > 0 ? (double) this.sum.sum() / count : 0);
+		}
+
+		/**
+		 * Return the maximum of the recorded durations in nanoseconds.
+		 */
+		public long getMax() {
+			return this.max.get();
+		}
+
+		/**
+		 * Return the given percentile of the recorded durations in nanoseconds,
+		 * as the upper bound of the bucket it falls into, or 0 if none recorded.
+		 * @param percentile the percentile, between 0 and 100
+		 */
+		public long getPercentile(double percentile) {
+			Assert.isTrue(percentile >= 0 && percentile <= 100, "Percentile must be between 0 and 100");
+			long[] counts = new long[this.buckets.length()];
+			long total = 0;
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] = this.buckets.get(i);
+				total += counts[i];
+			}
+			if (total == 0) {
+				return 0;
+			}
+			long rank = Math.max((long) Math.ceil(total * percentile / 100), 1);
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return Math.min(bucketLowerBound(i + 1) - 1, getMax());
+				}
+			}
+			return getMax();
+		}
+
+		/**
+		 * Reset the histogram.
+		 */
+		public void reset() {
+			for (int i = 0; i < this.buckets.length(); i++) {
+				this.buckets.set(i, 0);
+			}
+			this.count.reset();
+			this.sum.reset();
+			this.max.reset();
+		}
+
+		private static int bucketIndex(long value) {
+			if (value < SUB_BUCKET_COUNT) {
+				return (int) value;
+			}
+			int magnitude = 63 - Long.numberOfLeadingZeros(value);
+			int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+			return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+		}
+
+		private static long bucketLowerBound(int index) {
+			if (index < SUB_BUCKET_COUNT) {
+				return index;
+			}
+			int magnitude = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+			int subBucket = index % SUB_BUCKET_COUNT;
+			if (magnitude >= 63) {
+				return Long.MAX_VALUE;
+			}
+			return (long) (SUB_BUCKET_COUNT + subBucket) << (magnitude - SUB_BUCKET_BITS);
+		}
+
+		@Override
+		public String toString() {
+			return "Histogram: count=" + getCount() + ", mean=" + (long) getMean() +
+					"ns, p99=" + getPercentile(99) + "ns, max=" + getMax() + "ns";
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+/**
+ * MBean operation interface for the statistics of an {@link ExecutorMetrics} instance.
+ *
+ * @since 5.1
+ */
+public interface ExecutorMetricsMBean {
+
+	/**
+	 * Return the number of tasks handed to the executor.
+	 */
+	long getSubmittedCount();
+
+	/**
+	 * Return the number of tasks which completed normally, including
+	 * repeating tasks which have been cancelled.
+	 */
+	long getCompletedCount();
+
+	/**
+	 * Return the number of tasks which threw an exception.
+	 */
+	long getFailedCount();
+
+	/**
+	 * Return the number of tasks rejected by the executor.
+	 */
+	long getRejectedCount();
+
+	/**
+	 * Return the current number of tasks waiting in the executor's queue.
+	 */
+	int getQueueSize();
+
+	/**
+	 * Return the current number of threads executing tasks.
+	 */
+	int getActiveCount();
+
+	/**
+	 * Return the mean time tasks waited for a thread, in milliseconds.
+	 */
+	double getQueueLatencyMeanMillis();
+
+	/**
+	 * Return the 99th percentile of the time tasks waited for a thread, in milliseconds.
+	 */
+	double getQueueLatency99thPercentileMillis();
+
+	/**
+	 * Return the maximum time a task waited for a thread, in milliseconds.
+	 */
+	double getQueueLatencyMaxMillis();
+
+	/**
+	 * Return the mean execution time of tasks, in milliseconds.
+	 */
+	double getExecutionTimeMeanMillis();
+
+	/**
+	 * Return the 99th percentile of the execution time of tasks, in milliseconds.
+	 */
+	double getExecutionTime99thPercentileMillis();
+
+	/**
+	 * Return the maximum execution time of a task, in milliseconds.
+	 */
+	double getExecutionTimeMaxMillis();
+
+	/**
+	 * Reset all statistics to zero.
+	 */
+	void resetStatistics();
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,6 +38,8 @@ import org.springframework.util.ErrorHandler;
  * <p>Necessary because a native {@link ScheduledExecutorService} supports
  * delay-driven execution only. The flexibility of the {@link Trigger} interface
  * will be translated onto a delay for the next execution time (repeatedly).
+ * Alternatively, the delay-driven executions may be scheduled through a
+ * custom {@link DelayedExecutionScheduler}.
  *
  * @author Juergen Hoeller
  * @author Mark Fisher
@@ -49,7 +51,7 @@ class ReschedulingRunnable extends DelegatingErrorHandlingRunnable implements Sc
 
 	private final SimpleTriggerContext triggerContext = new SimpleTriggerContext();
 
-	private final ScheduledExecutorService executor;
+	private final DelayedExecutionScheduler scheduler;
 
 	@Nullable
 	private ScheduledFuture<?> currentFuture;
@@ -63,9 +65,15 @@ class ReschedulingRunnable extends DelegatingErrorHandlingRunnable implements Sc
 	public ReschedulingRunnable(
 			Runnable delegate, Trigger trigger, ScheduledExecutorService executor, ErrorHandler errorHandler) {
 
+		this(delegate, trigger, (task, delay) -> executor.schedule(task, delay, TimeUnit.MILLISECONDS), errorHandler);
+	}
+
+	public ReschedulingRunnable(
+			Runnable delegate, Trigger trigger, DelayedExecutionScheduler scheduler, ErrorHandler errorHandler) {
+
 		super(delegate, errorHandler);
 		this.trigger = trigger;
-		this.executor = executor;
+		this.scheduler = scheduler;
 	}
 
 
@@ -77,7 +85,7 @@ class ReschedulingRunnable extends DelegatingErrorHandlingRunnable implements Sc
 				return null;
 			}
 			long initialDelay = this.scheduledExecutionTime.getTime() - System.currentTimeMillis();
-			this.currentFuture = this.executor.schedule(this, initialDelay, TimeUnit.MILLISECONDS);
+			this.currentFuture = this.scheduler.schedule(this, initialDelay);
 			return this;
 		}
 	}
@@ -159,4 +167,20 @@ class ReschedulingRunnable extends DelegatingErrorHandlingRunnable implements Sc
 		return (diff == 0 ? 0 : ((diff < 0)? -1 : 1));
 	}
 
+
+	/**
+	 * Strategy for scheduling a single delay-driven execution.
+	 */
+	@FunctionalInterface
+	interface DelayedExecutionScheduler {
+
+		/**
+		 * Schedule the given task for execution after the given delay.
+		 * @param task the task to execute
+		 * @param delay the delay in milliseconds
+		 * @return the future for the scheduled execution
+		 */
+		ScheduledFuture<?> schedule(Runnable task, long delay);
+	}
+
 }
@@ -47,6 +47,8 @@ import org.springframework.util.concurrent.ListenableFutureTask;
  * This class is also well suited for management and monitoring (e.g. through JMX),
  * providing several useful attributes: "corePoolSize", "maxPoolSize", "keepAliveSeconds"
  * (all supporting updates at runtime); "poolSize", "activeCount" (for introspection only).
+ * Detailed task statistics are available through {@link #getMetrics()} once
+ * {@link #setMetricsEnabled "metricsEnabled"} has been switched on.
  *
  * <p>For an alternative, you may set up a ThreadPoolExecutor instance directly using
  * constructor injection, or use a factory method definition that points to the
@@ -217,13 +219,17 @@ public class ThreadPoolTaskExecutor extends ExecutorConfigurationSupport
 		BlockingQueue<Runnable> queue = createQueue(this.queueCapacity);
 
 		ThreadPoolExecutor executor;
-		if (this.taskDecorator != null) {
+		ExecutorMetrics metrics = getMetrics();
+		if (this.taskDecorator != null || metrics != null) {
 			executor = new ThreadPoolExecutor(
 					this.corePoolSize, this.maxPoolSize, this.keepAliveSeconds, TimeUnit.SECONDS,
 					queue, threadFactory, rejectedExecutionHandler) {
 				@Override
 				public void execute(Runnable command) {
-					Runnable decorated = taskDecorator.decorate(command);
+					Runnable decorated = (taskDecorator != null ? taskDecorator.decorate(command) : command);
+					if (metrics != null) {
+						decorated = metrics.instrument(decorated);
+					}
 					if (decorated != command) {
 						decoratedTaskMap.put(decorated, command);
 					}
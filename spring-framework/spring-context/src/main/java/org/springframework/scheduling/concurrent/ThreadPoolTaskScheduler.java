@@ -24,6 +24,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.RunnableScheduledFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -133,6 +134,8 @@ public class ThreadPoolTaskScheduler extends ExecutorConfigurationSupport
 	 * Create a new {@link ScheduledExecutorService} instance.
 	 * <p>The default implementation creates a {@link ScheduledThreadPoolExecutor}.
 	 * Can be overridden in subclasses to provide custom {@link ScheduledExecutorService} instances.
+	 * <p>If {@link #setMetricsEnabled metrics} are enabled, the default implementation
+	 * decorates each scheduled task for recording its executions.
 	 * @param poolSize the specified pool size
 	 * @param threadFactory the ThreadFactory to use
 	 * @param rejectedExecutionHandler the RejectedExecutionHandler to use
@@ -143,6 +146,19 @@ public class ThreadPoolTaskScheduler extends ExecutorConfigurationSupport
 	protected ScheduledExecutorService createExecutor(
 			int poolSize, ThreadFactory threadFactory, RejectedExecutionHandler rejectedExecutionHandler) {
 
+		ExecutorMetrics metrics = getMetrics();
+		if (metrics != null) {
+			return new ScheduledThreadPoolExecutor(poolSize, threadFactory, rejectedExecutionHandler) {
+				@Override
+				protected <V> RunnableScheduledFuture<V> decorateTask(Runnable runnable, RunnableScheduledFuture<V> task) {
+					return metrics.instrument(task, this);
+				}
+				@Override
+				protected <V> RunnableScheduledFuture<V> decorateTask(Callable<V> callable, RunnableScheduledFuture<V> task) {
+					return metrics.instrument(task, this);
+				}
+			};
+		}
 		return new ScheduledThreadPoolExecutor(poolSize, threadFactory, rejectedExecutionHandler);
 	}
 
@@ -0,0 +1,557 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.Date;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.support.PeriodicTrigger;
+import org.springframework.scheduling.support.TaskUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+
+/**
+ * Implementation of Spring's {@link TaskScheduler} interface based on a
+ * hashed timing wheel, for applications which keep very large numbers of
+ * scheduled tasks around, e.g. per-session timeouts and heartbeats.
+ *
+ * <p>In contrast to a {@link java.util.concurrent.ScheduledThreadPoolExecutor},
+ * whose delay queue is a binary heap guarded by a single lock, scheduling and
+ * cancelling a task are O(1) operations here which merely enqueue the task for
+ * a dedicated tick thread. The tick thread advances the wheel every
+ * {@link #setTickDuration tick}, expiring all tasks of the current bucket in
+ * one go and handing them over to a separate pool of
+ * {@link #setPoolSize worker threads}. Tasks further in the future than one
+ * revolution of the wheel stay in their bucket for the corresponding number
+ * of rounds.
+ *
+ * <p>The trade-off is precision: tasks execute up to one tick duration later
+ * than requested. Repeated executions are rescheduled on the wheel for every
+ * firing, with fixed-rate and fixed-delay semantics as for a
+ * {@link ThreadPoolTaskScheduler}.
+ *
+ * <p>Can be used wherever a {@link TaskScheduler} is accepted, e.g. for
+ * {@code @Scheduled} methods when registered as a bean named "taskScheduler".
+ *
+ * @since 5.1
+ * @see #setTickDuration
+ * @see #setTicksPerWheel
+ * @see #setPoolSize
+ */
+@SuppressWarnings("serial")
+public class TimerWheelTaskScheduler extends ExecutorConfigurationSupport implements TaskScheduler {
+
+	private long tickDuration = 10;
+
+	private int ticksPerWheel = 512;
+
+	private int poolSize = 1;
+
+	@Nullable
+	private volatile ErrorHandler errorHandler;
+
+	@Nullable
+	private Wheel wheel;
+
+
+	/**
+	 * Set the duration of a tick in milliseconds, i.e. the precision of the
+	 * scheduler. Default is 10.
+	 */
+	public void setTickDuration(long tickDuration) {
+		Assert.isTrue(tickDuration > 0, "'tickDuration' must be positive");
+		this.tickDuration = tickDuration;
+	}
+
+	/**
+	 * Set the number of buckets of the wheel, rounded up to a power of two.
+	 * Default is 512.
+	 * <p>Together with the tick duration, this determines the time span covered
+	 * by one revolution of the wheel: tasks within that span get expired directly
+	 * when their bucket comes up, whereas later ones need to sit out some rounds.
+	 */
+	public void setTicksPerWheel(int ticksPerWheel) {
+		Assert.isTrue(ticksPerWheel > 0 && ticksPerWheel <= (1 << 30),
+				"'ticksPerWheel' must be between 1 and 2^30");
+		this.ticksPerWheel = ticksPerWheel;
+	}
+
+	/**
+	 * Set the number of worker threads executing expired tasks. Default is 1.
+	 */
+	public void setPoolSize(int poolSize) {
+		Assert.isTrue(poolSize > 0, "'poolSize' must be 1 or higher");
+		this.poolSize = poolSize;
+	}
+
+	/**
+	 * Set a custom {@link ErrorHandler} strategy.
+	 */
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		this.errorHandler = errorHandler;
+	}
+
+
+	@Override
+	protected ExecutorService initializeExecutor(
+			ThreadFactory threadFactory, RejectedExecutionHandler rejectedExecutionHandler) {
+
+		ThreadPoolExecutor workers = new ThreadPoolExecutor(this.poolSize, this.poolSize, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), threadFactory, rejectedExecutionHandler);
+		Wheel wheel = new Wheel(TimeUnit.MILLISECONDS.toNanos(this.tickDuration), this.ticksPerWheel, workers);
+		wheel.start(threadFactory);
+		this.wheel = wheel;
+		return workers;
+	}
+
+	/**
+	 * Stop the tick thread, cancelling all tasks which are not due yet,
+	 * before shutting down the worker threads.
+	 */
+	@Override
+	public void shutdown() {
+		Wheel wheel = this.wheel;
+		if (wheel != null) {
+			wheel.stop();
+		}
+		super.shutdown();
+	}
+
+	private Wheel getWheel() {
+		Assert.state(this.wheel != null, "TimerWheelTaskScheduler not initialized");
+		return this.wheel;
+	}
+
+
+	@Override
+	@Nullable
+	public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+		Wheel wheel = getWheel();
+		ErrorHandler errorHandler = this.errorHandler;
+		if (errorHandler == null) {
+			errorHandler = TaskUtils.getDefaultErrorHandler(true);
+		}
+		try {
+			return new ReschedulingRunnable(task, trigger, wheel::newTimeout, errorHandler).schedule();
+		}
+		catch (RejectedExecutionException ex) {
+			throw new TaskRejectedException("Scheduler [" + this + "] did not accept task: " + task, ex);
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+		Wheel wheel = getWheel();
+		long initialDelay = startTime.getTime() - System.currentTimeMillis();
+		try {
+			return wheel.newTimeout(errorHandlingTask(task, false), initialDelay);
+		}
+		catch (RejectedExecutionException ex) {
+			throw new TaskRejectedException("Scheduler [" + this + "] did not accept task: " + task, ex);
+		}
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Date startTime, long period) {
+		return schedulePeriodic(task, startTime.getTime() - System.currentTimeMillis(), period, true);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+		return schedulePeriodic(task, 0, period, true);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Date startTime, long delay) {
+		return schedulePeriodic(task, startTime.getTime() - System.currentTimeMillis(), delay, false);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay) {
+		return schedulePeriodic(task, 0, delay, false);
+	}
+
+	private ScheduledFuture<?> schedulePeriodic(Runnable task, long initialDelay, long period, boolean fixedRate) {
+		Assert.isTrue(period > 0, "Period must be positive");
+		PeriodicTrigger trigger = new PeriodicTrigger(period);
+		trigger.setInitialDelay(Math.max(initialDelay, 0));
+		trigger.setFixedRate(fixedRate);
+		ScheduledFuture<?> future = schedule(task, trigger);
+		Assert.state(future != null, "PeriodicTrigger did not provide an execution time");
+		return future;
+	}
+
+	private Runnable errorHandlingTask(Runnable task, boolean isRepeatingTask) {
+		return TaskUtils.decorateTaskWithErrorHandler(task, this.errorHandler, isRepeatingTask);
+	}
+
+
+	/**
+	 * The wheel of buckets, advanced by a dedicated tick thread.
+	 */
+	private static final class Wheel implements Runnable {
+
+		private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+		private static final Log logger = LogFactory.getLog(TimerWheelTaskScheduler.class);
+
+		private final long tickNanos;
+
+		private final Bucket[] buckets;
+
+		private final int mask;
+
+		private final Executor workers;
+
+		private final Queue<WheelTimeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+
+		private final Queue<WheelTimeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+
+		private final long startTime = System.nanoTime();
+
+		private volatile boolean running = true;
+
+		@Nullable
+		private Thread tickThread;
+
+		// Only accessed by the tick thread
+		private long tick;
+
+		Wheel(long tickNanos, int ticksPerWheel, Executor workers) {
+			int size = 1;
+			while (size < ticksPerWheel) {
+				size <<= 1;
+			}
+			this.tickNanos = tickNanos;
+			this.buckets = new Bucket[size];
+			for (int i = 0; i < size; i++) {
+				this.buckets[i] = new Bucket();
+			}
+			this.mask = size - 1;
+			this.workers = workers;
+		}
+
+		void start(ThreadFactory threadFactory) {
+			Thread thread = threadFactory.newThread(this);
+			this.tickThread = thread;
+			thread.start();
+		}
+
+		void stop() {
+			this.running = false;
+			Thread thread = this.tickThread;
+			if (thread != null && thread != Thread.currentThread()) {
+				thread.interrupt();
+				try {
+					thread.join();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		/**
+		 * Schedule the given task for expiration after the given delay.
+		 */
+		public WheelTimeout newTimeout(Runnable task, long delay) {
+			if (!this.running) {
+				throw new RejectedExecutionException("Scheduler has been shut down");
+			}
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(delay, 0)) - this.startTime;
+			if (delay > 0 && deadline < 0) {
+				// Guard against overflow
+				deadline = Long.MAX_VALUE;
+			}
+			WheelTimeout timeout = new WheelTimeout(this, task, deadline);
+			this.pendingTimeouts.add(timeout);
+			return timeout;
+		}
+
+		@Override
+		public void run() {
+			while (this.running) {
+				long now = waitForNextTick();
+				if (now < 0) {
+					break;
+				}
+				processCancelledTimeouts();
+				transferPendingTimeouts();
+				this.buckets[(int) (this.tick & this.mask)].expireTimeouts(now);
+				this.tick++;
+			}
+			// Shut down: cancel all remaining timeouts
+			for (Bucket bucket : this.buckets) {
+				bucket.cancelAll();
+			}
+			WheelTimeout timeout;
+			while ((timeout = this.pendingTimeouts.poll()) != null) {
+				timeout.cancel(false);
+			}
+			this.cancelledTimeouts.clear();
+		}
+
+		/**
+		 * Wait until the end of the current tick.
+		 * @return the current time relative to the start time,
+		 * or -1 if the wheel has been stopped
+		 */
+		private long waitForNextTick() {
+			long deadline = this.tickNanos * (this.tick + 1);
+			while (true) {
+				long currentTime = System.nanoTime() - this.startTime;
+				long sleepMillis = (deadline - currentTime + 999999) / 1000000;
+				if (sleepMillis <= 0) {
+					return currentTime;
+				}
+				try {
+					Thread.sleep(sleepMillis);
+				}
+				catch (InterruptedException ex) {
+					if (!this.running) {
+						return -1;
+					}
+				}
+			}
+		}
+
+		private void processCancelledTimeouts() {
+			WheelTimeout timeout;
+			while ((timeout = this.cancelledTimeouts.poll()) != null) {
+				Bucket bucket = timeout.bucket;
+				if (bucket != null) {
+					bucket.remove(timeout);
+				}
+			}
+		}
+
+		private void transferPendingTimeouts() {
+			for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+				WheelTimeout timeout = this.pendingTimeouts.poll();
+				if (timeout == null) {
+					break;
+				}
+				if (timeout.isCancelled()) {
+					continue;
+				}
+				long calculated = timeout.deadline / this.tickNanos;
+				timeout.remainingRounds = (calculated - this.tick) / this.buckets.length;
+				// Deadlines in the past go into the current bucket
+				long ticks = Math.max(calculated, this.tick);
+				this.buckets[(int) (ticks & this.mask)].add(timeout);
+			}
+		}
+
+		void expire(WheelTimeout timeout) {
+			try {
+				this.workers.execute(timeout.task);
+			}
+			catch (RejectedExecutionException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Worker threads did not accept expired task - cancelling it", ex);
+				}
+				timeout.task.cancel(false);
+			}
+		}
+	}
+
+
+	/**
+	 * Doubly-linked list of the timeouts in a bucket of the wheel,
+	 * only accessed by the tick thread.
+	 */
+	private static final class Bucket {
+
+		@Nullable
+		private WheelTimeout head;
+
+		@Nullable
+		private WheelTimeout tail;
+
+		void add(WheelTimeout timeout) {
+			timeout.bucket = this;
+			if (this.tail == null) {
+				this.head = timeout;
+				this.tail = timeout;
+			}
+			else {
+				this.tail.next = timeout;
+				timeout.prev = this.tail;
+				this.tail = timeout;
+			}
+		}
+
+		void remove(WheelTimeout timeout) {
+			WheelTimeout next = timeout.next;
+			if (timeout.prev != null) {
+				timeout.prev.next = next;
+			}
+			if (next != null) {
+				next.prev = timeout.prev;
+			}
+			if (timeout == this.head) {
+				this.head = next;
+			}
+			if (timeout == this.tail) {
+				this.tail = timeout.prev;
+			}
+			timeout.prev = null;
+			timeout.next = null;
+			timeout.bucket = null;
+		}
+
+		void expireTimeouts(long now) {
+			WheelTimeout timeout = this.head;
+			while (timeout != null) {
+				WheelTimeout next = timeout.next;
+				if (timeout.remainingRounds <= 0 && timeout.deadline <= now) {
+					remove(timeout);
+					timeout.expire();
+				}
+				else if (timeout.isCancelled()) {
+					remove(timeout);
+				}
+				else {
+					timeout.remainingRounds--;
+				}
+				timeout = next;
+			}
+		}
+
+		void cancelAll() {
+			WheelTimeout timeout = this.head;
+			while (timeout != null) {
+				WheelTimeout next = timeout.next;
+				remove(timeout);
+				timeout.cancel(false);
+				timeout = next;
+			}
+		}
+	}
+
+
+	/**
+	 * A task scheduled on the wheel, exposed as a {@link ScheduledFuture}.
+	 */
+	private static final class WheelTimeout implements ScheduledFuture<Object> {
+
+		private static final int ST_INIT = 0;
+
+		private static final int ST_CANCELLED = 1;
+
+		private static final int ST_EXPIRED = 2;
+
+		private final Wheel wheel;
+
+		final FutureTask<Object> task;
+
+		final long deadline;
+
+		private final AtomicInteger state = new AtomicInteger(ST_INIT);
+
+		// Only accessed by the tick thread
+		long remainingRounds;
+
+		@Nullable
+		Bucket bucket;
+
+		@Nullable
+		WheelTimeout prev;
+
+		@Nullable
+		WheelTimeout next;
+
+		WheelTimeout(Wheel wheel, Runnable task, long deadline) {
+			this.wheel = wheel;
+			this.task = new FutureTask<>(task, null);
+			this.deadline = deadline;
+		}
+
+		void expire() {
+			if (this.state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+				this.wheel.expire(this);
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = this.task.cancel(mayInterruptIfRunning);
+			if (cancelled && this.state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+				// Let the tick thread unlink the timeout from its bucket
+				this.wheel.cancelledTimeouts.add(this);
+			}
+			return cancelled;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return this.task.isCancelled();
+		}
+
+		@Override
+		public boolean isDone() {
+			return this.task.isDone();
+		}
+
+		@Override
+		public Object get() throws InterruptedException, ExecutionException {
+			return this.task.get();
+		}
+
+		@Override
+		public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			return this.task.get(timeout, unit);
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(this.deadline - (System.nanoTime() - this.wheel.startTime), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			if (this == other) {
+				return 0;
+			}
+			long diff = getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+			return (diff == 0 ? 0 : ((diff < 0) ? -1 : 1));
+		}
+	}
+
+}
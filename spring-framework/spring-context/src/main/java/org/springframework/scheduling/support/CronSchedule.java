@@ -0,0 +1,272 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.support;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@code java.time} based evaluator for a
+ * <a href="http://www.manpagez.com/man/5/crontab/">Crontab pattern</a>,
+ * supporting the same six-field syntax as {@link CronSequenceGenerator}.
+ *
+ * <p>The values matched by each field are precomputed into {@code long} bit
+ * masks, so that finding the next matching value of a field is a single
+ * {@link Long#numberOfTrailingZeros} operation instead of a walk over calendar
+ * fields, and the next matching day of a month is determined for the day-of-month
+ * and day-of-week fields at once. No calendar objects are allocated apart from
+ * the immutable {@link ZonedDateTime} values themselves.
+ *
+ * <p>Instances are immutable and thread-safe. {@link #nextExecutions} cheaply
+ * produces a series of upcoming fire times in bulk.
+ *
+ * @since 5.1
+ * @see CronTrigger
+ */
+public class CronSchedule {
+
+	private static final int MAX_YEARS_AHEAD = 4;
+
+	private final String expression;
+
+	private final ZoneId zoneId;
+
+	private final long seconds;
+
+	private final long minutes;
+
+	private final long hours;
+
+	private final long daysOfMonth;
+
+	private final long months;
+
+	private final long daysOfWeek;
+
+
+	/**
+	 * Construct a {@link CronSchedule} from the pattern provided,
+	 * using the system default time zone.
+	 * @param expression a space-separated list of time fields
+	 * @throws IllegalArgumentException if the pattern cannot be parsed
+	 * @see ZoneId#systemDefault()
+	 */
+	public CronSchedule(String expression) {
+		this(expression, ZoneId.systemDefault());
+	}
+
+	/**
+	 * Construct a {@link CronSchedule} from the pattern provided,
+	 * using the specified time zone.
+	 * @param expression a space-separated list of time fields
+	 * @param zoneId the time zone to use for generated fire times
+	 * @throws IllegalArgumentException if the pattern cannot be parsed
+	 */
+	public CronSchedule(String expression, ZoneId zoneId) {
+		this(new CronSequenceGenerator(expression, TimeZone.getTimeZone(zoneId)), zoneId);
+	}
+
+	/**
+	 * Construct a {@link CronSchedule} from an already parsed pattern.
+	 */
+	CronSchedule(CronSequenceGenerator sequenceGenerator, ZoneId zoneId) {
+		this.expression = sequenceGenerator.getExpression();
+		this.zoneId = zoneId;
+		long[] masks = sequenceGenerator.getFieldMasks();
+		this.seconds = masks[0];
+		this.minutes = masks[1];
+		this.hours = masks[2];
+		this.daysOfMonth = masks[3];
+		this.months = masks[4];
+		this.daysOfWeek = masks[5];
+	}
+
+
+	/**
+	 * Return the cron pattern that this schedule has been built for.
+	 */
+	public String getExpression() {
+		return this.expression;
+	}
+
+	/**
+	 * Return the time zone that fire times are calculated in.
+	 */
+	public ZoneId getZoneId() {
+		return this.zoneId;
+	}
+
+
+	/**
+	 * Get the next fire time matching the cron pattern after the given date,
+	 * as an alternative to {@link CronSequenceGenerator#next(Date)}.
+	 * @param date a seed value
+	 * @return the next value matching the pattern, with a whole number of seconds
+	 */
+	public Date next(Date date) {
+		return Date.from(next(date.toInstant()));
+	}
+
+	/**
+	 * Get the next fire time matching the cron pattern after the given instant.
+	 * @param instant a seed value
+	 * @return the next value matching the pattern, with a whole number of seconds
+	 */
+	public Instant next(Instant instant) {
+		return next(instant.atZone(this.zoneId)).toInstant();
+	}
+
+	/**
+	 * Get the next fire time matching the cron pattern after the given date-time.
+	 * @param dateTime a seed value, possibly in a different time zone
+	 * @return the next value matching the pattern, in the time zone of this
+	 * schedule and with a whole number of seconds
+	 */
+	public ZonedDateTime next(ZonedDateTime dateTime) {
+		ZonedDateTime candidate = dateTime.withZoneSameInstant(this.zoneId)
+				.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+		int startYear = candidate.getYear();
+		while (true) {
+			if (candidate.getYear() - startYear > MAX_YEARS_AHEAD) {
+				throw new IllegalArgumentException("Invalid cron expression \"" + this.expression +
+						"\" led to runaway search for next trigger");
+			}
+
+			int month = candidate.getMonthValue() - 1;
+			int nextMonth = nextSetBit(this.months, month);
+			if (nextMonth != month) {
+				candidate = candidate.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS);
+				candidate = (nextMonth < 0 ? candidate.plusYears(1).withMonth(1) : candidate.withMonth(nextMonth + 1));
+				continue;
+			}
+
+			int day = candidate.getDayOfMonth();
+			int nextDay = nextSetBit(matchingDaysOfMonth(candidate), day);
+			if (nextDay != day) {
+				candidate = candidate.truncatedTo(ChronoUnit.DAYS);
+				candidate = (nextDay < 0 ? candidate.withDayOfMonth(1).plusMonths(1) : candidate.withDayOfMonth(nextDay));
+				continue;
+			}
+
+			int hour = candidate.getHour();
+			int nextHour = nextSetBit(this.hours, hour);
+			if (nextHour != hour) {
+				candidate = (nextHour < 0 ? candidate.truncatedTo(ChronoUnit.DAYS).plusDays(1) :
+						candidate.withHour(nextHour).truncatedTo(ChronoUnit.HOURS));
+				continue;
+			}
+
+			int minute = candidate.getMinute();
+			int nextMinute = nextSetBit(this.minutes, minute);
+			if (nextMinute != minute) {
+				candidate = (nextMinute < 0 ? candidate.truncatedTo(ChronoUnit.HOURS).plusHours(1) :
+						candidate.withMinute(nextMinute).truncatedTo(ChronoUnit.MINUTES));
+				continue;
+			}
+
+			int second = candidate.getSecond();
+			int nextSecond = nextSetBit(this.seconds, second);
+			if (nextSecond != second) {
+				candidate = (nextSecond < 0 ? candidate.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1) :
+						candidate.withSecond(nextSecond));
+				continue;
+			}
+
+			return candidate;
+		}
+	}
+
+	/**
+	 * Get the given number of consecutive fire times matching the cron pattern
+	 * after the given date-time.
+	 * @param dateTime a seed value, possibly in a different time zone
+	 * @param count the number of fire times to calculate
+	 * @return the next values matching the pattern, in ascending order
+	 */
+	public List<ZonedDateTime> nextExecutions(ZonedDateTime dateTime, int count) {
+		Assert.isTrue(count >= 0, "Count must not be negative");
+		List<ZonedDateTime> result = new ArrayList<>(count);
+		ZonedDateTime current = dateTime;
+		for (int i = 0; i < count; i++) {
+			current = next(current);
+			result.add(current);
+		}
+		return result;
+	}
+
+	/**
+	 * Compute the days of the month of the given date-time which match both
+	 * the day-of-month and the day-of-week field, as a bit mask.
+	 */
+	private long matchingDaysOfMonth(ZonedDateTime dateTime) {
+		int length = dateTime.toLocalDate().lengthOfMonth();
+		// Day of week of the 1st of the month, with Sunday as 0 like in the cron pattern
+		int firstDayOfWeek = dateTime.withDayOfMonth(1).getDayOfWeek().getValue() % 7;
+		// Rotate the days of week so that bit 0 stands for the 1st of the month...
+		long week = ((this.daysOfWeek >>> firstDayOfWeek) | (this.daysOfWeek << (7 - firstDayOfWeek))) & 0x7F;
+		// ... and repeat it for each week, shifted by one since days of month start with 1
+		long days = (week << 1) | (week << 8) | (week << 15) | (week << 22) | (week << 29);
+		long lengthMask = ((1L << (length + 1)) - 1) & ~1L;
+		return days & this.daysOfMonth & lengthMask;
+	}
+
+	/**
+	 * Return the index of the lowest bit set in the given mask
+	 * at or above the given index, or -1 if none.
+	 */
+	private static int nextSetBit(long mask, int fromIndex) {
+		long remaining = mask & (-1L << fromIndex);
+		return (remaining != 0 ? Long.numberOfTrailingZeros(remaining) : -1);
+	}
+
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof CronSchedule)) {
+			return false;
+		}
+		CronSchedule otherSchedule = (CronSchedule) other;
+		return (this.zoneId.equals(otherSchedule.zoneId) &&
+				this.seconds == otherSchedule.seconds && this.minutes == otherSchedule.minutes &&
+				this.hours == otherSchedule.hours && this.daysOfMonth == otherSchedule.daysOfMonth &&
+				this.months == otherSchedule.months && this.daysOfWeek == otherSchedule.daysOfWeek);
+	}
+
+	@Override
+	public int hashCode() {
+		return (17 * Long.hashCode(this.months) + 29 * Long.hashCode(this.daysOfMonth) +
+				37 * Long.hashCode(this.daysOfWeek) + 41 * Long.hashCode(this.hours) +
+				53 * Long.hashCode(this.minutes) + 61 * Long.hashCode(this.seconds));
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + ": " + this.expression;
+	}
+
+}
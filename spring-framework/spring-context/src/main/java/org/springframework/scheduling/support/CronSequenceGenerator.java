@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -53,6 +53,7 @@ import org.springframework.util.StringUtils;
  * @author Ruslan Sibgatullin
  * @since 3.0
  * @see CronTrigger
+ * @see CronSchedule
  */
 public class CronSequenceGenerator {
 
@@ -112,6 +113,24 @@ public class CronSequenceGenerator {
 		return this.expression;
 	}
 
+	/**
+	 * Return the values matched by the second, minute, hour, day-of-month,
+	 * month and day-of-week fields, in that order, as bit masks.
+	 * <p>Months are 0-based as in {@link Calendar}, days of week range from
+	 * 0 (Sunday) to 6 as in the cron pattern.
+	 * @since 5.1
+	 * @see CronSchedule
+	 */
+	long[] getFieldMasks() {
+		return new long[] {toBitMask(this.seconds), toBitMask(this.minutes), toBitMask(this.hours),
+				toBitMask(this.daysOfMonth), toBitMask(this.months), toBitMask(this.daysOfWeek)};
+	}
+
+	private static long toBitMask(BitSet bits) {
+		long[] words = bits.toLongArray();
+		return (words.length > 0 ? words[0] : 0);
+	}
+
 
 	/**
 	 * Get the next {@link Date} in the sequence matching the Cron pattern and
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.scheduling.support;
 
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.TimeZone;
 
@@ -24,16 +25,20 @@ import org.springframework.scheduling.TriggerContext;
 
 /**
  * {@link Trigger} implementation for cron expressions.
- * Wraps a {@link CronSequenceGenerator}.
+ * Wraps a {@link CronSequenceGenerator}, calculating next execution times
+ * through a {@link CronSchedule}.
  *
  * @author Juergen Hoeller
  * @since 3.0
  * @see CronSequenceGenerator
+ * @see CronSchedule
  */
 public class CronTrigger implements Trigger {
 
 	private final CronSequenceGenerator sequenceGenerator;
 
+	private final CronSchedule schedule;
+
 
 	/**
 	 * Build a {@link CronTrigger} from the pattern provided in the default time zone.
@@ -42,6 +47,7 @@ public class CronTrigger implements Trigger {
 	 */
 	public CronTrigger(String expression) {
 		this.sequenceGenerator = new CronSequenceGenerator(expression);
+		this.schedule = new CronSchedule(this.sequenceGenerator, ZoneId.systemDefault());
 	}
 
 	/**
@@ -52,6 +58,7 @@ public class CronTrigger implements Trigger {
 	 */
 	public CronTrigger(String expression, TimeZone timeZone) {
 		this.sequenceGenerator = new CronSequenceGenerator(expression, timeZone);
+		this.schedule = new CronSchedule(this.sequenceGenerator, timeZone.toZoneId());
 	}
 
 
@@ -84,7 +91,7 @@ public class CronTrigger implements Trigger {
 		else {
 			date = new Date();
 		}
-		return this.sequenceGenerator.next(date);
+		return this.schedule.next(date);
 	}
 
 
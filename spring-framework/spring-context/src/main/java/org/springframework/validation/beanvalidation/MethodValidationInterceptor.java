@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,18 +17,24 @@
 package org.springframework.validation.beanvalidation;
 
 import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
 import javax.validation.Validation;
+import javax.validation.ValidationException;
 import javax.validation.Validator;
 import javax.validation.ValidatorFactory;
 import javax.validation.executable.ExecutableValidator;
+import javax.validation.metadata.BeanDescriptor;
+import javax.validation.metadata.MethodDescriptor;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.MethodClassKey;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.util.ClassUtils;
 import org.springframework.validation.annotation.Validated;
@@ -47,6 +53,11 @@ import org.springframework.validation.annotation.Validated;
  * at the type level of the containing target class, applying to all public service methods
  * of that class. By default, JSR-303 will validate against its default group only.
  *
+ * <p>As of Spring 5.1, the constraint metadata of each method gets introspected once:
+ * methods without any parameter or return value constraints are not passed to the
+ * validator at all, and parameters or return values get validated only if the
+ * method declares constraints for them.
+ *
  * <p>As of Spring 5.0, this functionality requires a Bean Validation 1.1 provider.
  *
  * @author Juergen Hoeller
@@ -58,6 +69,8 @@ public class MethodValidationInterceptor implements MethodInterceptor {
 
 	private final Validator validator;
 
+	private final Map<MethodClassKey, ValidationPlan> validationPlanCache = new ConcurrentHashMap<>(256);
+
 
 	/**
 	 * Create a new MethodValidationInterceptor using a default JSR-303 validator underneath.
@@ -86,6 +99,11 @@ public class MethodValidationInterceptor implements MethodInterceptor {
 	@Override
 	@SuppressWarnings("unchecked")
 	public Object invoke(MethodInvocation invocation) throws Throwable {
+		ValidationPlan plan = getValidationPlan(invocation);
+		if (!plan.validateParameters && !plan.validateReturnValue) {
+			return invocation.proceed();
+		}
+
 		Class<?>[] groups = determineValidationGroups(invocation);
 
 		// Standard Bean Validation 1.1 API
@@ -93,32 +111,90 @@ public class MethodValidationInterceptor implements MethodInterceptor {
 		Method methodToValidate = invocation.getMethod();
 		Set<ConstraintViolation<Object>> result;
 
-		try {
-			result = execVal.validateParameters(
-					invocation.getThis(), methodToValidate, invocation.getArguments(), groups);
-		}
-		catch (IllegalArgumentException ex) {
-			// Probably a generic type mismatch between interface and impl as reported in SPR-12237 / HV-1011
-			// Let's try to find the bridged method on the implementation class...
-			methodToValidate = BridgeMethodResolver.findBridgedMethod(
-					ClassUtils.getMostSpecificMethod(invocation.getMethod(), invocation.getThis().getClass()));
-			result = execVal.validateParameters(
-					invocation.getThis(), methodToValidate, invocation.getArguments(), groups);
-		}
-		if (!result.isEmpty()) {
-			throw new ConstraintViolationException(result);
+		if (plan.validateParameters) {
+			try {
+				result = execVal.validateParameters(
+						invocation.getThis(), methodToValidate, invocation.getArguments(), groups);
+			}
+			catch (IllegalArgumentException ex) {
+				// Probably a generic type mismatch between interface and impl as reported in SPR-12237 / HV-1011
+				// Let's try to find the bridged method on the implementation class...
+				methodToValidate = findBridgedMethod(invocation);
+				result = execVal.validateParameters(
+						invocation.getThis(), methodToValidate, invocation.getArguments(), groups);
+			}
+			if (!result.isEmpty()) {
+				throw new ConstraintViolationException(result);
+			}
 		}
 
 		Object returnValue = invocation.proceed();
 
-		result = execVal.validateReturnValue(invocation.getThis(), methodToValidate, returnValue, groups);
-		if (!result.isEmpty()) {
-			throw new ConstraintViolationException(result);
+		if (plan.validateReturnValue) {
+			try {
+				result = execVal.validateReturnValue(invocation.getThis(), methodToValidate, returnValue, groups);
+			}
+			catch (IllegalArgumentException ex) {
+				if (methodToValidate != invocation.getMethod()) {
+					throw ex;
+				}
+				methodToValidate = findBridgedMethod(invocation);
+				result = execVal.validateReturnValue(invocation.getThis(), methodToValidate, returnValue, groups);
+			}
+			if (!result.isEmpty()) {
+				throw new ConstraintViolationException(result);
+			}
 		}
 
 		return returnValue;
 	}
 
+	/**
+	 * Determine which parts of the given method invocation need to be validated,
+	 * introspecting the constraint metadata of the method on first invocation.
+	 */
+	private ValidationPlan getValidationPlan(MethodInvocation invocation) {
+		Method method = invocation.getMethod();
+		Class<?> targetClass = invocation.getThis().getClass();
+		MethodClassKey cacheKey = new MethodClassKey(method, targetClass);
+		ValidationPlan plan = this.validationPlanCache.get(cacheKey);
+		if (plan == null) {
+			plan = buildValidationPlan(method, targetClass);
+			this.validationPlanCache.put(cacheKey, plan);
+		}
+		return plan;
+	}
+
+	private ValidationPlan buildValidationPlan(Method method, Class<?> targetClass) {
+		try {
+			BeanDescriptor beanDescriptor = this.validator.getConstraintsForClass(targetClass);
+			MethodDescriptor methodDescriptor =
+					beanDescriptor.getConstraintsForMethod(method.getName(), method.getParameterTypes());
+			if (methodDescriptor == null) {
+				Method bridgedMethod = BridgeMethodResolver.findBridgedMethod(
+						ClassUtils.getMostSpecificMethod(method, targetClass));
+				if (!bridgedMethod.equals(method)) {
+					methodDescriptor = beanDescriptor.getConstraintsForMethod(
+							bridgedMethod.getName(), bridgedMethod.getParameterTypes());
+				}
+			}
+			if (methodDescriptor == null) {
+				return ValidationPlan.NONE;
+			}
+			return new ValidationPlan(methodDescriptor.hasConstrainedParameters(),
+					methodDescriptor.hasConstrainedReturnValue());
+		}
+		catch (ValidationException | IllegalArgumentException ex) {
+			// Metadata not available for this method: let the validator decide on each invocation.
+			return ValidationPlan.FULL;
+		}
+	}
+
+	private Method findBridgedMethod(MethodInvocation invocation) {
+		return BridgeMethodResolver.findBridgedMethod(
+				ClassUtils.getMostSpecificMethod(invocation.getMethod(), invocation.getThis().getClass()));
+	}
+
 	/**
 	 * Determine the validation groups to validate against for the given method invocation.
 	 * <p>Default are the validation groups as specified in the {@link Validated} annotation
@@ -134,4 +210,25 @@ public class MethodValidationInterceptor implements MethodInterceptor {
 		return (validatedAnn != null ? validatedAnn.value() : new Class<?>[0]);
 	}
 
+
+	/**
+	 * The parts of a method which need to be validated, as determined
+	 * from the constraint metadata of the method.
+	 */
+	private static class ValidationPlan {
+
+		static final ValidationPlan NONE = new ValidationPlan(false, false);
+
+		static final ValidationPlan FULL = new ValidationPlan(true, true);
+
+		final boolean validateParameters;
+
+		final boolean validateReturnValue;
+
+		ValidationPlan(boolean validateParameters, boolean validateReturnValue) {
+			this.validateParameters = validateParameters;
+			this.validateReturnValue = validateReturnValue;
+		}
+	}
+
 }
@@ -17,10 +17,8 @@
 package org.springframework.validation.beanvalidation;
 
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -38,6 +36,7 @@ import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.Errors;
 import org.springframework.validation.FieldError;
@@ -71,6 +70,8 @@ public class SpringValidatorAdapter implements SmartValidator, javax.validation.
 	@Nullable
 	private javax.validation.Validator targetValidator;
 
+	private final Map<ConstraintDescriptor<?>, Object[]> constraintAttributeCache = new ConcurrentReferenceHashMap<>(64);
+
 
 	/**
 	 * Create a new SpringValidatorAdapter for the given JSR-303 Validator.
@@ -233,6 +234,7 @@ public class SpringValidatorAdapter implements SmartValidator, javax.validation.
 	 * annotation attributes (i.e. excluding "message", "groups" and "payload") in
 	 * alphabetical order of their attribute names.
 	 * <p>Can be overridden to e.g. add further attributes from the constraint descriptor.
+	 * <p>As of 5.1, the exposed attributes are cached per constraint descriptor.
 	 * @param objectName the name of the target object
 	 * @param field the field that caused the binding error
 	 * @param descriptor the JSR-303 constraint descriptor
@@ -242,8 +244,18 @@ public class SpringValidatorAdapter implements SmartValidator, javax.validation.
 	 * @see org.springframework.validation.DefaultBindingErrorProcessor#getArgumentsForBindError
 	 */
 	protected Object[] getArgumentsForConstraint(String objectName, String field, ConstraintDescriptor<?> descriptor) {
-		List<Object> arguments = new ArrayList<>();
-		arguments.add(getResolvableField(objectName, field));
+		Object[] attributes = this.constraintAttributeCache.get(descriptor);
+		if (attributes == null) {
+			attributes = determineConstraintAttributes(descriptor);
+			this.constraintAttributeCache.put(descriptor, attributes);
+		}
+		Object[] arguments = new Object[attributes.length + 1];
+		arguments[0] = getResolvableField(objectName, field);
+		System.arraycopy(attributes, 0, arguments, 1, attributes.length);
+		return arguments;
+	}
+
+	private Object[] determineConstraintAttributes(ConstraintDescriptor<?> descriptor) {
 		// Using a TreeMap for alphabetical ordering of attribute names
 		Map<String, Object> attributesToExpose = new TreeMap<>();
 		descriptor.getAttributes().forEach((attributeName, attributeValue) -> {
@@ -254,8 +266,7 @@ public class SpringValidatorAdapter implements SmartValidator, javax.validation.
 				attributesToExpose.put(attributeName, attributeValue);
 			}
 		});
-		arguments.addAll(attributesToExpose.values());
-		return arguments.toArray();
+		return attributesToExpose.values().toArray();
 	}
 
 	/**
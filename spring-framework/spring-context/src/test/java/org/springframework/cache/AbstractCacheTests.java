@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,10 @@
 
 package org.springframework.cache;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -116,6 +119,41 @@ public abstract class AbstractCacheTests<T extends Cache> {
 		assertNull(cache.get("enescu"));
 	}
 
+	@Test
+	public void testCacheGetAll() throws Exception {
+		T cache = getCache();
+
+		String key1 = createRandomKey();
+		String key2 = createRandomKey();
+		String key3 = createRandomKey();
+		assertTrue(cache.getAll(Arrays.asList(key1, key2, key3)).isEmpty());
+
+		cache.put(key1, "george");
+		cache.put(key3, null);
+		Map<Object, Cache.ValueWrapper> result = cache.getAll(Arrays.asList(key1, key2, key3));
+		assertEquals(2, result.size());
+		assertEquals("george", result.get(key1).get());
+		assertFalse(result.containsKey(key2));
+		assertNull(result.get(key3).get());
+	}
+
+	@Test
+	public void testCachePutAll() throws Exception {
+		T cache = getCache();
+
+		String key1 = createRandomKey();
+		String key2 = createRandomKey();
+		Map<Object, Object> values = new LinkedHashMap<>();
+		values.put(key1, "george");
+		values.put(key2, null);
+		cache.putAll(values);
+
+		assertEquals("george", cache.get(key1).get());
+		assertNotNull(cache.get(key2));
+		assertNull(cache.get(key2).get());
+		assertEquals(2, cache.getAll(values.keySet()).size());
+	}
+
 	@Test
 	public void testCacheGetCallable() {
 		doTestCacheGetCallable("test");
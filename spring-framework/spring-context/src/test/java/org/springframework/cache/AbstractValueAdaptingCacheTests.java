@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,18 @@
 
 package org.springframework.cache;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import org.springframework.cache.support.AbstractValueAdaptingCache;
 
+import static org.junit.Assert.*;
+
 /**
  * @author Stephane Nicoll
  */
@@ -35,6 +41,13 @@ public abstract class AbstractValueAdaptingCacheTests<T extends AbstractValueAda
 
 	protected abstract T getCache(boolean allowNull);
 
+	/**
+	 * Return whether the cache supports {@code CompletableFuture}-based retrieval.
+	 */
+	protected boolean isRetrievalSupported() {
+		return true;
+	}
+
 	@Test
 	public void testCachePutNullValueAllowNullFalse() {
 		T cache = getCache(false);
@@ -47,4 +60,71 @@ public abstract class AbstractValueAdaptingCacheTests<T extends AbstractValueAda
 		cache.put(key, null);
 	}
 
+	@Test
+	public void testCacheRetrieve() throws Exception {
+		T cache = getCache(true);
+		String key = createRandomKey();
+		expectRetrievalUnsupportedIfNecessary();
+
+		assertNull(cache.retrieve(key).get());
+		cache.put(key, "value");
+		assertEquals("value", cache.retrieve(key).get().get());
+		cache.put(key, null);
+		Cache.ValueWrapper wrapper = cache.retrieve(key).get();
+		assertNotNull(wrapper);
+		assertNull(wrapper.get());
+	}
+
+	@Test
+	public void testCacheRetrieveWithValueLoader() throws Exception {
+		T cache = getCache(true);
+		String key = createRandomKey();
+		AtomicInteger loaderCalls = new AtomicInteger();
+		CompletableFuture<String> loadingFuture = new CompletableFuture<>();
+		expectRetrievalUnsupportedIfNecessary();
+
+		CompletableFuture<String> first = cache.retrieve(key, () -> {
+			loaderCalls.incrementAndGet();
+			return loadingFuture;
+		});
+		CompletableFuture<String> second = cache.retrieve(key, () -> {
+			loaderCalls.incrementAndGet();
+			return CompletableFuture.completedFuture("other");
+		});
+		assertFalse(first.isDone());
+		assertSame(first, second);
+		assertNull(cache.get(key));
+
+		loadingFuture.complete("value");
+		assertEquals("value", first.get());
+		assertEquals("value", cache.get(key, String.class));
+		assertEquals("value", cache.retrieve(key, () -> CompletableFuture.completedFuture("other")).get());
+		assertEquals(1, loaderCalls.get());
+	}
+
+	@Test
+	public void testCacheRetrieveWithFailingValueLoader() throws Exception {
+		T cache = getCache(true);
+		String key = createRandomKey();
+		CompletableFuture<String> loadingFuture = new CompletableFuture<>();
+		loadingFuture.completeExceptionally(new IllegalStateException("expected"));
+		expectRetrievalUnsupportedIfNecessary();
+
+		try {
+			cache.retrieve(key, () -> loadingFuture).get();
+			fail("Should have thrown ExecutionException");
+		}
+		catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+		assertNull(cache.get(key));
+		assertEquals("value", cache.retrieve(key, () -> CompletableFuture.completedFuture("value")).get());
+	}
+
+	private void expectRetrievalUnsupportedIfNecessary() {
+		if (!isRetrievalSupported()) {
+			this.thrown.expect(UnsupportedOperationException.class);
+		}
+	}
+
 }
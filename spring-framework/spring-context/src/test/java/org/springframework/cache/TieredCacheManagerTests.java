@@ -0,0 +1,265 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.CacheInvalidation;
+import org.springframework.cache.support.LocalCacheInvalidationChannel;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.support.TieredCache;
+import org.springframework.cache.support.TieredCacheManager;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TieredCacheManager}, simulating two nodes which share
+ * a remote cache level and an invalidation channel.
+ */
+public class TieredCacheManagerTests {
+
+	private final ConcurrentMapCacheManager remote = new ConcurrentMapCacheManager("c1", "c2");
+
+	private final ConcurrentMapCacheManager local1 = new ConcurrentMapCacheManager("c1", "local");
+
+	private final ConcurrentMapCacheManager local2 = new ConcurrentMapCacheManager("c1", "local");
+
+	private final LocalCacheInvalidationChannel channel = new LocalCacheInvalidationChannel();
+
+	private final List<CacheInvalidation> invalidations = new ArrayList<>();
+
+	private TieredCacheManager node1;
+
+	private TieredCacheManager node2;
+
+
+	@Before
+	public void setup() {
+		this.channel.subscribe(this.invalidations::add);
+		this.node1 = createNode(this.local1, "node1");
+		this.node2 = createNode(this.local2, "node2");
+	}
+
+	private TieredCacheManager createNode(CacheManager localCacheManager, String nodeId) {
+		return createNode(localCacheManager, this.remote, nodeId);
+	}
+
+	private TieredCacheManager createNode(CacheManager localCacheManager, CacheManager remoteCacheManager,
+			String nodeId) {
+
+		TieredCacheManager cacheManager = new TieredCacheManager(localCacheManager, remoteCacheManager);
+		cacheManager.setInvalidationChannel(this.channel);
+		cacheManager.setNodeId(nodeId);
+		cacheManager.afterPropertiesSet();
+		return cacheManager;
+	}
+
+
+	@Test
+	public void getCache() {
+		Cache cache = this.node1.getCache("c1");
+		assertTrue(cache instanceof TieredCache);
+		assertSame(cache, this.node1.getCache("c1"));
+		assertEquals("c1", cache.getName());
+		assertSame(this.remote.getCache("c1").getNativeCache(), cache.getNativeCache());
+
+		assertSame(this.remote.getCache("c2"), this.node1.getCache("c2"));
+		assertSame(this.local1.getCache("local"), this.node1.getCache("local"));
+		assertNull(this.node1.getCache("unknown"));
+		assertEquals(Arrays.asList("c1", "local", "c2"), new ArrayList<>(this.node1.getCacheNames()));
+	}
+
+	@Test
+	public void readThroughAndPromote() {
+		this.remote.getCache("c1").put("key", "value");
+		Cache cache = this.node1.getCache("c1");
+		assertNull(this.local1.getCache("c1").get("key"));
+
+		assertEquals("value", cache.get("key", String.class));
+		assertEquals("value", this.local1.getCache("c1").get("key").get());
+
+		// Served from L1 from now on
+		this.remote.getCache("c1").evict("key");
+		assertEquals("value", cache.get("key").get());
+	}
+
+	@Test
+	public void writeThroughAndInvalidatePeers() {
+		Cache cache1 = this.node1.getCache("c1");
+		Cache cache2 = this.node2.getCache("c1");
+		cache1.put("key", "value1");
+		assertEquals("value1", cache2.get("key").get());
+		assertEquals("value1", this.local2.getCache("c1").get("key").get());
+
+		cache1.put("key", "value2");
+		assertEquals("value2", this.remote.getCache("c1").get("key").get());
+		assertEquals("value2", this.local1.getCache("c1").get("key").get());
+		assertNull(this.local2.getCache("c1").get("key"));
+		assertEquals("value2", cache2.get("key").get());
+		assertEquals(new CacheInvalidation("node1", "c1", "key"), this.invalidations.get(1));
+	}
+
+	@Test
+	public void evictAndClear() {
+		Cache cache1 = this.node1.getCache("c1");
+		Cache cache2 = this.node2.getCache("c1");
+		cache1.put("key1", "value1");
+		cache1.put("key2", "value2");
+		cache2.get("key1");
+		cache2.get("key2");
+
+		cache2.evict("key1");
+		assertNull(this.remote.getCache("c1").get("key1"));
+		assertNull(cache1.get("key1"));
+		assertEquals("value2", this.local1.getCache("c1").get("key2").get());
+
+		cache2.clear();
+		assertNull(cache1.get("key2"));
+		assertTrue(this.invalidations.get(this.invalidations.size() - 1).isClear());
+	}
+
+	@Test
+	public void getWithValueLoader() {
+		Cache cache1 = this.node1.getCache("c1");
+		Cache cache2 = this.node2.getCache("c1");
+		assertEquals("value", cache1.get("key", () -> "value"));
+		assertEquals("value", this.local1.getCache("c1").get("key").get());
+		assertEquals("value", cache2.get("key", () -> "other"));
+		assertEquals(new CacheInvalidation("node1", "c1", "key"), this.invalidations.get(0));
+		assertEquals(1, this.invalidations.size());
+	}
+
+	@Test
+	public void getWithValueLoaderInvalidatesPeers() {
+		Cache cache1 = this.node1.getCache("c1");
+		Cache cache2 = this.node2.getCache("c1");
+		cache1.put("key", "value1");
+		cache2.get("key");
+		cache1.evict("key");
+
+		assertEquals("value2", cache1.get("key", () -> "value2"));
+		assertNull(this.local2.getCache("c1").get("key"));
+		assertEquals("value2", cache2.get("key").get());
+	}
+
+	@Test
+	public void retrieveAcrossLevels() throws Exception {
+		Cache cache1 = this.node1.getCache("c1");
+		Cache cache2 = this.node2.getCache("c1");
+		assertNull(cache1.retrieve("key").get());
+
+		assertEquals("value", cache1.retrieve("key", () -> CompletableFuture.completedFuture("value")).get());
+		assertEquals("value", this.local1.getCache("c1").get("key").get());
+		assertEquals(new CacheInvalidation("node1", "c1", "key"), this.invalidations.get(0));
+
+		assertEquals("value", cache2.retrieve("key").get().get());
+		assertEquals("value", this.local2.getCache("c1").get("key").get());
+		assertEquals("value", cache2.retrieve("key", () -> CompletableFuture.completedFuture("other")).get());
+		assertEquals(1, this.invalidations.size());
+	}
+
+	@Test
+	public void nodeIdChangedAfterCacheCreation() {
+		Cache cache = this.node1.getCache("c1");
+		this.node1.setNodeId("node1-renamed");
+		cache.put("key", "value");
+		assertEquals("node1-renamed", this.invalidations.get(0).getOrigin());
+	}
+
+	@Test
+	public void invalidationDoesNotCreateLocalCaches() {
+		ConcurrentMapCacheManager local3 = new ConcurrentMapCacheManager();
+		TieredCacheManager node3 = createNode(local3, "node3");
+		this.node1.getCache("c1").put("key", "value");
+		assertTrue(local3.getCacheNames().isEmpty());
+
+		node3.getCache("c1").get("key");
+		this.node1.getCache("c1").put("key", "value2");
+		assertNull(local3.getCache("c1").get("key"));
+	}
+
+	@Test
+	public void invalidationDuringPromotion() {
+		List<Runnable> onRemoteRead = new ArrayList<>();
+		ConcurrentMapCache remoteCache = new ConcurrentMapCache("c1") {
+			@Override
+			public ValueWrapper get(Object key) {
+				ValueWrapper wrapper = super.get(key);
+				onRemoteRead.forEach(Runnable::run);
+				onRemoteRead.clear();
+				return wrapper;
+			}
+		};
+		SimpleCacheManager remoteCacheManager = new SimpleCacheManager();
+		remoteCacheManager.setCaches(Collections.singletonList(remoteCache));
+		remoteCacheManager.afterPropertiesSet();
+		Cache cache1 = createNode(this.local1, remoteCacheManager, "node1").getCache("c1");
+		Cache cache2 = createNode(this.local2, remoteCacheManager, "node2").getCache("c1");
+		remoteCache.put("key", "value1");
+
+		// Modified on the other node between the L2 read and the L1 put
+		onRemoteRead.add(() -> cache2.put("key", "value2"));
+		assertEquals("value1", cache1.get("key").get());
+		assertNull(this.local1.getCache("c1").get("key"));
+		assertEquals("value2", cache1.get("key").get());
+		assertEquals("value2", this.local1.getCache("c1").get("key").get());
+	}
+
+	@Test
+	public void destroyUnsubscribes() {
+		Cache cache1 = this.node1.getCache("c1");
+		Cache cache2 = this.node2.getCache("c1");
+		cache1.put("key", "value1");
+		this.node1.destroy();
+
+		cache2.put("key", "value2");
+		assertEquals("value1", this.local1.getCache("c1").get("key").get());
+	}
+
+	@Test
+	public void putIfAbsent() {
+		Cache cache1 = this.node1.getCache("c1");
+		Cache cache2 = this.node2.getCache("c1");
+		assertNull(cache1.putIfAbsent("key", "value1"));
+		assertEquals("value1", cache2.putIfAbsent("key", "value2").get());
+		assertEquals("value1", this.local2.getCache("c1").get("key").get());
+	}
+
+	@Test
+	public void getAllAcrossLevels() {
+		Cache cache = this.node1.getCache("c1");
+		this.local1.getCache("c1").put("key1", "local");
+		this.remote.getCache("c1").put("key2", "remote");
+
+		Map<Object, Cache.ValueWrapper> result = cache.getAll(Arrays.asList("key1", "key2", "key3"));
+		assertEquals(Arrays.asList("key1", "key2"), new ArrayList<>(result.keySet()));
+		assertEquals("local", result.get("key1").get());
+		assertEquals("remote", result.get("key2").get());
+		assertEquals("remote", this.local1.getCache("c1").get("key2").get());
+	}
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.annotation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@code @Cacheable(batch=true)} operations on collection arguments.
+ */
+public class BatchCachingTests {
+
+	private AnnotationConfigApplicationContext context;
+
+	private BatchCacheableService service;
+
+	private Cache cache;
+
+
+	@Before
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.service = this.context.getBean(BatchCacheableService.class);
+		this.cache = this.context.getBean(CacheManager.class).getCache("first");
+	}
+
+	@After
+	public void close() {
+		this.context.close();
+	}
+
+
+	@Test
+	public void batchInvokesMethodWithMissingElementsOnly() {
+		Map<Long, String> first = this.service.findAll(Arrays.asList(1L, 2L));
+		assertEquals(Arrays.asList(1L, 2L), new ArrayList<>(first.keySet()));
+		assertEquals("value1", first.get(1L));
+		assertEquals(Collections.singletonList(Arrays.asList(1L, 2L)), this.service.getInvocations());
+		assertEquals("value2", this.cache.get(2L).get());
+
+		Map<Long, String> second = this.service.findAll(Arrays.asList(2L, 3L, 1L));
+		assertEquals(Arrays.asList(2L, 3L, 1L), new ArrayList<>(second.keySet()));
+		assertEquals(Arrays.asList("value2", "value3", "value1"), new ArrayList<>(second.values()));
+		assertEquals(Arrays.asList(1L, 2L), this.service.getInvocations().get(0));
+		assertEquals(Collections.singletonList(3L), this.service.getInvocations().get(1));
+	}
+
+	@Test
+	public void batchWithAllElementsCached() {
+		this.cache.put(1L, "cached1");
+		this.cache.put(2L, "cached2");
+		Map<Long, String> result = this.service.findAll(Arrays.asList(1L, 2L));
+		assertEquals("cached1", result.get(1L));
+		assertEquals("cached2", result.get(2L));
+		assertTrue(this.service.getInvocations().isEmpty());
+	}
+
+	@Test
+	public void batchWithSetArgument() {
+		this.cache.put(1L, "cached1");
+		Map<Long, String> result = this.service.findAllInSet(new LinkedHashSet<>(Arrays.asList(1L, 2L)));
+		assertEquals(Arrays.asList("cached1", "value2"), new ArrayList<>(result.values()));
+		assertEquals(Collections.singletonList(Collections.singleton(2L)), this.service.getInvocations());
+		assertTrue(this.service.getInvocations().get(0) instanceof Set);
+	}
+
+	@Test
+	public void batchWithMissingResultEntry() {
+		Map<Long, String> result = this.service.findAll(Arrays.asList(1L, -1L));
+		assertEquals(Collections.singleton(1L), result.keySet());
+		assertNull(this.cache.get(-1L));
+
+		this.service.findAll(Arrays.asList(1L, -1L));
+		assertEquals(Collections.singletonList(-1L), this.service.getInvocations().get(1));
+	}
+
+	@Test
+	public void batchWithUnless() {
+		Map<Long, String> result = this.service.findAllUnlessNull(Arrays.asList(1L, 0L));
+		assertEquals(2, result.size());
+		assertNull(result.get(0L));
+		assertEquals("value1", this.cache.get(1L).get());
+		assertNull(this.cache.get(0L));
+	}
+
+	@Test
+	public void batchWithCondition() {
+		this.service.findAllWithCondition(Arrays.asList(1L, 2L));
+		assertNull(this.cache.get(1L));
+		this.service.findAllWithCondition(Arrays.asList(1L, 2L));
+		assertEquals(2, this.service.getInvocations().size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void batchWithKeyNotSupported() {
+		this.service.findAllWithKey(Arrays.asList(1L, 2L));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void batchWithoutMapReturnTypeNotSupported() {
+		this.service.findAllAsList(Arrays.asList(1L, 2L));
+	}
+
+
+	@CacheConfig(cacheNames = "first")
+	public static class BatchCacheableService {
+
+		private final List<Collection<Long>> invocations = new ArrayList<>();
+
+		public List<Collection<Long>> getInvocations() {
+			return this.invocations;
+		}
+
+		@Cacheable(batch = true)
+		public Map<Long, String> findAll(List<Long> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(batch = true)
+		public Map<Long, String> findAllInSet(Set<Long> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(batch = true, unless = "#result == null")
+		public Map<Long, String> findAllUnlessNull(Collection<Long> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(batch = true, condition = "#ids.size() > 5")
+		public Map<Long, String> findAllWithCondition(Collection<Long> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(batch = true, key = "#ids")
+		public Map<Long, String> findAllWithKey(Collection<Long> ids) {
+			return load(ids);
+		}
+
+		@Cacheable(batch = true)
+		public List<String> findAllAsList(Collection<Long> ids) {
+			return new ArrayList<>(load(ids).values());
+		}
+
+		private Map<Long, String> load(Collection<Long> ids) {
+			this.invocations.add(ids);
+			Map<Long, String> result = new LinkedHashMap<>();
+			for (Long id : ids) {
+				if (id > 0) {
+					result.put(id, "value" + id);
+				}
+				else if (id == 0) {
+					result.put(id, null);
+				}
+			}
+			return result;
+		}
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager("first");
+		}
+
+		@Bean
+		public BatchCacheableService service() {
+			return new BatchCacheableService();
+		}
+	}
+
+}
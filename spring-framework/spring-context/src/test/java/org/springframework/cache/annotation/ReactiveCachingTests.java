@@ -0,0 +1,337 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.annotation;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.Nullable;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for caching the values of {@code CompletableFuture} and reactive
+ * return types, rather than the future or publisher itself.
+ */
+public class ReactiveCachingTests {
+
+	private AnnotationConfigApplicationContext context;
+
+	private ReactiveCacheableService service;
+
+	private Cache cache;
+
+
+	@Before
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.service = this.context.getBean(ReactiveCacheableService.class);
+		this.cache = this.context.getBean(CacheManager.class).getCache("first");
+	}
+
+	@After
+	public void close() {
+		this.context.close();
+	}
+
+
+	@Test
+	public void cacheCompletableFuture() throws Exception {
+		Object key = new Object();
+		Long first = this.service.cacheFuture(key).get();
+		assertEquals(first, this.service.cacheFuture(key).get());
+		assertEquals(first, this.cache.get(key).get());
+		assertNotEquals(first, this.service.cacheFuture(new Object()).get());
+	}
+
+	@Test
+	public void cacheCompletableFutureWithFailure() throws Exception {
+		Object key = new Object();
+		try {
+			this.service.cacheFailingFuture(key).get();
+			fail("Should have thrown ExecutionException");
+		}
+		catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+		assertNull(this.cache.get(key));
+	}
+
+	@Test
+	public void cacheCompletableFutureSync() throws Exception {
+		Object key = new Object();
+		CompletableFuture<Long> pending = new CompletableFuture<>();
+		this.service.setPendingFuture(pending);
+
+		CompletableFuture<Long> first = this.service.cacheFutureSync(key);
+		CompletableFuture<Long> second = this.service.cacheFutureSync(key);
+		assertFalse(first.isDone());
+		assertEquals(1, this.service.getPendingFutureCalls());
+		assertNull(this.cache.get(key));
+
+		pending.complete(42L);
+		assertEquals(Long.valueOf(42), first.get());
+		assertEquals(Long.valueOf(42), second.get());
+		assertEquals(42L, this.cache.get(key).get());
+		assertEquals(Long.valueOf(42), this.service.cacheFutureSync(key).get());
+		assertEquals(1, this.service.getPendingFutureCalls());
+	}
+
+	@Test
+	public void cacheCompletableFutureSyncCancelledByOneCaller() throws Exception {
+		Object key = new Object();
+		CompletableFuture<Long> pending = new CompletableFuture<>();
+		this.service.setPendingFuture(pending);
+
+		CompletableFuture<Long> first = this.service.cacheFutureSync(key);
+		CompletableFuture<Long> second = this.service.cacheFutureSync(key);
+		assertNotSame(first, second);
+		first.cancel(true);
+
+		pending.complete(42L);
+		assertTrue(first.isCancelled());
+		assertEquals(Long.valueOf(42), second.get());
+		assertEquals(42L, this.cache.get(key).get());
+	}
+
+	@Test
+	public void cacheCompletableFutureSyncWithBlockingCache() throws Exception {
+		Object key = new Object();
+		this.service.setPendingFuture(CompletableFuture.completedFuture(42L));
+
+		assertEquals(Long.valueOf(42), this.service.cacheFutureSyncInBlockingCache(key).get());
+		assertEquals(Long.valueOf(42), this.service.cacheFutureSyncInBlockingCache(key).get());
+		assertEquals(1, this.service.getPendingFutureCalls());
+		Cache blockingCache = this.context.getBean(CacheManager.class).getCache("blocking");
+		assertEquals(42L, blockingCache.get(key).get());
+	}
+
+	@Test
+	public void cacheCompletableFutureSyncWithBlockingCacheAndFailure() throws Exception {
+		Object key = new Object();
+		CompletableFuture<Long> failing = new CompletableFuture<>();
+		failing.completeExceptionally(new IllegalStateException("expected"));
+		this.service.setPendingFuture(failing);
+
+		try {
+			this.service.cacheFutureSyncInBlockingCache(key).get();
+			fail("Should have thrown ExecutionException");
+		}
+		catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+		assertNull(this.context.getBean(CacheManager.class).getCache("blocking").get(key));
+	}
+
+	@Test
+	public void cacheMono() {
+		Object key = new Object();
+		Long first = this.service.cacheMono(key).block();
+		assertEquals(first, this.service.cacheMono(key).block());
+		assertEquals(first, this.cache.get(key).get());
+	}
+
+	@Test
+	public void cacheMonoSync() {
+		Object key = new Object();
+		Long first = this.service.cacheMonoSync(key).block();
+		assertEquals(first, this.service.cacheMonoSync(key).block());
+		assertEquals(first, this.cache.get(key).get());
+	}
+
+	@Test
+	public void cachePutMonoSubscribedTwice() {
+		Object key = new Object();
+		Mono<Long> mono = this.service.putMono(key);
+		Long first = mono.block();
+		Long second = mono.block();
+		assertNotEquals(first, second);
+		CountingCache countingCache = (CountingCache) this.context.getBean(CacheManager.class).getCache("counting");
+		assertEquals(2, countingCache.getPutCount());
+		assertEquals(second, countingCache.get(key).get());
+	}
+
+	@Test
+	public void cacheFlux() {
+		Object key = new Object();
+		List<Long> first = this.service.cacheFlux(key).collectList().block();
+		assertEquals(3, first.size());
+		assertEquals(first, this.service.cacheFlux(key).collectList().block());
+		assertEquals(first, this.cache.get(key).get());
+	}
+
+	@Test
+	public void cacheFluxSync() {
+		Object key = new Object();
+		List<Long> first = this.service.cacheFluxSync(key).collectList().block();
+		assertEquals(3, first.size());
+		assertEquals(first, this.service.cacheFluxSync(key).collectList().block());
+		assertEquals(first, this.cache.get(key).get());
+	}
+
+
+	@CacheConfig(cacheNames = "first")
+	public static class ReactiveCacheableService {
+
+		private final AtomicLong counter = new AtomicLong();
+
+		private final AtomicInteger pendingFutureCalls = new AtomicInteger();
+
+		private volatile CompletableFuture<Long> pendingFuture;
+
+		public void setPendingFuture(CompletableFuture<Long> pendingFuture) {
+			this.pendingFuture = pendingFuture;
+		}
+
+		public int getPendingFutureCalls() {
+			return this.pendingFutureCalls.get();
+		}
+
+		@Cacheable
+		public CompletableFuture<Long> cacheFuture(Object arg) {
+			return CompletableFuture.completedFuture(this.counter.getAndIncrement());
+		}
+
+		@Cacheable
+		public CompletableFuture<Long> cacheFailingFuture(Object arg) {
+			CompletableFuture<Long> future = new CompletableFuture<>();
+			future.completeExceptionally(new IllegalStateException("expected"));
+			return future;
+		}
+
+		@Cacheable(sync = true)
+		public CompletableFuture<Long> cacheFutureSync(Object arg) {
+			this.pendingFutureCalls.incrementAndGet();
+			return this.pendingFuture;
+		}
+
+		@Cacheable(cacheNames = "blocking", sync = true)
+		public CompletableFuture<Long> cacheFutureSyncInBlockingCache(Object arg) {
+			this.pendingFutureCalls.incrementAndGet();
+			return this.pendingFuture;
+		}
+
+		@Cacheable
+		public Mono<Long> cacheMono(Object arg) {
+			return Mono.fromSupplier(this.counter::getAndIncrement);
+		}
+
+		@Cacheable(sync = true)
+		public Mono<Long> cacheMonoSync(Object arg) {
+			return Mono.fromSupplier(this.counter::getAndIncrement);
+		}
+
+		@CachePut(cacheNames = "counting")
+		public Mono<Long> putMono(Object arg) {
+			return Mono.fromSupplier(this.counter::getAndIncrement);
+		}
+
+		@Cacheable
+		public Flux<Long> cacheFlux(Object arg) {
+			return Flux.defer(() -> Flux.fromIterable(Arrays.asList(
+					this.counter.getAndIncrement(), this.counter.getAndIncrement(), this.counter.getAndIncrement())));
+		}
+
+		@Cacheable(sync = true)
+		public Flux<Long> cacheFluxSync(Object arg) {
+			return Flux.defer(() -> Flux.fromIterable(Arrays.asList(
+					this.counter.getAndIncrement(), this.counter.getAndIncrement(), this.counter.getAndIncrement())));
+		}
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config {
+
+		@Bean
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager("first", "blocking", "counting") {
+				@Override
+				protected Cache createConcurrentMapCache(String name) {
+					if ("blocking".equals(name)) {
+						return new BlockingStoreCache(name);
+					}
+					return ("counting".equals(name) ? new CountingCache(name) : super.createConcurrentMapCache(name));
+				}
+			};
+		}
+
+		@Bean
+		public ReactiveCacheableService service() {
+			return new ReactiveCacheableService();
+		}
+	}
+
+
+	/**
+	 * Cache that pretends to access a remote store, not supporting
+	 * {@code CompletableFuture}-based retrieval.
+	 */
+	static class BlockingStoreCache extends ConcurrentMapCache {
+
+		BlockingStoreCache(String name) {
+			super(name);
+		}
+
+		@Override
+		protected boolean isNonBlockingStore() {
+			return false;
+		}
+	}
+
+
+	/**
+	 * Cache that counts the values put into it.
+	 */
+	static class CountingCache extends ConcurrentMapCache {
+
+		private final AtomicInteger putCount = new AtomicInteger();
+
+		CountingCache(String name) {
+			super(name);
+		}
+
+		public int getPutCount() {
+			return this.putCount.get();
+		}
+
+		@Override
+		public void put(Object key, @Nullable Object value) {
+			this.putCount.incrementAndGet();
+			super.put(key, value);
+		}
+	}
+
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.concurrent;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cache.AbstractValueAdaptingCacheTests;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BoundedConcurrentMapCache}.
+ */
+public class BoundedConcurrentMapCacheTests extends AbstractValueAdaptingCacheTests<BoundedConcurrentMapCache> {
+
+	private final MutableClock clock = new MutableClock();
+
+	private BoundedConcurrentMapCache cache;
+
+	private BoundedConcurrentMapCache cacheNoNull;
+
+
+	@Before
+	public void setUp() {
+		this.cache = new BoundedConcurrentMapCache(CACHE_NAME, 1000, Duration.ofSeconds(10), true);
+		this.cache.setClock(this.clock);
+		this.cacheNoNull = new BoundedConcurrentMapCache(CACHE_NAME_NO_NULL, 1000, null, false);
+	}
+
+	@Override
+	protected BoundedConcurrentMapCache getCache() {
+		return getCache(true);
+	}
+
+	@Override
+	protected BoundedConcurrentMapCache getCache(boolean allowNull) {
+		return (allowNull ? this.cache : this.cacheNoNull);
+	}
+
+	@Override
+	protected Object getNativeCache() {
+		return this.cache;
+	}
+
+
+	@Test
+	public void evictLeastRecentlyUsed() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(CACHE_NAME, 3);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		cache.put("c", 3);
+		assertEquals(1, cache.get("a").get());
+		cache.put("d", 4);
+
+		assertNull(cache.get("b"));
+		assertNotNull(cache.get("a"));
+		assertNotNull(cache.get("c"));
+		assertNotNull(cache.get("d"));
+		assertEquals(3, cache.getSize());
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void maximumSizeAcrossSegments() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(CACHE_NAME, 1000);
+		for (int i = 0; i < 5000; i++) {
+			cache.put(i, i);
+		}
+		assertEquals(1000, cache.getSize());
+		assertEquals(4000, cache.getEvictionCount());
+		assertEquals(Integer.valueOf(4999), cache.get(4999, Integer.class));
+	}
+
+	@Test
+	public void expireAfterTimeToLive() {
+		this.cache.put("key", "value");
+		this.clock.advance(Duration.ofSeconds(5));
+		assertEquals("value", this.cache.get("key", String.class));
+
+		this.clock.advance(Duration.ofSeconds(5));
+		assertNull(this.cache.get("key"));
+		assertEquals(1, this.cache.getExpirationCount());
+		assertEquals(0, this.cache.getSize());
+
+		assertNull(this.cache.putIfAbsent("key", "another"));
+		assertEquals("another", this.cache.get("key", String.class));
+	}
+
+	@Test
+	public void expireOnWrite() {
+		BoundedConcurrentMapCache cache = new BoundedConcurrentMapCache(CACHE_NAME, 10, Duration.ofSeconds(10), true);
+		cache.setClock(this.clock);
+		cache.put("key1", "value1");
+		this.clock.advance(Duration.ofSeconds(20));
+		cache.put("key2", "value2");
+		assertEquals(1, cache.getSize());
+		assertEquals(1, cache.getExpirationCount());
+	}
+
+	@Test
+	public void refreshAhead() {
+		AtomicInteger counter = new AtomicInteger();
+		this.cache.setRefreshAfterWrite(Duration.ofSeconds(5));
+		this.cache.setRefreshLoader(key -> key + "-" + counter.incrementAndGet());
+		this.cache.setRefreshExecutor(Runnable::run);
+
+		this.cache.put("key", "initial");
+		assertEquals("initial", this.cache.get("key", String.class));
+		assertEquals(0, counter.get());
+
+		this.clock.advance(Duration.ofSeconds(6));
+		assertEquals("initial", this.cache.get("key", String.class));
+		assertEquals("key-1", this.cache.get("key", String.class));
+		assertEquals(1, this.cache.getRefreshCount());
+
+		// Refreshed entries get a new time-to-live
+		this.clock.advance(Duration.ofSeconds(8));
+		assertEquals("key-1", this.cache.get("key", String.class));
+		assertEquals("key-2", this.cache.get("key", String.class));
+		assertEquals(2, this.cache.getRefreshCount());
+	}
+
+	@Test
+	public void refreshAheadFailure() {
+		AtomicInteger counter = new AtomicInteger();
+		this.cache.setRefreshAfterWrite(Duration.ofSeconds(5));
+		this.cache.setRefreshLoader(key -> {
+			counter.incrementAndGet();
+			throw new IllegalStateException("Expected");
+		});
+		this.cache.setRefreshExecutor(Runnable::run);
+
+		this.cache.put("key", "initial");
+		this.clock.advance(Duration.ofSeconds(6));
+		assertEquals("initial", this.cache.get("key", String.class));
+		assertEquals("initial", this.cache.get("key", String.class));
+		assertEquals(2, counter.get());
+		assertEquals(0, this.cache.getRefreshCount());
+	}
+
+	@Test
+	public void statistics() {
+		this.cache.put("key", "value");
+		this.cache.get("key");
+		this.cache.get("key");
+		this.cache.get("unknown");
+		assertEquals(2, this.cache.getHitCount());
+		assertEquals(1, this.cache.getMissCount());
+
+		this.cache.putIfAbsent("key", "other");
+		this.cache.putIfAbsent("key2", "value2");
+		this.cache.evict("key2");
+		this.cache.evict("unknown");
+		assertEquals(3, this.cache.getHitCount());
+		assertEquals(2, this.cache.getPutCount());
+		assertEquals(1, this.cache.getRemovalCount());
+
+		this.cache.resetStatistics();
+		assertEquals(0, this.cache.getHitCount());
+		assertEquals(0, this.cache.getMissCount());
+		assertEquals(0, this.cache.getPutCount());
+		assertEquals(0, this.cache.getRemovalCount());
+	}
+
+	@Test
+	public void statisticsCountOncePerLoadingOperation() throws Exception {
+		this.cache.get("key", () -> "value");
+		this.cache.get("key", () -> "other");
+		assertEquals(1, this.cache.getHitCount());
+		assertEquals(1, this.cache.getMissCount());
+
+		this.cache.retrieve("key2", () -> CompletableFuture.completedFuture("value2")).get();
+		this.cache.retrieve("key2", () -> CompletableFuture.completedFuture("other")).get();
+		assertEquals(2, this.cache.getHitCount());
+		assertEquals(2, this.cache.getMissCount());
+		assertEquals(0, this.cache.getPutCount());
+	}
+
+	@Test
+	public void retrieveSharesLoadWithGet() throws Exception {
+		CompletableFuture<String> loading = new CompletableFuture<>();
+		CompletableFuture<String> retrieved = this.cache.retrieve("key", () -> loading);
+		CompletableFuture<String> second = this.cache.retrieve("key", () -> CompletableFuture.completedFuture("other"));
+		assertFalse(second.isDone());
+
+		loading.complete("value");
+		assertEquals("value", retrieved.get());
+		assertEquals("value", second.get());
+		assertEquals("value", this.cache.get("key", () -> "other"));
+	}
+
+	@Test
+	public void statisticsThroughJmx() throws Exception {
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		ObjectName objectName = ObjectName.getInstance("spring:type=Cache,name=" + CACHE_NAME);
+		server.registerMBean(this.cache, objectName);
+
+		this.cache.put("key", "value");
+		this.cache.get("key");
+		this.cache.get("unknown");
+		assertEquals(1L, server.getAttribute(objectName, "HitCount"));
+		assertEquals(1L, server.getAttribute(objectName, "MissCount"));
+		assertEquals(1, server.getAttribute(objectName, "Size"));
+		assertEquals(CACHE_NAME, server.getAttribute(objectName, "Name"));
+
+		server.invoke(objectName, "resetStatistics", null, null);
+		assertEquals(0L, server.getAttribute(objectName, "HitCount"));
+	}
+
+
+	private static class MutableClock extends Clock {
+
+		private Instant instant = Instant.now();
+
+		void advance(Duration duration) {
+			this.instant = this.instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Instant instant() {
+			return this.instant;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.cache.concurrent;
 
+import java.time.Duration;
+
 import org.junit.Test;
 
 import org.springframework.cache.Cache;
@@ -131,4 +133,48 @@ public class ConcurrentMapCacheManagerTests {
 		assertNull(cache1x.get("key"));
 	}
 
+	@Test
+	public void testChangeBounds() {
+		ConcurrentMapCacheManager cm = new ConcurrentMapCacheManager("c1");
+		assertTrue(cm.getCache("c1") instanceof ConcurrentMapCache);
+
+		cm.setMaximumSize(100);
+		assertEquals(100, cm.getMaximumSize());
+		Cache cache1 = cm.getCache("c1");
+		assertTrue(cache1 instanceof BoundedConcurrentMapCache);
+		assertEquals(100, ((BoundedConcurrentMapCache) cache1).getMaximumSize());
+
+		cm.setMaximumSize(0);
+		cm.setTimeToLive(Duration.ofMinutes(5));
+		assertEquals(Duration.ofMinutes(5), cm.getTimeToLive());
+		Cache cache1x = cm.getCache("c1");
+		assertTrue(cache1x instanceof BoundedConcurrentMapCache);
+		assertTrue(cache1x != cache1);
+
+		cm.setTimeToLive(null);
+		assertTrue(cm.getCache("c1") instanceof ConcurrentMapCache);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBoundsWithStoreByValue() {
+		ConcurrentMapCacheManager cm = new ConcurrentMapCacheManager("c1");
+		cm.setStoreByValue(true);
+		cm.setMaximumSize(100);
+	}
+
+	@Test
+	public void testBoundsWithStoreByValueInDynamicMode() {
+		ConcurrentMapCacheManager cm = new ConcurrentMapCacheManager();
+		cm.setTimeToLive(Duration.ofMinutes(5));
+		try {
+			cm.setStoreByValue(true);
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+		assertFalse(cm.isStoreByValue());
+		assertTrue(cm.getCache("c1") instanceof BoundedConcurrentMapCache);
+	}
+
 }
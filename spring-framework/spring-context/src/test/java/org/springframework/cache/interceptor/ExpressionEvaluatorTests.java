@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -141,6 +141,62 @@ public class ExpressionEvaluatorTests {
 		assertThat(value, is(String.class.getName()));
 	}
 
+	@Test
+	public void argumentKeyGenerator() {
+		Method method = ReflectionUtils.findMethod(AnnotatedClass.class, "multipleCaching", Object.class, Object.class);
+		Object a = new Object();
+		Object b = new Object();
+		assertSame(a, argumentKeyGenerator("#a", method).generate(this, method, a, b));
+		assertSame(b, argumentKeyGenerator(" #b ", method).generate(this, method, a, b));
+		assertSame(a, argumentKeyGenerator("#p0", method).generate(this, method, a, b));
+		assertSame(b, argumentKeyGenerator("#a1", method).generate(this, method, a, b));
+		assertNull(argumentKeyGenerator("#b", method).generate(this, method, a, null));
+	}
+
+	@Test
+	public void argumentKeyGeneratorWithProperties() {
+		Method method = ReflectionUtils.findMethod(AnnotatedClass.class, "multipleCaching", Object.class, Object.class);
+		Person person = new Person("juergen", new Person("sam", null));
+		assertEquals("juergen", argumentKeyGenerator("#a.name", method).generate(this, method, person, null));
+		assertEquals("sam", argumentKeyGenerator("#p0.friend.name", method).generate(this, method, person, null));
+		assertEquals(true, argumentKeyGenerator("#a.active", method).generate(this, method, person, null));
+		assertEquals(ArgumentKeyGenerator.NOT_RESOLVABLE,
+				argumentKeyGenerator("#a.friend.friend.name", method).generate(this, method, person, null));
+		assertEquals(ArgumentKeyGenerator.NOT_RESOLVABLE,
+				argumentKeyGenerator("#a.unknown", method).generate(this, method, person, null));
+		assertEquals(ArgumentKeyGenerator.NOT_RESOLVABLE,
+				argumentKeyGenerator("#b.name", method).generate(this, method, person, null));
+	}
+
+	@Test
+	public void argumentKeyGeneratorNotAvailable() {
+		Method method = ReflectionUtils.findMethod(AnnotatedClass.class, "multipleCaching", Object.class, Object.class);
+		assertNull(argumentKeyGenerator("#c", method));
+		assertNull(argumentKeyGenerator("#p2", method));
+		assertNull(argumentKeyGenerator("#result", method));
+		assertNull(argumentKeyGenerator("#root.args[0]", method));
+		assertNull(argumentKeyGenerator("#a + #b", method));
+		assertNull(argumentKeyGenerator("#a?.name", method));
+		assertNull(argumentKeyGenerator("#a.toString()", method));
+		assertNull(argumentKeyGenerator("a", method));
+	}
+
+	@Test
+	public void keyEvaluationWithChangingArgumentTypes() {
+		Method method = ReflectionUtils.findMethod(AnnotatedClass.class, "multipleCaching", Object.class, Object.class);
+		AnnotatedElementKey methodKey = new AnnotatedElementKey(method, AnnotatedClass.class);
+		for (int i = 0; i < 250; i++) {
+			Object arg = (i < 200 ? new Person("p" + i, null) : new Pet("p" + i));
+			EvaluationContext context = this.eval.createEvaluationContext(Collections.emptyList(),
+					method, new Object[] {arg, null}, new AnnotatedClass(), AnnotatedClass.class, null);
+			assertEquals("p" + i, this.eval.key("#a.name + ''", methodKey, context));
+		}
+	}
+
+	private ArgumentKeyGenerator argumentKeyGenerator(String expression, Method method) {
+		return this.eval.createArgumentKeyGenerator(expression, method, AnnotatedClass.class);
+	}
+
 	private EvaluationContext createEvaluationContext(Object result) {
 		return createEvaluationContext(result, null);
 	}
@@ -162,4 +218,43 @@ public class ExpressionEvaluatorTests {
 		}
 	}
 
+
+	public static class Person {
+
+		private final String name;
+
+		private final Person friend;
+
+		public Person(String name, Person friend) {
+			this.name = name;
+			this.friend = friend;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public Person getFriend() {
+			return this.friend;
+		}
+
+		public boolean isActive() {
+			return true;
+		}
+	}
+
+
+	public static class Pet {
+
+		private final String name;
+
+		public Pet(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+	}
+
 }
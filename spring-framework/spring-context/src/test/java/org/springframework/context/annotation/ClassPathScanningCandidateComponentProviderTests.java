@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,11 @@
 
 package org.springframework.context.annotation;
 
+import java.io.IOException;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -40,6 +43,7 @@ import example.scannable.sub.BarComponent;
 import org.aspectj.lang.annotation.Aspect;
 import org.junit.Test;
 
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.annotation.AnnotatedGenericBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.index.CandidateComponentsTestClassLoader;
@@ -47,6 +51,8 @@ import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.core.type.filter.RegexPatternTypeFilter;
@@ -90,6 +96,30 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		testDefault(provider, AnnotatedGenericBeanDefinition.class);
 	}
 
+	@Test
+	public void defaultsWithIndexAndTypeMetadata() {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(CandidateComponentsTestClassLoader.indexWithTypeMetadata(
+				getClass().getClassLoader(), new ClassPathResource("spring.components", NamedComponent.class),
+				CandidateComponentsTestClassLoader.typeMetadata(AutowiredQualifierFooService.class,
+						DefaultNamedComponent.class, NamedComponent.class, FooService.class, FooServiceImpl.class,
+						ScopedProxyTestBean.class, StubFooDao.class, NamedStubDao.class,
+						ServiceInvocationCounter.class, BarComponent.class))));
+		List<String> readClasses = new ArrayList<>();
+		provider.setMetadataReaderFactory(new SimpleMetadataReaderFactory(getClass().getClassLoader()) {
+			@Override
+			public MetadataReader getMetadataReader(String className) throws IOException {
+				readClasses.add(className);
+				return super.getMetadataReader(className);
+			}
+		});
+		testDefault(provider, AnnotatedGenericBeanDefinition.class);
+		assertTrue("Unexpected class reads: " + readClasses, readClasses.isEmpty());
+		provider.findCandidateComponents(TEST_BASE_PACKAGE).forEach(candidate -> assertThat(
+				((AnnotatedBeanDefinition) candidate).getMetadata(),
+				instanceOf(IndexedMetadataReader.IndexedAnnotationMetadata.class)));
+	}
+
 	private void testDefault(ClassPathScanningCandidateComponentProvider provider,
 			Class<? extends BeanDefinition> expectedBeanDefinitionType) {
 		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
@@ -16,14 +16,17 @@
 
 package org.springframework.context.annotation;
 
+import java.io.IOException;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import javax.annotation.PostConstruct;
 
+import example.scannable.NamedComponent;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -37,6 +40,7 @@ import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.annotation.AnnotatedGenericBeanDefinition;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
 import org.springframework.beans.factory.annotation.Lookup;
@@ -51,10 +55,17 @@ import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.componentscan.simple.SimpleComponent;
+import org.springframework.context.index.CandidateComponentsIndex;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.context.index.CandidateComponentsTestClassLoader;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.DescriptiveResource;
+import org.springframework.core.metrics.RecordingApplicationStartup;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.tests.sample.beans.ITestBean;
 import org.springframework.tests.sample.beans.TestBean;
@@ -111,6 +122,48 @@ public class ConfigurationClassPostProcessorTests {
 		assertSame(foo, bar.foo);
 	}
 
+	@Test
+	public void configurationIntrospectionWithIndexedMetadata() {
+		CandidateComponentsIndex index = CandidateComponentsIndexLoader.loadIndex(
+				CandidateComponentsTestClassLoader.indexWithTypeMetadata(getClass().getClassLoader(),
+						new ClassPathResource("spring.components", NamedComponent.class),
+						CandidateComponentsTestClassLoader.typeMetadata(SingletonBeanConfig.class)));
+		List<String> readClasses = new ArrayList<>();
+		SimpleMetadataReaderFactory metadataReaderFactory = new SimpleMetadataReaderFactory() {
+			@Override
+			public MetadataReader getMetadataReader(String className) throws IOException {
+				readClasses.add(className);
+				return super.getMetadataReader(className);
+			}
+		};
+		IndexedMetadataReader metadataReader = new IndexedMetadataReader(
+				index.getTypeMetadata(SingletonBeanConfig.class.getName()), metadataReaderFactory,
+				getClass().getClassLoader());
+		beanFactory.registerBeanDefinition("config",
+				new AnnotatedGenericBeanDefinition(metadataReader.getAnnotationMetadata()));
+		ConfigurationClassPostProcessor pp = new ConfigurationClassPostProcessor();
+		pp.setMetadataReaderFactory(metadataReaderFactory);
+		pp.postProcessBeanFactory(beanFactory);
+		Foo foo = beanFactory.getBean("foo", Foo.class);
+		Bar bar = beanFactory.getBean("bar", Bar.class);
+		assertSame(foo, bar.foo);
+		assertFalse("Unexpected class read: " + readClasses, readClasses.contains(SingletonBeanConfig.class.getName()));
+	}
+
+	@Test
+	public void configurationClassProcessingRecordsStartupSteps() {
+		RecordingApplicationStartup startup = new RecordingApplicationStartup();
+		beanFactory.setApplicationStartup(startup);
+		beanFactory.registerBeanDefinition("config", new RootBeanDefinition(SingletonBeanConfig.class));
+		ConfigurationClassPostProcessor pp = new ConfigurationClassPostProcessor();
+		pp.postProcessBeanDefinitionRegistry(beanFactory);
+		pp.postProcessBeanFactory(beanFactory);
+		for (String step : new String[] {"spring.context.config-classes.parse",
+				"spring.context.config-classes.load", "spring.context.config-classes.enhance"}) {
+			assertEquals(step, "1", startup.getRecordedSteps(step).get(0).getTags().get("classCount"));
+		}
+	}
+
 	/**
 	 * Tests the fix for SPR-5655, a special workaround that prefers reflection
 	 * over ASM if a bean class is already loaded.
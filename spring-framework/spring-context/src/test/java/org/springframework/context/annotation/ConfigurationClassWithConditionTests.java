@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,11 +21,13 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.componentscan.simple.SimpleComponent;
 import org.springframework.core.annotation.AnnotationAttributes;
 import org.springframework.core.type.AnnotatedTypeMetadata;
 import org.springframework.core.type.AnnotationMetadata;
@@ -158,6 +160,23 @@ public class ConfigurationClassWithConditionTests {
 		assertEquals("baz", beans.keySet().iterator().next());
 	}
 
+	@Test
+	public void conditionEvaluatedOnceForClassImportedSeveralTimes() {
+		CountingParseCondition.count.set(0);
+		AnnotationConfigApplicationContext context =
+				new AnnotationConfigApplicationContext(FirstImportingConfig.class, SecondImportingConfig.class);
+		assertTrue(context.containsBean("shared"));
+		assertEquals(1, CountingParseCondition.count.get());
+	}
+
+	@Test
+	public void conditionEvaluatedAgainAfterComponentScan() {
+		AnnotationConfigApplicationContext context =
+				new AnnotationConfigApplicationContext(FirstImportingScanDependentConfig.class, ScanningConfig.class);
+		assertTrue(context.containsBean("simpleComponent"));
+		assertTrue(context.containsBean("scanDependent"));
+	}
+
 
 	@Configuration
 	static class BeanOneConfiguration {
@@ -258,6 +277,76 @@ public class ConfigurationClassWithConditionTests {
 		}
 	}
 
+	static class CountingParseCondition implements ConfigurationCondition {
+
+		static final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public ConfigurationPhase getConfigurationPhase() {
+			return ConfigurationPhase.PARSE_CONFIGURATION;
+		}
+
+		@Override
+		public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			count.incrementAndGet();
+			return true;
+		}
+	}
+
+	@Configuration
+	@Import(SharedConfig.class)
+	static class FirstImportingConfig {
+	}
+
+	@Configuration
+	@Import(SharedConfig.class)
+	static class SecondImportingConfig {
+	}
+
+	@Configuration
+	@Conditional(CountingParseCondition.class)
+	static class SharedConfig {
+
+		@Bean
+		public ExampleBean shared() {
+			return new ExampleBean();
+		}
+	}
+
+	static class SimpleComponentPresentCondition implements ConfigurationCondition {
+
+		@Override
+		public ConfigurationPhase getConfigurationPhase() {
+			return ConfigurationPhase.PARSE_CONFIGURATION;
+		}
+
+		@Override
+		public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			return context.getRegistry().containsBeanDefinition("simpleComponent");
+		}
+	}
+
+	@Configuration
+	@Import(ScanDependentConfig.class)
+	static class FirstImportingScanDependentConfig {
+	}
+
+	@Configuration
+	@ComponentScan(basePackageClasses = SimpleComponent.class)
+	@Import(ScanDependentConfig.class)
+	static class ScanningConfig {
+	}
+
+	@Configuration
+	@Conditional(SimpleComponentPresentCondition.class)
+	static class ScanDependentConfig {
+
+		@Bean
+		public ExampleBean scanDependent() {
+			return new ExampleBean();
+		}
+	}
+
 	static class AlwaysCondition implements Condition {
 
 		@Override
@@ -35,8 +35,10 @@ import org.springframework.context.event.test.*;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.springframework.core.annotation.AliasFor;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 import org.springframework.validation.annotation.Validated;
@@ -49,6 +51,7 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.util.*;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.*;
@@ -549,6 +552,87 @@ public class AnnotationDrivenEventListenerTests {
 		assertThat(listener.order, contains("first", "second", "third"));
 	}
 
+	@Test
+	public void batchingListenerReceivesFullBatches() {
+		load(BatchingTestListener.class);
+		BatchingTestListener listener = this.context.getBean(BatchingTestListener.class);
+		TestEvent event1 = new TestEvent(this, "1");
+		TestEvent event2 = new TestEvent(this, "2");
+		TestEvent event3 = new TestEvent(this, "3");
+		TestEvent event4 = new TestEvent(this, "4");
+
+		this.context.publishEvent(event1);
+		this.context.publishEvent(event2);
+		this.eventCollector.assertNoEventReceived(listener);
+		this.context.publishEvent(event3);
+		this.eventCollector.assertEvent(listener, Arrays.asList(event1, event2, event3));
+
+		this.context.publishEvent(event4);
+		this.eventCollector.assertTotalEventsCount(1);
+		this.context.close();
+		this.eventCollector.assertEvent(listener, Arrays.asList(event1, event2, event3), Collections.singletonList(event4));
+	}
+
+	@Test
+	public void batchingListenerReceivesBatchAfterLatency() {
+		load(LatencyBatchingTestListener.class, ManualTaskScheduler.class);
+		LatencyBatchingTestListener listener = this.context.getBean(LatencyBatchingTestListener.class);
+		ManualTaskScheduler scheduler = this.context.getBean(ManualTaskScheduler.class);
+
+		this.context.publishEvent("first");
+		this.context.publishEvent("skip");
+		this.context.publishEvent("second");
+		this.eventCollector.assertNoEventReceived(listener);
+		assertEquals(1, scheduler.scheduledTasks.size());
+
+		// Let the maximum latency elapse
+		scheduler.scheduledTasks.get(0).run();
+		this.eventCollector.assertEvent(listener, Arrays.asList("first", "second"));
+	}
+
+	@Test
+	public void batchingListenerRetainsFailedBatch() {
+		load(FailingBatchingTestListener.class);
+		FailingBatchingTestListener listener = this.context.getBean(FailingBatchingTestListener.class);
+
+		this.context.publishEvent("first");
+		try {
+			this.context.publishEvent("second");
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+		this.eventCollector.assertNoEventReceived(listener);
+
+		this.context.publishEvent("third");
+		this.eventCollector.assertEvent(listener, Arrays.asList("first", "second"));
+		this.context.close();
+		this.eventCollector.assertEvent(listener, Arrays.asList("first", "second"), Collections.singletonList("third"));
+	}
+
+	@Test
+	public void batchingListenerSchedulesAgainAfterRejection() {
+		load(LatencyBatchingTestListener.class, ManualTaskScheduler.class);
+		ManualTaskScheduler scheduler = this.context.getBean(ManualTaskScheduler.class);
+		scheduler.rejectNext = true;
+
+		this.context.publishEvent("first");
+		assertEquals(0, scheduler.scheduledTasks.size());
+		this.context.publishEvent("second");
+		assertEquals(1, scheduler.scheduledTasks.size());
+	}
+
+	@Test
+	public void batchingListenerRequiresListParameter() {
+		AnnotationConfigApplicationContext failingContext = new AnnotationConfigApplicationContext();
+		failingContext.register(BasicConfiguration.class, InvalidBatchingListener.class);
+
+		this.thrown.expect(BeanInitializationException.class);
+		this.thrown.expectMessage(InvalidBatchingListener.class.getName());
+		failingContext.refresh();
+	}
+
 	@Test @Ignore  // SPR-15122
 	public void listenersReceiveEarlyEvents() {
 		load(EventOnPostConstruct.class, OrderedTestListener.class);
@@ -960,6 +1044,74 @@ public class AnnotationDrivenEventListenerTests {
 	}
 
 
+	@Component
+	static class BatchingTestListener extends AbstractTestEventListener {
+
+		@EventListener(maxBatchSize = 3, maxBatchLatency = 60000)
+		public void handle(List<TestEvent> events) {
+			collectEvent(events);
+		}
+	}
+
+
+	@Component
+	static class FailingBatchingTestListener extends AbstractTestEventListener {
+
+		private boolean failed;
+
+		@EventListener(maxBatchSize = 2)
+		public void handle(List<String> payloads) {
+			if (!this.failed) {
+				this.failed = true;
+				throw new IllegalStateException("Test exception");
+			}
+			collectEvent(payloads);
+		}
+	}
+
+
+	@Component
+	static class LatencyBatchingTestListener extends AbstractTestEventListener {
+
+		@EventListener(maxBatchSize = 100, maxBatchLatency = 20, condition = "#p0 != 'skip'")
+		public void handle(List<String> payloads) {
+			collectEvent(payloads);
+		}
+	}
+
+
+	/**
+	 * Scheduler which only records the scheduled tasks, to be run by the test.
+	 */
+	@SuppressWarnings("serial")
+	@Component
+	static class ManualTaskScheduler extends ThreadPoolTaskScheduler {
+
+		final List<Runnable> scheduledTasks = new ArrayList<>();
+
+		boolean rejectNext;
+
+		@Override
+		public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+			if (this.rejectNext) {
+				this.rejectNext = false;
+				throw new TaskRejectedException("Test rejection");
+			}
+			this.scheduledTasks.add(task);
+			return null;
+		}
+	}
+
+
+	@Component
+	static class InvalidBatchingListener {
+
+		@EventListener(maxBatchSize = 2)
+		public void handle(TestEvent event) {
+		}
+	}
+
+
 	static class EventOnPostConstruct {
 
 		@Autowired
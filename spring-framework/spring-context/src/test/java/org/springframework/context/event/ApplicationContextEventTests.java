@@ -16,6 +16,7 @@
 
 package org.springframework.context.event;
 
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -240,6 +241,46 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		assertEquals(2, listener1.seenEvents.size());
 	}
 
+	@Test
+	public void listenersAddedToCachedListenersInOrder() {
+		MyOrderedListener1 listener1 = new MyOrderedListener1();
+		MyOrderedListener2 listener2 = new MyOrderedListener2(listener1);
+		MyEvent event = new MyEvent(this);
+		ResolvableType eventType = ResolvableType.forClass(MyEvent.class);
+
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.addApplicationListener(listener2);
+		Collection<ApplicationListener<?>> listeners = smc.getApplicationListeners(event, eventType);
+		assertEquals(1, listeners.size());
+		assertSame(listeners, smc.getApplicationListeners(event, eventType));
+
+		smc.addApplicationListener(listener1);
+		assertEquals(1, smc.retrieverCache.size());
+		listeners = smc.getApplicationListeners(event, eventType);
+		assertEquals(2, listeners.size());
+		assertSame(listener1, listeners.iterator().next());
+
+		smc.multicastEvent(event);
+		assertEquals(1, listener1.seenEvents.size());
+	}
+
+	@Test
+	public void listenerRemovedFromCachedListeners() {
+		MyOrderedListener1 listener1 = new MyOrderedListener1();
+		MyOrderedListener3 listener3 = new MyOrderedListener3();
+
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.addApplicationListener(listener1);
+		smc.addApplicationListener(listener3);
+		smc.multicastEvent(new MyEvent(this));
+		assertEquals(1, smc.retrieverCache.size());
+
+		smc.removeApplicationListener(listener1);
+		smc.multicastEvent(new MyEvent(this));
+		assertEquals(1, listener1.seenEvents.size());
+		assertEquals(2, listener3.seenEvents.size());
+	}
+
 	@Test
 	public void testEventPublicationInterceptor() throws Throwable {
 		MethodInvocation invocation = mock(MethodInvocation.class);
@@ -294,7 +335,7 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		assertTrue(listener1.seenEvents.contains(event4));
 
 		AbstractApplicationEventMulticaster multicaster = context.getBean(AbstractApplicationEventMulticaster.class);
-		assertEquals(2, multicaster.retrieverCache.size());
+		assertEquals(3, multicaster.retrieverCache.size());
 
 		context.close();
 	}
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.core.Ordered;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ParallelApplicationEventMulticaster}.
+ */
+public class ParallelApplicationEventMulticasterTests {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	private final List<String> invocations = Collections.synchronizedList(new ArrayList<>());
+
+
+	@After
+	public void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+
+	@Test
+	public void synchronousListenersKeepTheirOrder() {
+		ParallelApplicationEventMulticaster multicaster = new ParallelApplicationEventMulticaster();
+		multicaster.addApplicationListener(new RecordingListener("second", 2));
+		multicaster.addApplicationListener(new RecordingListener("first", 1));
+		multicaster.addApplicationListener(new RecordingListener("third", 3));
+
+		multicaster.multicastEvent(new TestEvent());
+		assertEquals(3, this.invocations.size());
+		assertEquals("first", this.invocations.get(0));
+		assertEquals("second", this.invocations.get(1));
+		assertEquals("third", this.invocations.get(2));
+	}
+
+	@Test
+	public void listenersWithSameOrderRunConcurrently() {
+		CountDownLatch latch = new CountDownLatch(2);
+		ParallelApplicationEventMulticaster multicaster = new ParallelApplicationEventMulticaster();
+		multicaster.setTaskExecutor(this.executor);
+		multicaster.setAwaitCompletion(true);
+		multicaster.addApplicationListener(new RendezvousListener("one", latch));
+		multicaster.addApplicationListener(new RendezvousListener("two", latch));
+
+		multicaster.multicastEvent(new TestEvent());
+		assertEquals(2, this.invocations.size());
+	}
+
+	@Test
+	public void orderGroupsRunOneAfterAnother() {
+		ParallelApplicationEventMulticaster multicaster = new ParallelApplicationEventMulticaster();
+		multicaster.setTaskExecutor(this.executor);
+		multicaster.setAwaitCompletion(true);
+		multicaster.addApplicationListener(new RecordingListener("late", 2));
+		multicaster.addApplicationListener(new RecordingListener("early", 1, 100));
+
+		multicaster.multicastEvent(new TestEvent());
+		assertEquals(2, this.invocations.size());
+		assertEquals("early", this.invocations.get(0));
+		assertEquals("late", this.invocations.get(1));
+	}
+
+	@Test
+	public void lastGroupNotAwaitedByDefault() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		ParallelApplicationEventMulticaster multicaster = new ParallelApplicationEventMulticaster();
+		multicaster.setTaskExecutor(this.executor);
+		multicaster.addApplicationListener(event -> {
+			awaitQuietly(release);
+			this.invocations.add("blocked");
+		});
+
+		multicaster.multicastEvent(new TestEvent());
+		assertTrue(this.invocations.isEmpty());
+		release.countDown();
+		this.executor.shutdown();
+		assertTrue(this.executor.awaitTermination(5, TimeUnit.SECONDS));
+		assertEquals(1, this.invocations.size());
+	}
+
+	@Test
+	public void singleFailureRethrownAsIs() {
+		ParallelApplicationEventMulticaster multicaster = new ParallelApplicationEventMulticaster();
+		multicaster.setTaskExecutor(this.executor);
+		multicaster.setAwaitCompletion(true);
+		multicaster.addApplicationListener(new FailingListener("failure"));
+		multicaster.addApplicationListener(new RecordingListener("other", Ordered.LOWEST_PRECEDENCE));
+
+		try {
+			multicaster.multicastEvent(new TestEvent());
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			assertEquals("failure", ex.getMessage());
+		}
+		assertEquals(1, this.invocations.size());
+	}
+
+	@Test
+	public void failuresAggregated() {
+		ParallelApplicationEventMulticaster multicaster = new ParallelApplicationEventMulticaster();
+		multicaster.setTaskExecutor(this.executor);
+		multicaster.setAwaitCompletion(true);
+		multicaster.addApplicationListener(new FailingListener("first"));
+		multicaster.addApplicationListener(new FailingListener("second"));
+
+		try {
+			multicaster.multicastEvent(new TestEvent());
+			fail("Should have thrown ApplicationEventMulticastException");
+		}
+		catch (ApplicationEventMulticastException ex) {
+			assertEquals(2, ex.getFailures().size());
+			assertEquals(1, ex.getSuppressed().length);
+			assertSame(ex.getFailures().get(0), ex.getCause());
+		}
+	}
+
+	@Test
+	public void synchronousFailuresDoNotSkipOtherListeners() {
+		ParallelApplicationEventMulticaster multicaster = new ParallelApplicationEventMulticaster();
+		multicaster.addApplicationListener(new FailingListener("first"));
+		multicaster.addApplicationListener(new FailingListener("second"));
+		multicaster.addApplicationListener(new RecordingListener("last", Ordered.LOWEST_PRECEDENCE));
+
+		try {
+			multicaster.multicastEvent(new TestEvent());
+			fail("Should have thrown ApplicationEventMulticastException");
+		}
+		catch (ApplicationEventMulticastException ex) {
+			assertEquals(2, ex.getFailures().size());
+		}
+		assertTrue(this.invocations.contains("last"));
+	}
+
+	@Test
+	public void rejectedListenerInvokedInPublishingThread() {
+		ParallelApplicationEventMulticaster multicaster = new ParallelApplicationEventMulticaster();
+		multicaster.setTaskExecutor(task -> {
+			throw new RejectedExecutionException();
+		});
+		multicaster.setAwaitCompletion(true);
+		multicaster.addApplicationListener(event -> this.invocations.add(Thread.currentThread().getName()));
+
+		multicaster.multicastEvent(new TestEvent());
+		assertEquals(Collections.singletonList(Thread.currentThread().getName()), this.invocations);
+	}
+
+	@Test
+	public void maxPendingListenersInvokesInPublishingThread() {
+		List<Runnable> tasks = Collections.synchronizedList(new ArrayList<>());
+		ParallelApplicationEventMulticaster multicaster = new ParallelApplicationEventMulticaster();
+		multicaster.setTaskExecutor(tasks::add);
+		multicaster.setMaxPendingListeners(1);
+		multicaster.addApplicationListener(event -> this.invocations.add(Thread.currentThread().getName()));
+
+		multicaster.multicastEvent(new TestEvent());
+		assertEquals(1, tasks.size());
+		assertTrue(this.invocations.isEmpty());
+
+		multicaster.multicastEvent(new TestEvent());
+		assertEquals(1, tasks.size());
+		assertEquals(Collections.singletonList(Thread.currentThread().getName()), this.invocations);
+
+		tasks.get(0).run();
+		multicaster.multicastEvent(new TestEvent());
+		assertEquals(2, tasks.size());
+		assertEquals(2, this.invocations.size());
+	}
+
+	@Test
+	public void eventPublishedFromExecutorThreadMulticastInThatThread() throws Exception {
+		ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
+		try {
+			ParallelApplicationEventMulticaster multicaster = new ParallelApplicationEventMulticaster();
+			multicaster.setTaskExecutor(singleThreadExecutor);
+			multicaster.setAwaitCompletion(true);
+			List<String> nestedThreads = Collections.synchronizedList(new ArrayList<>());
+			CountDownLatch nestedPublished = new CountDownLatch(1);
+			multicaster.addApplicationListener((ApplicationListener<ApplicationEvent>) event -> {
+				if (event instanceof TestEvent) {
+					// The only executor thread must not wait for itself
+					multicaster.multicastEvent(new NestedEvent());
+					nestedPublished.countDown();
+				}
+				else {
+					nestedThreads.add(Thread.currentThread().getName());
+				}
+			});
+
+			Thread publisher = new Thread(() -> multicaster.multicastEvent(new TestEvent()));
+			publisher.start();
+			assertTrue(nestedPublished.await(5, TimeUnit.SECONDS));
+			publisher.join(5000);
+			assertEquals(1, nestedThreads.size());
+			assertNotEquals(publisher.getName(), nestedThreads.get(0));
+		}
+		finally {
+			singleThreadExecutor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void executorFromEventListenerAttribute() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(ExecutorConfig.class);
+		ExecutorListener listener = context.getBean(ExecutorListener.class);
+		context.publishEvent(new TestEvent());
+		assertEquals(1, listener.threadNames.size());
+		assertTrue(listener.threadNames.get(0).startsWith("listener-"));
+		context.close();
+	}
+
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			if (!latch.await(5, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("Timed out");
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	static class TestEvent extends ApplicationEvent {
+
+		TestEvent() {
+			super("test");
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	static class NestedEvent extends ApplicationEvent {
+
+		NestedEvent() {
+			super("nested");
+		}
+	}
+
+
+	class RecordingListener implements ApplicationListener<TestEvent>, Ordered {
+
+		private final String name;
+
+		private final int order;
+
+		private final long delay;
+
+		RecordingListener(String name, int order) {
+			this(name, order, 0);
+		}
+
+		RecordingListener(String name, int order, long delay) {
+			this.name = name;
+			this.order = order;
+			this.delay = delay;
+		}
+
+		@Override
+		public void onApplicationEvent(TestEvent event) {
+			if (this.delay > 0) {
+				try {
+					Thread.sleep(this.delay);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			invocations.add(this.name);
+		}
+
+		@Override
+		public int getOrder() {
+			return this.order;
+		}
+	}
+
+
+	class RendezvousListener implements ApplicationListener<TestEvent> {
+
+		private final String name;
+
+		private final CountDownLatch latch;
+
+		RendezvousListener(String name, CountDownLatch latch) {
+			this.name = name;
+			this.latch = latch;
+		}
+
+		@Override
+		public void onApplicationEvent(TestEvent event) {
+			this.latch.countDown();
+			awaitQuietly(this.latch);
+			invocations.add(this.name);
+		}
+	}
+
+
+	static class FailingListener implements ApplicationListener<TestEvent> {
+
+		private final String message;
+
+		FailingListener(String message) {
+			this.message = message;
+		}
+
+		@Override
+		public void onApplicationEvent(TestEvent event) {
+			throw new IllegalStateException(this.message);
+		}
+	}
+
+
+	static class ExecutorListener {
+
+		final List<String> threadNames = Collections.synchronizedList(new ArrayList<>());
+
+		@EventListener(executor = "listenerExecutor")
+		public void onEvent(TestEvent event) {
+			this.threadNames.add(Thread.currentThread().getName());
+		}
+	}
+
+
+	@Configuration
+	static class ExecutorConfig {
+
+		@Bean(name = AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME)
+		public ParallelApplicationEventMulticaster applicationEventMulticaster() {
+			ParallelApplicationEventMulticaster multicaster = new ParallelApplicationEventMulticaster();
+			multicaster.setAwaitCompletion(true);
+			return multicaster;
+		}
+
+		@Bean(destroyMethod = "shutdown")
+		public ExecutorService listenerExecutor() {
+			return Executors.newSingleThreadExecutor(task -> new Thread(task, "listener-thread"));
+		}
+
+		@Bean
+		public ExecutorListener listener() {
+			return new ExecutorListener();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,7 +23,19 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import example.scannable.FooService;
+import example.scannable.FooServiceImpl;
+import example.scannable.NamedComponent;
+
+import org.springframework.beans.factory.annotation.Lookup;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Indexed;
+import org.springframework.stereotype.Service;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -99,6 +111,41 @@ public class CandidateComponentsIndexLoaderTests {
 		assertThat(index, is(nullValue()));
 	}
 
+	@Test
+	public void loadIndexWithTypeMetadata() {
+		CandidateComponentsIndex index = CandidateComponentsIndexLoader.loadIndex(
+				CandidateComponentsTestClassLoader.indexWithTypeMetadata(getClass().getClassLoader(),
+						new ClassPathResource("spring.components", NamedComponent.class),
+						CandidateComponentsTestClassLoader.typeMetadata(FooServiceImpl.class)));
+		IndexedTypeMetadata metadata = index.getTypeMetadata(FooServiceImpl.class.getName());
+		assertThat(metadata, is(notNullValue()));
+		assertEquals(FooServiceImpl.class.getName(), metadata.getClassName());
+		assertTrue(metadata.isIndependent());
+		assertTrue(metadata.isAbstract());
+		assertEquals(Object.class.getName(), metadata.getSuperClassName());
+		assertThat(metadata.getInterfaceNames(), contains(FooService.class.getName()));
+		assertThat(metadata.getAnnotationTypes(), containsInAnyOrder(
+				Service.class.getName(), Lazy.class.getName(), DependsOn.class.getName()));
+		assertThat(metadata.getMetaAnnotationTypes(Service.class.getName()),
+				containsInAnyOrder(Component.class.getName(), Indexed.class.getName()));
+		assertTrue(metadata.isAnnotated(Component.class.getName()));
+		assertFalse(metadata.isAnnotated(Primary.class.getName()));
+		assertTrue(metadata.hasAnnotatedMethods(Lookup.class.getName()));
+		assertFalse(metadata.hasAnnotatedMethods(Bean.class.getName()));
+		assertThat(index.getTypeMetadata(NamedComponent.class.getName()), is(nullValue()));
+	}
+
+	@Test
+	public void loadIndexWithUnsupportedTypeMetadata() {
+		CandidateComponentsIndex index = CandidateComponentsIndexLoader.loadIndex(
+				CandidateComponentsTestClassLoader.indexWithTypeMetadata(getClass().getClassLoader(),
+						new ClassPathResource("spring.components", getClass()),
+						new ClassPathResource("empty-spring.components", getClass())));
+		assertThat(index.getCandidateTypes("org.springframework", "biz"),
+				contains("org.springframework.context.index.Sample3"));
+		assertThat(index.getTypeMetadata("org.springframework.context.index.Sample3"), is(nullValue()));
+	}
+
 	@Test
 	public void loadIndexWithException() throws IOException {
 		final IOException cause = new IOException("test exception");
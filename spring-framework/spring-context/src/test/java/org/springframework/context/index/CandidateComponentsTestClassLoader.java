@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,14 +16,35 @@
 
 package org.springframework.context.index;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * A test {@link ClassLoader} that can be used in testing context to control the
@@ -65,20 +86,227 @@ public class CandidateComponentsTestClassLoader extends ClassLoader {
 				}).collect(Collectors.toList())));
 	}
 
+	/**
+	 * Create a test {@link ClassLoader} that creates an index with the
+	 * specified {@link Resource} and the type metadata held by the specified
+	 * types {@link Resource}.
+	 * @param classLoader the classloader to use for all other operations
+	 * @param resource the resource holding the candidate components
+	 * @param typesResource the resource holding the type metadata
+	 * @return a test {@link ClassLoader} with an index built based on the
+	 * specified resources.
+	 * @see #typeMetadata(Class[])
+	 */
+	public static ClassLoader indexWithTypeMetadata(ClassLoader classLoader, Resource resource, Resource typesResource) {
+		try {
+			return new CandidateComponentsTestClassLoader(classLoader,
+					Collections.enumeration(Collections.singletonList(resource.getURL())),
+					Collections.enumeration(Collections.singletonList(typesResource.getURL())));
+		}
+		catch (IOException ex) {
+			throw new IllegalArgumentException("Invalid resource", ex);
+		}
+	}
+
+	/**
+	 * Create a {@link Resource} holding the type metadata of the specified
+	 * types, in the format written by the {@code spring-context-indexer}.
+	 * @param types the types to include
+	 * @return a temporary resource with the type metadata
+	 */
+	public static Resource typeMetadata(Class<?>... types) {
+		try {
+			File file = File.createTempFile("spring", ".components.types");
+			file.deleteOnExit();
+			try (OutputStream out = new FileOutputStream(file)) {
+				writeTypeMetadata(out, types);
+			}
+			return new FileSystemResource(file);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to write type metadata", ex);
+		}
+	}
+
+	private static void writeTypeMetadata(OutputStream out, Class<?>... types) throws IOException {
+		List<String> strings = new ArrayList<>();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		DataOutputStream dos = new DataOutputStream(body);
+		dos.writeInt(types.length);
+		for (Class<?> type : types) {
+			int modifiers = type.getModifiers();
+			dos.writeInt(indexOf(strings, type.getName()));
+			dos.writeInt(indexOf(strings, type.getName()));
+			dos.writeByte((type.isInterface() ? 1 : 0) | (type.isAnnotation() ? 2 : 0) |
+					(Modifier.isAbstract(modifiers) ? 4 : 0) | (Modifier.isFinal(modifiers) ? 8 : 0) |
+					(type.getEnclosingClass() == null || Modifier.isStatic(modifiers) ? 16 : 0));
+			dos.writeInt(type.getEnclosingClass() != null ? indexOf(strings, type.getEnclosingClass().getName()) : -1);
+			dos.writeInt(type.getSuperclass() != null ? indexOf(strings, type.getSuperclass().getName()) : -1);
+			dos.writeInt(type.getInterfaces().length);
+			for (Class<?> ifc : type.getInterfaces()) {
+				dos.writeInt(indexOf(strings, ifc.getName()));
+			}
+			dos.writeInt(type.getDeclaredClasses().length);
+			for (Class<?> memberClass : type.getDeclaredClasses()) {
+				dos.writeInt(indexOf(strings, memberClass.getName()));
+			}
+			writeAnnotations(dos, strings, type.getDeclaredAnnotations());
+			Set<String> methodAnnotations = new LinkedHashSet<>();
+			List<Method> beanMethods = new ArrayList<>();
+			for (Method method : type.getDeclaredMethods()) {
+				for (Annotation annotation : method.getDeclaredAnnotations()) {
+					methodAnnotations.add(annotation.annotationType().getName());
+					collectMetaAnnotations(annotation.annotationType(), methodAnnotations);
+				}
+				if (!method.isBridge() && !method.isSynthetic() &&
+						AnnotatedElementUtils.isAnnotated(method, Bean.class)) {
+					beanMethods.add(method);
+				}
+			}
+			writeIndexes(dos, strings, methodAnnotations);
+			dos.writeInt(beanMethods.size());
+			for (Method method : beanMethods) {
+				int methodModifiers = method.getModifiers();
+				dos.writeInt(indexOf(strings, method.getName()));
+				dos.writeInt(indexOf(strings, ClassUtils.getQualifiedName(method.getReturnType())));
+				dos.writeByte((Modifier.isStatic(methodModifiers) ? 1 : 0) |
+						(Modifier.isFinal(methodModifiers) ? 2 : 0) | (Modifier.isPrivate(methodModifiers) ? 4 : 0) |
+						(Modifier.isAbstract(methodModifiers) ? 8 : 0));
+				writeAnnotations(dos, strings, method.getDeclaredAnnotations());
+			}
+		}
+		dos.flush();
+
+		DataOutputStream header = new DataOutputStream(out);
+		header.writeInt(0x53434958);
+		header.writeByte(2);
+		header.writeInt(strings.size());
+		for (String string : strings) {
+			header.writeUTF(string);
+		}
+		body.writeTo(header);
+		header.flush();
+	}
+
+	private static void writeAnnotations(DataOutputStream dos, List<String> strings, Annotation[] annotations)
+			throws IOException {
+
+		dos.writeInt(annotations.length);
+		for (Annotation annotation : annotations) {
+			Set<String> metaAnnotations = new LinkedHashSet<>();
+			collectMetaAnnotations(annotation.annotationType(), metaAnnotations);
+			dos.writeInt(indexOf(strings, annotation.annotationType().getName()));
+			writeIndexes(dos, strings, metaAnnotations);
+			writeAttributes(dos, strings, annotation);
+		}
+		Set<String> conditions = new LinkedHashSet<>();
+		collectConditions(annotations, conditions, new HashSet<>());
+		writeIndexes(dos, strings, conditions);
+	}
+
+	private static void writeAttributes(DataOutputStream dos, List<String> strings, Annotation annotation)
+			throws IOException {
+
+		List<Method> attributes = new ArrayList<>();
+		for (Method method : annotation.annotationType().getDeclaredMethods()) {
+			ReflectionUtils.makeAccessible(method);
+			Object value = ReflectionUtils.invokeMethod(method, annotation);
+			if (!ObjectUtils.nullSafeEquals(value, method.getDefaultValue())) {
+				Class<?> type = (method.getReturnType().isArray() ?
+						method.getReturnType().getComponentType() : method.getReturnType());
+				if (type == Class.class || type.isAnnotation()) {
+					dos.writeInt(-1);
+					return;
+				}
+				attributes.add(method);
+			}
+		}
+		dos.writeInt(attributes.size());
+		for (Method method : attributes) {
+			Object value = ReflectionUtils.invokeMethod(method, annotation);
+			dos.writeInt(indexOf(strings, method.getName()));
+			if (value.getClass().isArray()) {
+				dos.writeInt(Array.getLength(value));
+				for (int i = 0; i < Array.getLength(value); i++) {
+					dos.writeInt(indexOf(strings, asString(Array.get(value, i))));
+				}
+			}
+			else {
+				dos.writeInt(-1);
+				dos.writeInt(indexOf(strings, asString(value)));
+			}
+		}
+	}
+
+	private static String asString(Object value) {
+		return (value instanceof Enum ? ((Enum<?>) value).name() : value.toString());
+	}
+
+	private static void collectMetaAnnotations(Class<? extends Annotation> annotationType, Set<String> result) {
+		for (Annotation metaAnnotation : annotationType.getAnnotations()) {
+			String name = metaAnnotation.annotationType().getName();
+			if (!name.startsWith("java.lang.annotation.") && result.add(name)) {
+				collectMetaAnnotations(metaAnnotation.annotationType(), result);
+			}
+		}
+	}
+
+	private static void collectConditions(Annotation[] annotations, Set<String> result, Set<Class<?>> visited) {
+		for (Annotation annotation : annotations) {
+			if (annotation instanceof Conditional) {
+				for (Class<?> condition : ((Conditional) annotation).value()) {
+					result.add(condition.getName());
+				}
+			}
+			Class<? extends Annotation> annotationType = annotation.annotationType();
+			if (!annotationType.getName().startsWith("java.lang.annotation.") && visited.add(annotationType)) {
+				collectConditions(annotationType.getAnnotations(), result, visited);
+			}
+		}
+	}
+
+	private static int indexOf(List<String> strings, String string) {
+		int index = strings.indexOf(string);
+		if (index < 0) {
+			strings.add(string);
+			index = strings.size() - 1;
+		}
+		return index;
+	}
+
+	private static void writeIndexes(DataOutputStream dos, List<String> strings, Set<String> values)
+			throws IOException {
+
+		dos.writeInt(values.size());
+		for (String value : values) {
+			dos.writeInt(indexOf(strings, value));
+		}
+	}
+
 
 	private final Enumeration<URL> resourceUrls;
 
+	private final Enumeration<URL> typesResourceUrls;
+
 	private final IOException cause;
 
 	public CandidateComponentsTestClassLoader(ClassLoader classLoader, Enumeration<URL> resourceUrls) {
+		this(classLoader, resourceUrls, null);
+	}
+
+	public CandidateComponentsTestClassLoader(ClassLoader classLoader, Enumeration<URL> resourceUrls,
+			Enumeration<URL> typesResourceUrls) {
+
 		super(classLoader);
 		this.resourceUrls = resourceUrls;
+		this.typesResourceUrls = typesResourceUrls;
 		this.cause = null;
 	}
 
 	public CandidateComponentsTestClassLoader(ClassLoader parent, IOException cause) {
 		super(parent);
 		this.resourceUrls = null;
+		this.typesResourceUrls = null;
 		this.cause = cause;
 	}
 
@@ -90,6 +318,9 @@ public class CandidateComponentsTestClassLoader extends ClassLoader {
 			}
 			throw this.cause;
 		}
+		if (CandidateComponentsIndexLoader.TYPES_RESOURCE_LOCATION.equals(name) && this.typesResourceUrls != null) {
+			return this.typesResourceUrls;
+		}
 		return super.getResources(name);
 	}
 
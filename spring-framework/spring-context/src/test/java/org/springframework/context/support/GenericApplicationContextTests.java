@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,17 @@
 
 package org.springframework.context.support;
 
+import java.util.List;
+
 import org.junit.Test;
 
+import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.NoUniqueBeanDefinitionException;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.RecordingApplicationStartup;
+import org.springframework.core.metrics.RecordingApplicationStartup.RecordedStep;
 
 import static org.junit.Assert.*;
 
@@ -74,6 +80,56 @@ public class GenericApplicationContextTests {
 		assertEquals(ac.toString(), ac.getBean("testBean"));
 	}
 
+	@Test
+	public void withRecordingApplicationStartup() {
+		RecordingApplicationStartup startup = new RecordingApplicationStartup();
+		GenericApplicationContext ac = new GenericApplicationContext();
+		ac.setApplicationStartup(startup);
+		ac.registerBeanDefinition("testBean", new RootBeanDefinition(String.class));
+		ac.refresh();
+
+		assertSame(startup, ac.getApplicationStartup());
+		assertSame(startup, ac.getBean(ConfigurableApplicationContext.APPLICATION_STARTUP_BEAN_NAME));
+		assertSame(startup, ac.getDefaultListableBeanFactory().getApplicationStartup());
+
+		List<RecordedStep> refreshSteps = startup.getRecordedSteps("spring.context.refresh");
+		assertEquals(1, refreshSteps.size());
+		List<RecordedStep> beanSteps = startup.getRecordedSteps("spring.beans.instantiate");
+		assertEquals(1, beanSteps.size());
+		RecordedStep beanStep = beanSteps.get(0);
+		assertEquals("testBean", beanStep.getTags().get("beanName"));
+		for (String phase : new String[] {"spring.beans.instantiate.create-instance", "spring.beans.populate",
+				"spring.beans.post-process.before-initialization", "spring.beans.init-methods",
+				"spring.beans.post-process.after-initialization"}) {
+			RecordedStep phaseStep = startup.getRecordedSteps(phase).get(0);
+			assertEquals(Long.valueOf(beanStep.getId()), phaseStep.getParentId());
+		}
+		RecordedStep instantiationStep = startup.getRecordedSteps("spring.context.beans.instantiate").get(0);
+		assertEquals(Long.valueOf(instantiationStep.getId()), beanStep.getParentId());
+		assertEquals(Long.valueOf(refreshSteps.get(0).getId()), instantiationStep.getParentId());
+	}
+
+	@Test
+	public void withRecordingApplicationStartupAndFailingRefresh() {
+		RecordingApplicationStartup startup = new RecordingApplicationStartup();
+		GenericApplicationContext ac = new GenericApplicationContext();
+		ac.setApplicationStartup(startup);
+		// No default constructor
+		ac.registerBeanDefinition("testBean", new RootBeanDefinition(Integer.class));
+		try {
+			ac.refresh();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			// expected
+		}
+
+		assertEquals(1, startup.getRecordedSteps("spring.context.refresh").size());
+		assertEquals(1, startup.getRecordedSteps("spring.context.beans.instantiate").size());
+		assertEquals(1, startup.getRecordedSteps("spring.beans.instantiate").size());
+		assertNull(startup.start("next").getParentId());
+	}
+
 	@Test
 	public void accessAfterClosing() {
 		GenericApplicationContext ac = new GenericApplicationContext();
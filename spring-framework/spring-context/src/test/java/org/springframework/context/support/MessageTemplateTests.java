@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.support;
+
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link MessageTemplate}, comparing its output against {@link MessageFormat}.
+ */
+public class MessageTemplateTests {
+
+	private static final Date DATE = new Date(1234567890123L);
+
+
+	@Test
+	public void plainArguments() {
+		assertCompiledAndSame("Hello, {0} and {1}!", Locale.ENGLISH, "Alice", "Bob");
+		assertCompiledAndSame("{1}{0}{1}", Locale.ENGLISH, "a", "b");
+		assertCompiledAndSame("No arguments at all", Locale.ENGLISH);
+		assertCompiledAndSame("Value: {0}", Locale.ENGLISH, new Object[] {null});
+	}
+
+	@Test
+	public void quotes() {
+		assertCompiledAndSame("I''m {0}", Locale.ENGLISH, "here");
+		assertCompiledAndSame("'{0}' is literal, {0} is not", Locale.ENGLISH, "this");
+	}
+
+	@Test
+	public void missingArguments() {
+		assertCompiledAndSame("{0}, {1}, {2}", Locale.ENGLISH, "first");
+		assertCompiledAndSame("{0}, {1}", Locale.ENGLISH, (Object[]) null);
+	}
+
+	@Test
+	public void numbers() {
+		assertCompiledAndSame("{0}", Locale.ENGLISH, 1234567.891);
+		assertCompiledAndSame("{0}", Locale.GERMAN, 1234567.891);
+		assertCompiledAndSame("{0,number}", Locale.GERMAN, new BigDecimal("1234.5"));
+		assertCompiledAndSame("{0,number,integer}", Locale.ENGLISH, 1234.5);
+		assertCompiledAndSame("{0,number,percent}", Locale.FRENCH, 0.256);
+		assertCompiledAndSame("{0,number,currency}", Locale.US, 12.5);
+		assertCompiledAndSame("{0,number,#,##0.00}", Locale.GERMANY, 9876.5);
+	}
+
+	@Test
+	public void dates() {
+		assertCompiledAndSame("{0}", Locale.ENGLISH, DATE);
+		assertCompiledAndSame("{0,date}", Locale.GERMAN, DATE);
+		assertCompiledAndSame("{0,date,short}", Locale.US, DATE);
+		assertCompiledAndSame("{0,date,long}", Locale.FRENCH, DATE);
+		assertCompiledAndSame("{0,time,medium}", Locale.ENGLISH, DATE);
+		assertCompiledAndSame("{0,date,yyyy-MM-dd HH:mm:ss}", Locale.ENGLISH, DATE);
+		assertCompiledAndSame("{0,date,[yyyy-MM-dd] #HH}", Locale.ENGLISH, DATE);
+	}
+
+	@Test
+	public void datesWithoutFormatInCurrentDefaultTimeZone() {
+		TimeZone defaultTimeZone = TimeZone.getDefault();
+		try {
+			TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+			assertCompiledAndSame("{0}", Locale.ENGLISH, DATE);
+			TimeZone.setDefault(TimeZone.getTimeZone("GMT+09:00"));
+			assertCompiledAndSame("{0}", Locale.ENGLISH, DATE);
+		}
+		finally {
+			TimeZone.setDefault(defaultTimeZone);
+		}
+	}
+
+	@Test
+	public void choiceFallsBackToMessageFormat() {
+		String pattern = "{0,choice,0#no files|1#one file|1<{0,number,integer} files}";
+		MessageTemplate template = MessageTemplate.compile(pattern, Locale.ENGLISH);
+		assertFalse(template.isCompiled());
+		for (int count = 0; count < 3; count++) {
+			assertEquals(new MessageFormat(pattern, Locale.ENGLISH).format(new Object[] {count}),
+					template.format(new Object[] {count}));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidArgumentForNumber() {
+		MessageTemplate.compile("{0,number}", Locale.ENGLISH).format(new Object[] {"text"});
+	}
+
+	@Test
+	public void concurrentFormatting() throws Exception {
+		MessageTemplate template = MessageTemplate.compile("{0} at {1,number} on {2,date,yyyy-MM-dd}", Locale.ENGLISH);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				int offset = i;
+				Callable<Boolean> task = () -> {
+					for (int j = 0; j < 500; j++) {
+						Object[] args = {"call" + j, offset * 1000 + j, new Date(DATE.getTime() + offset * 86400000L)};
+						String expected = new MessageFormat("{0} at {1,number} on {2,date,yyyy-MM-dd}", Locale.ENGLISH).format(args);
+						if (!expected.equals(template.format(args))) {
+							return false;
+						}
+					}
+					return true;
+				};
+				futures.add(executor.submit(task));
+			}
+			for (Future<Boolean> future : futures) {
+				assertTrue(future.get());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+
+	private static void assertCompiledAndSame(String pattern, Locale locale, Object... args) {
+		MessageTemplate template = MessageTemplate.compile(pattern, locale);
+		assertTrue(template.isCompiled());
+		assertEquals(new MessageFormat(pattern, locale).format(args != null ? args : new Object[0]), template.format(args));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,18 +16,31 @@
 
 package org.springframework.context.support;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.After;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import org.springframework.beans.MutablePropertyValues;
 import org.springframework.context.MessageSourceResolvable;
 import org.springframework.context.NoSuchMessageException;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
 
 import static org.junit.Assert.*;
 
@@ -37,6 +50,9 @@ import static org.junit.Assert.*;
  */
 public class ResourceBundleMessageSourceTests {
 
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 	@Test
 	public void testMessageAccessWithDefaultMessageSource() {
 		doTestMessageAccess(false, true, false, false, false);
@@ -398,6 +414,186 @@ public class ResourceBundleMessageSourceTests {
 		assertEquals("message2", ms.getMessage("code2", null, Locale.GERMAN));
 	}
 
+	@Test
+	public void testReloadableResourceBundleMessageSourceWithArguments() {
+		ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource();
+		ms.setBasename("org/springframework/context/support/messages");
+		assertEquals("Hello, World", ms.getMessage("hello", new Object[] {"Hello", "World"}, Locale.ENGLISH));
+		assertEquals("Hello, {1}", ms.getMessage("hello", new Object[] {"Hello"}, Locale.GERMAN));
+		assertEquals("I'm", ms.getMessage("escaped", new Object[] {"Hello"}, Locale.ENGLISH));
+	}
+
+	@Test
+	public void testReloadableResourceBundleMessageSourceWithPreloadedBundles() throws Exception {
+		ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource();
+		ms.setBasename("classpath:org/springframework/context/support/messages");
+		ms.setPreloadBundles(true);
+		ms.afterPropertiesSet();
+		ms.setResourceLoader(new DefaultResourceLoader() {
+			@Override
+			public Resource getResource(String location) {
+				throw new IllegalStateException("Unexpected resource access: " + location);
+			}
+		});
+		assertEquals("message1", ms.getMessage("code1", null, Locale.ENGLISH));
+		assertEquals("nachricht2", ms.getMessage("code2", null, Locale.GERMAN));
+		assertEquals("nochricht2", ms.getMessage("code2", null, new Locale("de", "AT")));
+		assertEquals("noochricht2", ms.getMessage("code2", null, new Locale("de", "AT", "oo")));
+		assertEquals("nachricht2xml", ms.getMessage("code2", null, Locale.GERMANY));
+		assertEquals("nachricht2", ms.getMessage("code2", null, new Locale("de", "CH")));
+		assertEquals("Hello, World", ms.getMessage("hello", new Object[] {"Hello", "World"}, Locale.FRENCH));
+	}
+
+	@Test
+	public void testReloadableResourceBundleMessageSourceWithPreloadedRelativeBundles() throws Exception {
+		ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource();
+		ms.setBasename("org/springframework/context/support/messages");
+		ms.setPreloadBundles(true);
+		ms.afterPropertiesSet();
+		List<String> locations = new ArrayList<>();
+		ms.setResourceLoader(new DefaultResourceLoader() {
+			@Override
+			public Resource getResource(String location) {
+				locations.add(location);
+				return super.getResource(location);
+			}
+		});
+		assertEquals("nachricht2", ms.getMessage("code2", null, Locale.GERMAN));
+		assertTrue(locations.isEmpty());
+		// Not necessarily found by the search: to be checked individually
+		assertEquals("nachricht2", ms.getMessage("code2", null, new Locale("de", "CH")));
+		assertTrue(locations.contains("org/springframework/context/support/messages_de_CH.properties"));
+	}
+
+	@Test
+	public void testReloadableResourceBundleMessageSourceWithCustomResolveCode() {
+		ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource() {
+			@Override
+			protected MessageFormat resolveCode(String code, Locale locale) {
+				return ("custom".equals(code) ? new MessageFormat("Custom {0}", locale) : super.resolveCode(code, locale));
+			}
+		};
+		ms.setBasename("org/springframework/context/support/messages");
+		assertEquals("Custom value", ms.getMessage("custom", new Object[] {"value"}, Locale.ENGLISH));
+		assertEquals("Hello, World", ms.getMessage("hello", new Object[] {"Hello", "World"}, Locale.ENGLISH));
+	}
+
+	@Test
+	public void testReloadableResourceBundleMessageSourceWatchingForChanges() throws Exception {
+		File directory = this.temporaryFolder.newFolder();
+		writeProperties(new File(directory, "messages.properties"), "code1", "message1");
+		ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource();
+		ms.setBasename("file:" + directory.getAbsolutePath() + "/messages");
+		ms.setFallbackToSystemLocale(false);
+		ms.setWatchForChanges(true);
+		ms.afterPropertiesSet();
+		try {
+			assertEquals("message1", ms.getMessage("code1", null, Locale.ENGLISH));
+			assertEquals("message1", ms.getMessage("code1", null, Locale.GERMAN));
+
+			writeProperties(new File(directory, "messages.properties"), "code1", "message1b");
+			awaitMessage(ms, "message1b", Locale.ENGLISH);
+			writeProperties(new File(directory, "messages_de.properties"), "code1", "nachricht1");
+			awaitMessage(ms, "nachricht1", Locale.GERMAN);
+			assertEquals("message1b", ms.getMessage("code1", null, Locale.ENGLISH));
+			assertTrue(new File(directory, "messages_de.properties").delete());
+			awaitMessage(ms, "message1b", Locale.GERMAN);
+		}
+		finally {
+			ms.destroy();
+		}
+	}
+
+	@Test
+	public void testReloadableResourceBundleMessageSourceWatchingForChangesAfterFailedReload() throws Exception {
+		File directory = this.temporaryFolder.newFolder();
+		writeProperties(new File(directory, "messages.properties"), "code1", "message1");
+		AtomicBoolean failOnRefresh = new AtomicBoolean();
+		ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource() {
+			@Override
+			protected PropertiesHolder refreshProperties(String filename, @Nullable PropertiesHolder propHolder) {
+				if (failOnRefresh.getAndSet(false)) {
+					throw new IllegalStateException("Simulated reload failure");
+				}
+				return super.refreshProperties(filename, propHolder);
+			}
+		};
+		ms.setBasename("file:" + directory.getAbsolutePath() + "/messages");
+		ms.setFallbackToSystemLocale(false);
+		ms.setWatchForChanges(true);
+		ms.afterPropertiesSet();
+		try {
+			assertEquals("message1", ms.getMessage("code1", null, Locale.ENGLISH));
+			failOnRefresh.set(true);
+			writeProperties(new File(directory, "messages.properties"), "code1", "message1b");
+			long deadline = System.currentTimeMillis() + 10000;
+			while (failOnRefresh.get() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(50);
+			}
+			assertFalse(failOnRefresh.get());
+
+			writeProperties(new File(directory, "messages.properties"), "code1", "message1c");
+			awaitMessage(ms, "message1c", Locale.ENGLISH);
+		}
+		finally {
+			ms.destroy();
+		}
+	}
+
+	@Test
+	public void testReloadableResourceBundleMessageSourceWatchingForChangesWithClasspathPrefix() throws Exception {
+		File directory = this.temporaryFolder.newFolder();
+		writeProperties(new File(directory, "messages.properties"), "code1", "message1");
+		ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource();
+		ms.setResourceLoader(new DefaultResourceLoader() {
+			@Override
+			public Resource getResource(String location) {
+				return (location.startsWith(CLASSPATH_URL_PREFIX) ?
+						new FileSystemResource(new File(directory, location.substring(CLASSPATH_URL_PREFIX.length()))) :
+						super.getResource(location));
+			}
+		});
+		ms.setBasename("classpath:messages");
+		ms.setFallbackToSystemLocale(false);
+		ms.setWatchForChanges(true);
+		ms.afterPropertiesSet();
+		try {
+			assertEquals("message1", ms.getMessage("code1", null, Locale.GERMAN));
+			writeProperties(new File(directory, "messages_de.properties"), "code1", "nachricht1");
+			awaitMessage(ms, "nachricht1", Locale.GERMAN);
+			assertEquals("message1", ms.getMessage("code1", null, Locale.ENGLISH));
+		}
+		finally {
+			ms.destroy();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testReloadableResourceBundleMessageSourceWatchingForChangesWithCacheSeconds() throws Exception {
+		ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource();
+		ms.setBasename("org/springframework/context/support/messages");
+		ms.setCacheSeconds(1);
+		ms.setWatchForChanges(true);
+		ms.afterPropertiesSet();
+	}
+
+	private static void writeProperties(File file, String key, String value) throws IOException {
+		Properties props = new Properties();
+		props.setProperty(key, value);
+		try (OutputStream out = new FileOutputStream(file)) {
+			props.store(out, null);
+		}
+	}
+
+	private static void awaitMessage(ReloadableResourceBundleMessageSource ms, String expected, Locale locale)
+			throws InterruptedException {
+
+		for (int i = 0; i < 300 && !expected.equals(ms.getMessage("code1", null, null, locale)); i++) {
+			Thread.sleep(50);
+		}
+		assertEquals(expected, ms.getMessage("code1", null, locale));
+	}
+
 	@Test
 	public void testReloadableResourceBundleMessageSourceFileNameCalculation() {
 		ReloadableResourceBundleMessageSource ms = new ReloadableResourceBundleMessageSource();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,8 @@ import org.junit.Test;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.xml.StaxXmlBeanDefinitionReader;
 import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
 import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.core.io.ClassPathResource;
@@ -60,6 +62,18 @@ public class JeeNamespaceHandlerTests {
 		assertPropertyValue(beanDefinition, "resourceRef", "true");
 	}
 
+	@Test
+	public void testSimpleDefinitionWithStaxReader() throws Exception {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		new StaxXmlBeanDefinitionReader(beanFactory).loadBeanDefinitions(
+				new ClassPathResource("jeeNamespaceHandlerTests.xml", getClass()));
+		BeanDefinition beanDefinition = beanFactory.getMergedBeanDefinition("simple");
+		assertEquals(JndiObjectFactoryBean.class.getName(), beanDefinition.getBeanClassName());
+		assertPropertyValue(beanDefinition, "jndiName", "jdbc/MyDataSource");
+		// default from the "spring-jee" XSD
+		assertPropertyValue(beanDefinition, "resourceRef", "true");
+	}
+
 	@Test
 	public void testComplexDefinition() throws Exception {
 		BeanDefinition beanDefinition = this.beanFactory.getMergedBeanDefinition("complex");
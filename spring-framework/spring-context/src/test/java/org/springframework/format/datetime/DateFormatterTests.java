@@ -180,6 +180,35 @@ public class DateFormatterTests {
 		formatter.parse("2009", Locale.US);
 	}
 
+	@Test
+	public void shouldPrintWithSeparateFormatPerLocale() throws Exception {
+		DateFormatter formatter = new DateFormatter();
+		formatter.setTimeZone(UTC);
+		formatter.setStyle(DateFormat.LONG);
+		Date date = getDate(2009, Calendar.JUNE, 1);
+		assertThat(formatter.print(date, Locale.US), is("June 1, 2009"));
+		assertThat(formatter.print(date, Locale.GERMANY), is("1. Juni 2009"));
+		assertThat(formatter.print(date, Locale.US), is("June 1, 2009"));
+		assertThat(formatter.getDateFormat(Locale.US), not(sameInstance(formatter.getDateFormat(Locale.US))));
+	}
+
+	@Test
+	public void shouldUseCurrentDefaultTimeZone() throws Exception {
+		TimeZone defaultTimeZone = TimeZone.getDefault();
+		try {
+			DateFormatter formatter = new DateFormatter("HH:mm");
+			Date date = new Date(0);
+			TimeZone.setDefault(UTC);
+			assertThat(formatter.print(date, Locale.US), is("00:00"));
+			TimeZone.setDefault(TimeZone.getTimeZone("GMT+09:00"));
+			assertThat(formatter.print(date, Locale.US), is("09:00"));
+			assertThat(formatter.parse("09:00", Locale.US), is(date));
+		}
+		finally {
+			TimeZone.setDefault(defaultTimeZone);
+		}
+	}
+
 	@Test
 	public void shouldUseCorrectOrder() throws Exception {
 		DateFormatter formatter = new DateFormatter();
@@ -52,4 +52,19 @@ public class NumberStyleFormatterTests {
 		formatter.parse("23.56bogus", Locale.US);
 	}
 
+	@Test
+	public void numberFormatPerLocaleIsNotShared() {
+		assertNotSame(formatter.getNumberFormat(Locale.US), formatter.getNumberFormat(Locale.US));
+		assertEquals("1,234.5", formatter.print(new BigDecimal("1234.5"), Locale.US));
+		assertEquals("1.234,5", formatter.print(new BigDecimal("1234.5"), Locale.GERMANY));
+		assertEquals("1,234.5", formatter.print(new BigDecimal("1234.5"), Locale.US));
+	}
+
+	@Test
+	public void patternChangeAfterFirstUse() {
+		assertEquals("23.56", formatter.print(new BigDecimal("23.56"), Locale.US));
+		formatter.setPattern("#0.0");
+		assertEquals("23.6", formatter.print(new BigDecimal("23.56"), Locale.US));
+	}
+
 }
@@ -18,6 +18,7 @@ package org.springframework.format.support;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.math.BigDecimal;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Date;
@@ -34,7 +35,9 @@ import org.junit.Test;
 
 import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.beans.ConfigurablePropertyAccessor;
+import org.springframework.beans.MutablePropertyValues;
 import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.PropertyPlaceholderConfigurer;
@@ -50,10 +53,16 @@ import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.format.Formatter;
 import org.springframework.format.Printer;
 import org.springframework.format.annotation.NumberFormat;
+import org.springframework.format.datetime.DateFormatterRegistrar;
 import org.springframework.format.datetime.joda.DateTimeParser;
 import org.springframework.format.datetime.joda.JodaDateTimeFormatAnnotationFormatterFactory;
 import org.springframework.format.datetime.joda.ReadablePartialPrinter;
+import org.springframework.format.number.NumberFormatAnnotationFormatterFactory;
 import org.springframework.format.number.NumberStyleFormatter;
+import org.springframework.tests.Assume;
+import org.springframework.tests.TestGroup;
+import org.springframework.util.StopWatch;
+import org.springframework.validation.DataBinder;
 
 import static org.junit.Assert.*;
 
@@ -380,6 +389,44 @@ public class FormattingConversionServiceTests {
 		assertEquals(Integer.valueOf(1), formattingService.convert("1", Integer.class));
 	}
 
+	@Test
+	public void bindLargeAnnotatedFormIsFastEnough() {
+		// Coarse-grained stand-in for a benchmark of binding a 10k-row form:
+		// there is no benchmark harness in this build, so only run with the
+		// performance test group and guard against gross regressions.
+		Assume.group(TestGroup.PERFORMANCE);
+		formattingService.addFormatterForFieldAnnotation(new NumberFormatAnnotationFormatterFactory());
+		new DateFormatterRegistrar().registerFormatters(formattingService);
+		int rowCount = 10000;
+		List<PropertyValue> pvList = new ArrayList<>(rowCount * 3);
+		for (int i = 0; i < rowCount; i++) {
+			pvList.add(new PropertyValue("rows[" + i + "].amount", "1,234.5" + (i % 10)));
+			pvList.add(new PropertyValue("rows[" + i + "].percent", (i % 100) + "%"));
+			pvList.add(new PropertyValue("rows[" + i + "].date", "2018-06-" + (10 + i % 20)));
+		}
+		MutablePropertyValues pvs = new MutablePropertyValues(pvList);
+
+		StopWatch sw = new StopWatch();
+		sw.start("bind");
+		FormModel model = new FormModel();
+		DataBinder binder = new DataBinder(model);
+		binder.setConversionService(formattingService);
+		binder.setAutoGrowCollectionLimit(rowCount);
+		binder.bind(pvs);
+		sw.stop();
+		assertEquals(0, binder.getBindingResult().getErrorCount());
+		assertEquals(rowCount, model.rows.size());
+		assertEquals(new BigDecimal("1234.59"), model.rows.get(rowCount - 1).amount);
+
+		sw.start("print");
+		for (int i = 0; i < rowCount; i++) {
+			binder.getBindingResult().getFieldValue("rows[" + i + "].amount");
+			binder.getBindingResult().getFieldValue("rows[" + i + "].date");
+		}
+		sw.stop();
+		assertTrue("Binding took too long: " + sw.prettyPrint(), sw.getTotalTimeMillis() < 5000);
+	}
+
 
 	public static class ValueBean {
 
@@ -455,6 +502,57 @@ public class FormattingConversionServiceTests {
 	}
 
 
+	public static class FormModel {
+
+		private List<FormRow> rows = new ArrayList<>();
+
+		public List<FormRow> getRows() {
+			return this.rows;
+		}
+
+		public void setRows(List<FormRow> rows) {
+			this.rows = rows;
+		}
+	}
+
+
+	public static class FormRow {
+
+		@NumberFormat(pattern = "#,##0.00")
+		public BigDecimal amount;
+
+		@NumberFormat(style = NumberFormat.Style.PERCENT)
+		public BigDecimal percent;
+
+		@org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE)
+		public Date date;
+
+		public BigDecimal getAmount() {
+			return this.amount;
+		}
+
+		public void setAmount(BigDecimal amount) {
+			this.amount = amount;
+		}
+
+		public BigDecimal getPercent() {
+			return this.percent;
+		}
+
+		public void setPercent(BigDecimal percent) {
+			this.percent = percent;
+		}
+
+		public Date getDate() {
+			return this.date;
+		}
+
+		public void setDate(Date date) {
+			this.date = date;
+		}
+	}
+
+
 	public static class NullReturningFormatter implements Formatter<Integer> {
 
 		@Override
@@ -23,6 +23,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import javax.management.Attribute;
 import javax.management.InstanceNotFoundException;
 import javax.management.JMException;
@@ -54,6 +57,7 @@ import org.springframework.jmx.export.assembler.SimpleReflectiveMBeanInfoAssembl
 import org.springframework.jmx.export.naming.SelfNaming;
 import org.springframework.jmx.support.ObjectNameManager;
 import org.springframework.jmx.support.RegistrationPolicy;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
 import org.springframework.tests.aop.interceptor.NopInterceptor;
 import org.springframework.tests.sample.beans.TestBean;
 
@@ -374,6 +378,24 @@ public class MBeanExporterTests extends AbstractMBeanServerTests {
 		assertEquals("Incorrect updated name.", otherName, bean.getName());
 	}
 
+	@Test
+	public void testAttributeReadReflectsCurrentValue() throws Exception {
+		JmxTestBean bean = new JmxTestBean();
+		bean.setName("Rob Harrop");
+		ObjectName objectName = ObjectNameManager.getInstance("spring:type=Test");
+
+		MBeanExporter exporter = new MBeanExporter();
+		exporter.setServer(getServer());
+		exporter.setBeans(Collections.singletonMap(objectName.toString(), bean));
+		start(exporter);
+
+		assertEquals("Rob Harrop", server.getAttribute(objectName, "Name"));
+		bean.setName("Juergen Hoeller");
+		assertEquals("Juergen Hoeller", server.getAttribute(objectName, "Name"));
+		bean.setAge(42);
+		assertEquals(42, server.getAttribute(objectName, "Age"));
+	}
+
 	@Test
 	public void testBonaFideMBeanIsNotExportedWhenAutodetectIsTotallyTurnedOff() throws Exception {
 		BeanDefinitionBuilder builder = BeanDefinitionBuilder.rootBeanDefinition(Person.class);
@@ -629,6 +651,52 @@ public class MBeanExporterTests extends AbstractMBeanServerTests {
 				ObjectNameManager.getInstance(objectName2));
 	}
 
+	@Test
+	public void testRegistrationWithExecutor() throws Exception {
+		ExecutorService executorService = Executors.newSingleThreadExecutor();
+		MBeanExporter exporter = new MBeanExporter();
+		exporter.setServer(getServer());
+		exporter.setBeans(getBeanMap());
+		exporter.setRegistrationExecutor(new ConcurrentTaskExecutor(executorService));
+		start(exporter);
+
+		executorService.shutdown();
+		assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+		assertIsRegistered("Bean not registered in the background", ObjectNameManager.getInstance(OBJECT_NAME));
+
+		exporter.destroy();
+		assertIsNotRegistered("Bean not unregistered on destroy", ObjectNameManager.getInstance(OBJECT_NAME));
+	}
+
+	@Test
+	public void testMBeanIsUnregisteredForRuntimeExceptionDuringRegistrationWithExecutor() throws Exception {
+		String objectName1 = "spring:test=bean1";
+		String objectName2 = "spring:test=bean2";
+
+		DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+		factory.registerBeanDefinition(objectName1, new RootBeanDefinition(Person.class));
+		factory.registerBeanDefinition(objectName2, new RootBeanDefinition(RuntimeExceptionThrowingConstructorBean.class));
+
+		ExecutorService executorService = Executors.newSingleThreadExecutor();
+		MBeanExporter exporter = new MBeanExporter();
+		exporter.setServer(getServer());
+		Map<String, Object> beansToExport = new HashMap<>();
+		beansToExport.put(objectName1, objectName1);
+		beansToExport.put(objectName2, objectName2);
+		exporter.setBeans(beansToExport);
+		exporter.setBeanFactory(factory);
+		exporter.setRegistrationExecutor(new ConcurrentTaskExecutor(executorService));
+		start(exporter);
+
+		executorService.shutdown();
+		assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+		assertIsNotRegistered("Must have unregistered all previously registered MBeans due to RuntimeException",
+				ObjectNameManager.getInstance(objectName1));
+		assertIsNotRegistered("Must have never registered this MBean due to RuntimeException",
+				ObjectNameManager.getInstance(objectName2));
+		exporter.destroy();
+	}
+
 	@Test
 	public void testIgnoreBeanName() throws MalformedObjectNameException {
 		DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.annotation;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ExecutorMetrics;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link AsyncFanOut} and the propagation of its {@link AsyncScope}
+ * to {@link Async} methods.
+ */
+public class AsyncFanOutTests {
+
+	private AnnotationConfigApplicationContext context;
+
+	private AsyncService service;
+
+
+	@Before
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(AsyncConfig.class);
+		this.service = this.context.getBean(AsyncService.class);
+	}
+
+	@After
+	public void close() {
+		this.context.close();
+	}
+
+
+	@Test
+	public void invokeAllReturnsResultsInOrder() throws Exception {
+		List<String> results = AsyncFanOut.invokeAll(Duration.ofSeconds(5),
+				() -> this.service.echo("a"), () -> this.service.echoCompletable("b"), () -> this.service.echo("c"));
+		assertEquals(Arrays.asList("a", "b", "c"), results);
+		assertNull(AsyncScope.current());
+	}
+
+	@Test
+	public void invokeAllExposesDeadlineToAsyncMethods() throws Exception {
+		List<Long> results = AsyncFanOut.invokeAll(Duration.ofSeconds(5), () -> this.service.remainingNanos());
+		assertTrue(results.get(0) > 0);
+		assertTrue(results.get(0) <= TimeUnit.SECONDS.toNanos(5));
+		assertEquals(Long.valueOf(-1), this.service.remainingNanos().get());
+	}
+
+	@Test
+	public void invokeAllCancelsRemainingCallsOnTimeout() throws Exception {
+		long start = System.nanoTime();
+		try {
+			AsyncFanOut.invokeAll(Duration.ofMillis(200), () -> this.service.echo("a"), () -> this.service.block());
+			fail("Should have thrown TimeoutException");
+		}
+		catch (TimeoutException ex) {
+			// expected
+		}
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+		assertTrue("Blocking call not interrupted", this.service.getInterrupted().await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void invokeAllCancelsNestedAsyncCallsOnTimeout() throws Exception {
+		try {
+			AsyncFanOut.invokeAll(Duration.ofMillis(200), () -> this.service.delegateToBlock());
+			fail("Should have thrown TimeoutException");
+		}
+		catch (TimeoutException ex) {
+			// expected
+		}
+		assertTrue("Nested blocking call not interrupted", this.service.getInterrupted().await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void invokeAllInterruptsCompletableFutureCallsOnTimeout() throws Exception {
+		try {
+			AsyncFanOut.invokeAll(Duration.ofMillis(200), () -> this.service.blockCompletable());
+			fail("Should have thrown TimeoutException");
+		}
+		catch (TimeoutException ex) {
+			// expected
+		}
+		assertTrue("Blocking call not interrupted", this.service.getInterrupted().await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void invokeAllPropagatesFailure() throws Exception {
+		try {
+			AsyncFanOut.invokeAll(Duration.ofSeconds(5), () -> this.service.fail(), () -> this.service.block());
+			fail("Should have thrown ExecutionException");
+		}
+		catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+		assertTrue("Blocking call not interrupted", this.service.getInterrupted().await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void invokeAllPropagatesFailureOfLastCallRightAway() throws Exception {
+		long start = System.nanoTime();
+		try {
+			AsyncFanOut.invokeAll(Duration.ofSeconds(30), () -> this.service.block(), () -> this.service.fail());
+			fail("Should have thrown ExecutionException");
+		}
+		catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+		assertTrue("Blocking call not interrupted", this.service.getInterrupted().await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void asyncCallAfterCancellationIsNotRun() throws Exception {
+		AsyncScope scope = AsyncScope.open(TimeUnit.SECONDS.toNanos(5));
+		scope.cancel();
+		AsyncScope previousScope = AsyncScope.setCurrent(scope);
+		Future<String> future;
+		try {
+			future = this.service.echo("a");
+		}
+		finally {
+			AsyncScope.setCurrent(previousScope);
+		}
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("Should have been cancelled");
+		}
+		catch (CancellationException ex) {
+			// expected: cancelled along with the scope
+		}
+		catch (ExecutionException ex) {
+			// expected: rejected on start
+			assertTrue(ex.getCause() instanceof CancellationException);
+		}
+		assertNull(this.service.getLastEcho());
+	}
+
+	@Test
+	public void voidAsyncCallAfterCancellationIsSkippedSilently() throws Exception {
+		ExecutorMetrics metrics = this.context.getBean("metricsExecutor", ThreadPoolTaskExecutor.class).getMetrics();
+		AsyncScope scope = AsyncScope.open(TimeUnit.SECONDS.toNanos(5));
+		scope.cancel();
+		AsyncScope previousScope = AsyncScope.setCurrent(scope);
+		try {
+			this.service.echoVoid("a");
+		}
+		finally {
+			AsyncScope.setCurrent(previousScope);
+		}
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (metrics.getCompletedCount() + metrics.getFailedCount() == 0 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(1, metrics.getCompletedCount());
+		assertEquals(0, metrics.getFailedCount());
+		assertNull(this.service.getLastEcho());
+	}
+
+
+	@Configuration
+	@EnableAsync
+	static class AsyncConfig implements AsyncConfigurer {
+
+		@Override
+		public Executor getAsyncExecutor() {
+			return new SimpleAsyncTaskExecutor();
+		}
+
+		@Bean
+		public ThreadPoolTaskExecutor metricsExecutor() {
+			ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+			executor.setMetricsEnabled(true);
+			return executor;
+		}
+
+		@Bean
+		public AsyncService asyncService() {
+			return new AsyncService();
+		}
+	}
+
+
+	static class AsyncService {
+
+		final CountDownLatch started = new CountDownLatch(1);
+
+		final CountDownLatch interrupted = new CountDownLatch(1);
+
+		volatile String lastEcho;
+
+		@Autowired
+		@Lazy
+		AsyncService self;
+
+		public CountDownLatch getInterrupted() {
+			return this.interrupted;
+		}
+
+		public String getLastEcho() {
+			return this.lastEcho;
+		}
+
+		@Async
+		public Future<String> echo(String value) {
+			this.lastEcho = value;
+			return new AsyncResult<>(value);
+		}
+
+		@Async("metricsExecutor")
+		public void echoVoid(String value) {
+			this.lastEcho = value;
+		}
+
+		@Async
+		public CompletableFuture<String> echoCompletable(String value) {
+			return CompletableFuture.completedFuture(value);
+		}
+
+		@Async
+		public Future<Long> remainingNanos() {
+			AsyncScope scope = AsyncScope.current();
+			return new AsyncResult<>(scope != null ? scope.getRemainingNanos() : -1);
+		}
+
+		@Async
+		public Future<String> block() {
+			this.started.countDown();
+			try {
+				new CountDownLatch(1).await();
+			}
+			catch (InterruptedException ex) {
+				this.interrupted.countDown();
+			}
+			return new AsyncResult<>("blocked");
+		}
+
+		@Async
+		public CompletableFuture<String> blockCompletable() {
+			this.started.countDown();
+			try {
+				new CountDownLatch(1).await();
+			}
+			catch (InterruptedException ex) {
+				this.interrupted.countDown();
+			}
+			return CompletableFuture.completedFuture("blocked");
+		}
+
+		@Async
+		public Future<String> delegateToBlock() {
+			try {
+				return new AsyncResult<>(this.self.block().get());
+			}
+			catch (InterruptedException | ExecutionException ex) {
+				return AsyncResult.forExecutionException(ex);
+			}
+		}
+
+		@Async
+		public Future<String> fail() {
+			try {
+				// Let a concurrent blocking call start first, so that it gets interrupted
+				this.started.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			throw new IllegalStateException("Failure");
+		}
+	}
+
+}
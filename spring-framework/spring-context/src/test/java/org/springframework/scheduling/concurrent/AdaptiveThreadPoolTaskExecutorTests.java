@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.core.task.TaskRejectedException;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveThreadPoolTaskExecutorTests {
+
+	private final AdaptiveThreadPoolTaskExecutor executor = new AdaptiveThreadPoolTaskExecutor();
+
+	private final CountDownLatch blocker = new CountDownLatch(1);
+
+
+	@After
+	public void shutdown() {
+		this.blocker.countDown();
+		this.executor.shutdown();
+	}
+
+
+	@Test
+	public void startsThreadsBeforeQueueing() throws Exception {
+		this.executor.setMaxPoolSize(4);
+		this.executor.afterPropertiesSet();
+		for (int i = 0; i < 4; i++) {
+			this.executor.execute(this::block);
+		}
+		assertEquals(4, this.executor.getPoolSize());
+		assertEquals(0, this.executor.getThreadPoolExecutor().getQueue().size());
+
+		this.executor.execute(this::block);
+		assertEquals(4, this.executor.getPoolSize());
+		assertEquals(1, this.executor.getThreadPoolExecutor().getQueue().size());
+	}
+
+	@Test
+	public void reusesIdleThreads() throws Exception {
+		this.executor.setMaxPoolSize(4);
+		this.executor.afterPropertiesSet();
+		for (int i = 0; i < 10; i++) {
+			CountDownLatch latch = new CountDownLatch(1);
+			this.executor.execute(latch::countDown);
+			assertTrue(latch.await(1, TimeUnit.SECONDS));
+			// Let the thread get back to the queue
+			LinkedTransferQueue<?> queue = (LinkedTransferQueue<?>) this.executor.getThreadPoolExecutor().getQueue();
+			await(queue::hasWaitingConsumer);
+		}
+		assertTrue(this.executor.getPoolSize() < 4);
+	}
+
+	@Test
+	public void shrinksWhenIdle() throws Exception {
+		this.executor.setMaxPoolSize(8);
+		this.executor.setAdjustmentInterval(10);
+		this.executor.afterPropertiesSet();
+		assertEquals(8, this.executor.getEffectiveMaxPoolSize());
+		await(() -> {
+			this.executor.execute(() -> {});
+			return (this.executor.getEffectiveMaxPoolSize() == 1);
+		});
+	}
+
+	@Test
+	public void growsWithQueueLatency() throws Exception {
+		this.executor.setMaxPoolSize(8);
+		this.executor.setAdjustmentInterval(10);
+		this.executor.setTargetQueueLatency(1);
+		this.executor.afterPropertiesSet();
+		this.executor.getThreadPoolExecutor().setMaximumPoolSize(1);
+
+		AtomicInteger completed = new AtomicInteger();
+		for (int i = 0; i < 200; i++) {
+			this.executor.execute(() -> {
+				sleep(2);
+				completed.incrementAndGet();
+			});
+		}
+		await(() -> {
+			this.executor.execute(completed::incrementAndGet);
+			return (this.executor.getEffectiveMaxPoolSize() > 1);
+		});
+	}
+
+	@Test
+	public void determinePoolSizeForQueueLatency() {
+		// 2 threads working off 100 tasks/s: 50 queued tasks take 0.5s
+		assertEquals(2, AdaptiveThreadPoolTaskExecutor.determinePoolSize(50, 2, 2, 100, 1.0));
+		assertEquals(10, AdaptiveThreadPoolTaskExecutor.determinePoolSize(50, 2, 2, 100, 0.1));
+		assertEquals(10, AdaptiveThreadPoolTaskExecutor.determinePoolSize(50, 2, 4, 100, 0.1));
+		// Within the target latency
+		assertEquals(4, AdaptiveThreadPoolTaskExecutor.determinePoolSize(5, 4, 4, 100, 0.1));
+		// No throughput yet
+		assertEquals(3, AdaptiveThreadPoolTaskExecutor.determinePoolSize(50, 2, 2, 0, 0.1));
+	}
+
+	@Test
+	public void determinePoolSizeShrinksGradually() {
+		assertEquals(5, AdaptiveThreadPoolTaskExecutor.determinePoolSize(0, 2, 8, 100, 0.1));
+		assertEquals(7, AdaptiveThreadPoolTaskExecutor.determinePoolSize(0, 7, 8, 100, 0.1));
+		assertEquals(1, AdaptiveThreadPoolTaskExecutor.determinePoolSize(0, 0, 2, 0, 0.1));
+	}
+
+	@Test(expected = TaskRejectedException.class)
+	public void rejectsAfterShutdown() {
+		this.executor.afterPropertiesSet();
+		this.executor.shutdown();
+		this.executor.execute(() -> {});
+	}
+
+
+	private void block() {
+		try {
+			this.blocker.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertTrue("Condition not met in time", System.nanoTime() - deadline < 0);
+			Thread.sleep(5);
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
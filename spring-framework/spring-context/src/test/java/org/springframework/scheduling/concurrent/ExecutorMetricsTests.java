@@ -0,0 +1,202 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.AsyncResult;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+import static org.junit.Assert.*;
+
+public class ExecutorMetricsTests {
+
+	@Test
+	public void histogramPercentiles() {
+		ExecutorMetrics.Histogram histogram = new ExecutorMetrics.Histogram();
+		assertEquals(0, histogram.getPercentile(99));
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000L);
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(500500, histogram.getMean(), 0.1);
+		assertEquals(1000000, histogram.getMax());
+		assertEquals(500000, histogram.getPercentile(50), 500000 * 0.125);
+		assertEquals(990000, histogram.getPercentile(99), 990000 * 0.125);
+		assertEquals(1000000, histogram.getPercentile(100));
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+	}
+
+	@Test
+	public void metricsDisabledByDefault() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.afterPropertiesSet();
+		assertNull(executor.getMetrics());
+		executor.shutdown();
+	}
+
+	@Test
+	public void threadPoolTaskExecutor() throws Exception {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setMetricsEnabled(true);
+		executor.setMaxPoolSize(1);
+		executor.setQueueCapacity(1);
+		executor.afterPropertiesSet();
+		ExecutorMetrics metrics = executor.getMetrics();
+		assertNotNull(metrics);
+
+		CountDownLatch blocker = new CountDownLatch(1);
+		executor.execute(() -> awaitUninterruptibly(blocker));
+		Future<?> queued = executor.submit(() -> {
+			throw new IllegalStateException("expected");
+		});
+		assertEquals(1, metrics.getQueueSize());
+		try {
+			executor.execute(() -> {});
+			fail("Should have thrown TaskRejectedException");
+		}
+		catch (TaskRejectedException ex) {
+			// expected
+		}
+		Thread.sleep(20);
+		blocker.countDown();
+		try {
+			queued.get(1, TimeUnit.SECONDS);
+			fail("Should have thrown ExecutionException");
+		}
+		catch (ExecutionException ex) {
+			// expected
+		}
+		await(() -> metrics.getCompletedCount() + metrics.getFailedCount() == 2);
+
+		assertEquals(3, metrics.getSubmittedCount());
+		assertEquals(1, metrics.getCompletedCount());
+		assertEquals(1, metrics.getFailedCount());
+		assertEquals(1, metrics.getRejectedCount());
+		assertEquals(0, metrics.getQueueSize());
+		assertEquals(2, metrics.getExecutionTime().getCount());
+		assertTrue(metrics.getQueueLatencyMaxMillis() >= 10);
+		assertTrue(metrics.getExecutionTimeMaxMillis() >= 10);
+
+		metrics.resetStatistics();
+		assertEquals(0, metrics.getSubmittedCount());
+		assertEquals(0, metrics.getExecutionTime().getCount());
+		executor.shutdown();
+	}
+
+	@Test
+	public void threadPoolTaskScheduler() throws Exception {
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.setMetricsEnabled(true);
+		scheduler.setRemoveOnCancelPolicy(true);
+		scheduler.afterPropertiesSet();
+		ExecutorMetrics metrics = scheduler.getMetrics();
+		assertNotNull(metrics);
+
+		// The 4th execution only starts once the 3rd one has been recorded
+		CountDownLatch latch = new CountDownLatch(4);
+		ScheduledFuture<?> future = scheduler.scheduleAtFixedRate(latch::countDown, 10);
+		assertTrue(latch.await(1, TimeUnit.SECONDS));
+		assertEquals(0, metrics.getCompletedCount());
+		future.cancel(false);
+		assertEquals(1, metrics.getSubmittedCount());
+		assertEquals(1, metrics.getCompletedCount());
+		assertEquals(0, metrics.getFailedCount());
+		assertTrue(metrics.getExecutionTime().getCount() >= 3);
+
+		ScheduledFuture<?> pending = scheduler.schedule(() -> {}, new Date(System.currentTimeMillis() + 10000));
+		assertEquals(1, scheduler.getScheduledThreadPoolExecutor().getQueue().size());
+		pending.cancel(false);
+		assertEquals(0, scheduler.getScheduledThreadPoolExecutor().getQueue().size());
+		scheduler.shutdown();
+	}
+
+	@Test
+	public void asyncMethodTagging() throws Exception {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(AsyncConfig.class);
+		ExecutorMetrics metrics = context.getBean(ThreadPoolTaskExecutor.class).getMetrics();
+		AsyncService service = context.getBean(AsyncService.class);
+		assertEquals("done", service.work().get(1, TimeUnit.SECONDS));
+		assertEquals("done", service.work().get(1, TimeUnit.SECONDS));
+		String tag = AsyncService.class.getName() + ".work";
+		await(() -> metrics.getExecutionTimes(tag) != null && metrics.getExecutionTimes(tag).getCount() == 2);
+		assertEquals(1, metrics.getTaggedExecutionTimes().size());
+		context.close();
+	}
+
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 1000;
+		while (!condition.getAsBoolean()) {
+			assertTrue("Condition not met in time", System.currentTimeMillis() < deadline);
+			Thread.sleep(5);
+		}
+	}
+
+	private static void awaitUninterruptibly(CountDownLatch latch) {
+		try {
+			latch.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+	public static class AsyncService {
+
+		@Async
+		public Future<String> work() {
+			return new AsyncResult<>("done");
+		}
+	}
+
+
+	@Configuration
+	@EnableAsync
+	static class AsyncConfig {
+
+		@Bean
+		public ThreadPoolTaskExecutor taskExecutor() {
+			ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+			executor.setMetricsEnabled(true);
+			return executor;
+		}
+
+		@Bean
+		public AsyncService asyncService() {
+			return new AsyncService();
+		}
+	}
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.concurrent;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.Trigger;
+
+import static org.junit.Assert.*;
+
+public class TimerWheelTaskSchedulerTests {
+
+	private final TimerWheelTaskScheduler scheduler = new TimerWheelTaskScheduler();
+
+
+	@Before
+	public void setup() {
+		this.scheduler.setTickDuration(5);
+		this.scheduler.setTicksPerWheel(8);
+		this.scheduler.setPoolSize(2);
+		this.scheduler.setThreadNamePrefix("wheel-");
+	}
+
+	@After
+	public void shutdown() {
+		this.scheduler.destroy();
+	}
+
+
+	@Test
+	public void scheduleOneShotTask() throws Exception {
+		this.scheduler.afterPropertiesSet();
+		CountDownLatch latch = new CountDownLatch(1);
+		AtomicReference<String> threadName = new AtomicReference<>();
+		long start = System.currentTimeMillis();
+		ScheduledFuture<?> future = this.scheduler.schedule(() -> {
+			threadName.set(Thread.currentThread().getName());
+			latch.countDown();
+		}, new Date(start + 50));
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		assertTrue(System.currentTimeMillis() - start >= 50);
+		assertNull(future.get(1, TimeUnit.SECONDS));
+		assertTrue(future.isDone());
+		assertTrue(threadName.get().startsWith("wheel-"));
+	}
+
+	@Test
+	public void scheduleBeyondOneRevolution() throws Exception {
+		this.scheduler.afterPropertiesSet();
+		CountDownLatch latch = new CountDownLatch(1);
+		long start = System.currentTimeMillis();
+		// 8 ticks of 5 ms per revolution
+		this.scheduler.schedule(latch::countDown, new Date(start + 120));
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		assertTrue(System.currentTimeMillis() - start >= 120);
+	}
+
+	@Test
+	public void scheduleInThePast() throws Exception {
+		this.scheduler.afterPropertiesSet();
+		CountDownLatch latch = new CountDownLatch(1);
+		this.scheduler.schedule(latch::countDown, new Date(System.currentTimeMillis() - 1000));
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void cancelTask() throws Exception {
+		this.scheduler.afterPropertiesSet();
+		AtomicInteger count = new AtomicInteger();
+		ScheduledFuture<?> future = this.scheduler.schedule(
+				count::incrementAndGet, new Date(System.currentTimeMillis() + 50));
+		assertTrue(future.cancel(false));
+		assertTrue(future.isCancelled());
+		Thread.sleep(150);
+		assertEquals(0, count.get());
+	}
+
+	@Test
+	public void scheduleAtFixedRate() throws Exception {
+		this.scheduler.afterPropertiesSet();
+		CountDownLatch latch = new CountDownLatch(5);
+		ScheduledFuture<?> future = this.scheduler.scheduleAtFixedRate(latch::countDown, 10);
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		future.cancel(false);
+		assertTrue(future.isCancelled());
+	}
+
+	@Test
+	public void scheduleWithFixedDelay() throws Exception {
+		this.scheduler.afterPropertiesSet();
+		CountDownLatch latch = new CountDownLatch(3);
+		ScheduledFuture<?> future = this.scheduler.scheduleWithFixedDelay(
+				latch::countDown, new Date(System.currentTimeMillis() + 20), 10);
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		future.cancel(false);
+	}
+
+	@Test
+	public void scheduleWithTrigger() throws Exception {
+		this.scheduler.afterPropertiesSet();
+		CountDownLatch latch = new CountDownLatch(3);
+		AtomicInteger executions = new AtomicInteger();
+		Trigger trigger = triggerContext -> {
+			if (executions.get() >= 3) {
+				return null;
+			}
+			Date last = triggerContext.lastCompletionTime();
+			return new Date((last != null ? last.getTime() : System.currentTimeMillis()) + 10);
+		};
+		this.scheduler.schedule(() -> {
+			executions.incrementAndGet();
+			latch.countDown();
+		}, trigger);
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		Thread.sleep(100);
+		assertEquals(3, executions.get());
+	}
+
+	@Test
+	public void scheduleFailingTaskWithErrorHandler() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		this.scheduler.setErrorHandler(ex -> {
+			error.set(ex);
+			latch.countDown();
+		});
+		this.scheduler.afterPropertiesSet();
+		this.scheduler.schedule(() -> {
+			throw new IllegalStateException("expected");
+		}, new Date());
+		assertTrue(latch.await(2, TimeUnit.SECONDS));
+		assertTrue(error.get() instanceof IllegalStateException);
+	}
+
+	@Test
+	public void shutdownCancelsPendingTasks() throws Exception {
+		this.scheduler.afterPropertiesSet();
+		ScheduledFuture<?> future = this.scheduler.schedule(() -> {}, new Date(System.currentTimeMillis() + 10000));
+		this.scheduler.shutdown();
+		assertTrue(future.isCancelled());
+		try {
+			this.scheduler.schedule(() -> {}, new Date());
+			fail("Should have thrown TaskRejectedException");
+		}
+		catch (TaskRejectedException ex) {
+			// expected
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.scheduling.support;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CronScheduleTests {
+
+	private static final ZoneId UTC = ZoneId.of("UTC");
+
+
+	@Test
+	public void nextMatchesNaiveSearch() {
+		String[] expressions = {"* * * * * *", "*/15 * 1-4 * * *", "0 0/30 8-10 * * *", "0 0 9-17 * * MON-FRI",
+				"0 0 0 25 12 ?", "10 5 3 31 * *", "0 0 0 29 2 *", "0 0 12 1-7 * SUN", "59 59 23 28-31 * *"};
+		Random random = new Random(42);
+		for (String expression : expressions) {
+			long[] masks = new CronSequenceGenerator(expression).getFieldMasks();
+			CronSchedule schedule = new CronSchedule(expression, UTC);
+			for (int i = 0; i < 200; i++) {
+				ZonedDateTime dateTime = Instant.ofEpochMilli(
+						1500000000000L + (long) (random.nextDouble() * 200000000000L)).atZone(UTC);
+				assertEquals(expression + " after " + dateTime, naiveNext(masks, dateTime), schedule.next(dateTime));
+			}
+		}
+	}
+
+	private static ZonedDateTime naiveNext(long[] masks, ZonedDateTime dateTime) {
+		ZonedDateTime after = dateTime.truncatedTo(ChronoUnit.SECONDS);
+		for (ZonedDateTime day = after.truncatedTo(ChronoUnit.DAYS); ; day = day.plusDays(1)) {
+			if (isSet(masks[3], day.getDayOfMonth()) && isSet(masks[4], day.getMonthValue() - 1) &&
+					isSet(masks[5], day.getDayOfWeek().getValue() % 7)) {
+				for (int hour = 0; hour < 24; hour++) {
+					for (int minute = 0; minute < 60; minute++) {
+						for (int second = 0; second < 60; second++) {
+							if (isSet(masks[2], hour) && isSet(masks[1], minute) && isSet(masks[0], second)) {
+								ZonedDateTime candidate = day.withHour(hour).withMinute(minute).withSecond(second);
+								if (candidate.isAfter(after)) {
+									return candidate;
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean isSet(long mask, int index) {
+		return (mask & (1L << index)) != 0;
+	}
+
+	@Test
+	public void nextIsAfterSeed() {
+		CronSchedule schedule = new CronSchedule("0 0 12 * * *", UTC);
+		ZonedDateTime noon = ZonedDateTime.of(2018, 3, 1, 12, 0, 0, 0, UTC);
+		assertEquals(noon.plusDays(1), schedule.next(noon));
+		assertEquals(noon, schedule.next(noon.minusNanos(1)));
+	}
+
+	@Test
+	public void nextInDifferentTimeZone() {
+		CronSchedule schedule = new CronSchedule("0 0 9 * * *", ZoneId.of("Europe/Berlin"));
+		ZonedDateTime next = schedule.next(ZonedDateTime.of(2018, 3, 1, 0, 0, 0, 0, UTC));
+		assertEquals(ZonedDateTime.of(2018, 3, 1, 9, 0, 0, 0, ZoneId.of("Europe/Berlin")), next);
+	}
+
+	@Test
+	public void nextSkipsDaylightSavingGap() {
+		ZoneId zone = ZoneId.of("Europe/Berlin");
+		CronSchedule schedule = new CronSchedule("0 30 2 * * *", zone);
+		// 2:30 does not exist on March 25, 2018 in Berlin
+		assertEquals(ZonedDateTime.of(2018, 3, 26, 2, 30, 0, 0, zone),
+				schedule.next(ZonedDateTime.of(2018, 3, 24, 12, 0, 0, 0, zone)));
+	}
+
+	@Test
+	public void nextExecutions() {
+		CronSchedule schedule = new CronSchedule("0 0 0 1 * *", UTC);
+		List<ZonedDateTime> executions = schedule.nextExecutions(ZonedDateTime.of(2018, 1, 15, 0, 0, 0, 0, UTC), 3);
+		assertEquals(3, executions.size());
+		assertEquals(ZonedDateTime.of(2018, 2, 1, 0, 0, 0, 0, UTC), executions.get(0));
+		assertEquals(ZonedDateTime.of(2018, 3, 1, 0, 0, 0, 0, UTC), executions.get(1));
+		assertEquals(ZonedDateTime.of(2018, 4, 1, 0, 0, 0, 0, UTC), executions.get(2));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void runawaySearch() {
+		new CronSchedule("0 0 0 30 2 *", UTC).next(ZonedDateTime.now(UTC));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidExpression() {
+		new CronSchedule("0 0 0 * *", UTC);
+	}
+
+	@Test
+	public void equalsAndHashCode() {
+		CronSchedule schedule = new CronSchedule("0 0 * * * MON", UTC);
+		CronSchedule other = new CronSchedule("0 0 * * * 1", UTC);
+		assertEquals(schedule, other);
+		assertEquals(schedule.hashCode(), other.hashCode());
+		assertNotEquals(schedule, new CronSchedule("0 0 * * * MON", ZoneId.of("Europe/Berlin")));
+	}
+
+}
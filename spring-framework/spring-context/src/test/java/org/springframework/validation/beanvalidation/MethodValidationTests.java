@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,7 +18,10 @@ package org.springframework.validation.beanvalidation;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.validation.Validation;
 import javax.validation.Validator;
+import javax.validation.executable.ExecutableValidator;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.NotNull;
 import javax.validation.groups.Default;
@@ -116,6 +119,42 @@ public class MethodValidationTests {
 		}
 	}
 
+	@Test
+	public void testMethodValidationInterceptorSkipsUnconstrainedMethods() {
+		AtomicInteger validations = new AtomicInteger();
+		Validator validator = new SpringValidatorAdapter(Validation.buildDefaultValidatorFactory().getValidator()) {
+			@Override
+			public ExecutableValidator forExecutables() {
+				validations.incrementAndGet();
+				return super.forExecutables();
+			}
+		};
+		ProxyFactory proxyFactory = new ProxyFactory(new MyPartiallyValidBean());
+		proxyFactory.addAdvice(new MethodValidationInterceptor(validator));
+		MyPartiallyValidInterface proxy = (MyPartiallyValidInterface) proxyFactory.getProxy();
+
+		assertEquals("value", proxy.unconstrainedMethod("value"));
+		assertNull(proxy.unconstrainedMethod(null));
+		assertEquals(0, validations.get());
+
+		assertEquals("value", proxy.constrainedMethod("value"));
+		assertEquals(1, validations.get());
+		try {
+			proxy.constrainedMethod(null);
+			fail("Should have thrown ValidationException");
+		}
+		catch (javax.validation.ValidationException ex) {
+			// expected
+		}
+		try {
+			proxy.constrainedReturnValue(null);
+			fail("Should have thrown ValidationException");
+		}
+		catch (javax.validation.ValidationException ex) {
+			// expected
+		}
+	}
+
 	@Test
 	public void testLazyValidatorForMethodValidation() {
 		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(
@@ -154,6 +193,35 @@ public class MethodValidationTests {
 	}
 
 
+	public interface MyPartiallyValidInterface {
+
+		String unconstrainedMethod(String arg);
+
+		String constrainedMethod(@NotNull String arg);
+
+		@NotNull String constrainedReturnValue(String arg);
+	}
+
+
+	public static class MyPartiallyValidBean implements MyPartiallyValidInterface {
+
+		@Override
+		public String unconstrainedMethod(String arg) {
+			return arg;
+		}
+
+		@Override
+		public String constrainedMethod(String arg) {
+			return arg;
+		}
+
+		@Override
+		public String constrainedReturnValue(String arg) {
+			return arg;
+		}
+	}
+
+
 	public interface MyGroup {
 	}
 
@@ -0,0 +1,462 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ApplicationStartup} implementation that records ended steps
+ * in memory, keeping their nesting, tags and timings.
+ *
+ * <p>Steps are nested per thread: a step started while another step is in
+ * progress on the same thread becomes a child of that step. A step may be
+ * ended in any order and from any thread, e.g. by an asynchronous callback:
+ * it is removed from the steps in progress of its starting thread by identity. The recorded
+ * steps can be inspected via {@link #getRecordedSteps()} and exported as an
+ * indented {@link #exportTree tree} or in the {@link #exportCollapsedStacks
+ * collapsed stack} format understood by common flame graph tools, with
+ * the self time of each step in microseconds as sample count.
+ *
+ * <p>The number of recorded steps is bounded by a configurable capacity.
+ * Once it is reached, the oldest recorded leaf steps are evicted in favor of
+ * newly ended ones and just counted: since a step ends after all of its nested
+ * steps, the enclosing steps such as the overall context refresh are kept,
+ * whereas fine-grained steps from early on may be missing.
+ *
+ * @since 5.1
+ */
+public class RecordingApplicationStartup implements ApplicationStartup {
+
+	/** Default maximum number of steps to record */
+	public static final int DEFAULT_CAPACITY = 10000;
+
+
+	private final int capacity;
+
+	private final long startNanos = System.nanoTime();
+
+	private final AtomicLong idGenerator = new AtomicLong();
+
+	private final ThreadLocal<Deque<RecordingStep>> currentSteps =
+			new NamedThreadLocal<>("Current startup steps");
+
+	/** Recorded steps in the order of their end: step id -> RecordedStep */
+	private final Map<Long, RecordedStep> recordedSteps = new LinkedHashMap<>();
+
+	/** Number of recorded nested steps per parent step id */
+	private final Map<Long, Integer> recordedChildCounts = new HashMap<>();
+
+	private int droppedStepCount;
+
+
+	/**
+	 * Create a new {@code RecordingApplicationStartup} with the default capacity.
+	 * @see #DEFAULT_CAPACITY
+	 */
+	public RecordingApplicationStartup() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create a new {@code RecordingApplicationStartup} with the given capacity.
+	 * @param capacity the maximum number of steps to record
+	 */
+	public RecordingApplicationStartup(int capacity) {
+		Assert.isTrue(capacity > 0, "Capacity must be greater than 0");
+		this.capacity = capacity;
+	}
+
+
+	@Override
+	public StartupStep start(String name) {
+		Assert.notNull(name, "Step name must not be null");
+		Deque<RecordingStep> steps = this.currentSteps.get();
+		if (steps == null) {
+			steps = new ConcurrentLinkedDeque<>();
+			this.currentSteps.set(steps);
+		}
+		RecordingStep parent = steps.peek();
+		RecordingStep step = new RecordingStep(this.idGenerator.incrementAndGet(),
+				(parent != null ? parent.getId() : null), name, steps);
+		steps.push(step);
+		return step;
+	}
+
+	private void record(RecordingStep step, long endNanos) {
+		Deque<RecordingStep> steps = step.steps;
+		// Remove by identity, since steps are not necessarily ended in reverse order.
+		steps.removeFirstOccurrence(step);
+		if (steps.isEmpty() && steps == this.currentSteps.get()) {
+			this.currentSteps.remove();
+		}
+		RecordedStep recordedStep = new RecordedStep(step.getId(), step.getParentId(), step.getName(),
+				step.getTags(), Thread.currentThread().getName(),
+				step.startNanos - this.startNanos, endNanos - step.startNanos);
+		synchronized (this.recordedSteps) {
+			if (this.recordedSteps.size() >= this.capacity) {
+				evictOldestLeafStep();
+			}
+			this.recordedSteps.put(recordedStep.getId(), recordedStep);
+			Long parentId = recordedStep.getParentId();
+			if (parentId != null) {
+				this.recordedChildCounts.merge(parentId, 1, Integer::sum);
+			}
+		}
+	}
+
+	private void evictOldestLeafStep() {
+		// Typically the very first entry, since nested steps end before their parents.
+		for (Iterator<RecordedStep> it = this.recordedSteps.values().iterator(); it.hasNext();) {
+			RecordedStep candidate = it.next();
+			if (!this.recordedChildCounts.containsKey(candidate.getId())) {
+				it.remove();
+				Long parentId = candidate.getParentId();
+				if (parentId != null) {
+					this.recordedChildCounts.computeIfPresent(parentId, (id, count) -> (count > 1 ? count - 1 : null));
+				}
+				this.droppedStepCount++;
+				return;
+			}
+		}
+	}
+
+
+	/**
+	 * Return all recorded (i.e. ended) steps, in the order of their start.
+	 */
+	public List<RecordedStep> getRecordedSteps() {
+		List<RecordedStep> result;
+		synchronized (this.recordedSteps) {
+			result = new ArrayList<>(this.recordedSteps.values());
+		}
+		result.sort(Comparator.comparingLong(RecordedStep::getId));
+		return result;
+	}
+
+	/**
+	 * Return the recorded steps with the given name, in the order of their start.
+	 * @param name the step name, e.g. "spring.beans.instantiate"
+	 */
+	public List<RecordedStep> getRecordedSteps(String name) {
+		List<RecordedStep> result = new ArrayList<>();
+		for (RecordedStep step : getRecordedSteps()) {
+			if (step.getName().equals(name)) {
+				result.add(step);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the number of recorded steps that have been evicted
+	 * since the capacity had been reached.
+	 */
+	public int getDroppedStepCount() {
+		synchronized (this.recordedSteps) {
+			return this.droppedStepCount;
+		}
+	}
+
+	/**
+	 * Discard all steps recorded so far.
+	 */
+	public void reset() {
+		synchronized (this.recordedSteps) {
+			this.recordedSteps.clear();
+			this.recordedChildCounts.clear();
+			this.droppedStepCount = 0;
+		}
+	}
+
+
+	/**
+	 * Export the recorded steps as an indented tree, one step per line
+	 * with its tags and total duration in milliseconds.
+	 * @param writer the writer to export to
+	 * @throws IOException in case of I/O errors
+	 */
+	public void exportTree(Writer writer) throws IOException {
+		StepTree tree = new StepTree(getRecordedSteps());
+		for (RecordedStep root : tree.roots) {
+			exportTree(tree, root, 0, writer);
+		}
+		writer.flush();
+	}
+
+	private void exportTree(StepTree tree, RecordedStep step, int depth, Writer writer) throws IOException {
+		for (int i = 0; i < depth; i++) {
+			writer.write("  ");
+		}
+		writer.write(step.getLabel());
+		writer.write(String.format(" %.3f ms", step.getDuration().toNanos() / 1000000.0));
+		writer.write('\n');
+		for (RecordedStep child : tree.getChildren(step)) {
+			exportTree(tree, child, depth + 1, writer);
+		}
+	}
+
+	/**
+	 * Export the recorded steps in collapsed stack format: one line per step,
+	 * consisting of the semicolon-separated labels of the step and all of its
+	 * parents followed by the self time of the step in microseconds.
+	 * @param writer the writer to export to
+	 * @throws IOException in case of I/O errors
+	 */
+	public void exportCollapsedStacks(Writer writer) throws IOException {
+		StepTree tree = new StepTree(getRecordedSteps());
+		for (RecordedStep root : tree.roots) {
+			exportCollapsedStacks(tree, root, "", writer);
+		}
+		writer.flush();
+	}
+
+	private void exportCollapsedStacks(StepTree tree, RecordedStep step, String prefix, Writer writer)
+			throws IOException {
+
+		String stack = prefix + step.getLabel().replace(';', ':');
+		long selfNanos = step.getDuration().toNanos();
+		List<RecordedStep> children = tree.getChildren(step);
+		for (RecordedStep child : children) {
+			selfNanos -= child.getDuration().toNanos();
+		}
+		writer.write(stack);
+		writer.write(' ');
+		writer.write(Long.toString(Math.max(selfNanos, 0) / 1000));
+		writer.write('\n');
+		for (RecordedStep child : children) {
+			exportCollapsedStacks(tree, child, stack + ';', writer);
+		}
+	}
+
+	@Override
+	public String toString() {
+		synchronized (this.recordedSteps) {
+			return getClass().getSimpleName() + ": " + this.recordedSteps.size() + " steps recorded, " +
+					this.droppedStepCount + " dropped";
+		}
+	}
+
+
+	/**
+	 * A step in progress, pushed onto the stack of the starting thread.
+	 */
+	private class RecordingStep implements StartupStep {
+
+		private final long id;
+
+		@Nullable
+		private final Long parentId;
+
+		private final String name;
+
+		private final Deque<RecordingStep> steps;
+
+		private final long startNanos = System.nanoTime();
+
+		private final Map<String, String> tags = new LinkedHashMap<>(4);
+
+		private volatile boolean ended;
+
+		RecordingStep(long id, @Nullable Long parentId, String name, Deque<RecordingStep> steps) {
+			this.id = id;
+			this.parentId = parentId;
+			this.name = name;
+			this.steps = steps;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public long getId() {
+			return this.id;
+		}
+
+		@Override
+		@Nullable
+		public Long getParentId() {
+			return this.parentId;
+		}
+
+		@Override
+		public StartupStep tag(String key, String value) {
+			Assert.state(!this.ended, "StartupStep has already ended");
+			this.tags.put(key, value);
+			return this;
+		}
+
+		@Override
+		public StartupStep tag(String key, Supplier<String> value) {
+			return tag(key, value.get());
+		}
+
+		@Override
+		public Map<String, String> getTags() {
+			return Collections.unmodifiableMap(this.tags);
+		}
+
+		@Override
+		public void end() {
+			long endNanos = System.nanoTime();
+			Assert.state(!this.ended, "StartupStep has already ended");
+			this.ended = true;
+			record(this, endNanos);
+		}
+	}
+
+
+	/**
+	 * An ended step, as recorded by a {@link RecordingApplicationStartup}.
+	 */
+	public static final class RecordedStep {
+
+		private final long id;
+
+		@Nullable
+		private final Long parentId;
+
+		private final String name;
+
+		private final Map<String, String> tags;
+
+		private final String threadName;
+
+		private final long startOffsetNanos;
+
+		private final long durationNanos;
+
+		RecordedStep(long id, @Nullable Long parentId, String name, Map<String, String> tags,
+				String threadName, long startOffsetNanos, long durationNanos) {
+
+			this.id = id;
+			this.parentId = parentId;
+			this.name = name;
+			this.tags = Collections.unmodifiableMap(new LinkedHashMap<>(tags));
+			this.threadName = threadName;
+			this.startOffsetNanos = startOffsetNanos;
+			this.durationNanos = durationNanos;
+		}
+
+		public long getId() {
+			return this.id;
+		}
+
+		@Nullable
+		public Long getParentId() {
+			return this.parentId;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public Map<String, String> getTags() {
+			return this.tags;
+		}
+
+		/**
+		 * Return the name of the thread that ended the step.
+		 */
+		public String getThreadName() {
+			return this.threadName;
+		}
+
+		/**
+		 * Return the start of the step, relative to the creation of the
+		 * {@link RecordingApplicationStartup}.
+		 */
+		public Duration getStartOffset() {
+			return Duration.ofNanos(this.startOffsetNanos);
+		}
+
+		/**
+		 * Return the total duration of the step, including nested steps.
+		 */
+		public Duration getDuration() {
+			return Duration.ofNanos(this.durationNanos);
+		}
+
+		/**
+		 * Return a label for the step: its name followed by its tag values, if any.
+		 */
+		public String getLabel() {
+			if (this.tags.isEmpty()) {
+				return this.name;
+			}
+			return this.name + this.tags.values();
+		}
+
+		@Override
+		public String toString() {
+			return getLabel() + " " + this.durationNanos / 1000 + "us";
+		}
+	}
+
+
+	/**
+	 * Parent-child view on a list of recorded steps. Steps whose parent
+	 * has not been recorded are treated as roots.
+	 */
+	private static class StepTree {
+
+		final List<RecordedStep> roots = new ArrayList<>();
+
+		private final Map<Long, List<RecordedStep>> children = new HashMap<>();
+
+		StepTree(List<RecordedStep> steps) {
+			Map<Long, RecordedStep> stepsById = new HashMap<>(steps.size());
+			for (RecordedStep step : steps) {
+				stepsById.put(step.getId(), step);
+			}
+			for (RecordedStep step : steps) {
+				Long parentId = step.getParentId();
+				if (parentId != null && stepsById.containsKey(parentId)) {
+					this.children.computeIfAbsent(parentId, id -> new ArrayList<>()).add(step);
+				}
+				else {
+					this.roots.add(step);
+				}
+			}
+		}
+
+		List<RecordedStep> getChildren(RecordedStep step) {
+			List<RecordedStep> result = this.children.get(step.getId());
+			return (result != null ? result : Collections.emptyList());
+		}
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.core.metrics.RecordingApplicationStartup.RecordedStep;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link RecordingApplicationStartup}.
+ */
+public class RecordingApplicationStartupTests {
+
+	@Test
+	public void defaultApplicationStartupDoesNotRecord() {
+		StartupStep step = ApplicationStartup.DEFAULT.start("test").tag("key", "value");
+		step.end();
+		assertTrue(step.getTags().isEmpty());
+		assertNull(step.getParentId());
+	}
+
+	@Test
+	public void nestedStepsAreRecordedWithParent() {
+		RecordingApplicationStartup startup = new RecordingApplicationStartup();
+		StartupStep outer = startup.start("outer").tag("beanName", "a");
+		StartupStep inner = startup.start("inner").tag("beanName", "b");
+		inner.end();
+		StartupStep sibling = startup.start("inner").tag("beanName", () -> "c");
+		sibling.end();
+		outer.end();
+		StartupStep next = startup.start("next");
+		next.end();
+
+		List<RecordedStep> steps = startup.getRecordedSteps();
+		assertEquals(4, steps.size());
+		assertEquals("outer", steps.get(0).getName());
+		assertNull(steps.get(0).getParentId());
+		assertEquals(Long.valueOf(outer.getId()), steps.get(1).getParentId());
+		assertEquals(Long.valueOf(outer.getId()), steps.get(2).getParentId());
+		assertEquals("c", steps.get(2).getTags().get("beanName"));
+		assertNull(steps.get(3).getParentId());
+		assertTrue(steps.get(0).getDuration().compareTo(steps.get(1).getDuration()) >= 0);
+
+		assertEquals(2, startup.getRecordedSteps("inner").size());
+	}
+
+	@Test
+	public void stepEndedOutOfOrderIsNoLongerParent() {
+		RecordingApplicationStartup startup = new RecordingApplicationStartup();
+		StartupStep outer = startup.start("outer");
+		StartupStep inner = startup.start("inner");
+		outer.end();
+		StartupStep next = startup.start("next");
+		assertEquals(Long.valueOf(inner.getId()), next.getParentId());
+		next.end();
+		inner.end();
+		assertNull(startup.start("last").getParentId());
+	}
+
+	@Test
+	public void stepEndedFromOtherThreadIsNoLongerParent() throws Exception {
+		RecordingApplicationStartup startup = new RecordingApplicationStartup();
+		StartupStep async = startup.start("async");
+		Thread thread = new Thread(async::end);
+		thread.start();
+		thread.join();
+
+		assertNull(startup.start("next").getParentId());
+		assertEquals(1, startup.getRecordedSteps("async").size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void stepCannotEndTwice() {
+		StartupStep step = new RecordingApplicationStartup().start("test");
+		step.end();
+		step.end();
+	}
+
+	@Test
+	public void capacityLimitsRecordedSteps() {
+		RecordingApplicationStartup startup = new RecordingApplicationStartup(2);
+		for (int i = 0; i < 5; i++) {
+			startup.start("step").end();
+		}
+		assertEquals(2, startup.getRecordedSteps().size());
+		assertEquals(3, startup.getDroppedStepCount());
+
+		startup.reset();
+		assertTrue(startup.getRecordedSteps().isEmpty());
+		assertEquals(0, startup.getDroppedStepCount());
+	}
+
+	@Test
+	public void capacityKeepsEnclosingSteps() {
+		RecordingApplicationStartup startup = new RecordingApplicationStartup(3);
+		StartupStep outer = startup.start("outer");
+		StartupStep middle = startup.start("middle");
+		for (int i = 0; i < 5; i++) {
+			startup.start("inner").end();
+		}
+		middle.end();
+		outer.end();
+
+		List<RecordedStep> steps = startup.getRecordedSteps();
+		assertEquals(3, steps.size());
+		assertEquals("outer", steps.get(0).getName());
+		assertEquals("middle", steps.get(1).getName());
+		assertEquals("inner", steps.get(2).getName());
+		assertEquals(steps.get(1).getId(), steps.get(2).getParentId().longValue());
+		assertEquals(4, startup.getDroppedStepCount());
+	}
+
+	@Test
+	public void exportTree() throws Exception {
+		RecordingApplicationStartup startup = new RecordingApplicationStartup();
+		StartupStep outer = startup.start("outer");
+		startup.start("inner").tag("beanName", "b").end();
+		outer.end();
+
+		StringWriter writer = new StringWriter();
+		startup.exportTree(writer);
+		String[] lines = writer.toString().split("\n");
+		assertEquals(2, lines.length);
+		assertTrue(lines[0], lines[0].matches("outer \\d+[.,]\\d{3} ms"));
+		assertTrue(lines[1], lines[1].matches("  inner\\[b\\] \\d+[.,]\\d{3} ms"));
+	}
+
+	@Test
+	public void exportCollapsedStacks() throws Exception {
+		RecordingApplicationStartup startup = new RecordingApplicationStartup();
+		StartupStep outer = startup.start("outer");
+		startup.start("inner").tag("beanName", "a;b").end();
+		outer.end();
+
+		StringWriter writer = new StringWriter();
+		startup.exportCollapsedStacks(writer);
+		String[] lines = writer.toString().split("\n");
+		assertEquals(2, lines.length);
+		assertTrue(lines[0], lines[0].matches("outer \\d+"));
+		assertTrue(lines[1], lines[1].matches("outer;inner\\[a:b\\] \\d+"));
+	}
+
+}